@@ -1,5 +1,11 @@
 package com.cityconnect.smart_interventions.config;
 
+import com.cityconnect.smart_interventions.exception.ConflitException;
+import com.cityconnect.smart_interventions.exception.IdentifiantsInvalidesException;
+import com.cityconnect.smart_interventions.exception.JetonInvalideException;
+import com.cityconnect.smart_interventions.exception.ResourceNotFoundException;
+import com.cityconnect.smart_interventions.exception.SurchargeException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -36,4 +42,60 @@ public class GlobalExceptionHandler {
             .status(HttpStatus.BAD_REQUEST)
             .body(error);
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<Map<String, String>> handleNotFound(ResourceNotFoundException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", e.getMessage());
+        error.put("type", "NotFound");
+
+        return ResponseEntity
+            .status(HttpStatus.NOT_FOUND)
+            .body(error);
+    }
+
+    @ExceptionHandler(ConflitException.class)
+    public ResponseEntity<Map<String, String>> handleConflit(ConflitException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", e.getMessage());
+        error.put("type", "Conflict");
+
+        return ResponseEntity
+            .status(HttpStatus.CONFLICT)
+            .body(error);
+    }
+
+    @ExceptionHandler(SurchargeException.class)
+    public ResponseEntity<Map<String, String>> handleSurcharge(SurchargeException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", e.getMessage());
+        error.put("type", "TooManyRequests");
+
+        return ResponseEntity
+            .status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSecondes()))
+            .body(error);
+    }
+
+    @ExceptionHandler(JetonInvalideException.class)
+    public ResponseEntity<Map<String, String>> handleJetonInvalide(JetonInvalideException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", e.getMessage());
+        error.put("type", "Unauthorized");
+
+        return ResponseEntity
+            .status(HttpStatus.UNAUTHORIZED)
+            .body(error);
+    }
+
+    @ExceptionHandler(IdentifiantsInvalidesException.class)
+    public ResponseEntity<Map<String, String>> handleIdentifiantsInvalides(IdentifiantsInvalidesException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", e.getMessage());
+        error.put("type", "Unauthorized");
+
+        return ResponseEntity
+            .status(HttpStatus.UNAUTHORIZED)
+            .body(error);
+    }
+}
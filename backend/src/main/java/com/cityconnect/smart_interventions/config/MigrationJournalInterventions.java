@@ -0,0 +1,118 @@
+package com.cityconnect.smart_interventions.config;
+
+import com.cityconnect.smart_interventions.model.BucketCommentaires;
+import com.cityconnect.smart_interventions.model.BucketHistoriqueStatut;
+import com.cityconnect.smart_interventions.model.Intervention;
+import com.cityconnect.smart_interventions.service.impl.JournalInterventionServiceImpl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Migration unique : déplace les tableaux commentaires / historiqueStatut des anciens documents
+ * Intervention vers les collections de buckets, puis les retire du document en ne gardant
+ * que le nombre d'entrées et la dernière.
+ *
+ * Activée par migration.journal-interventions=true, à lancer une fois pendant une maintenance.
+ * Rejouable : une intervention déjà migrée n'a plus de tableau et n'est plus relue, et une
+ * intervention à moitié migrée voit ses buckets réécrits.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "migration.journal-interventions", havingValue = "true")
+public class MigrationJournalInterventions implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long debut = System.currentTimeMillis();
+        int nb = 0;
+
+        Query query = new BasicQuery(
+                "{ $or: [ { commentaires: { $exists: true } }, { historiqueStatut: { $exists: true } } ] }",
+                "{ commentaires: 1, historiqueStatut: 1 }");
+        try (Stream<Document> stream = mongoTemplate.stream(query, Document.class, "interventions")) {
+            for (Iterator<Document> it = stream.iterator(); it.hasNext(); nb++) {
+                migrer(it.next());
+                if (nb % 1000 == 0 && nb > 0) {
+                    log.info("Migration journal : {} interventions traitées", nb);
+                }
+            }
+        }
+        log.info("Migration journal terminée : {} interventions en {} ms", nb, System.currentTimeMillis() - debut);
+    }
+
+    private void migrer(Document doc) {
+        String id = doc.get("_id").toString();
+        Update update = new Update().unset("commentaires").unset("historiqueStatut");
+
+        List<Intervention.Commentaire> commentaires = migrerListe(id, doc, "commentaires",
+                Intervention.Commentaire.class, BucketCommentaires.class, BucketCommentaires::getEntrees,
+                (numero, entrees) -> new BucketCommentaires(JournalInterventionServiceImpl.idBucket(id, numero),
+                        id, numero, entrees.size(), entrees));
+        update.set("nbCommentaires", commentaires.size());
+        update.set("dernierCommentaire", commentaires.isEmpty() ? null : commentaires.get(commentaires.size() - 1));
+
+        List<Intervention.HistoriqueStatut> historique = migrerListe(id, doc, "historiqueStatut",
+                Intervention.HistoriqueStatut.class, BucketHistoriqueStatut.class, BucketHistoriqueStatut::getEntrees,
+                (numero, entrees) -> new BucketHistoriqueStatut(JournalInterventionServiceImpl.idBucket(id, numero),
+                        id, numero, entrees.size(), entrees));
+        update.set("nbChangementsStatut", historique.size());
+        update.set("dernierChangementStatut", historique.isEmpty() ? null : historique.get(historique.size() - 1));
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(doc.get("_id"))), update, Intervention.class);
+    }
+
+    /**
+     * Anciennes entrées du tableau, suivies des entrées déjà écrites en buckets depuis le déploiement,
+     * réécrites en buckets pleins de TAILLE entrées.
+     */
+    private <E, B> List<E> migrerListe(String id, Document doc, String champ, Class<E> typeEntree, Class<B> typeBucket,
+                                       Function<B, List<E>> entrees,
+                                       BiFunction<Integer, List<E>, B> nouveauBucket) {
+        List<E> toutes = new ArrayList<>();
+        List<?> anciennes = doc.getList(champ, Object.class);
+        if (anciennes != null) {
+            for (Object o : anciennes) {
+                if (o instanceof Document d) {
+                    toutes.add(mongoTemplate.getConverter().read(typeEntree, d));
+                }
+            }
+        }
+
+        Query buckets = Query.query(Criteria.where("interventionId").is(id)).with(Sort.by("numero"));
+        for (B b : mongoTemplate.find(buckets, typeBucket)) {
+            if (entrees.apply(b) != null) toutes.addAll(entrees.apply(b));
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("interventionId").is(id)), typeBucket);
+
+        List<B> nouveaux = new ArrayList<>();
+        for (int i = 0; i < toutes.size(); i += BucketCommentaires.TAILLE) {
+            List<E> lot = new ArrayList<>(toutes.subList(i, Math.min(i + BucketCommentaires.TAILLE, toutes.size())));
+            nouveaux.add(nouveauBucket.apply(i / BucketCommentaires.TAILLE, lot));
+        }
+        if (!nouveaux.isEmpty()) {
+            mongoTemplate.insertAll(nouveaux);
+        }
+        return toutes;
+    }
+}
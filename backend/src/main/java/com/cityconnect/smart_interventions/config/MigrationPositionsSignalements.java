@@ -0,0 +1,83 @@
+package com.cityconnect.smart_interventions.config;
+
+import com.cityconnect.smart_interventions.model.Signalement;
+import com.cityconnect.smart_interventions.utils.GeoUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Migration unique : renseigne le point GeoJSON position des anciens signalements à partir
+ * du texte coordonnees, pour qu'ils entrent dans l'index 2dsphere.
+ *
+ * Activée par migration.positions-signalements=true ; tourne en arrière-plan une fois l'application
+ * démarrée, par lots écrits en bulk. Rejouable : un signalement traité a un champ position (null si
+ * ses coordonnées sont illisibles) et n'est plus relu. Une mise à jour concurrente qui change les
+ * coordonnées gagne : l'écriture est conditionnée au texte lu.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "migration.positions-signalements", havingValue = "true")
+public class MigrationPositionsSignalements {
+
+    private static final int TAILLE_LOT = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrer() {
+        long debut = System.currentTimeMillis();
+        int nb = 0;
+        int localises = 0;
+        try {
+            Query query = new BasicQuery("{ position: { $exists: false } }", "{ coordonnees: 1 }");
+            BulkOperations bulk = null;
+            int enAttente = 0;
+            try (Stream<Document> stream = mongoTemplate.stream(query, Document.class, "signalements")) {
+                for (Iterator<Document> it = stream.iterator(); it.hasNext(); nb++) {
+                    Document doc = it.next();
+                    String coordonnees = doc.getString("coordonnees");
+                    double[] p = GeoUtils.parseCoordonnees(coordonnees);
+                    if (p != null) {
+                        localises++;
+                    }
+
+                    if (bulk == null) bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Signalement.class);
+                    bulk.updateOne(Query.query(Criteria.where("_id").is(doc.get("_id"))
+                                    .and("coordonnees").is(coordonnees)
+                                    .and("position").exists(false)),
+                            Update.update("position", GeoUtils.versPoint(p)));
+                    if (++enAttente == TAILLE_LOT) {
+                        bulk.execute();
+                        bulk = null;
+                        enAttente = 0;
+                        log.info("Migration positions : {} signalements traités", nb + 1);
+                    }
+                }
+            }
+            if (bulk != null) {
+                bulk.execute();
+            }
+            log.info("Migration positions terminée : {} signalements dont {} localisés en {} ms",
+                    nb, localises, System.currentTimeMillis() - debut);
+        } catch (Exception e) {
+            log.warn("Migration des positions de signalements interrompue après {} documents : {}", nb, e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,96 @@
 package com.cityconnect.smart_interventions.config;
 
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.scheduling.annotation.Async;
+
+/**
+ * Création des index déclarés sur les modèles (@Indexed, @CompoundIndex, @GeoSpatialIndexed).
+ * Spring Boot ne les crée pas (spring.data.mongodb.auto-index-creation=false par défaut) :
+ * on le fait ici, en arrière-plan, une fois l'application démarrée.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
 public class MongoConfig {
 
+    private final MongoTemplate mongoTemplate;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void creerIndex() {
+        try {
+            mongoTemplate.executeCommand("{ ping: 1 }");
+        } catch (Exception e) {
+            log.warn("MongoDB injoignable, index non vérifiés : {}", e.getMessage());
+            return;
+        }
+
+        MongoMappingContext mappingContext = (MongoMappingContext) mongoTemplate.getConverter().getMappingContext();
+        IndexResolver resolver = IndexResolver.create(mappingContext);
+
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(Document.class)) {
+                continue;
+            }
+            IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+            for (IndexDefinition index : resolver.resolveIndexFor(entity.getTypeInformation())) {
+                try {
+                    indexOps.createIndex(index);
+                } catch (Exception e) {
+                    // Un index impossible (doublons, données invalides...) ne doit pas bloquer les autres
+                    log.warn("Index {} non créé sur {} : {}", index.getIndexKeys(), entity.getCollection(), e.getMessage());
+                }
+            }
+        }
+        verifierIndexGeo(mappingContext);
+        log.info("Index MongoDB vérifiés");
+    }
+
+    /**
+     * Les requêtes $nearSphere échouent sans index 2dsphere (et $geoWithin parcourt toute la collection) :
+     * on vérifie que chaque champ @GeoSpatialIndexed a bien le sien, au cas où sa création a échoué
+     * (document avec une localisation invalide, index concurrent de même nom...).
+     */
+    private void verifierIndexGeo(MongoMappingContext mappingContext) {
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(Document.class)) {
+                continue;
+            }
+            for (MongoPersistentProperty property : entity) {
+                GeoSpatialIndexed geo = property.findAnnotation(GeoSpatialIndexed.class);
+                if (geo == null || geo.type() != GeoSpatialIndexType.GEO_2DSPHERE) {
+                    continue;
+                }
+                String champ = property.getFieldName();
+                boolean present = false;
+                for (org.bson.Document index : mongoTemplate.getCollection(entity.getCollection()).listIndexes()) {
+                    org.bson.Document cles = index.get("key", org.bson.Document.class);
+                    if (cles != null && "2dsphere".equals(cles.get(champ))) {
+                        present = true;
+                        break;
+                    }
+                }
+                if (present) {
+                    log.info("Index 2dsphere présent sur {}.{}", entity.getCollection(), champ);
+                } else {
+                    log.error("Index 2dsphere absent sur {}.{} : les recherches géographiques échoueront",
+                            entity.getCollection(), champ);
+                }
+            }
+        }
+    }
 }
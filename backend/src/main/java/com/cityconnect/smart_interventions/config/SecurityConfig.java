@@ -1,5 +1,6 @@
 package com.cityconnect.smart_interventions.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -37,6 +38,9 @@ public class SecurityConfig {
         http.authorizeHttpRequests(auth -> auth
             // ⭐ IMPORTANT : Autoriser OPTIONS pour CORS preflight
             .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+
+            // Fin des réponses asynchrones (SSE) : la requête a déjà été authentifiée à l'ouverture
+            .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
             
             // ⭐ Routes publiques (pas d'authentification requise)
             .requestMatchers("/api/auth/**").permitAll()
@@ -85,7 +89,10 @@ public class SecurityConfig {
         // Headers exposés
         configuration.setExposedHeaders(Arrays.asList(
             "Authorization",
-            "Content-Type"
+            "Content-Type",
+            "Retry-After",
+            "ETag",
+            "X-Resultats-Tronques"
         ));
         
         // Cache CORS 1 heure
@@ -7,6 +7,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = "http://localhost:4200", allowCredentials = "true")
@@ -16,10 +18,10 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    // 🔹 Réponse asynchrone : le thread de la requête est libéré pendant la vérification du mot de passe
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@RequestBody LoginRequest request) throws Exception {
-        LoginResponse response = authService.login(request);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<LoginResponse>> login(@RequestBody LoginRequest request) throws Exception {
+        return authService.login(request).thenApply(ResponseEntity::ok);
     }
 
     @PostMapping("/register")
@@ -27,4 +29,10 @@ public class AuthController {
         LoginResponse response = authService.register(request);
         return ResponseEntity.ok(response);
     }
+
+    // 🔹 Renouveler la session sans ressaisir le mot de passe
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponse> refresh(@RequestBody RefreshRequest request) {
+        return ResponseEntity.ok(authService.refresh(request));
+    }
 }
@@ -0,0 +1,52 @@
+package com.cityconnect.smart_interventions.controller;
+
+import com.cityconnect.smart_interventions.service.CarteTuiles;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/carte")
+@RequiredArgsConstructor
+public class CarteController {
+
+    private static final MediaType GEO_JSON = MediaType.parseMediaType("application/geo+json");
+    // Le navigateur garde la tuile mais la revalide à chaque affichage (If-None-Match -> 304)
+    private static final CacheControl REVALIDER = CacheControl.noCache().cachePrivate();
+
+    private final CarteTuiles carteTuiles;
+
+    // 🔹 Tuile z/x/y regroupée selon le zoom (GeoJSON) ; couches : SIGNALEMENT, EQUIPEMENT, TECHNICIEN (toutes par défaut)
+    @GetMapping("/tuiles/{z}/{x}/{y}")
+    public ResponseEntity<Map<String, Object>> getTuile(@PathVariable int z,
+                                                        @PathVariable int x,
+                                                        @PathVariable int y,
+                                                        @RequestParam(required = false) List<String> couches,
+                                                        WebRequest request) {
+        Set<CarteTuiles.Couche> selection = EnumSet.allOf(CarteTuiles.Couche.class);
+        if (couches != null && !couches.isEmpty()) {
+            selection = EnumSet.noneOf(CarteTuiles.Couche.class);
+            for (String c : couches) {
+                // Couche inconnue : IllegalArgumentException, donc 400
+                selection.add(CarteTuiles.Couche.valueOf(c.trim().toUpperCase()));
+            }
+        }
+        if (request.checkNotModified(carteTuiles.etag(z, x, y, selection))) {
+            return null;
+        }
+        CarteTuiles.Tuile tuile = carteTuiles.tuile(z, x, y, selection);
+        return ResponseEntity.ok()
+                .contentType(GEO_JSON)
+                .eTag(tuile.etag())
+                .cacheControl(REVALIDER)
+                .body(tuile.geoJson());
+    }
+}
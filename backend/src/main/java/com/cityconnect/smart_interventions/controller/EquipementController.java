@@ -1,6 +1,7 @@
 package com.cityconnect.smart_interventions.controller;
 
 
+import com.cityconnect.smart_interventions.dto.EquipementResume;
 import com.cityconnect.smart_interventions.model.Equipement;
 import com.cityconnect.smart_interventions.service.EquipementService;
 
@@ -56,6 +57,35 @@ public class EquipementController {
         }
     }
     
+    // Équipements les plus proches d'un point, du plus proche au plus éloigné
+    @GetMapping("/proches")
+    public ResponseEntity<List<EquipementResume>> getEquipementsProches(
+            @RequestParam double latitude,
+            @RequestParam double longitude,
+            @RequestParam(defaultValue = "5") double rayonKm,
+            @RequestParam(required = false) String etat,
+            @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(equipementService.findProches(latitude, longitude, rayonKm, etat(etat), limite));
+    }
+
+    // Équipements visibles dans l'emprise de la carte ; X-Resultats-Tronques: true s'il y en a plus que limite
+    @GetMapping("/carte")
+    public ResponseEntity<List<EquipementResume>> getEquipementsCarte(
+            @RequestParam double sud,
+            @RequestParam double ouest,
+            @RequestParam double nord,
+            @RequestParam double est,
+            @RequestParam(required = false) String etat,
+            @RequestParam(defaultValue = "500") int limite) {
+        List<EquipementResume> equipements = equipementService.findDansEmprise(sud, ouest, nord, est, etat(etat), limite);
+        return ResultatsTronques.reponse(equipements, limite);
+    }
+
+    // État inconnu : IllegalArgumentException, donc 400
+    private static Equipement.EtatEquipement etat(String etat) {
+        return etat != null && !etat.isBlank() ? Equipement.EtatEquipement.valueOf(etat) : null;
+    }
+
     @PostMapping("/{equipementId}/add-intervention")
     public ResponseEntity<Void> addIntervention(
             @PathVariable String equipementId,
@@ -0,0 +1,29 @@
+package com.cityconnect.smart_interventions.controller;
+
+import com.cityconnect.smart_interventions.utils.JwtUtils;
+import com.cityconnect.smart_interventions.utils.TicketsFlux;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/flux")
+@RequiredArgsConstructor
+public class FluxController {
+
+    private final TicketsFlux tickets;
+
+    // 🔹 Ticket à usage unique pour ouvrir un flux SSE (?ticket=), obtenu avec le JWT en en-tête
+    @PostMapping("/ticket")
+    public ResponseEntity<Map<String, String>> ticket() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getDetails() instanceof JwtUtils.Jeton jeton)) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(Map.of("ticket", tickets.emettre(jeton)));
+    }
+}
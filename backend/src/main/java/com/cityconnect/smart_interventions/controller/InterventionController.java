@@ -1,15 +1,35 @@
 package com.cityconnect.smart_interventions.controller;
 
 import com.cityconnect.smart_interventions.dto.InterventionDTO;
+import com.cityconnect.smart_interventions.dto.InterventionFiltre;
+import com.cityconnect.smart_interventions.dto.InterventionSummary;
+import com.cityconnect.smart_interventions.dto.OperationInterventionDTO;
+import com.cityconnect.smart_interventions.dto.PageCurseurDTO;
+import com.cityconnect.smart_interventions.dto.ResultatLotDTO;
+import com.cityconnect.smart_interventions.dto.TechnicienDTO;
 import com.cityconnect.smart_interventions.model.Intervention;
+import com.cityconnect.smart_interventions.model.User;
+import com.cityconnect.smart_interventions.service.FluxInterventionsTechnicien;
 import com.cityconnect.smart_interventions.service.InterventionService;
+import com.cityconnect.smart_interventions.service.JournalInterventionService;
+import com.cityconnect.smart_interventions.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder; 
@@ -20,7 +40,15 @@ import org.springframework.security.core.context.SecurityContextHolder;
 @CrossOrigin(origins = "*")  // À adapter selon vos besoins de sécurité
 public class InterventionController {
 
+    private static final int TAILLE_PAGE_MAX = 200;
+    private static final int TAILLE_LOT_MAX = 1000;
+    private static final int NB_SUGGESTIONS_MAX = 50;
+
     private final InterventionService service;
+    private final UserService userService;
+    private final JournalInterventionService journal;
+    private final FluxInterventionsTechnicien flux;
+    private final ObjectMapper objectMapper;
 
     // 🔹 Créer une intervention
     @PostMapping
@@ -30,6 +58,18 @@ public class InterventionController {
         return ResponseEntity.ok(InterventionDTO.fromEntity(created));
     }
 
+    // 🔹 Exécuter un lot de commandes (CREER, AFFECTER, CHANGER_STATUT, TERMINER) en une écriture groupée
+    @PostMapping("/bulk")
+    public ResponseEntity<ResultatLotDTO> bulk(@RequestBody List<OperationInterventionDTO> operations) {
+        if (operations == null || operations.isEmpty() || operations.size() > TAILLE_LOT_MAX) {
+            throw new IllegalArgumentException("Le lot doit contenir entre 1 et " + TAILLE_LOT_MAX + " opérations");
+        }
+        log.info("Lot de {} opérations sur les interventions", operations.size());
+        ResultatLotDTO resultat = service.executerLot(operations);
+        log.info("Lot terminé: {} échec(s)", resultat.getNbEchecs());
+        return ResponseEntity.ok(resultat);
+    }
+
     // 🔹 Mettre à jour une intervention
     @PutMapping("/{id}")
     public ResponseEntity<Intervention> update(@PathVariable String id,
@@ -56,23 +96,67 @@ public class InterventionController {
         return ResponseEntity.ok(dto);
     }
 
-    // 🔹 Récupérer toutes les interventions
+    // 🔹 Récupérer toutes les interventions (tableau JSON écrit au fil du curseur MongoDB)
     @GetMapping
-    public ResponseEntity<List<InterventionDTO>> getAll() {
+    public void getAll(@RequestParam(required = false) String statut,
+                       @RequestParam(required = false) String urgence,
+                       @RequestParam(required = false) String serviceMunicipalId,
+                       @RequestParam(required = false) String technicienId,
+                       HttpServletResponse response) throws IOException {
         log.info("Récupération de toutes les interventions");
-        List<Intervention> list = service.getAll();
-        List<InterventionDTO> dtoList = list.stream()
-                                            .map(InterventionDTO::fromEntity)
-                                            .toList();
-        log.info("Nombre d'interventions retournées: {}", dtoList.size());
-        return ResponseEntity.ok(dtoList);
+        InterventionFiltre filtre = InterventionFiltre.depuis(statut, urgence, serviceMunicipalId, technicienId);
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        // Pas de flush après chaque élément : le tampon de la réponse envoie des blocs pleins
+        ObjectWriter writer = objectMapper.writerFor(InterventionSummary.class)
+                                          .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        int nb = 0;
+        try (Stream<InterventionSummary> stream = service.stream(filtre);
+             JsonGenerator json = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            json.writeStartArray();
+            for (Iterator<InterventionSummary> it = stream.iterator(); it.hasNext(); nb++) {
+                writer.writeValue(json, it.next());
+            }
+            json.writeEndArray();
+        }
+        log.info("Nombre d'interventions retournées: {}", nb);
+    }
+
+    // 🔹 Récupérer une page d'interventions (curseur renvoyé par la page précédente)
+    @GetMapping("/page")
+    public ResponseEntity<PageCurseurDTO<InterventionSummary>> getPage(@RequestParam(required = false) String curseur,
+                                                                       @RequestParam(defaultValue = "50") int taille,
+                                                                       @RequestParam(required = false) String statut,
+                                                                       @RequestParam(required = false) String urgence,
+                                                                       @RequestParam(required = false) String serviceMunicipalId,
+                                                                       @RequestParam(required = false) String technicienId) {
+        if (taille < 1 || taille > TAILLE_PAGE_MAX) {
+            throw new IllegalArgumentException("La taille de page doit être comprise entre 1 et " + TAILLE_PAGE_MAX);
+        }
+        InterventionFiltre filtre = InterventionFiltre.depuis(statut, urgence, serviceMunicipalId, technicienId);
+        return ResponseEntity.ok(service.getPage(filtre, curseur, taille));
+    }
+
+    // 🔹 Commentaires d'une intervention, du plus récent au plus ancien (curseur de la page précédente)
+    @GetMapping("/{id}/commentaires")
+    public ResponseEntity<PageCurseurDTO<Intervention.Commentaire>> getCommentaires(@PathVariable String id,
+                                                                                  @RequestParam(required = false) String curseur) {
+        return ResponseEntity.ok(journal.getCommentaires(id, curseur));
+    }
+
+    // 🔹 Historique des statuts d'une intervention, du plus récent au plus ancien
+    @GetMapping("/{id}/historique")
+    public ResponseEntity<PageCurseurDTO<Intervention.HistoriqueStatut>> getHistorique(@PathVariable String id,
+                                                                                     @RequestParam(required = false) String curseur) {
+        return ResponseEntity.ok(journal.getHistoriqueStatut(id, curseur));
     }
 
     // 🔹 Récupérer les interventions par statut
     @GetMapping("/statut/{statut}")
-    public ResponseEntity<List<Intervention>> getByStatut(@PathVariable String statut) {
+    public ResponseEntity<List<InterventionSummary>> getByStatut(@PathVariable String statut) {
         log.info("Récupération interventions par statut: {}", statut);
-        List<Intervention> list = service.findByStatut(statut);
+        List<InterventionSummary> list = service.findByStatut(statut);
         return ResponseEntity.ok(list);
     }
 
@@ -80,13 +164,56 @@ public class InterventionController {
     @PatchMapping("/{id}/statut")
     public ResponseEntity<Intervention> changerStatut(@PathVariable String id,
                                                       @RequestParam String nouveauStatut,
-                                                      @RequestParam String auteurId) {
+                                                      @RequestParam String auteurId,
+                                                      @RequestParam(required = false) String statutAttendu) {
         log.info("Changement statut intervention {} vers {}", id, nouveauStatut);
-        Intervention updated = service.changerStatut(id, nouveauStatut, auteurId);
+        Intervention updated = service.changerStatut(id, nouveauStatut, auteurId, statutAttendu);
+        return ResponseEntity.ok(updated);
+    }
+
+    // 🔹 Affecter un technicien à une intervention
+    @PutMapping("/{id}/affecter")
+    public ResponseEntity<Intervention> affecter(@PathVariable String id,
+                                                 @RequestBody Map<String, String> body) {
+        String technicienId = body.get("technicienId");
+        if (technicienId == null || technicienId.isBlank()) {
+            throw new IllegalArgumentException("technicienId est obligatoire");
+        }
+        log.info("Affectation technicien {} à l'intervention {}", technicienId, id);
+        User technicien = userService.getById(technicienId);
+        String nom = ((technicien.getPrenom() != null ? technicien.getPrenom() + " " : "")
+                + (technicien.getNom() != null ? technicien.getNom() : "")).trim();
+        Intervention updated = service.assignTechnicien(id, technicienId, nom);
+        return ResponseEntity.ok(updated);
+    }
+
+    // 🔹 Techniciens suggérés pour une intervention (score décroissant)
+    @GetMapping("/{id}/techniciens/suggestions")
+    public ResponseEntity<List<TechnicienDTO>> suggestions(@PathVariable String id,
+                                                           @RequestParam(defaultValue = "5") int k) {
+        if (k < 1 || k > NB_SUGGESTIONS_MAX) {
+            throw new IllegalArgumentException("k doit être compris entre 1 et " + NB_SUGGESTIONS_MAX);
+        }
+        return ResponseEntity.ok(service.suggererTechniciens(id, k));
+    }
+
+    // 🔹 Affecter automatiquement le technicien le mieux placé
+    @PostMapping("/{id}/affecter-auto")
+    public ResponseEntity<Intervention> affecterAuto(@PathVariable String id) {
+        log.info("Affectation automatique de l'intervention {}", id);
+        return ResponseEntity.ok(service.affecterAutomatiquement(id));
+    }
+
+    // 🔹 Terminer une intervention (notes de fin optionnelles)
+    @PatchMapping("/{id}/terminer")
+    public ResponseEntity<Intervention> terminer(@PathVariable String id,
+                                                 @RequestBody(required = false) Map<String, String> body) {
+        log.info("Fin de l'intervention {}", id);
+        Intervention updated = service.completeIntervention(id, body != null ? body.get("notes") : null);
         return ResponseEntity.ok(updated);
     }
     @GetMapping("/technicien/me")
-    public ResponseEntity<List<InterventionDTO>> getMyInterventions() {
+    public ResponseEntity<List<InterventionSummary>> getMyInterventions() {
         try {
             // Récupérer l'authentification
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -100,16 +227,10 @@ public class InterventionController {
             log.info("=== REQUÊTE REÇUE: GET /api/interventions/technicien/me ===");
             log.info("Technicien authentifié: {}", technicienId);
             
-            List<Intervention> list = service.getInterventionsByTechnicien(technicienId);
+            List<InterventionSummary> list = service.getInterventionsByTechnicien(technicienId);
             log.info("Interventions trouvées: {}", list.size());
             
-            List<InterventionDTO> dtoList = list.stream()
-                                                .map(InterventionDTO::fromEntity)
-                                                .collect(Collectors.toList());
-            
-            log.info("DTOs créés: {}", dtoList.size());
-            
-            return ResponseEntity.ok(dtoList);
+            return ResponseEntity.ok(list);
         } catch (Exception e) {
             log.error("Erreur lors de la récupération des interventions du technicien", e);
             return ResponseEntity.status(500).build();
@@ -117,28 +238,35 @@ public class InterventionController {
     }
 
 
+    // 🔹 Flux SSE des interventions du technicien connecté : "snapshot" puis deltas
+    // ("intervention", "retrait") ; EventSource s'authentifie par un ticket ?ticket= (POST /api/flux/ticket)
+    @GetMapping(value = "/technicien/me/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamMyInterventions() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(401).build();
+        }
+        String technicienId = authentication.getName();
+        log.info("Ouverture du flux SSE pour le technicien {}", technicienId);
+        return ResponseEntity.ok(flux.ouvrir(technicienId));
+    }
+
     // 🔹 Récupérer les interventions par technicien
     @GetMapping("/technicien/{technicienId}")
-    public ResponseEntity<List<InterventionDTO>> getByTechnicien(@PathVariable String technicienId) {
+    public ResponseEntity<List<InterventionSummary>> getByTechnicien(@PathVariable String technicienId) {
         log.info("=== REQUÊTE REÇUE: GET /api/interventions/technicien/{} ===", technicienId);
         
         try {
-            List<Intervention> list = service.getInterventionsByTechnicien(technicienId);
+            List<InterventionSummary> list = service.getInterventionsByTechnicien(technicienId);
             log.info("Interventions trouvées: {}", list.size());
             
-            List<InterventionDTO> dtoList = list.stream()
-                                                .map(InterventionDTO::fromEntity)
-                                                .toList();
-            
-            log.info("DTOs créés: {}", dtoList.size());
-            
             // Log détaillé des interventions
-            dtoList.forEach(dto -> 
+            list.forEach(dto -> 
                 log.debug("Intervention: {} - Technicien: {} - Statut: {}", 
                     dto.getId(), dto.getTechnicienId(), dto.getStatut())
             );
             
-            return ResponseEntity.ok(dtoList);
+            return ResponseEntity.ok(list);
         } catch (Exception e) {
             log.error("Erreur lors de la récupération des interventions du technicien {}", technicienId, e);
             throw e;
@@ -1,19 +1,44 @@
 package com.cityconnect.smart_interventions.controller;
 
+import com.cityconnect.smart_interventions.dto.PageCurseurDTO;
 import com.cityconnect.smart_interventions.model.Notification;
+import com.cityconnect.smart_interventions.service.FluxNotifications;
 import com.cityconnect.smart_interventions.service.NotificationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController  // Pour retourner des réponses JSON (API REST)
 @RequestMapping("/api/notifications")  // Mapping de base pour les notifications
 @RequiredArgsConstructor
 public class NotificationController {
 
+    private static final int TAILLE_PAGE_MAX = 100;
+
     private final NotificationService notificationService;
+    private final FluxNotifications flux;
+
+    // 🔹 Flux SSE des nouvelles notifications de l'utilisateur connecté (toutes pour un admin).
+    // Reprise après coupure : en-tête Last-Event-ID (EventSource) ou paramètre lastEventId
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdEntete,
+                                             @RequestParam(required = false) String lastEventId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(401).build();
+        }
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+        String dernierId = lastEventIdEntete != null ? lastEventIdEntete : lastEventId;
+        return ResponseEntity.ok(flux.ouvrir(authentication.getName(), admin, dernierId));
+    }
 
     // 🔹 Récupérer les notifications pour un utilisateur spécifique
     @GetMapping("/user/{userId}")
@@ -21,6 +46,30 @@ public class NotificationController {
         List<Notification> notifications = notificationService.getNotificationsForUser(userId);
         return ResponseEntity.ok(notifications);
     }
+
+    // 🔹 Boîte de réception paginée, plus récentes d'abord (curseur renvoyé par la page précédente)
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<PageCurseurDTO<Notification>> getInbox(@PathVariable String userId,
+                                                                 @RequestParam(required = false) String curseur,
+                                                                 @RequestParam(defaultValue = "20") int taille) {
+        if (taille < 1 || taille > TAILLE_PAGE_MAX) {
+            throw new IllegalArgumentException("taille doit être comprise entre 1 et " + TAILLE_PAGE_MAX);
+        }
+        return ResponseEntity.ok(notificationService.getInbox(userId, curseur, taille));
+    }
+
+    // 🔹 Nombre de notifications non lues (compteur, sans lire la boîte de réception)
+    @GetMapping("/user/{userId}/unread-count")
+    public ResponseEntity<Long> getUnreadCount(@PathVariable String userId) {
+        return ResponseEntity.ok(notificationService.getUnreadCount(userId));
+    }
+
+    // 🔹 Marquer toutes les notifications d'un utilisateur comme lues (un seul updateMany)
+    @PutMapping("/user/{userId}/read-all")
+    public ResponseEntity<Map<String, Long>> markAllAsRead(@PathVariable String userId) {
+        return ResponseEntity.ok(Map.of("modifiees", notificationService.markAllAsRead(userId)));
+    }
+
     @GetMapping("/all")
     public ResponseEntity<List<Notification>> getAllNotifications() {
         List<Notification> notifications = notificationService.getAll();  // Ajoutez cette méthode dans NotificationService et NotificationServiceImpl
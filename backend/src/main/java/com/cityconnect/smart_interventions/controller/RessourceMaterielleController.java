@@ -1,6 +1,11 @@
 package com.cityconnect.smart_interventions.controller;
 
+import com.cityconnect.smart_interventions.dto.AlerteStockDTO;
+import com.cityconnect.smart_interventions.dto.PageCurseurDTO;
+import com.cityconnect.smart_interventions.model.MouvementStock;
 import com.cityconnect.smart_interventions.model.RessourceMaterielle;
+import com.cityconnect.smart_interventions.model.ReservationRessource;
+import com.cityconnect.smart_interventions.service.AlertesStock;
 import com.cityconnect.smart_interventions.service.RessourceMaterielleService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -13,7 +18,10 @@ import java.util.List;
 @RequiredArgsConstructor
 public class RessourceMaterielleController {
 
+    private static final int TAILLE_PAGE_MAX = 200;
+
     private final RessourceMaterielleService service;
+    private final AlertesStock alertesStock;
 
     /**
      * ➤ Créer une ressource matérielle
@@ -43,6 +51,14 @@ public class RessourceMaterielleController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * ➤ Ressources au niveau ou sous leur seuil d'alerte (état en mémoire, sans lecture MongoDB)
+     */
+    @GetMapping("/alertes")
+    public ResponseEntity<List<AlerteStockDTO>> getAlertes() {
+        return ResponseEntity.ok(alertesStock.alertes());
+    }
+
     /**
      * ➤ Récupérer une ressource par ID
      */
@@ -72,4 +88,69 @@ public class RessourceMaterielleController {
 
         return ResponseEntity.ok("Utilisation enregistrée avec succès !");
     }
+
+    /**
+     * ➤ Approvisionner une ressource (entrée de stock)
+     */
+    @PostMapping("/approvisionnement/{id}")
+    public ResponseEntity<RessourceMaterielle> approvisionner(
+            @PathVariable String id,
+            @RequestParam int quantite) {
+
+        return ResponseEntity.ok(service.approvisionner(id, quantite));
+    }
+
+    /**
+     * ➤ Réserver une quantité pour une intervention (409 si stock insuffisant)
+     */
+    @PostMapping("/{id}/reservations")
+    public ResponseEntity<ReservationRessource> reserver(
+            @PathVariable String id,
+            @RequestParam String interventionId,
+            @RequestParam int quantite) {
+
+        return ResponseEntity.ok(service.reserver(id, interventionId, quantite));
+    }
+
+    /**
+     * ➤ Réservations actives d'une intervention
+     */
+    @GetMapping("/reservations")
+    public ResponseEntity<List<ReservationRessource>> getReservations(@RequestParam String interventionId) {
+        return ResponseEntity.ok(service.getReservationsActives(interventionId));
+    }
+
+    /**
+     * ➤ Consommer une réservation (quantite absente : tout est consommé, sinon le reste retourne au stock)
+     */
+    @PostMapping("/reservations/{reservationId}/consommer")
+    public ResponseEntity<ReservationRessource> consommer(
+            @PathVariable String reservationId,
+            @RequestParam(required = false) Integer quantite) {
+
+        return ResponseEntity.ok(service.consommerReservation(reservationId, quantite));
+    }
+
+    /**
+     * ➤ Annuler une réservation : la quantité retourne au stock disponible
+     */
+    @DeleteMapping("/reservations/{reservationId}")
+    public ResponseEntity<ReservationRessource> liberer(@PathVariable String reservationId) {
+        return ResponseEntity.ok(service.libererReservation(reservationId));
+    }
+
+    /**
+     * ➤ Journal des mouvements de stock d'une ressource, du plus récent au plus ancien
+     */
+    @GetMapping("/{id}/mouvements")
+    public ResponseEntity<PageCurseurDTO<MouvementStock>> getMouvements(
+            @PathVariable String id,
+            @RequestParam(required = false) String curseur,
+            @RequestParam(defaultValue = "50") int taille) {
+
+        if (taille < 1 || taille > TAILLE_PAGE_MAX) {
+            throw new IllegalArgumentException("taille doit être comprise entre 1 et " + TAILLE_PAGE_MAX);
+        }
+        return ResponseEntity.ok(service.getMouvements(id, curseur, taille));
+    }
 }
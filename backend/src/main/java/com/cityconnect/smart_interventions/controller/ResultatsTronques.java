@@ -0,0 +1,24 @@
+package com.cityconnect.smart_interventions.controller;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Réponse d'une recherche bornée : le service lit limite + 1 éléments, la réponse en garde limite
+ * et indique dans X-Resultats-Tronques s'il y en avait davantage.
+ */
+final class ResultatsTronques {
+
+    static final String ENTETE = "X-Resultats-Tronques";
+
+    private ResultatsTronques() {
+    }
+
+    static <T> ResponseEntity<List<T>> reponse(List<T> resultats, int limite) {
+        boolean tronque = resultats.size() > limite;
+        return ResponseEntity.ok()
+                .header(ENTETE, String.valueOf(tronque))
+                .body(tronque ? resultats.subList(0, limite) : resultats);
+    }
+}
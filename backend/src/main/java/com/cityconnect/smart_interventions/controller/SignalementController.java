@@ -1,5 +1,6 @@
 package com.cityconnect.smart_interventions.controller;
 
+import com.cityconnect.smart_interventions.dto.SignalementResume;
 import com.cityconnect.smart_interventions.model.Signalement;
 import com.cityconnect.smart_interventions.service.SignalementService;
 import lombok.RequiredArgsConstructor;
@@ -42,6 +43,45 @@ public class SignalementController {
         return ResponseEntity.ok(signalementService.getAll());
     }
 
+    // Signalements les plus proches d'un point, du plus proche au plus éloigné
+    @GetMapping("/proches")
+    public ResponseEntity<List<SignalementResume>> getSignalementsProches(
+            @RequestParam double latitude,
+            @RequestParam double longitude,
+            @RequestParam(defaultValue = "2") double rayonKm,
+            @RequestParam(required = false) String statut,
+            @RequestParam(defaultValue = "50") int limite) {
+        return ResponseEntity.ok(signalementService.findProches(latitude, longitude, rayonKm, statut(statut), limite));
+    }
+
+    // Signalements visibles dans l'emprise de la carte ; X-Resultats-Tronques: true s'il y en a plus que limite
+    @GetMapping("/carte")
+    public ResponseEntity<List<SignalementResume>> getSignalementsCarte(
+            @RequestParam double sud,
+            @RequestParam double ouest,
+            @RequestParam double nord,
+            @RequestParam double est,
+            @RequestParam(required = false) String statut,
+            @RequestParam(defaultValue = "500") int limite) {
+        List<SignalementResume> signalements = signalementService.findDansEmprise(sud, ouest, nord, est, statut(statut), limite);
+        return ResultatsTronques.reponse(signalements, limite);
+    }
+
+    // Signalements autour d'un équipement (même index, centré sur sa localisation)
+    @GetMapping("/equipement/{equipementId}/proches")
+    public ResponseEntity<List<SignalementResume>> getSignalementsProchesEquipement(
+            @PathVariable String equipementId,
+            @RequestParam(defaultValue = "0.5") double rayonKm,
+            @RequestParam(required = false) String statut,
+            @RequestParam(defaultValue = "50") int limite) {
+        return ResponseEntity.ok(signalementService.findProchesEquipement(equipementId, rayonKm, statut(statut), limite));
+    }
+
+    // Statut inconnu : IllegalArgumentException, donc 400
+    private static Signalement.Statut statut(String statut) {
+        return statut != null && !statut.isBlank() ? Signalement.Statut.valueOf(statut) : null;
+    }
+
     @PostMapping("/{id}/photo")
     public ResponseEntity<Void> uploadPhoto(
             @PathVariable String id,
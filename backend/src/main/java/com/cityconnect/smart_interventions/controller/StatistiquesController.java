@@ -1,17 +1,26 @@
 package com.cityconnect.smart_interventions.controller;
 
+import com.cityconnect.smart_interventions.dto.StatistiquesDureesDTO;
 import com.cityconnect.smart_interventions.model.Statistiques;
+import com.cityconnect.smart_interventions.service.DureesEngine;
+import com.cityconnect.smart_interventions.service.StatistiquesHistoriqueService;
 import com.cityconnect.smart_interventions.service.StatistiquesService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Date;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/statistiques")
 @RequiredArgsConstructor
 public class StatistiquesController {
 
     private final StatistiquesService statistiquesService;
+    private final StatistiquesHistoriqueService historiqueService;
+    private final DureesEngine dureesEngine;
 
     /**
      * Récupérer les statistiques générales
@@ -21,4 +30,23 @@ public class StatistiquesController {
         Statistiques stats = statistiquesService.calculerStatistiquesGenerales();
         return ResponseEntity.ok(stats);
     }
-}
\ No newline at end of file
+
+    /**
+     * Statistiques par période (HEURE, JOUR ou MOIS) entre from et to, lues dans les snapshots précalculés
+     */
+    @GetMapping
+    public ResponseEntity<List<Statistiques>> getStatistiquesParPeriode(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+            @RequestParam(defaultValue = "JOUR") Statistiques.Granularite granularity) {
+        return ResponseEntity.ok(historiqueService.getStatistiquesParPeriode(from, to, granularity));
+    }
+
+    /**
+     * Percentiles (p50, p90, p99, max, en heures) des durées d'intervention et des délais d'affectation
+     */
+    @GetMapping("/durees")
+    public ResponseEntity<StatistiquesDureesDTO> getStatistiquesDurees() {
+        return ResponseEntity.ok(dureesEngine.snapshot());
+    }
+}
@@ -1,14 +1,20 @@
 package com.cityconnect.smart_interventions.controller;
 
 
+import com.cityconnect.smart_interventions.dto.TechnicienDTO;
+import com.cityconnect.smart_interventions.model.PositionTechnicien;
 import com.cityconnect.smart_interventions.model.User;
+import com.cityconnect.smart_interventions.service.AffectationEngine;
 import com.cityconnect.smart_interventions.service.UserService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/users")
@@ -17,6 +23,12 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private AffectationEngine affectationEngine;
+
+    // Le navigateur garde la réponse mais la revalide à chaque appel (If-None-Match -> 304)
+    private static final CacheControl REVALIDER = CacheControl.noCache().cachePrivate();
+
     // 🔹 Créer un nouvel utilisateur
     @PostMapping
     public ResponseEntity<User> createUser(@RequestBody User user) {
@@ -38,6 +50,14 @@ public class UserController {
         return ResponseEntity.noContent().build();
     }
 
+    // 🔹 Mettre à jour la position GPS d'un technicien (écriture différée, 202)
+    @PatchMapping("/{id}/position")
+    public ResponseEntity<PositionTechnicien> updatePosition(@PathVariable String id,
+                                                             @RequestBody Map<String, Double> body) {
+        PositionTechnicien position = userService.enregistrerPosition(id, body.get("latitude"), body.get("longitude"));
+        return ResponseEntity.accepted().body(position);
+    }
+
     // 🔹 Obtenir un utilisateur par ID
     @GetMapping("/{id}")
     public ResponseEntity<User> getUserById(@PathVariable String id) {
@@ -52,11 +72,52 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
-    // 🔹 Obtenir tous les techniciens disponibles
+    // 🔹 Obtenir tous les techniciens disponibles (304 si If-None-Match correspond à la version du registre)
     @GetMapping("/techniciens/disponibles")
-    public ResponseEntity<List<User>> getTechniciensDisponibles() {
-        List<User> techniciens = userService.findTechniciensDisponibles();
-        return ResponseEntity.ok(techniciens);
+    public ResponseEntity<List<TechnicienDTO>> getTechniciensDisponibles(WebRequest request) {
+        String etag = userService.versionTechniciens();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDER).body(userService.findTechniciensDisponibles());
+    }
+
+    // 🔹 Techniciens filtrés par disponibilité et, optionnellement, par distance à une position
+    @GetMapping("/techniciens")
+    public ResponseEntity<List<TechnicienDTO>> rechercherTechniciens(@RequestParam(required = false) Boolean disponible,
+                                                                     @RequestParam(required = false) Double latitude,
+                                                                     @RequestParam(required = false) Double longitude,
+                                                                     @RequestParam(required = false) Double rayonKm,
+                                                                     WebRequest request) {
+        String etag = userService.versionTechniciens();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDER)
+                .body(userService.rechercherTechniciens(disponible, latitude, longitude, rayonKm));
+    }
+
+    // 🔹 Changer la disponibilité d'un technicien
+    @PatchMapping("/{id}/disponibilite")
+    public ResponseEntity<User> changerDisponibilite(@PathVariable String id, @RequestBody Map<String, Boolean> body) {
+        Boolean disponibilite = body.get("disponibilite");
+        if (disponibilite == null) {
+            throw new IllegalArgumentException("disponibilite est obligatoire");
+        }
+        return ResponseEntity.ok(userService.changerDisponibilite(id, disponibilite));
+    }
+
+    // 🔹 Techniciens suggérés pour une position (même score que l'écran d'affectation)
+    @GetMapping("/techniciens/suggestions")
+    public ResponseEntity<List<TechnicienDTO>> suggererTechniciens(@RequestParam double latitude,
+                                                                   @RequestParam double longitude,
+                                                                   @RequestParam(required = false) String type,
+                                                                   @RequestParam(defaultValue = "NORMAL") String urgence,
+                                                                   @RequestParam(defaultValue = "5") int k) {
+        if (k < 1 || k > 50) {
+            throw new IllegalArgumentException("k doit être compris entre 1 et 50");
+        }
+        return ResponseEntity.ok(affectationEngine.candidats(latitude, longitude, type, urgence, k));
     }
 }
 
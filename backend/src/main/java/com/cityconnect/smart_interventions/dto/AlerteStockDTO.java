@@ -0,0 +1,24 @@
+package com.cityconnect.smart_interventions.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Ressource dont le stock disponible est au niveau ou sous son seuil d'alerte.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlerteStockDTO {
+
+    private String ressourceId;
+    private String nom;
+    private Integer quantiteDisponible;
+    private Integer seuilAlerte;
+    private String uniteMesure;
+    // Passage sous le seuil (ou chargement au démarrage)
+    private Date depuis;
+}
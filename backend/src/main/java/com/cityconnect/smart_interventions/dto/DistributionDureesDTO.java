@@ -0,0 +1,20 @@
+package com.cityconnect.smart_interventions.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Percentiles d'une distribution de durées, en heures.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DistributionDureesDTO {
+
+    private Long nombre;
+    private Double p50;
+    private Double p90;
+    private Double p99;
+    private Double max;
+}
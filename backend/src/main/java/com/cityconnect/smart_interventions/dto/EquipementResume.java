@@ -0,0 +1,32 @@
+package com.cityconnect.smart_interventions.dto;
+
+import com.cityconnect.smart_interventions.model.Equipement;
+import com.cityconnect.smart_interventions.utils.GeoUtils;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Vue allégée d'un équipement pour la carte : lue avec une projection MongoDB
+ * (sans dernieresInterventions), coordonnées à plat.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EquipementResume {
+
+    private String id;
+    private String type;
+    private String adresse;
+    private Equipement.EtatEquipement etat;
+    private Double latitude;
+    private Double longitude;
+    private String zone;
+    private Double distanceKm;   // Renseignée pour une recherche autour d'un point
+
+    public static EquipementResume fromEntity(Equipement e) {
+        double[] p = GeoUtils.depuisPoint(e.getLocalisation());
+        return new EquipementResume(e.getId(), e.getType(), e.getAdresse(), e.getEtat(),
+                p != null ? p[0] : null, p != null ? p[1] : null, e.getZone(), null);
+    }
+}
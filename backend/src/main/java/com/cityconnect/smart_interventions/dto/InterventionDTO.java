@@ -1,7 +1,6 @@
 package com.cityconnect.smart_interventions.dto;
 
 import java.util.Date;
-import java.util.List;
 import com.cityconnect.smart_interventions.model.Intervention;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -20,8 +19,10 @@ public class InterventionDTO {
     private String technicienId;    // En string depuis l'API
     private String citoyenId;       // Peut être null
     private String serviceMunicipalId;
-    private List<Intervention.Commentaire> commentaires;
-    private List<Intervention.HistoriqueStatut> historiqueStatut;
+    private Integer nbCommentaires;
+    private Intervention.Commentaire dernierCommentaire;
+    private Integer nbChangementsStatut;
+    private Intervention.HistoriqueStatut dernierChangementStatut;
     private Date dateDebut;
     private Date dateFin;
     private Integer dureeReelle;
@@ -73,8 +74,6 @@ public class InterventionDTO {
             intervention.setServiceMunicipalId(this.serviceMunicipalId);
         }
         
-        intervention.setCommentaires(this.commentaires);
-        intervention.setHistoriqueStatut(this.historiqueStatut);
         intervention.setDateDebut(this.dateDebut);
         intervention.setDateFin(this.dateFin);
         intervention.setDureeReelle(this.dureeReelle);
@@ -98,8 +97,10 @@ public class InterventionDTO {
         dto.setCitoyenId(intervention.getCitoyenId());
         dto.setServiceMunicipalId(intervention.getServiceMunicipalId());
         
-        dto.setCommentaires(intervention.getCommentaires());
-        dto.setHistoriqueStatut(intervention.getHistoriqueStatut());
+        dto.setNbCommentaires(intervention.getNbCommentaires() != null ? intervention.getNbCommentaires() : 0);
+        dto.setDernierCommentaire(intervention.getDernierCommentaire());
+        dto.setNbChangementsStatut(intervention.getNbChangementsStatut() != null ? intervention.getNbChangementsStatut() : 0);
+        dto.setDernierChangementStatut(intervention.getDernierChangementStatut());
         dto.setDateDebut(intervention.getDateDebut());
         dto.setDateFin(intervention.getDateFin());
         dto.setDureeReelle(intervention.getDureeReelle());
@@ -0,0 +1,33 @@
+package com.cityconnect.smart_interventions.dto;
+
+import com.cityconnect.smart_interventions.model.Intervention;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Filtres optionnels des listes d'interventions (null = pas de filtre).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InterventionFiltre {
+
+    private Intervention.Statut statut;
+    private Intervention.Urgence urgence;
+    private String serviceMunicipalId;
+    private String technicienId;
+
+    public static InterventionFiltre depuis(String statut, String urgence, String serviceMunicipalId, String technicienId) {
+        InterventionFiltre f = new InterventionFiltre();
+        if (statut != null && !statut.isBlank()) {
+            f.setStatut(Intervention.Statut.valueOf(statut.toUpperCase()));
+        }
+        if (urgence != null && !urgence.isBlank()) {
+            f.setUrgence(Intervention.Urgence.valueOf(urgence.toUpperCase()));
+        }
+        f.setServiceMunicipalId(serviceMunicipalId != null && !serviceMunicipalId.isBlank() ? serviceMunicipalId : null);
+        f.setTechnicienId(technicienId != null && !technicienId.isBlank() ? technicienId : null);
+        return f;
+    }
+}
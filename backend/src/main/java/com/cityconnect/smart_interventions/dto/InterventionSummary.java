@@ -0,0 +1,36 @@
+package com.cityconnect.smart_interventions.dto;
+
+import com.cityconnect.smart_interventions.model.Intervention;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Vue allégée d'une intervention pour les listes : lue avec une projection MongoDB sur ces seuls
+ * champs. La description, texte libre sans borne, n'en fait pas partie : le détail complet
+ * reste sur GET /api/interventions/{id}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InterventionSummary {
+
+    private String id;
+    private String titre;
+    private String type;
+    private Intervention.Urgence urgence;
+    private Intervention.Statut statut;
+    private Date dateCreation;
+    private Date dateDebut;
+    private Date dateFin;
+    private String technicienId;
+    private String serviceMunicipalId;
+
+    public static InterventionSummary fromEntity(Intervention i) {
+        return new InterventionSummary(i.getId(), i.getTitre(), i.getType(), i.getUrgence(),
+                i.getStatut(), i.getDateCreation(), i.getDateDebut(), i.getDateFin(), i.getTechnicienId(),
+                i.getServiceMunicipalId());
+    }
+}
@@ -13,4 +13,5 @@ public class LoginResponse {
     private String nom;
     private String prenom;
     private String id;
+    private String refreshToken;
 }
\ No newline at end of file
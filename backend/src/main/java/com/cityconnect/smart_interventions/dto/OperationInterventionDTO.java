@@ -0,0 +1,30 @@
+package com.cityconnect.smart_interventions.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Une commande d'un lot POST /api/interventions/bulk.
+ * Les champs utiles dépendent du type : intervention (CREER), technicienId (AFFECTER),
+ * nouveauStatut / auteurId / statutAttendu (CHANGER_STATUT), notes (TERMINER).
+ */
+@Data
+@NoArgsConstructor
+public class OperationInterventionDTO {
+
+    public enum Type { CREER, AFFECTER, CHANGER_STATUT, TERMINER }
+
+    private Type type;
+    private String interventionId;
+
+    private InterventionDTO intervention;
+
+    private String technicienId;
+    private String technicienNom;
+
+    private String nouveauStatut;
+    private String statutAttendu;
+    private String auteurId;
+
+    private String notes;
+}
@@ -0,0 +1,19 @@
+package com.cityconnect.smart_interventions.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page d'une pagination par curseur : curseurSuivant est null sur la dernière page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageCurseurDTO<T> {
+
+    private List<T> contenu;
+    private String curseurSuivant;
+}
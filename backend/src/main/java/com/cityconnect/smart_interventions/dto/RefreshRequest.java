@@ -0,0 +1,8 @@
+package com.cityconnect.smart_interventions.dto;
+
+import lombok.Data;
+
+@Data
+public class RefreshRequest {
+    private String refreshToken;
+}
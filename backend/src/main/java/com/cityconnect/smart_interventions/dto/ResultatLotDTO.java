@@ -0,0 +1,29 @@
+package com.cityconnect.smart_interventions.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Résultat d'un lot : un résultat par commande, dans l'ordre de la requête.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultatLotDTO {
+
+    private List<Resultat> resultats;
+    private int nbEchecs;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Resultat {
+        private int index;
+        private String interventionId;
+        private boolean succes;
+        private String erreur;
+    }
+}
@@ -0,0 +1,38 @@
+package com.cityconnect.smart_interventions.dto;
+
+import com.cityconnect.smart_interventions.model.Signalement;
+import com.cityconnect.smart_interventions.utils.GeoUtils;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Vue allégée d'un signalement pour la carte et les recherches géographiques : lue avec une projection
+ * MongoDB (sans description ni historique), coordonnées à plat.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SignalementResume {
+
+    private String id;
+    private String titre;
+    private String type;
+    private String urgence;
+    private Signalement.Statut statut;
+    private String adresse;
+    private Double latitude;
+    private Double longitude;
+    private String zone;
+    private Date dateCreation;
+    private Double distanceKm;   // Renseignée pour une recherche autour d'un point
+
+    public static SignalementResume fromEntity(Signalement s) {
+        double[] p = GeoUtils.depuisPoint(s.getPosition());
+        return new SignalementResume(s.getId(), s.getTitre(), s.getType(), s.getUrgence(), s.getStatut(),
+                s.getAdresse(), p != null ? p[0] : null, p != null ? p[1] : null, s.getZone(),
+                s.getDateCreation(), null);
+    }
+}
@@ -0,0 +1,25 @@
+package com.cityconnect.smart_interventions.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Durées d'intervention (dateDebut -> dateFin) et délais d'affectation (dateCreation -> dateAffectation),
+ * globalement, par service municipal (ID) et par type d'intervention.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatistiquesDureesDTO {
+
+    private DistributionDureesDTO duree;
+    private Map<String, DistributionDureesDTO> dureeParService;
+    private Map<String, DistributionDureesDTO> dureeParType;
+
+    private DistributionDureesDTO affectation;
+    private Map<String, DistributionDureesDTO> affectationParService;
+    private Map<String, DistributionDureesDTO> affectationParType;
+}
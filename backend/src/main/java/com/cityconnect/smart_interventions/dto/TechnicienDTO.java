@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,8 +20,10 @@ public class TechnicienDTO {
     private String position;
     private Double latitude;
     private Double longitude;
+    private List<String> competences;
     private Integer score;           // Score calculé côté backend ou front pour suggestion
     private Boolean competencesMatch; // Indique si le technicien est compétent pour le type d'intervention
+    private Double distance;          // Distance en km jusqu'à l'intervention (null sans position)
 
     // Constructeur pour mapper depuis un User
     public TechnicienDTO(com.cityconnect.smart_interventions.model.User user) {
@@ -32,6 +36,7 @@ public class TechnicienDTO {
         this.position = user.getPosition();
         this.latitude = user.getLatitude();
         this.longitude = user.getLongitude();
+        this.competences = user.getCompetences();
         this.score = 0; // Valeur par défaut
         this.competencesMatch = false; // Valeur par défaut
     }
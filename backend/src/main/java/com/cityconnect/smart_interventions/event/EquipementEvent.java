@@ -0,0 +1,43 @@
+package com.cityconnect.smart_interventions.event;
+
+import com.cityconnect.smart_interventions.model.Equipement;
+import lombok.Value;
+
+import java.util.Date;
+
+/**
+ * Événement publié par EquipementService après chaque écriture réussie.
+ * avant est null à la création, apres est null à la suppression.
+ */
+@Value
+public class EquipementEvent {
+
+    public enum Action { CREE, MIS_A_JOUR, SUPPRIME }
+
+    Action action;
+    Equipement avant;
+    Equipement apres;
+    Date date;
+
+    public EquipementEvent(Action action, Equipement avant, Equipement apres) {
+        this.action = action;
+        this.avant = instantane(avant);
+        this.apres = instantane(apres);
+        this.date = new Date();
+    }
+
+    // Copie sans les dernières interventions, qui ne servent à aucun listener
+    public static Equipement instantane(Equipement e) {
+        if (e == null) {
+            return null;
+        }
+        Equipement copie = new Equipement();
+        copie.setId(e.getId());
+        copie.setType(e.getType());
+        copie.setAdresse(e.getAdresse());
+        copie.setEtat(e.getEtat());
+        copie.setLocalisation(e.getLocalisation());
+        copie.setZone(e.getZone());
+        return copie;
+    }
+}
@@ -0,0 +1,55 @@
+package com.cityconnect.smart_interventions.event;
+
+import com.cityconnect.smart_interventions.model.Intervention;
+import lombok.Value;
+
+import java.util.Date;
+
+/**
+ * Événement publié par InterventionService après chaque écriture réussie.
+ * avant est null à la création, apres est null à la suppression.
+ */
+@Value
+public class InterventionEvent {
+
+    public enum Action { CREEE, MISE_A_JOUR, STATUT_CHANGE, TECHNICIEN_ASSIGNE, TERMINEE, SUPPRIMEE }
+
+    Action action;
+    Intervention avant;
+    Intervention apres;
+    Date date;
+
+    public InterventionEvent(Action action, Intervention avant, Intervention apres) {
+        this.action = action;
+        this.avant = instantane(avant);
+        this.apres = instantane(apres);
+        this.date = new Date();
+    }
+
+    /**
+     * Copie des champs scalaires : l'entité d'origine peut être modifiée après publication,
+     * et les listeners n'ont pas besoin des commentaires ni de l'historique.
+     */
+    public static Intervention instantane(Intervention i) {
+        if (i == null) {
+            return null;
+        }
+        Intervention copie = new Intervention();
+        copie.setId(i.getId());
+        copie.setTitre(i.getTitre());
+        copie.setType(i.getType());
+        copie.setDescription(i.getDescription());
+        copie.setUrgence(i.getUrgence());
+        copie.setStatut(i.getStatut());
+        copie.setDateCreation(i.getDateCreation());
+        copie.setEquipementId(i.getEquipementId());
+        copie.setTechnicienId(i.getTechnicienId());
+        copie.setCitoyenId(i.getCitoyenId());
+        copie.setServiceMunicipalId(i.getServiceMunicipalId());
+        copie.setDateAffectation(i.getDateAffectation());
+        copie.setDateDebut(i.getDateDebut());
+        copie.setDateFin(i.getDateFin());
+        copie.setDureeReelle(i.getDureeReelle());
+        return copie;
+    }
+}
@@ -0,0 +1,13 @@
+package com.cityconnect.smart_interventions.event;
+
+import com.cityconnect.smart_interventions.model.Notification;
+import lombok.Value;
+
+/**
+ * Événement publié par NotificationService après l'enregistrement d'une nouvelle notification.
+ */
+@Value
+public class NotificationEvent {
+
+    Notification notification;
+}
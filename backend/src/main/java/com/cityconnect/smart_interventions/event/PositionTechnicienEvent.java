@@ -0,0 +1,17 @@
+package com.cityconnect.smart_interventions.event;
+
+import lombok.Value;
+
+import java.util.Date;
+
+/**
+ * Nouvelle position reçue d'un technicien, publiée avant son écriture différée en base.
+ */
+@Value
+public class PositionTechnicienEvent {
+
+    String technicienId;
+    double latitude;
+    double longitude;
+    Date date;
+}
@@ -0,0 +1,50 @@
+package com.cityconnect.smart_interventions.event;
+
+import com.cityconnect.smart_interventions.model.Signalement;
+import lombok.Value;
+
+import java.util.Date;
+
+/**
+ * Événement publié par SignalementService après chaque écriture réussie.
+ * avant est null à la création.
+ */
+@Value
+public class SignalementEvent {
+
+    public enum Action { CREE, MIS_A_JOUR, STATUT_CHANGE }
+
+    Action action;
+    Signalement avant;
+    Signalement apres;
+    Date date;
+
+    public SignalementEvent(Action action, Signalement avant, Signalement apres) {
+        this.action = action;
+        this.avant = instantane(avant);
+        this.apres = instantane(apres);
+        this.date = new Date();
+    }
+
+    // Copie sans l'historique, qui ne sert à aucun listener
+    public static Signalement instantane(Signalement s) {
+        if (s == null) {
+            return null;
+        }
+        return Signalement.builder()
+                .id(s.getId())
+                .titre(s.getTitre())
+                .type(s.getType())
+                .urgence(s.getUrgence())
+                .localisation(s.getLocalisation())
+                .coordonnees(s.getCoordonnees())
+                .zone(s.getZone())
+                .position(s.getPosition())
+                .adresse(s.getAdresse())
+                .statut(s.getStatut())
+                .citoyenId(s.getCitoyenId())
+                .interventionId(s.getInterventionId())
+                .dateCreation(s.getDateCreation())
+                .build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.cityconnect.smart_interventions.event;
+
+import com.cityconnect.smart_interventions.model.RessourceMaterielle;
+import lombok.Value;
+
+/**
+ * Événement publié par RessourceMaterielleService après chaque écriture qui touche au stock
+ * (création, mouvement, mise à jour, suppression). ressource est l'état après l'écriture,
+ * sans la liste des utilisations récentes ; pour une suppression seul l'id est renseigné.
+ */
+@Value
+public class StockEvent {
+
+    public enum Action { CREE, MOUVEMENT, MIS_A_JOUR, SUPPRIME }
+
+    Action action;
+    RessourceMaterielle ressource;
+
+    public StockEvent(Action action, RessourceMaterielle ressource) {
+        this.action = action;
+        this.ressource = RessourceMaterielle.builder()
+                .id(ressource.getId())
+                .nom(ressource.getNom())
+                .quantiteDisponible(ressource.getQuantiteDisponible())
+                .quantiteReservee(ressource.getQuantiteReservee())
+                .uniteMesure(ressource.getUniteMesure())
+                .seuilAlerte(ressource.getSeuilAlerte())
+                .versionStock(ressource.getVersionStock())
+                .build();
+    }
+}
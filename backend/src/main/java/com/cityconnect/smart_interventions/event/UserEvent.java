@@ -0,0 +1,51 @@
+package com.cityconnect.smart_interventions.event;
+
+import com.cityconnect.smart_interventions.model.User;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Événement publié après chaque écriture d'un utilisateur (création, mise à jour, suppression).
+ * avant est null à la création, apres est null à la suppression.
+ */
+@Value
+public class UserEvent {
+
+    public enum Action { CREE, MIS_A_JOUR, SUPPRIME }
+
+    Action action;
+    User avant;
+    User apres;
+
+    public UserEvent(Action action, User avant, User apres) {
+        this.action = action;
+        this.avant = instantane(avant);
+        this.apres = instantane(apres);
+    }
+
+    /**
+     * Copie sans le mot de passe : l'entité d'origine peut être modifiée après publication.
+     */
+    public static User instantane(User u) {
+        if (u == null) {
+            return null;
+        }
+        return User.builder()
+                .id(u.getId())
+                .nom(u.getNom())
+                .prenom(u.getPrenom())
+                .email(u.getEmail())
+                .role(u.getRole())
+                .disponibilite(u.getDisponibilite())
+                .position(u.getPosition())
+                .latitude(u.getLatitude())
+                .longitude(u.getLongitude())
+                .datePosition(u.getDatePosition())
+                .numeroTelephone(u.getNumeroTelephone())
+                .competences(u.getCompetences() != null ? List.copyOf(u.getCompetences()) : null)
+                .dateCreation(u.getDateCreation())
+                .dateModification(u.getDateModification())
+                .build();
+    }
+}
@@ -0,0 +1,11 @@
+package com.cityconnect.smart_interventions.exception;
+
+/**
+ * Écriture refusée car le document a changé entre la lecture et la mise à jour (HTTP 409).
+ */
+public class ConflitException extends RuntimeException {
+
+    public ConflitException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.cityconnect.smart_interventions.exception;
+
+/**
+ * Email inconnu ou mot de passe incorrect à la connexion (HTTP 401).
+ */
+public class IdentifiantsInvalidesException extends RuntimeException {
+
+    public IdentifiantsInvalidesException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.cityconnect.smart_interventions.exception;
+
+/**
+ * Jeton absent, invalide ou expiré : le client doit se reconnecter (HTTP 401).
+ */
+public class JetonInvalideException extends RuntimeException {
+
+    public JetonInvalideException(String message) {
+        super(message);
+    }
+}
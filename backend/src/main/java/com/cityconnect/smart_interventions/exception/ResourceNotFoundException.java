@@ -1,5 +1,8 @@
 package com.cityconnect.smart_interventions.exception;
 
+/**
+ * Document demandé inexistant (HTTP 404).
+ */
 public class ResourceNotFoundException extends RuntimeException {
 	  public ResourceNotFoundException(String message) {
 	        super(message);
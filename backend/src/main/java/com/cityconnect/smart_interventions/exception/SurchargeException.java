@@ -0,0 +1,18 @@
+package com.cityconnect.smart_interventions.exception;
+
+/**
+ * Requête refusée faute de capacité, à retenter après retryAfterSecondes (HTTP 429 + Retry-After).
+ */
+public class SurchargeException extends RuntimeException {
+
+    private final long retryAfterSecondes;
+
+    public SurchargeException(String message, long retryAfterSecondes) {
+        super(message);
+        this.retryAfterSecondes = retryAfterSecondes;
+    }
+
+    public long getRetryAfterSecondes() {
+        return retryAfterSecondes;
+    }
+}
@@ -0,0 +1,31 @@
+package com.cityconnect.smart_interventions.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.List;
+
+/**
+ * Commentaires d'une intervention, par paquets de {@link BucketCommentaires#TAILLE} :
+ * le commentaire n°k (1, 2, ...) est dans le bucket numero = (k - 1) / TAILLE,
+ * d'identifiant "interventionId:numero".
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "commentaires_interventions")
+@CompoundIndex(name = "intervention_numero", def = "{'interventionId': 1, 'numero': -1}")
+public class BucketCommentaires {
+
+    public static final int TAILLE = 50;
+
+    @Id
+    private String id;
+
+    private String interventionId;
+    private Integer numero;
+    private Integer nombre;
+    private List<Intervention.Commentaire> entrees;
+}
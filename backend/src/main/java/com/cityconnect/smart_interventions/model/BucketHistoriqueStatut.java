@@ -0,0 +1,28 @@
+package com.cityconnect.smart_interventions.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.List;
+
+/**
+ * Changements de statut d'une intervention, par paquets de {@link BucketCommentaires#TAILLE}
+ * (même découpage que les commentaires).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "historique_interventions")
+@CompoundIndex(name = "intervention_numero", def = "{'interventionId': 1, 'numero': -1}")
+public class BucketHistoriqueStatut {
+
+    @Id
+    private String id;
+
+    private String interventionId;
+    private Integer numero;
+    private Integer nombre;
+    private List<Intervention.HistoriqueStatut> entrees;
+}
@@ -0,0 +1,26 @@
+package com.cityconnect.smart_interventions.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Nombre de notifications non lues d'un utilisateur (id = ID utilisateur), tenu à jour par $inc
+ * à l'envoi et à la lecture : le badge ne charge jamais la boîte de réception.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "compteurs_notifications")
+public class CompteurNotifications {
+
+    @Id
+    private String id;
+
+    private Long nonLues;
+
+    // Date du dernier $inc : la réconciliation ne réécrit pas un compteur modifié pendant son calcul
+    private Date derniereEcriture;
+}
@@ -26,6 +26,9 @@ public class Equipement {
     @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
     private GeoJsonPoint localisation;
 
+    // Cellule geohash calculée depuis la localisation
+    private String zone;
+
     private List<InterventionResume> dernieresInterventions;
 
     @Data
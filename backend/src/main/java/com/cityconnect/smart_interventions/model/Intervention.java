@@ -2,16 +2,25 @@ package com.cityconnect.smart_interventions.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
-import java.util.List;
 import org.springframework.lang.Nullable;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "interventions")
+// Pagination par curseur (dateCreation, _id) décroissants, avec ou sans filtre
+@CompoundIndexes({
+    @CompoundIndex(name = "dateCreation_id", def = "{'dateCreation': -1, '_id': -1}"),
+    @CompoundIndex(name = "statut_dateCreation_id", def = "{'statut': 1, 'dateCreation': -1, '_id': -1}"),
+    @CompoundIndex(name = "technicien_dateCreation_id", def = "{'technicienId': 1, 'dateCreation': -1, '_id': -1}"),
+    @CompoundIndex(name = "service_dateCreation_id", def = "{'serviceMunicipalId': 1, 'dateCreation': -1, '_id': -1}")
+})
 public class Intervention {
     @Id
     private String id;
@@ -21,6 +30,7 @@ public class Intervention {
     private String description;
     private Urgence urgence;
     private Statut statut;
+    @Indexed
     private Date dateCreation;
 
     // SUPPRIMEZ @Field(targetType = FieldType.OBJECT_ID)
@@ -36,9 +46,18 @@ public class Intervention {
     // SUPPRIMEZ @Field(targetType = FieldType.OBJECT_ID)
     private String serviceMunicipalId;
     
-    private List<Commentaire> commentaires;
-    private List<HistoriqueStatut> historiqueStatut;
+    // Commentaires et historique complets dans commentaires_interventions / historique_interventions :
+    // le document ne garde que le nombre d'entrées et la dernière
+    private Integer nbCommentaires;
+    private Commentaire dernierCommentaire;
+    private Integer nbChangementsStatut;
+    private HistoriqueStatut dernierChangementStatut;
+    // Dernière commande de lot appliquée ("lot:index"), relue pour savoir quelles mises à jour ont réussi
+    private String dernierLot;
+    // Première affectation d'un technicien
+    private Date dateAffectation;
     private Date dateDebut;
+    @Indexed
     private Date dateFin;
     private Integer dureeReelle;
 
@@ -0,0 +1,48 @@
+package com.cityconnect.smart_interventions.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Journal des mouvements de stock d'une ressource matérielle (une entrée par mouvement, jamais modifiée).
+ * Remplace la liste utilisationsRecent, qui ne garde plus que les dernières utilisations.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "mouvements_stock")
+@CompoundIndexes({
+    @CompoundIndex(name = "ressource_id", def = "{'ressourceId': 1, '_id': -1}"),
+    @CompoundIndex(name = "intervention_date", def = "{'interventionId': 1, 'date': -1}")
+})
+public class MouvementStock {
+
+    @Id
+    private String id;
+
+    private String ressourceId;
+    private Type type;
+    // Variations signées de quantiteDisponible et quantiteReservee : leur somme reconstitue le stock
+    private Integer variationDisponible;
+    private Integer variationReservee;
+    private String interventionId;
+    private String reservationId;
+    // quantiteDisponible après le mouvement
+    private Integer stockApres;
+    private Date date;
+
+    public enum Type {
+        UTILISATION,
+        RESERVATION,
+        CONSOMMATION,
+        LIBERATION,
+        APPROVISIONNEMENT,
+        AJUSTEMENT
+    }
+}
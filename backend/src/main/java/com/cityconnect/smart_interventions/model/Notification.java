@@ -2,6 +2,8 @@ package com.cityconnect.smart_interventions.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.Date;
 
@@ -9,6 +11,13 @@ import java.util.Date;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "notifications")
+// Boîte de réception par destinataire, (dateEnvoi, _id) décroissants
+@CompoundIndexes({
+    @CompoundIndex(name = "citoyen_dateEnvoi_id", def = "{'citoyenId': 1, 'dateEnvoi': -1, '_id': -1}"),
+    @CompoundIndex(name = "technicien_dateEnvoi_id", def = "{'technicienId': 1, 'dateEnvoi': -1, '_id': -1}"),
+    // Sélection des non lues anciennes à archiver
+    @CompoundIndex(name = "statutLecture_dateEnvoi", def = "{'statutLecture': 1, 'dateEnvoi': 1}")
+})
 public class Notification {
     @Id
     private String id;
@@ -16,12 +25,19 @@ public class Notification {
     private String message;
     private Date dateEnvoi;
     private boolean statutLecture;
+    // Date de lecture : point de départ de l'expiration TTL (voir RetentionNotifications)
+    private Date dateLecture;
     private String typeNotification;
 
     // Changé : Stocker seulement l'ID en String (pas d'@DBRef)
     private String citoyenId;  // Était : @DBRef private User citoyenId;
     private String technicienId;  // Était : @DBRef private User technicienId;
     private String interventionId;  // Était : @DBRef private Intervention interventionId;
+    private String ressourceId;     // Alertes de stock
+    // Nombre d'événements regroupés dans cette notification (coalescence, digest)
+    private Integer nombre;
+    // Dernier regroupement ; dateEnvoi ne change plus après l'insertion (curseur de la boîte de réception)
+    private Date derniereMiseAJour;
 
     private Date dateCreation;
 
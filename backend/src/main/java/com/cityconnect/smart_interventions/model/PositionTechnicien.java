@@ -0,0 +1,30 @@
+package com.cityconnect.smart_interventions.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Position GPS reçue d'un technicien. Sert à la fois de dernière position connue (en mémoire)
+ * et de point de trace dans la collection time-series positions_techniciens.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "positions_techniciens")
+public class PositionTechnicien {
+
+    @Id
+    private String id;
+
+    private String technicienId;
+    private Double latitude;
+    private Double longitude;
+    private Date date;
+
+    public PositionTechnicien(String technicienId, double latitude, double longitude, Date date) {
+        this(null, technicienId, latitude, longitude, date);
+    }
+}
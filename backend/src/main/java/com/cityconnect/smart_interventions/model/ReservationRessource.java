@@ -0,0 +1,43 @@
+package com.cityconnect.smart_interventions.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Quantité d'une ressource mise de côté pour une intervention : sortie de quantiteDisponible
+ * à la réservation, puis consommée ou rendue au stock.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "reservations_ressources")
+@CompoundIndexes({
+    @CompoundIndex(name = "intervention_statut", def = "{'interventionId': 1, 'statut': 1}"),
+    @CompoundIndex(name = "ressource_statut", def = "{'ressourceId': 1, 'statut': 1}")
+})
+public class ReservationRessource {
+
+    @Id
+    private String id;
+
+    private String ressourceId;
+    private String interventionId;
+    private Integer quantite;
+    // Quantité réellement utilisée, renseignée à la consommation
+    private Integer quantiteConsommee;
+    private Statut statut;
+    private Date dateCreation;
+    private Date dateCloture;
+
+    public enum Statut {
+        ACTIVE,
+        CONSOMMEE,
+        LIBEREE
+    }
+}
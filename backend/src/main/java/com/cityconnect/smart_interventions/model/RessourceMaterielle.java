@@ -18,10 +18,15 @@ public class RessourceMaterielle {
 
     private String nom;
     private Integer quantiteDisponible;
+    // Quantité sortie du stock disponible par des réservations encore actives
+    private Integer quantiteReservee;
     private String uniteMesure;
     private Date dateDernierApprovisionnement;
+    // Dernières utilisations seulement (historique complet dans mouvements_stock)
     private List<UtilisationRecent> utilisationsRecent;
     private Integer seuilAlerte;
+    // Incrémenté à chaque écriture du stock : ordonne les StockEvent d'une même ressource
+    private Long versionStock;
 
     @Data
     @NoArgsConstructor
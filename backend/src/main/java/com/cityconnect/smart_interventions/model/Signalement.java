@@ -3,6 +3,9 @@ package com.cityconnect.smart_interventions.model;
 import jakarta.validation.constraints.*;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.Date;
 import java.util.List;
@@ -42,6 +45,13 @@ public class Signalement {
     @NotBlank(message = "Les coordonnées sont requises")
     private String coordonnees;
 
+    // Cellule geohash calculée depuis les coordonnées (null si non spécifiées)
+    private String zone;
+
+    // Point GeoJSON (x = longitude, y = latitude) lu depuis les coordonnées à chaque création / mise à jour
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint position;
+
     @NotBlank(message = "L'adresse est requise")
     private String adresse;
 
@@ -2,7 +2,9 @@ package com.cityconnect.smart_interventions.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -11,6 +13,7 @@ import java.util.Map;
 @AllArgsConstructor
 @Builder
 @Document(collection = "statistiques")
+@CompoundIndex(name = "granularite_periode", def = "{'granularite': 1, 'debutPeriode': 1}")
 public class Statistiques {
 
     @Id
@@ -23,4 +26,17 @@ public class Statistiques {
     private Map<String, Double> performanceTechniciens;
     private List<String> topZonesProblemes;
     private Double tauxSatisfactionCitoyens;
-}
\ No newline at end of file
+
+    // Snapshots périodiques (null pour les statistiques générales calculées à la volée)
+    private Granularite granularite;
+    private Date debutPeriode;
+    // Les deux null : bucket global de la période
+    private String serviceMunicipalId;
+    private String technicienId;
+    private Integer nbCreees;
+    private Integer nbTerminees;
+    private Double sommeDureesHeures;
+    private Integer nbDurees;
+
+    public enum Granularite { HEURE, JOUR, MOIS }
+}
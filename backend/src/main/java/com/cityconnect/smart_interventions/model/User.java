@@ -5,6 +5,7 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.Indexed;
 import java.util.Date;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -28,9 +29,15 @@ public class User {
     private String position;
     private Double latitude;
     private Double longitude;
+    // Date de la dernière position GPS enregistrée
+    private Date datePosition;
     private String numeroTelephone;
+    // Compétences du technicien (ELECTRICITE, PLOMBERIE, ...), utilisées pour l'affectation
+    private List<String> competences;
     private Date dateCreation;
     private Date dateModification;
+    // Version du jeton de rafraîchissement en cours, incrémentée à chaque connexion et rotation
+    private Long versionRefresh;
 
     public enum Role {
         ADMIN,
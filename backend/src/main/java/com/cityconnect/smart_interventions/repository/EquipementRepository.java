@@ -8,7 +8,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface EquipementRepository extends MongoRepository<Equipement, String> {
+public interface EquipementRepository extends MongoRepository<Equipement, String>, EquipementRepositoryCustom {
     
         List<Equipement> findByEtat(EtatEquipement etat);  
     
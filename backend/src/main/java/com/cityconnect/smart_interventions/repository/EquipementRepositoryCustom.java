@@ -0,0 +1,24 @@
+package com.cityconnect.smart_interventions.repository;
+
+import com.cityconnect.smart_interventions.model.Equipement;
+
+import java.util.List;
+
+/**
+ * Requêtes géographiques sur les équipements (MongoTemplate), servies par l'index 2dsphere de localisation.
+ * Les documents retournés ne contiennent que id, type, adresse, etat, localisation et zone.
+ */
+public interface EquipementRepositoryCustom {
+
+    /**
+     * $nearSphere : au plus limite équipements à moins de rayonKm de (lat, lng), du plus proche au plus éloigné.
+     * etat null : tous les états.
+     */
+    List<Equipement> findProches(double lat, double lng, double rayonKm, Equipement.EtatEquipement etat, int limite);
+
+    /**
+     * $geoWithin : équipements dans le rectangle (sud, ouest) - (nord, est), au plus limite.
+     */
+    List<Equipement> findDansEmprise(double sud, double ouest, double nord, double est,
+                                     Equipement.EtatEquipement etat, int limite);
+}
@@ -0,0 +1,40 @@
+package com.cityconnect.smart_interventions.repository;
+
+import com.cityconnect.smart_interventions.model.Equipement;
+import com.cityconnect.smart_interventions.utils.GeoUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class EquipementRepositoryImpl implements EquipementRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Equipement> findProches(double lat, double lng, double rayonKm, Equipement.EtatEquipement etat, int limite) {
+        // Avec un point GeoJSON, $maxDistance est en mètres ; le tri par distance est fait par MongoDB
+        Criteria criteria = Criteria.where("localisation").nearSphere(new GeoJsonPoint(lng, lat)).maxDistance(rayonKm * 1000);
+        return mongoTemplate.find(projection(criteria, etat).limit(limite), Equipement.class);
+    }
+
+    @Override
+    public List<Equipement> findDansEmprise(double sud, double ouest, double nord, double est,
+                                            Equipement.EtatEquipement etat, int limite) {
+        Criteria criteria = Criteria.where("localisation").within(GeoUtils.emprise(sud, ouest, nord, est));
+        return mongoTemplate.find(projection(criteria, etat).limit(limite), Equipement.class);
+    }
+
+    private static Query projection(Criteria criteria, Equipement.EtatEquipement etat) {
+        if (etat != null) {
+            criteria = criteria.and("etat").is(etat);
+        }
+        Query query = Query.query(criteria);
+        query.fields().include("type", "adresse", "etat", "localisation", "zone");
+        return query;
+    }
+}
@@ -8,11 +8,13 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface InterventionRepository extends MongoRepository<Intervention, String> {
+public interface InterventionRepository extends MongoRepository<Intervention, String>, InterventionRepositoryCustom {
 
-    // Recherche par statut (Enum)
-    List<Intervention> findByStatut(Intervention.Statut statut);
+    // Recherche par statut (Enum) ; type = Intervention ou une projection (InterventionSummary)
+    <T> List<T> findByStatut(Intervention.Statut statut, Class<T> type);
+
+    <T> List<T> findByStatutNot(Intervention.Statut statut, Class<T> type);
     
     // Recherche par technicien - AJOUTEZ CETTE MÉTHODE
-    List<Intervention> findByTechnicienId(String technicienId);
+    <T> List<T> findByTechnicienId(String technicienId, Class<T> type);
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.cityconnect.smart_interventions.repository;
+
+import com.cityconnect.smart_interventions.dto.InterventionFiltre;
+import com.cityconnect.smart_interventions.model.Intervention;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Requêtes écrites à la main sur les interventions (MongoTemplate).
+ */
+public interface InterventionRepositoryCustom {
+
+    /**
+     * Page triée par dateCreation puis _id décroissants, commençant strictement après
+     * (apresDate, apresId) ; les deux null pour la première page.
+     * type peut être une projection : seuls ses champs sont lus.
+     */
+    <T> List<T> findPage(InterventionFiltre filtre, Date apresDate, String apresId, int taille, Class<T> type);
+
+    /**
+     * Curseur MongoDB sur toutes les interventions filtrées, même ordre que findPage.
+     * Le flux doit être fermé par l'appelant.
+     */
+    <T> Stream<T> streamAll(InterventionFiltre filtre, Class<T> type);
+
+    /**
+     * Champs scalaires seulement (sans les anciens tableaux commentaires / historiqueStatut
+     * des documents pas encore migrés), null si absente.
+     */
+    Intervention findEtat(String id);
+
+    // findEtat pour plusieurs interventions, en une requête
+    List<Intervention> findEtats(Collection<String> ids);
+
+    /**
+     * findAndModify atomique : applique update seulement si le statut vaut encore statutAttendu.
+     * Retourne le document après mise à jour, ou null si absent ou si le statut a changé.
+     */
+    Intervention modifierSiStatut(String id, Intervention.Statut statutAttendu, Update update);
+}
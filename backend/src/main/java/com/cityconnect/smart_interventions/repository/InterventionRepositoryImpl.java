@@ -0,0 +1,81 @@
+package com.cityconnect.smart_interventions.repository;
+
+import com.cityconnect.smart_interventions.dto.InterventionFiltre;
+import com.cityconnect.smart_interventions.model.Intervention;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class InterventionRepositoryImpl implements InterventionRepositoryCustom {
+
+    private static final Sort ORDRE = Sort.by(Sort.Direction.DESC, "dateCreation", "_id");
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public <T> List<T> findPage(InterventionFiltre filtre, Date apresDate, String apresId, int taille, Class<T> type) {
+        List<Criteria> criteres = criteres(filtre);
+        if (apresDate != null && apresId != null) {
+            // Keyset : (dateCreation, _id) < (apresDate, apresId), servi par les index composés
+            criteres.add(new Criteria().orOperator(
+                    Criteria.where("dateCreation").lt(apresDate),
+                    Criteria.where("dateCreation").is(apresDate).and("_id").lt(apresId)));
+        }
+        Query query = query(criteres).with(ORDRE).limit(taille);
+        return mongoTemplate.query(Intervention.class).as(type).matching(query).all();
+    }
+
+    @Override
+    public <T> Stream<T> streamAll(InterventionFiltre filtre, Class<T> type) {
+        Query query = query(criteres(filtre)).with(ORDRE);
+        query.cursorBatchSize(500);
+        return mongoTemplate.query(Intervention.class).as(type).matching(query).stream();
+    }
+
+    @Override
+    public Intervention findEtat(String id) {
+        Query query = Query.query(Criteria.where("_id").is(id));
+        query.fields().exclude("commentaires", "historiqueStatut");
+        return mongoTemplate.findOne(query, Intervention.class);
+    }
+
+    @Override
+    public List<Intervention> findEtats(Collection<String> ids) {
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().exclude("commentaires", "historiqueStatut");
+        return mongoTemplate.find(query, Intervention.class);
+    }
+
+    @Override
+    public Intervention modifierSiStatut(String id, Intervention.Statut statutAttendu, Update update) {
+        Query query = Query.query(Criteria.where("_id").is(id).and("statut").is(statutAttendu));
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Intervention.class);
+    }
+
+    private static List<Criteria> criteres(InterventionFiltre filtre) {
+        List<Criteria> criteres = new ArrayList<>();
+        if (filtre == null) {
+            return criteres;
+        }
+        if (filtre.getStatut() != null) criteres.add(Criteria.where("statut").is(filtre.getStatut()));
+        if (filtre.getUrgence() != null) criteres.add(Criteria.where("urgence").is(filtre.getUrgence()));
+        if (filtre.getServiceMunicipalId() != null) criteres.add(Criteria.where("serviceMunicipalId").is(filtre.getServiceMunicipalId()));
+        if (filtre.getTechnicienId() != null) criteres.add(Criteria.where("technicienId").is(filtre.getTechnicienId()));
+        return criteres;
+    }
+
+    private static Query query(List<Criteria> criteres) {
+        return criteres.isEmpty() ? new Query() : new Query(new Criteria().andOperator(criteres));
+    }
+}
@@ -9,7 +9,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface SignalementRepository extends MongoRepository<Signalement, String> {
+public interface SignalementRepository extends MongoRepository<Signalement, String>, SignalementRepositoryCustom {
     
     List<Signalement> findByStatut(Statut statut);
     
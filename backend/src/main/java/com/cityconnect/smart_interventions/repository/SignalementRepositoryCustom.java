@@ -0,0 +1,25 @@
+package com.cityconnect.smart_interventions.repository;
+
+import com.cityconnect.smart_interventions.model.Signalement;
+
+import java.util.List;
+
+/**
+ * Requêtes géographiques sur les signalements (MongoTemplate), servies par l'index 2dsphere de position.
+ * Les documents retournés ne contiennent que id, titre, type, urgence, statut, adresse, position, zone
+ * et dateCreation (ni description ni historique).
+ */
+public interface SignalementRepositoryCustom {
+
+    /**
+     * $nearSphere : au plus limite signalements à moins de rayonKm de (lat, lng), du plus proche au plus éloigné.
+     * statut null : tous les statuts.
+     */
+    List<Signalement> findProches(double lat, double lng, double rayonKm, Signalement.Statut statut, int limite);
+
+    /**
+     * $geoWithin : signalements dans le rectangle (sud, ouest) - (nord, est), au plus limite.
+     */
+    List<Signalement> findDansEmprise(double sud, double ouest, double nord, double est,
+                                      Signalement.Statut statut, int limite);
+}
@@ -0,0 +1,40 @@
+package com.cityconnect.smart_interventions.repository;
+
+import com.cityconnect.smart_interventions.model.Signalement;
+import com.cityconnect.smart_interventions.utils.GeoUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class SignalementRepositoryImpl implements SignalementRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Signalement> findProches(double lat, double lng, double rayonKm, Signalement.Statut statut, int limite) {
+        // Avec un point GeoJSON, $maxDistance est en mètres ; le tri par distance est fait par MongoDB
+        Criteria criteria = Criteria.where("position").nearSphere(new GeoJsonPoint(lng, lat)).maxDistance(rayonKm * 1000);
+        return mongoTemplate.find(projection(criteria, statut).limit(limite), Signalement.class);
+    }
+
+    @Override
+    public List<Signalement> findDansEmprise(double sud, double ouest, double nord, double est,
+                                             Signalement.Statut statut, int limite) {
+        Criteria criteria = Criteria.where("position").within(GeoUtils.emprise(sud, ouest, nord, est));
+        return mongoTemplate.find(projection(criteria, statut).limit(limite), Signalement.class);
+    }
+
+    private static Query projection(Criteria criteria, Signalement.Statut statut) {
+        if (statut != null) {
+            criteria = criteria.and("statut").is(statut);
+        }
+        Query query = Query.query(criteria);
+        query.fields().include("titre", "type", "urgence", "statut", "adresse", "position", "zone", "dateCreation");
+        return query;
+    }
+}
@@ -1,10 +1,24 @@
 package com.cityconnect.smart_interventions.repository;
 
 import com.cityconnect.smart_interventions.model.Statistiques;
+import com.cityconnect.smart_interventions.model.Statistiques.Granularite;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface StatistiquesRepository extends MongoRepository<Statistiques, String> {
 
+    // Buckets d'une granularité dont le début est dans [debut, fin)
+    @Query("{ 'granularite': ?0, 'debutPeriode': { $gte: ?1, $lt: ?2 } }")
+    List<Statistiques> findPeriodes(Granularite granularite, Date debut, Date fin);
+
+    @Query(value = "{ 'granularite': ?0, 'debutPeriode': { $gte: ?1, $lt: ?2 } }", delete = true)
+    void deletePeriodes(Granularite granularite, Date debut, Date fin);
+
+    Optional<Statistiques> findFirstByGranulariteOrderByDebutPeriodeDesc(Granularite granularite);
 }
@@ -0,0 +1,327 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.dto.TechnicienDTO;
+import com.cityconnect.smart_interventions.event.PositionTechnicienEvent;
+import com.cityconnect.smart_interventions.event.UserEvent;
+import com.cityconnect.smart_interventions.model.User;
+import com.cityconnect.smart_interventions.utils.GeoUtils;
+import com.cityconnect.smart_interventions.utils.GrilleSpatiale;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Suggestion des techniciens les plus adaptés à une intervention, calculée côté serveur.
+ *
+ * Les techniciens disponibles sont gardés en mémoire dans une grille spatiale, tenue à jour par les
+ * UserEvent et réconciliée périodiquement depuis MongoDB. Le score reprend la pondération de
+ * l'écran d'affectation (disponibilité, distance, compétences, charge, bonus urgence) ; la recherche
+ * parcourt les anneaux de cellules autour de l'intervention et s'arrête dès qu'aucun technicien
+ * plus éloigné ne peut dépasser le k-ième score retenu.
+ */
+@Slf4j
+@Component
+public class AffectationEngine {
+
+    private static final double SCORE_DISPONIBILITE = 30;
+    private static final double SCORE_COMPETENCES = 20;
+    private static final double SCORE_CHARGE = 10;
+    private static final double BONUS_URGENCE = 15;
+    private static final double RAYON_BONUS_URGENCE_KM = 5;
+    private static final double PENALITE_PAR_KM = 5;
+    private static final double SCORE_MAX = 100;
+    // Score maximal hors distance et bonus : disponibilité + compétences + charge
+    private static final double SCORE_FIXE_MAX = SCORE_DISPONIBILITE + SCORE_COMPETENCES + SCORE_CHARGE;
+
+    // Type d'intervention -> compétences acceptées (même table que le frontend)
+    private static final Map<String, List<String>> COMPETENCES_REQUISES = Map.of(
+            "ELECTRIQUE", List.of("ELECTRICITE", "MAINTENANCE"),
+            "MECANIQUE", List.of("MECANIQUE", "REPARATION"),
+            "PLOMBERIE", List.of("PLOMBERIE", "SANITAIRE"),
+            "INFORMATIQUE", List.of("INFORMATIQUE", "RESEAU"),
+            "CLIMATISATION", List.of("CLIMATISATION", "FROID"),
+            "ÉLECTRIQUE", List.of("ELECTRICITE", "MAINTENANCE"),
+            "ÉLECTRICITÉ", List.of("ELECTRICITE", "MAINTENANCE"),
+            "MAINTENANCE", List.of("MAINTENANCE", "REPARATION"),
+            "RÉPARATION", List.of("REPARATION", "MAINTENANCE")
+    );
+
+    private final MongoTemplate mongoTemplate;
+    private final double pasDegres;
+
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+    private GrilleSpatiale<User> grille;
+    // Techniciens disponibles sans coordonnées : score plafonné à SCORE_FIXE_MAX
+    private Map<String, User> sansPosition = new HashMap<>();
+
+    public AffectationEngine(MongoTemplate mongoTemplate,
+                             @Value("${affectation.grille.pas-degres:0.01}") double pasDegres) {
+        this.mongoTemplate = mongoTemplate;
+        this.pasDegres = pasDegres;
+        this.grille = new GrilleSpatiale<>(pasDegres);
+    }
+
+    @EventListener
+    public void onUser(UserEvent event) {
+        verrou.writeLock().lock();
+        try {
+            if (event.getAvant() != null) {
+                retirer(event.getAvant().getId());
+            }
+            if (event.getApres() != null) {
+                indexer(event.getApres(), grille, sansPosition);
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Déplace un technicien déjà indexé ; un technicien absent de l'index (indisponible) est ignoré.
+     */
+    @EventListener
+    public void onPosition(PositionTechnicienEvent event) {
+        verrou.writeLock().lock();
+        try {
+            String id = event.getTechnicienId();
+            User u = sansPosition.remove(id);
+            if (u == null) {
+                GrilleSpatiale.Point<User> p = grille.get(id);
+                if (p == null) {
+                    return;
+                }
+                u = p.valeur();
+            }
+            // Copie : les User indexés peuvent être lus hors verrou par les résultats déjà construits
+            u = UserEvent.instantane(u);
+            u.setLatitude(event.getLatitude());
+            u.setLongitude(event.getLongitude());
+            u.setDatePosition(event.getDate());
+            grille.placer(id, event.getLatitude(), event.getLongitude(), u);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remplace le contenu de l'index (chargement initial, réconciliation, benchmark).
+     */
+    public void charger(Collection<User> techniciens) {
+        GrilleSpatiale<User> g = new GrilleSpatiale<>(pasDegres);
+        Map<String, User> sp = new HashMap<>();
+        techniciens.forEach(u -> indexer(u, g, sp));
+        verrou.writeLock().lock();
+        try {
+            grille = g;
+            sansPosition = sp;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rechargement complet des techniciens disponibles, champs utiles seulement.
+     * Un événement concurrent à la passe peut être perdu : la passe suivante le corrige.
+     */
+    @Scheduled(initialDelayString = "${affectation.reconciliation.delai-initial-ms:0}",
+               fixedDelayString = "${affectation.reconciliation.intervalle-ms:300000}")
+    public void reconcilier() {
+        try {
+            Query query = Query.query(Criteria.where("role").is(User.Role.TECHNICIEN).and("disponibilite").is(true));
+            query.fields().include("nom", "prenom", "email", "numeroTelephone", "role", "disponibilite",
+                    "position", "latitude", "longitude", "competences");
+            List<User> techniciens = new ArrayList<>();
+            try (Stream<User> stream = mongoTemplate.stream(query, User.class)) {
+                stream.forEach(techniciens::add);
+            }
+            charger(techniciens);
+            log.debug("Index d'affectation rechargé : {} techniciens disponibles", techniciens.size());
+        } catch (Exception e) {
+            log.warn("Réconciliation de l'index d'affectation impossible : {}", e.getMessage());
+        }
+    }
+
+    public int nombreTechniciens() {
+        verrou.readLock().lock();
+        try {
+            return grille.taille() + sansPosition.size();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * Les k meilleurs techniciens disponibles pour une intervention en (lat, lng),
+     * par score décroissant puis distance croissante.
+     */
+    public List<TechnicienDTO> candidats(double lat, double lng, String type, String urgence, int k) {
+        if (!GeoUtils.valides(lat, lng)) {
+            throw new IllegalArgumentException("Coordonnées invalides : " + lat + ", " + lng);
+        }
+        if (k <= 0) {
+            return List.of();
+        }
+        Recherche recherche = new Recherche(competencesRequises(type), "URGENT".equalsIgnoreCase(urgence), k);
+
+        verrou.readLock().lock();
+        try {
+            sansPosition.values().forEach(u -> recherche.considerer(u, Double.POSITIVE_INFINITY));
+
+            // Au-delà de cette distance, le score ne dépend plus de la position
+            double rayonUtile = recherche.poidsDistance / PENALITE_PAR_KM;
+            boolean complet = false;
+            for (int r = 0; ; r++) {
+                grille.anneau(lat, lng, r, p -> recherche.considerer(p.valeur(),
+                        GeoUtils.distanceKm(lat, lng, p.lat(), p.lng())));
+                double dMin = grille.distanceMinHorsAnneaux(lat, r);
+                if (recherche.suffisant(dMin)) {
+                    break;
+                }
+                // Les techniciens restants sont départagés par la distance seule : parcours complet
+                if (dMin >= rayonUtile || r * pasDegres > 180) {
+                    complet = true;
+                    break;
+                }
+            }
+            if (complet) {
+                recherche.vider();
+                sansPosition.values().forEach(u -> recherche.considerer(u, Double.POSITIVE_INFINITY));
+                for (GrilleSpatiale.Point<User> p : grille.tous()) {
+                    recherche.considerer(p.valeur(), GeoUtils.distanceKm(lat, lng, p.lat(), p.lng()));
+                }
+            }
+        } finally {
+            verrou.readLock().unlock();
+        }
+        return recherche.resultat();
+    }
+
+    /**
+     * Score d'un technicien, identique au calcul de l'écran d'affectation.
+     */
+    public static double score(User u, double distanceKm, List<String> requises, boolean urgent) {
+        double score = SCORE_DISPONIBILITE + SCORE_CHARGE;
+        if (Double.isFinite(distanceKm)) {
+            score += Math.max(0, (urgent ? 50 : 40) - distanceKm * PENALITE_PAR_KM);
+        }
+        if (competencesMatch(u, requises)) {
+            score += SCORE_COMPETENCES;
+        }
+        if (urgent && distanceKm < RAYON_BONUS_URGENCE_KM) {
+            score += BONUS_URGENCE;
+        }
+        return Math.min(SCORE_MAX, score);
+    }
+
+    public static List<String> competencesRequises(String type) {
+        return type != null ? COMPETENCES_REQUISES.getOrDefault(type.toUpperCase(), List.of()) : List.of();
+    }
+
+    public static boolean competencesMatch(User u, List<String> requises) {
+        if (u.getCompetences() == null || requises.isEmpty()) {
+            return false;
+        }
+        for (String c : u.getCompetences()) {
+            if (c == null) continue;
+            String maj = c.toUpperCase();
+            for (String r : requises) {
+                if (maj.contains(r)) return true;
+            }
+        }
+        return false;
+    }
+
+    private void retirer(String id) {
+        grille.retirer(id);
+        sansPosition.remove(id);
+    }
+
+    private static void indexer(User u, GrilleSpatiale<User> g, Map<String, User> sp) {
+        if (u.getId() == null || u.getRole() != User.Role.TECHNICIEN || !Boolean.TRUE.equals(u.getDisponibilite())) {
+            return;
+        }
+        if (GeoUtils.valides(u.getLatitude(), u.getLongitude())) {
+            g.placer(u.getId(), u.getLatitude(), u.getLongitude(), u);
+        } else {
+            sp.put(u.getId(), u);
+        }
+    }
+
+    private record Candidat(User user, double distance, double score) {
+    }
+
+    // Le moins bon candidat en tête : score croissant, puis distance décroissante
+    private static final Comparator<Candidat> MOINS_BON_DABORD = Comparator
+            .comparingDouble(Candidat::score)
+            .thenComparing(Comparator.comparingDouble(Candidat::distance).reversed())
+            .thenComparing(c -> c.user().getId(), Comparator.reverseOrder());
+
+    /**
+     * Top-k en cours de construction (tas de taille k).
+     */
+    private static class Recherche {
+        final List<String> requises;
+        final boolean urgent;
+        final double poidsDistance;
+        final int k;
+        final PriorityQueue<Candidat> tas = new PriorityQueue<>(MOINS_BON_DABORD);
+
+        Recherche(List<String> requises, boolean urgent, int k) {
+            this.requises = requises;
+            this.urgent = urgent;
+            this.poidsDistance = urgent ? 50 : 40;
+            this.k = k;
+        }
+
+        void considerer(User u, double distance) {
+            Candidat c = new Candidat(u, distance, score(u, distance, requises, urgent));
+            if (tas.size() < k) {
+                tas.add(c);
+            } else if (MOINS_BON_DABORD.compare(c, tas.peek()) > 0) {
+                tas.poll();
+                tas.add(c);
+            }
+        }
+
+        /**
+         * Vrai si aucun technicien à distance >= dMin ne peut passer devant le k-ième retenu.
+         */
+        boolean suffisant(double dMin) {
+            if (tas.size() < k) {
+                return false;
+            }
+            double borne = Math.min(SCORE_MAX, SCORE_FIXE_MAX
+                    + Math.max(0, poidsDistance - dMin * PENALITE_PAR_KM)
+                    + (urgent && dMin < RAYON_BONUS_URGENCE_KM ? BONUS_URGENCE : 0));
+            Candidat kieme = tas.peek();
+            return kieme.score() > borne || (kieme.score() == borne && kieme.distance() <= dMin);
+        }
+
+        void vider() {
+            tas.clear();
+        }
+
+        List<TechnicienDTO> resultat() {
+            List<Candidat> tries = new ArrayList<>(tas);
+            tries.sort(MOINS_BON_DABORD.reversed());
+            List<TechnicienDTO> dtos = new ArrayList<>(tries.size());
+            for (Candidat c : tries) {
+                TechnicienDTO dto = new TechnicienDTO(c.user());
+                dto.setScore((int) Math.round(c.score()));
+                dto.setCompetencesMatch(competencesMatch(c.user(), requises));
+                dto.setDistance(Double.isFinite(c.distance()) ? Math.round(c.distance() * 100) / 100.0 : null);
+                dtos.add(dto);
+            }
+            return dtos;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.dto.AlerteStockDTO;
+import com.cityconnect.smart_interventions.event.StockEvent;
+import com.cityconnect.smart_interventions.model.Notification;
+import com.cityconnect.smart_interventions.model.RessourceMaterielle;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Alertes de stock bas, évaluées à chaque StockEvent en O(1).
+ *
+ * Une ressource est en alerte quand quantiteDisponible <= seuilAlerte. Seul le passage
+ * hors alerte -> en alerte envoie une notification ; tant que la ressource reste sous son seuil,
+ * les mouvements suivants n'en envoient pas d'autre. versionStock sert à ignorer un événement
+ * plus ancien que l'état déjà connu (deux mouvements concurrents peuvent être publiés dans le désordre).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AlertesStock {
+
+    static final String TYPE_NOTIFICATION = "ALERTE_STOCK";
+
+    private final MongoTemplate mongoTemplate;
+    private final NotificationService notificationService;
+
+    // Dernier état connu de chaque ressource
+    private final Map<String, Etat> etats = new ConcurrentHashMap<>();
+
+    private record Etat(long version, RessourceMaterielle ressource, boolean enAlerte, Date depuis) {
+    }
+
+    @EventListener
+    public void onStock(StockEvent event) {
+        RessourceMaterielle r = event.getRessource();
+        if (event.getAction() == StockEvent.Action.SUPPRIME) {
+            etats.remove(r.getId());
+            return;
+        }
+        if (appliquer(r)) {
+            notifier(r);
+        }
+    }
+
+    /**
+     * Ressources actuellement au niveau ou sous leur seuil, les plus anciennes alertes d'abord.
+     */
+    public List<AlerteStockDTO> alertes() {
+        List<AlerteStockDTO> alertes = new ArrayList<>();
+        for (Etat e : etats.values()) {
+            if (e.enAlerte()) {
+                RessourceMaterielle r = e.ressource();
+                alertes.add(new AlerteStockDTO(r.getId(), r.getNom(), r.getQuantiteDisponible(),
+                        r.getSeuilAlerte(), r.getUniteMesure(), e.depuis()));
+            }
+        }
+        alertes.sort(Comparator.comparing(AlerteStockDTO::getDepuis));
+        return alertes;
+    }
+
+    /**
+     * Chargement initial, sans notification : les ressources déjà sous leur seuil au démarrage
+     * apparaissent dans les alertes mais ne sont pas re-notifiées.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void charger() {
+        try {
+            Query query = new Query();
+            query.fields().include("nom", "quantiteDisponible", "seuilAlerte", "uniteMesure", "versionStock");
+            Date maintenant = new Date();
+            int nb = 0;
+            try (Stream<RessourceMaterielle> stream = mongoTemplate.stream(query, RessourceMaterielle.class)) {
+                for (Iterator<RessourceMaterielle> it = stream.iterator(); it.hasNext(); ) {
+                    RessourceMaterielle r = it.next();
+                    Etat etat = new Etat(version(r), r, enAlerte(r), maintenant);
+                    // Un événement reçu pendant le chargement est plus récent : il est gardé
+                    etats.merge(r.getId(), etat, (actuel, charge) -> actuel.version() >= charge.version() ? actuel : charge);
+                    if (etat.enAlerte()) nb++;
+                }
+            }
+            log.info("Alertes de stock chargées : {} ressources sous leur seuil", nb);
+        } catch (Exception e) {
+            log.warn("Chargement des alertes de stock impossible : {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Met à jour l'état de la ressource ; vrai si elle vient de passer sous son seuil.
+     */
+    boolean appliquer(RessourceMaterielle r) {
+        boolean[] franchissement = new boolean[1];
+        long version = version(r);
+        boolean alerte = enAlerte(r);
+        etats.compute(r.getId(), (id, actuel) -> {
+            if (actuel != null && actuel.version() > version) {
+                return actuel;
+            }
+            boolean etaitEnAlerte = actuel != null && actuel.enAlerte();
+            franchissement[0] = alerte && !etaitEnAlerte;
+            Date depuis = alerte && etaitEnAlerte ? actuel.depuis() : new Date();
+            return new Etat(version, r, alerte, depuis);
+        });
+        return franchissement[0];
+    }
+
+    private void notifier(RessourceMaterielle r) {
+        Notification n = new Notification();
+        n.setTypeNotification(TYPE_NOTIFICATION);
+        n.setRessourceId(r.getId());
+        n.setMessage("Stock bas : " + r.getNom() + " (" + r.getQuantiteDisponible()
+                + (r.getUniteMesure() != null ? " " + r.getUniteMesure() : "")
+                + " disponibles, seuil " + r.getSeuilAlerte() + ")");
+        try {
+            notificationService.send(n);
+            log.info("Alerte de stock envoyée pour la ressource {}", r.getId());
+        } catch (Exception e) {
+            log.warn("Notification d'alerte de stock impossible pour {} : {}", r.getId(), e.getMessage());
+        }
+    }
+
+    private static boolean enAlerte(RessourceMaterielle r) {
+        return r.getSeuilAlerte() != null && r.getQuantiteDisponible() != null
+                && r.getQuantiteDisponible() <= r.getSeuilAlerte();
+    }
+
+    private static long version(RessourceMaterielle r) {
+        return r.getVersionStock() != null ? r.getVersionStock() : 0;
+    }
+}
@@ -1,13 +1,20 @@
 package com.cityconnect.smart_interventions.service;
 import com.cityconnect.smart_interventions.dto.LoginRequest;
 import com.cityconnect.smart_interventions.dto.LoginResponse;
+import com.cityconnect.smart_interventions.dto.RefreshRequest;
 import com.cityconnect.smart_interventions.dto.RegisterRequest;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface AuthService {
-	  LoginResponse login(LoginRequest request) throws Exception;
+	  // Asynchrone : la vérification BCrypt ne bloque pas le thread de la requête
+	  CompletableFuture<LoginResponse> login(LoginRequest request) throws Exception;
 	    
 	    // Méthode pour l'inscription
 	    LoginResponse register(RegisterRequest request) throws Exception;
 
+	    // Nouveau jeton d'accès à partir d'un jeton de rafraîchissement, sans vérification BCrypt
+	    LoginResponse refresh(RefreshRequest request);
+
 
 }
@@ -0,0 +1,425 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.event.EquipementEvent;
+import com.cityconnect.smart_interventions.event.PositionTechnicienEvent;
+import com.cityconnect.smart_interventions.event.SignalementEvent;
+import com.cityconnect.smart_interventions.event.UserEvent;
+import com.cityconnect.smart_interventions.model.Equipement;
+import com.cityconnect.smart_interventions.model.Signalement;
+import com.cityconnect.smart_interventions.model.User;
+import com.cityconnect.smart_interventions.utils.GeoHash;
+import com.cityconnect.smart_interventions.utils.GeoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Tuiles de carte (z/x/y, projection Web Mercator) pré-agrégées, servies depuis un index en mémoire
+ * des signalements, équipements et techniciens.
+ *
+ * Les points sont rangés dans des seaux geohash de précision 5 (~5 km) ; une tuile ne lit que les seaux
+ * qu'elle recouvre, son coût dépend donc de ce qu'elle montre et non du volume de la ville.
+ * Sous le zoom zoom-points, les points d'une tuile sont regroupés par préfixe geohash (environ 8 x 8
+ * groupes par tuile) : un groupe donne un seul point GeoJSON avec ses effectifs par couche.
+ *
+ * Chaque seau porte une version incrémentée à chaque changement ; l'ETag d'une tuile est calculé
+ * à partir des versions des seaux recouverts, sans construire la tuile, pour répondre 304 à moindre coût.
+ */
+@Slf4j
+@Component
+public class CarteTuiles {
+
+    public enum Couche { SIGNALEMENT, EQUIPEMENT, TECHNICIEN }
+
+    static final int PRECISION_POINT = 9;
+    static final int PRECISION_SEAU = 5;
+    private static final int ZOOM_MAX = 22;
+    // Groupes par côté de tuile
+    private static final int GROUPES_PAR_TUILE = 8;
+
+    /**
+     * Un élément placé sur la carte. hash : geohash de précision PRECISION_POINT.
+     */
+    public record PointCarte(Couche couche, String id, double lat, double lng, String type, String statut, String hash) {
+
+        static PointCarte de(Couche couche, String id, double lat, double lng, String type, String statut) {
+            return new PointCarte(couche, id, lat, lng, type, statut, GeoHash.encode(lat, lng, PRECISION_POINT));
+        }
+
+        String cle() {
+            return couche + ":" + id;
+        }
+
+        String seau() {
+            return hash.substring(0, PRECISION_SEAU);
+        }
+    }
+
+    private static final class Seau {
+        final Map<String, PointCarte> points = new ConcurrentHashMap<>();
+        final AtomicLong version = new AtomicLong();
+        final double[] emprise;
+
+        Seau(String hash) {
+            this.emprise = GeoHash.boundingBox(hash);
+        }
+    }
+
+    /**
+     * Tuile construite : etag et contenu GeoJSON (FeatureCollection).
+     */
+    public record Tuile(String etag, Map<String, Object> geoJson) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final int zoomPoints;
+
+    private final Map<String, PointCarte> points = new ConcurrentHashMap<>();
+    private final Map<String, Seau> seaux = new ConcurrentHashMap<>();
+    private final String demarrage = Long.toString(System.currentTimeMillis(), 36);
+
+    public CarteTuiles(MongoTemplate mongoTemplate,
+                       @Value("${carte.tuiles.zoom-points:16}") int zoomPoints) {
+        this.mongoTemplate = mongoTemplate;
+        this.zoomPoints = zoomPoints;
+    }
+
+    // ========== Mise à jour de l'index ==========
+
+    @EventListener
+    public void onSignalement(SignalementEvent event) {
+        Signalement s = event.getApres();
+        if (s == null) {
+            retirer(Couche.SIGNALEMENT, event.getAvant().getId());
+            return;
+        }
+        double[] p = coordonnees(s);
+        if (p == null) {
+            retirer(Couche.SIGNALEMENT, s.getId());
+        } else {
+            placer(signalement(s, p));
+        }
+    }
+
+    @EventListener
+    public void onEquipement(EquipementEvent event) {
+        Equipement e = event.getApres();
+        if (e == null) {
+            retirer(Couche.EQUIPEMENT, event.getAvant().getId());
+            return;
+        }
+        PointCarte p = equipement(e);
+        if (p == null) {
+            retirer(Couche.EQUIPEMENT, e.getId());
+        } else {
+            placer(p);
+        }
+    }
+
+    @EventListener
+    public void onUser(UserEvent event) {
+        User u = event.getApres();
+        PointCarte p = u != null && u.getRole() == User.Role.TECHNICIEN ? technicien(u) : null;
+        if (p != null) {
+            placer(p);
+        } else {
+            String id = u != null ? u.getId() : event.getAvant().getId();
+            retirer(Couche.TECHNICIEN, id);
+        }
+    }
+
+    @EventListener
+    public void onPosition(PositionTechnicienEvent event) {
+        PointCarte actuel = points.get(Couche.TECHNICIEN + ":" + event.getTechnicienId());
+        if (actuel != null) {
+            placer(PointCarte.de(Couche.TECHNICIEN, actuel.id(), event.getLatitude(), event.getLongitude(),
+                    actuel.type(), actuel.statut()));
+        }
+    }
+
+    /**
+     * Rechargement complet (démarrage puis périodique), champs utiles seulement.
+     * Seuls les seaux dont le contenu change voient leur version, donc l'ETag de leurs tuiles, changer.
+     */
+    @Scheduled(initialDelayString = "${carte.tuiles.delai-initial-ms:0}",
+               fixedDelayString = "${carte.tuiles.reconciliation.intervalle-ms:300000}")
+    public void reconcilier() {
+        try {
+            Map<String, PointCarte> charges = new HashMap<>();
+            Consumer<PointCarte> garder = p -> {
+                if (p != null) charges.put(p.cle(), p);
+            };
+
+            Query qs = new Query();
+            qs.fields().include("position", "coordonnees", "type", "statut");
+            try (Stream<Signalement> stream = mongoTemplate.stream(qs, Signalement.class)) {
+                stream.forEach(s -> {
+                    double[] p = coordonnees(s);
+                    garder.accept(p != null ? signalement(s, p) : null);
+                });
+            }
+            Query qe = Query.query(Criteria.where("localisation").ne(null));
+            qe.fields().include("localisation", "type", "etat");
+            try (Stream<Equipement> stream = mongoTemplate.stream(qe, Equipement.class)) {
+                stream.forEach(e -> garder.accept(equipement(e)));
+            }
+            Query qt = Query.query(Criteria.where("role").is(User.Role.TECHNICIEN));
+            qt.fields().include("role", "latitude", "longitude", "disponibilite");
+            try (Stream<User> stream = mongoTemplate.stream(qt, User.class)) {
+                stream.forEach(u -> garder.accept(technicien(u)));
+            }
+
+            charger(charges.values());
+            log.debug("Index des tuiles de carte rechargé : {} points", charges.size());
+        } catch (Exception e) {
+            log.warn("Réconciliation de l'index des tuiles de carte impossible : {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Remplace le contenu de l'index (réconciliation, tests).
+     */
+    public synchronized void charger(Collection<PointCarte> nouveaux) {
+        Set<String> cles = new HashSet<>();
+        for (PointCarte p : nouveaux) {
+            cles.add(p.cle());
+            placer(p);
+        }
+        for (PointCarte p : new ArrayList<>(points.values())) {
+            if (!cles.contains(p.cle())) {
+                retirer(p.couche(), p.id());
+            }
+        }
+    }
+
+    synchronized void placer(PointCarte p) {
+        PointCarte avant = points.put(p.cle(), p);
+        if (p.equals(avant)) {
+            return;
+        }
+        if (avant != null && !avant.seau().equals(p.seau())) {
+            enlever(avant);
+        }
+        Seau seau = seaux.computeIfAbsent(p.seau(), Seau::new);
+        seau.points.put(p.cle(), p);
+        seau.version.incrementAndGet();
+    }
+
+    synchronized void retirer(Couche couche, String id) {
+        PointCarte avant = points.remove(couche + ":" + id);
+        if (avant != null) {
+            enlever(avant);
+        }
+    }
+
+    // Un seau vidé est gardé : sa version doit continuer à changer l'ETag des tuiles qui le recouvraient
+    private void enlever(PointCarte p) {
+        Seau seau = seaux.get(p.seau());
+        if (seau != null && seau.points.remove(p.cle()) != null) {
+            seau.version.incrementAndGet();
+        }
+    }
+
+    public int taille() {
+        return points.size();
+    }
+
+    // ========== Lecture des tuiles ==========
+
+    /**
+     * ETag de la tuile, calculé sans la construire.
+     */
+    public String etag(int z, int x, int y, Set<Couche> couches) {
+        double[] emprise = emprise(z, x, y);
+        return etag(z, couches, seauxRecouverts(emprise));
+    }
+
+    public Tuile tuile(int z, int x, int y, Set<Couche> couches) {
+        double[] emprise = emprise(z, x, y);
+        SortedMap<String, Seau> recouverts = seauxRecouverts(emprise);
+        // ETag calculé avant la lecture : un changement concurrent donne au pire un contenu plus récent que l'ETag
+        String etag = etag(z, couches, recouverts);
+
+        List<PointCarte> visibles = new ArrayList<>();
+        for (Seau seau : recouverts.values()) {
+            for (PointCarte p : seau.points.values()) {
+                if (couches.contains(p.couche()) && dans(emprise, p.lat(), p.lng())) {
+                    visibles.add(p);
+                }
+            }
+        }
+
+        List<Map<String, Object>> features = new ArrayList<>();
+        if (z >= zoomPoints) {
+            visibles.forEach(p -> features.add(featurePoint(p)));
+        } else {
+            int precision = precisionGroupes(z);
+            Map<String, List<PointCarte>> groupes = new TreeMap<>();
+            for (PointCarte p : visibles) {
+                groupes.computeIfAbsent(p.hash().substring(0, precision), k -> new ArrayList<>()).add(p);
+            }
+            groupes.forEach((cellule, groupe) -> features.add(
+                    groupe.size() == 1 ? featurePoint(groupe.get(0)) : featureGroupe(cellule, groupe)));
+        }
+
+        Map<String, Object> geoJson = new LinkedHashMap<>();
+        geoJson.put("type", "FeatureCollection");
+        geoJson.put("features", features);
+        return new Tuile(etag, geoJson);
+    }
+
+    /**
+     * Emprise d'une tuile Web Mercator : {latMin, lngMin, latMax, lngMax}.
+     */
+    static double[] emprise(int z, int x, int y) {
+        if (z < 0 || z > ZOOM_MAX) {
+            throw new IllegalArgumentException("Zoom invalide : " + z);
+        }
+        int n = 1 << z;
+        if (x < 0 || x >= n || y < 0 || y >= n) {
+            throw new IllegalArgumentException("Tuile invalide : " + z + "/" + x + "/" + y);
+        }
+        return new double[]{latitude(y + 1, n), x * 360.0 / n - 180, latitude(y, n), (x + 1) * 360.0 / n - 180};
+    }
+
+    private static double latitude(int y, int n) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2.0 * y / n))));
+    }
+
+    /**
+     * Plus petite précision geohash dont les cellules sont au plus 1/GROUPES_PAR_TUILE de la largeur de la tuile.
+     */
+    static int precisionGroupes(int z) {
+        double largeurTuile = 360.0 / (1 << z);
+        for (int p = 1; p < PRECISION_POINT; p++) {
+            int bitsLng = (5 * p + 1) / 2;
+            if (360.0 / (1L << bitsLng) <= largeurTuile / GROUPES_PAR_TUILE) {
+                return p;
+            }
+        }
+        return PRECISION_POINT;
+    }
+
+    /**
+     * Seaux non vides qui recouvrent l'emprise, triés par geohash. Pour une grande emprise (zoom faible),
+     * parcourir les seaux existants coûte moins qu'énumérer toutes les cellules.
+     */
+    private SortedMap<String, Seau> seauxRecouverts(double[] e) {
+        SortedMap<String, Seau> recouverts = new TreeMap<>();
+        double pasLat = 180.0 / (1 << (5 * PRECISION_SEAU / 2));
+        double pasLng = 360.0 / (1 << ((5 * PRECISION_SEAU + 1) / 2));
+        double nbCellules = (Math.ceil((e[2] - e[0]) / pasLat) + 1) * (Math.ceil((e[3] - e[1]) / pasLng) + 1);
+
+        if (nbCellules > seaux.size()) {
+            seaux.forEach((hash, seau) -> {
+                double[] b = seau.emprise;
+                if (b[0] <= e[2] && b[2] >= e[0] && b[1] <= e[3] && b[3] >= e[1]) {
+                    recouverts.put(hash, seau);
+                }
+            });
+            return recouverts;
+        }
+        for (double lat = e[0]; ; lat += pasLat) {
+            double la = Math.min(lat, e[2]);
+            for (double lng = e[1]; ; lng += pasLng) {
+                double lo = Math.min(lng, e[3]);
+                String hash = GeoHash.encode(la, lo, PRECISION_SEAU);
+                Seau seau = seaux.get(hash);
+                if (seau != null) {
+                    recouverts.put(hash, seau);
+                }
+                if (lo >= e[3]) break;
+            }
+            if (la >= e[2]) break;
+        }
+        return recouverts;
+    }
+
+    private String etag(int z, Set<Couche> couches, SortedMap<String, Seau> recouverts) {
+        long h = z;
+        for (Couche c : Couche.values()) {
+            h = 31 * h + (couches.contains(c) ? 1 : 0);
+        }
+        for (Map.Entry<String, Seau> e : recouverts.entrySet()) {
+            h = 31 * h + e.getKey().hashCode();
+            h = 31 * h + e.getValue().version.get();
+        }
+        return "\"" + demarrage + "-" + Long.toHexString(h) + "\"";
+    }
+
+    private static boolean dans(double[] e, double lat, double lng) {
+        // Bords ouest et nord inclus, est et sud exclus : un point n'appartient qu'à une tuile
+        return lat > e[0] && lat <= e[2] && lng >= e[1] && lng < e[3];
+    }
+
+    private static Map<String, Object> featurePoint(PointCarte p) {
+        Map<String, Object> proprietes = new LinkedHashMap<>();
+        proprietes.put("couche", p.couche());
+        proprietes.put("id", p.id());
+        proprietes.put("type", p.type());
+        proprietes.put("statut", p.statut());
+        return feature(p.lat(), p.lng(), proprietes);
+    }
+
+    private static Map<String, Object> featureGroupe(String cellule, List<PointCarte> groupe) {
+        double lat = 0, lng = 0;
+        Map<Couche, Integer> parCouche = new EnumMap<>(Couche.class);
+        for (PointCarte p : groupe) {
+            lat += p.lat();
+            lng += p.lng();
+            parCouche.merge(p.couche(), 1, Integer::sum);
+        }
+        Map<String, Object> proprietes = new LinkedHashMap<>();
+        proprietes.put("groupe", true);
+        proprietes.put("cellule", cellule);
+        proprietes.put("total", groupe.size());
+        proprietes.put("parCouche", parCouche);
+        return feature(lat / groupe.size(), lng / groupe.size(), proprietes);
+    }
+
+    private static Map<String, Object> feature(double lat, double lng, Map<String, Object> proprietes) {
+        Map<String, Object> feature = new LinkedHashMap<>();
+        feature.put("type", "Feature");
+        feature.put("geometry", Map.of("type", "Point", "coordinates", List.of(lng, lat)));
+        feature.put("properties", proprietes);
+        return feature;
+    }
+
+    // ========== Conversion des documents ==========
+
+    // Position indexée, ou coordonnées texte pour un document pas encore migré
+    private static double[] coordonnees(Signalement s) {
+        return s.getPosition() != null ? GeoUtils.depuisPoint(s.getPosition()) : GeoUtils.parseCoordonnees(s.getCoordonnees());
+    }
+
+    private static PointCarte signalement(Signalement s, double[] p) {
+        return PointCarte.de(Couche.SIGNALEMENT, s.getId(), p[0], p[1], s.getType(),
+                s.getStatut() != null ? s.getStatut().name() : null);
+    }
+
+    private static PointCarte equipement(Equipement e) {
+        double[] p = GeoUtils.depuisPoint(e.getLocalisation());
+        return p != null && GeoUtils.valides(p[0], p[1])
+                ? PointCarte.de(Couche.EQUIPEMENT, e.getId(), p[0], p[1], e.getType(),
+                        e.getEtat() != null ? e.getEtat().name() : null)
+                : null;
+    }
+
+    private static PointCarte technicien(User u) {
+        return GeoUtils.valides(u.getLatitude(), u.getLongitude())
+                ? PointCarte.de(Couche.TECHNICIEN, u.getId(), u.getLatitude(), u.getLongitude(), null,
+                        Boolean.TRUE.equals(u.getDisponibilite()) ? "DISPONIBLE" : "INDISPONIBLE")
+                : null;
+    }
+}
@@ -0,0 +1,147 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.dto.DistributionDureesDTO;
+import com.cityconnect.smart_interventions.dto.StatistiquesDureesDTO;
+import com.cityconnect.smart_interventions.event.InterventionEvent;
+import com.cityconnect.smart_interventions.model.Intervention;
+import com.cityconnect.smart_interventions.utils.HistogrammeDurees;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Distributions des durées d'intervention et des délais d'affectation, en histogrammes
+ * maintenus en mémoire, par service et par type.
+ *
+ * Même principe que StatistiquesEngine : chargement au démarrage, mise à jour à chaque
+ * InterventionEvent (retrait de l'état "avant", ajout de l'état "après") et réconciliation
+ * périodique. Une lecture ne coûte que le nombre de compteurs, jamais le nombre d'interventions.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DureesEngine {
+
+    private final MongoTemplate mongoTemplate;
+
+    private volatile Histogrammes histogrammes = new Histogrammes();
+
+    @EventListener
+    public void onIntervention(InterventionEvent event) {
+        while (true) {
+            Histogrammes h = histogrammes;
+            synchronized (h) {
+                // Remplacé par une réconciliation entre la lecture et le verrou : appliqué aux nouveaux
+                if (h != histogrammes) {
+                    continue;
+                }
+                if (event.getAvant() != null) h.appliquer(event.getAvant(), false);
+                if (event.getApres() != null) h.appliquer(event.getApres(), true);
+                return;
+            }
+        }
+    }
+
+    public StatistiquesDureesDTO snapshot() {
+        Histogrammes h = histogrammes;
+        synchronized (h) {
+            return new StatistiquesDureesDTO(
+                    distribution(h.duree.global), distributions(h.duree.parService), distributions(h.duree.parType),
+                    distribution(h.affectation.global), distributions(h.affectation.parService), distributions(h.affectation.parType));
+        }
+    }
+
+    /**
+     * Recalcul complet depuis MongoDB (projection, lecture en flux). Le remplacement se fait sous
+     * le verrou des anciens histogrammes : aucun événement n'y est appliqué après la bascule.
+     * Un événement concurrent à la lecture peut être perdu ou compté deux fois : la passe suivante le corrige.
+     */
+    @Scheduled(initialDelayString = "${statistiques.reconciliation.delai-initial-ms:0}",
+               fixedDelayString = "${statistiques.reconciliation.intervalle-ms:300000}")
+    public void reconcilier() {
+        try {
+            long debut = System.currentTimeMillis();
+            Histogrammes frais = new Histogrammes();
+
+            Query query = new Query();
+            query.fields().include("type", "serviceMunicipalId", "dateCreation", "dateAffectation", "dateDebut", "dateFin");
+            try (Stream<Intervention> stream = mongoTemplate.stream(query, Intervention.class)) {
+                stream.forEach(i -> frais.appliquer(i, true));
+            }
+
+            Histogrammes anciens = histogrammes;
+            synchronized (anciens) {
+                histogrammes = frais;
+            }
+            log.debug("Histogrammes de durées réconciliés en {} ms ({} durées)",
+                    System.currentTimeMillis() - debut, frais.duree.global.nombre());
+        } catch (Exception e) {
+            log.warn("Réconciliation des histogrammes de durées impossible : {}", e.getMessage());
+        }
+    }
+
+    private static Map<String, DistributionDureesDTO> distributions(Map<String, HistogrammeDurees> parCle) {
+        Map<String, DistributionDureesDTO> res = new TreeMap<>();
+        parCle.forEach((cle, h) -> {
+            if (!h.estVide()) res.put(cle, distribution(h));
+        });
+        return res;
+    }
+
+    private static DistributionDureesDTO distribution(HistogrammeDurees h) {
+        return new DistributionDureesDTO(h.nombre(), heures(h.percentile(50)), heures(h.percentile(90)),
+                heures(h.percentile(99)), heures(h.max()));
+    }
+
+    private static double heures(long secondes) {
+        return secondes / 3600.0;
+    }
+
+    private static Long secondesEntre(Date debut, Date fin) {
+        if (debut == null || fin == null || fin.before(debut)) {
+            return null;
+        }
+        return (fin.getTime() - debut.getTime()) / 1000;
+    }
+
+    /**
+     * Deux familles d'histogrammes ; toute lecture ou écriture se fait sous le verrou de l'instance.
+     */
+    private static class Histogrammes {
+        final Distributions duree = new Distributions();
+        final Distributions affectation = new Distributions();
+
+        void appliquer(Intervention i, boolean ajout) {
+            duree.appliquer(i, secondesEntre(i.getDateDebut(), i.getDateFin()), ajout);
+            affectation.appliquer(i, secondesEntre(i.getDateCreation(), i.getDateAffectation()), ajout);
+        }
+    }
+
+    private static class Distributions {
+        final HistogrammeDurees global = new HistogrammeDurees();
+        // Clé "" pour les interventions sans service ou sans type
+        final Map<String, HistogrammeDurees> parService = new HashMap<>();
+        final Map<String, HistogrammeDurees> parType = new HashMap<>();
+
+        void appliquer(Intervention i, Long secondes, boolean ajout) {
+            if (secondes == null) {
+                return;
+            }
+            HistogrammeDurees service = parService.computeIfAbsent(
+                    i.getServiceMunicipalId() != null ? i.getServiceMunicipalId() : "", k -> new HistogrammeDurees());
+            HistogrammeDurees type = parType.computeIfAbsent(
+                    i.getType() != null ? i.getType() : "", k -> new HistogrammeDurees());
+            for (HistogrammeDurees h : List.of(global, service, type)) {
+                if (ajout) h.enregistrer(secondes);
+                else h.retirer(secondes);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.cityconnect.smart_interventions.service;
 
+import com.cityconnect.smart_interventions.dto.EquipementResume;
 import com.cityconnect.smart_interventions.model.Equipement;
 import com.cityconnect.smart_interventions.model.Equipement.EtatEquipement; // IMPORTANT
 import java.util.List;
@@ -19,5 +20,11 @@ public interface EquipementService {
     // CORRECTION: Utiliser EtatEquipement au lieu de String
     List<Equipement> findByEtat(EtatEquipement etat);  // Changé de String à EtatEquipement
 
+    // Les plus proches d'un point, dans un rayon en km ($nearSphere) ; etat null : tous
+    List<EquipementResume> findProches(double latitude, double longitude, double rayonKm, EtatEquipement etat, int limite);
+
+    // Ceux visibles dans une emprise de carte ($geoWithin) ; au plus limite + 1 pour signaler une troncature
+    List<EquipementResume> findDansEmprise(double sud, double ouest, double nord, double est, EtatEquipement etat, int limite);
+
     void addInterventionToEquipement(String equipementId, String interventionId, String titre, String technicien);
 }
\ No newline at end of file
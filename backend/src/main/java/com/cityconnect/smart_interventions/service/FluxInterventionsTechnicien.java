@@ -0,0 +1,87 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.dto.InterventionSummary;
+import com.cityconnect.smart_interventions.event.InterventionEvent;
+import com.cityconnect.smart_interventions.model.Intervention;
+import com.cityconnect.smart_interventions.utils.RegistreSse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Flux SSE des interventions de chaque technicien connecté.
+ *
+ * À l'ouverture : un événement "snapshot" avec la liste courante (une seule requête). Ensuite,
+ * uniquement des deltas construits à partir des InterventionEvent, sans aucune lecture MongoDB :
+ * "intervention" (ajout ou mise à jour) et "retrait" (réaffectée à un autre ou supprimée).
+ */
+@Slf4j
+@Component
+public class FluxInterventionsTechnicien {
+
+    private final InterventionService interventionService;
+    private final RegistreSse<String> registre;
+
+    public FluxInterventionsTechnicien(InterventionService interventionService,
+                                       @Value("${sse.capacite-file:256}") int capaciteFile,
+                                       @Value("${sse.timeout-ms:1800000}") long timeoutMs,
+                                       @Value("${sse.threads-envoi:4}") int threadsEnvoi) {
+        this.interventionService = interventionService;
+        this.registre = new RegistreSse<>("interventions", capaciteFile, timeoutMs, threadsEnvoi);
+    }
+
+    /**
+     * Le client est enregistré avant la lecture du snapshot : un delta publié pendant la lecture
+     * est mis en file et envoyé après le snapshot (au pire en doublon, jamais perdu).
+     */
+    public SseEmitter ouvrir(String technicienId) {
+        return registre.ouvrir(technicienId, () -> List.of(snapshot(technicienId)));
+    }
+
+    private SseEmitter.SseEventBuilder snapshot(String technicienId) {
+        return SseEmitter.event()
+                .name("snapshot")
+                .data(interventionService.getInterventionsByTechnicien(technicienId));
+    }
+
+    @EventListener
+    public void onIntervention(InterventionEvent event) {
+        Intervention avant = event.getAvant();
+        Intervention apres = event.getApres();
+        String ancien = avant != null ? avant.getTechnicienId() : null;
+        String nouveau = apres != null ? apres.getTechnicienId() : null;
+
+        if (nouveau != null && registre.estConnecte(nouveau)) {
+            registre.publier(nouveau, SseEmitter.event()
+                    .name("intervention")
+                    .data(InterventionSummary.fromEntity(apres)));
+        }
+        if (ancien != null && !Objects.equals(ancien, nouveau) && registre.estConnecte(ancien)) {
+            registre.publier(ancien, SseEmitter.event()
+                    .name("retrait")
+                    .data(Map.of("id", avant.getId())));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        registre.heartbeat();
+    }
+
+    public int nombreClients() {
+        return registre.nombreClients();
+    }
+
+    @PreDestroy
+    public void fermer() {
+        registre.close();
+    }
+}
@@ -0,0 +1,120 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.event.NotificationEvent;
+import com.cityconnect.smart_interventions.model.Notification;
+import com.cityconnect.smart_interventions.utils.RegistreSse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Flux SSE des notifications : chaque nouvelle notification est poussée aux connexions de son
+ * citoyen, de son technicien et de tous les administrateurs connectés.
+ *
+ * L'id SSE de chaque événement est l'_id (ObjectId, croissant) de la notification. À la
+ * reconnexion, EventSource renvoie Last-Event-ID et les notifications manquées sont rejouées ;
+ * au-delà de rejeuMax, un événement "resync" demande au client de recharger sa liste.
+ */
+@Slf4j
+@Component
+public class FluxNotifications {
+
+    // Clé des abonnés administrateurs (les IDs utilisateur sont des ObjectId, pas de collision)
+    static final String ADMINS = "*admins";
+
+    private final MongoTemplate mongoTemplate;
+    private final RegistreSse<String> registre;
+    private final int rejeuMax;
+
+    public FluxNotifications(MongoTemplate mongoTemplate,
+                             @Value("${sse.capacite-file:256}") int capaciteFile,
+                             @Value("${sse.timeout-ms:1800000}") long timeoutMs,
+                             @Value("${sse.threads-envoi:4}") int threadsEnvoi,
+                             @Value("${notifications.sse.rejeu-max:500}") int rejeuMax) {
+        this.mongoTemplate = mongoTemplate;
+        this.registre = new RegistreSse<>("notifications", capaciteFile, timeoutMs, threadsEnvoi);
+        this.rejeuMax = rejeuMax;
+    }
+
+    /**
+     * Ouvre le flux de l'utilisateur (ou de tous les administrateurs si admin). dernierId non null :
+     * les notifications créées après lui sont rejouées avant les nouvelles.
+     */
+    public SseEmitter ouvrir(String userId, boolean admin, String dernierId) {
+        String cle = admin ? ADMINS : userId;
+        if (dernierId == null || dernierId.isBlank()) {
+            return registre.ouvrir(cle);
+        }
+        if (!ObjectId.isValid(dernierId)) {
+            return registre.ouvrir(cle, SseEmitter.event().name("resync").data(""));
+        }
+        return registre.ouvrir(cle, () -> rejeu(admin ? null : userId, new ObjectId(dernierId)));
+    }
+
+    @EventListener
+    public void onNotification(NotificationEvent event) {
+        Notification n = event.getNotification();
+        if (n.getCitoyenId() != null) {
+            publier(n.getCitoyenId(), n);
+        }
+        if (n.getTechnicienId() != null && !Objects.equals(n.getTechnicienId(), n.getCitoyenId())) {
+            publier(n.getTechnicienId(), n);
+        }
+        publier(ADMINS, n);
+    }
+
+    @Scheduled(fixedDelayString = "${sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        registre.heartbeat();
+    }
+
+    public int nombreClients() {
+        return registre.nombreClients();
+    }
+
+    @PreDestroy
+    public void fermer() {
+        registre.close();
+    }
+
+    private void publier(String cle, Notification n) {
+        if (registre.estConnecte(cle)) {
+            registre.publier(cle, evenement(n));
+        }
+    }
+
+    private List<SseEmitter.SseEventBuilder> rejeu(String userId, ObjectId dernierId) {
+        Criteria criteria = Criteria.where("_id").gt(dernierId);
+        if (userId != null) {
+            criteria.orOperator(Criteria.where("citoyenId").is(userId), Criteria.where("technicienId").is(userId));
+        }
+        Query query = Query.query(criteria).with(Sort.by(Sort.Direction.ASC, "_id")).limit(rejeuMax + 1);
+        List<Notification> manquees = mongoTemplate.find(query, Notification.class);
+
+        List<SseEmitter.SseEventBuilder> evenements = new ArrayList<>();
+        if (manquees.size() > rejeuMax) {
+            log.debug("Trop de notifications manquées depuis {}, resynchronisation demandée", dernierId);
+            evenements.add(SseEmitter.event().name("resync").data(""));
+        } else {
+            manquees.forEach(n -> evenements.add(evenement(n)));
+        }
+        return evenements;
+    }
+
+    private static SseEmitter.SseEventBuilder evenement(Notification n) {
+        return SseEmitter.event().id(n.getId()).name("notification").data(n);
+    }
+}
@@ -1,8 +1,15 @@
 // InterventionService.java - CORRIGÉ ET SIMPLIFIÉ
 package com.cityconnect.smart_interventions.service;
 
+import com.cityconnect.smart_interventions.dto.InterventionFiltre;
+import com.cityconnect.smart_interventions.dto.InterventionSummary;
+import com.cityconnect.smart_interventions.dto.OperationInterventionDTO;
+import com.cityconnect.smart_interventions.dto.PageCurseurDTO;
+import com.cityconnect.smart_interventions.dto.ResultatLotDTO;
+import com.cityconnect.smart_interventions.dto.TechnicienDTO;
 import com.cityconnect.smart_interventions.model.Intervention;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface InterventionService {
 
@@ -15,16 +22,36 @@ public interface InterventionService {
     Intervention getById(String id);
 
     List<Intervention> getAll();
-    List<Intervention> getInterventionsByTechnicien(String technicienId);
 
+    // Pagination par curseur opaque (null pour la première page)
+    PageCurseurDTO<InterventionSummary> getPage(InterventionFiltre filtre, String curseur, int taille);
 
-    List<Intervention> findByStatut(String statut);
+    // Flux sur le curseur MongoDB, à fermer par l'appelant
+    Stream<InterventionSummary> stream(InterventionFiltre filtre);
+    List<InterventionSummary> getInterventionsByTechnicien(String technicienId);
+
+
+    List<InterventionSummary> findByStatut(String statut);
 
     Intervention changerStatut(String id, String nouveauStatut, String auteurId);
 
+    // statutAttendu non null : 409 si le statut courant est différent
+    Intervention changerStatut(String id, String nouveauStatut, String auteurId, String statutAttendu);
+
     // Autres méthodes optionnelles
-    List<Intervention> getActiveInterventions();
+    List<InterventionSummary> getActiveInterventions();
 
     
     Intervention assignTechnicien(String id, String technicienId, String technicienNom);
+
+    Intervention completeIntervention(String id, String notes);
+
+    // Créations, affectations, changements de statut et clôtures en une écriture groupée
+    ResultatLotDTO executerLot(List<OperationInterventionDTO> operations);
+
+    // Les k techniciens disponibles les mieux placés, depuis la localisation de l'équipement
+    List<TechnicienDTO> suggererTechniciens(String id, int k);
+
+    // Affecte le meilleur technicien suggéré
+    Intervention affecterAutomatiquement(String id);
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.dto.PageCurseurDTO;
+import com.cityconnect.smart_interventions.model.Intervention;
+
+import java.util.List;
+
+/**
+ * Commentaires et historique des statuts, stockés hors du document Intervention
+ * dans des buckets de taille fixe.
+ */
+public interface JournalInterventionService {
+
+    // rang = position de l'entrée (1, 2, ...), obtenue par $inc du compteur de l'intervention
+    void ajouterCommentaire(String interventionId, int rang, Intervention.Commentaire commentaire);
+
+    void ajouterChangementStatut(String interventionId, int rang, Intervention.HistoriqueStatut changement);
+
+    // Mêmes ajouts pour un lot d'interventions : une écriture groupée par collection
+    void ajouterEnLot(List<Entree<Intervention.Commentaire>> commentaires,
+                      List<Entree<Intervention.HistoriqueStatut>> changements);
+
+    // Un bucket par page, du plus récent au plus ancien ; curseur null pour la première page
+    PageCurseurDTO<Intervention.Commentaire> getCommentaires(String interventionId, String curseur);
+
+    PageCurseurDTO<Intervention.HistoriqueStatut> getHistoriqueStatut(String interventionId, String curseur);
+
+    void supprimer(String interventionId);
+
+    record Entree<E>(String interventionId, int rang, E valeur) {
+    }
+}
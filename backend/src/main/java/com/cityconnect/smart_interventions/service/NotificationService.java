@@ -1,5 +1,6 @@
 package com.cityconnect.smart_interventions.service;
 
+import com.cityconnect.smart_interventions.dto.PageCurseurDTO;
 import com.cityconnect.smart_interventions.model.Notification;
 import java.util.List;
 
@@ -11,6 +12,14 @@ public interface NotificationService {
 
     void markAsRead(String notifId);
 
+    // Boîte de réception, de la plus récente à la plus ancienne (curseur null pour la première page)
+    PageCurseurDTO<Notification> getInbox(String userId, String curseur, int taille);
+
+    long getUnreadCount(String userId);
+
+    // Toutes les notifications non lues de l'utilisateur en un updateMany ; renvoie le nombre marqué
+    long markAllAsRead(String userId);
+
     // 🔹 Nouvelle méthode pour récupérer toutes les notifications
     List<Notification> getAll();
 }
\ No newline at end of file
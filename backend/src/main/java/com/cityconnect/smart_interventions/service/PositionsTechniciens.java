@@ -0,0 +1,216 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.event.PositionTechnicienEvent;
+import com.cityconnect.smart_interventions.model.PositionTechnicien;
+import com.cityconnect.smart_interventions.model.User;
+import com.cityconnect.smart_interventions.utils.GeoUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Réception des positions GPS des techniciens, écrites en base de façon différée.
+ *
+ * Chaque ping remplace la position en attente du technicien (une seule entrée par technicien,
+ * quel que soit le nombre de pings) ; toutes les quelques secondes, les positions en attente sont
+ * écrites dans users par une écriture groupée non ordonnée. Si l'historique est activé, chaque
+ * ping est aussi gardé dans un tampon borné puis inséré en lot dans la collection time-series
+ * positions_techniciens.
+ */
+@Slf4j
+@Component
+public class PositionsTechniciens {
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher events;
+    private final int tailleLot;
+    private final boolean historiqueActif;
+    private final int capaciteHistorique;
+    private final long retentionJours;
+
+    // Dernière position non encore écrite, par technicien
+    private final Map<String, PositionTechnicien> enAttente = new ConcurrentHashMap<>();
+    private final Queue<PositionTechnicien> historique = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger tailleHistorique = new AtomicInteger();
+    private final AtomicLong historiquePerdu = new AtomicLong();
+    private volatile boolean collectionHistoriquePrete;
+
+    public PositionsTechniciens(MongoTemplate mongoTemplate,
+                                ApplicationEventPublisher events,
+                                @Value("${positions.flush.taille-lot:1000}") int tailleLot,
+                                @Value("${positions.historique.actif:false}") boolean historiqueActif,
+                                @Value("${positions.historique.capacite-tampon:100000}") int capaciteHistorique,
+                                @Value("${positions.historique.retention-jours:30}") long retentionJours) {
+        this.mongoTemplate = mongoTemplate;
+        this.events = events;
+        this.tailleLot = tailleLot;
+        this.historiqueActif = historiqueActif;
+        this.capaciteHistorique = capaciteHistorique;
+        this.retentionJours = retentionJours;
+    }
+
+    /**
+     * Enregistre un ping en mémoire ; aucune écriture MongoDB sur ce chemin.
+     */
+    public PositionTechnicien enregistrer(String technicienId, Double latitude, Double longitude) {
+        if (!GeoUtils.valides(latitude, longitude)) {
+            throw new IllegalArgumentException("Coordonnées invalides : " + latitude + ", " + longitude);
+        }
+        PositionTechnicien position = new PositionTechnicien(technicienId, latitude, longitude, new Date());
+        enAttente.put(technicienId, position);
+        if (historiqueActif) {
+            if (tailleHistorique.incrementAndGet() <= capaciteHistorique) {
+                historique.add(position);
+            } else {
+                tailleHistorique.decrementAndGet();
+                historiquePerdu.incrementAndGet();
+            }
+        }
+        events.publishEvent(new PositionTechnicienEvent(technicienId, latitude, longitude, position.getDate()));
+        return position;
+    }
+
+    /**
+     * Reporte sur un utilisateur lu en base la position reçue mais pas encore écrite.
+     */
+    public User appliquerEnAttente(User u) {
+        PositionTechnicien p = u != null ? enAttente.get(u.getId()) : null;
+        if (p != null && (u.getDatePosition() == null || u.getDatePosition().before(p.getDate()))) {
+            u.setLatitude(p.getLatitude());
+            u.setLongitude(p.getLongitude());
+            u.setPosition(p.getLatitude() + "," + p.getLongitude());
+            u.setDatePosition(p.getDate());
+        }
+        return u;
+    }
+
+    public void oublier(String technicienId) {
+        enAttente.remove(technicienId);
+    }
+
+    public int nombreEnAttente() {
+        return enAttente.size();
+    }
+
+    @Scheduled(fixedDelayString = "${positions.flush.intervalle-ms:5000}")
+    public void flush() {
+        ecrirePositions();
+        if (historiqueActif) {
+            ecrireHistorique();
+        }
+    }
+
+    @PreDestroy
+    public void arreter() {
+        flush();
+    }
+
+    /**
+     * Une mise à jour par technicien, conditionnée sur datePosition : une position plus récente
+     * déjà en base (mise à jour du profil) n'est jamais écrasée par un ping plus ancien.
+     */
+    private void ecrirePositions() {
+        if (enAttente.isEmpty()) {
+            return;
+        }
+        List<PositionTechnicien> lot = new ArrayList<>(Math.min(enAttente.size(), tailleLot));
+        for (String id : enAttente.keySet()) {
+            // Un ping arrivé après le remove reste en attente pour le prochain flush
+            PositionTechnicien p = enAttente.remove(id);
+            if (p != null) {
+                lot.add(p);
+            }
+            if (lot.size() == tailleLot) {
+                ecrireLot(lot);
+                lot = new ArrayList<>(tailleLot);
+            }
+        }
+        if (!lot.isEmpty()) {
+            ecrireLot(lot);
+        }
+    }
+
+    private void ecrireLot(List<PositionTechnicien> lot) {
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+            for (PositionTechnicien p : lot) {
+                Query query = Query.query(Criteria.where("_id").is(p.getTechnicienId())
+                        .and("role").is(User.Role.TECHNICIEN)
+                        .and("datePosition").not().gte(p.getDate()));
+                bulk.updateOne(query, new Update()
+                        .set("latitude", p.getLatitude())
+                        .set("longitude", p.getLongitude())
+                        .set("position", p.getLatitude() + "," + p.getLongitude())
+                        .set("datePosition", p.getDate()));
+            }
+            bulk.execute();
+            log.debug("{} positions de techniciens écrites", lot.size());
+        } catch (Exception e) {
+            // Remis en attente sauf si un ping plus récent est arrivé entre-temps
+            lot.forEach(p -> enAttente.putIfAbsent(p.getTechnicienId(), p));
+            log.warn("Écriture des positions impossible ({} en attente) : {}", lot.size(), e.getMessage());
+        }
+    }
+
+    private void ecrireHistorique() {
+        long perdus = historiquePerdu.getAndSet(0);
+        if (perdus > 0) {
+            log.warn("Tampon d'historique des positions plein : {} points ignorés", perdus);
+        }
+        List<PositionTechnicien> lot = new ArrayList<>();
+        PositionTechnicien p;
+        while ((p = historique.poll()) != null) {
+            tailleHistorique.decrementAndGet();
+            lot.add(p);
+            if (lot.size() == tailleLot) {
+                insererHistorique(lot);
+                lot = new ArrayList<>();
+            }
+        }
+        if (!lot.isEmpty()) {
+            insererHistorique(lot);
+        }
+    }
+
+    private void insererHistorique(List<PositionTechnicien> lot) {
+        try {
+            preparerCollectionHistorique();
+            mongoTemplate.insert(lot, PositionTechnicien.class);
+        } catch (Exception e) {
+            // La trace est une donnée de confort : un lot en échec est abandonné
+            log.warn("Insertion de {} points d'historique impossible : {}", lot.size(), e.getMessage());
+        }
+    }
+
+    // Crée la collection time-series avant la première insertion (sinon MongoDB créerait une collection classique)
+    private void preparerCollectionHistorique() {
+        if (collectionHistoriquePrete) {
+            return;
+        }
+        if (!mongoTemplate.collectionExists(PositionTechnicien.class)) {
+            mongoTemplate.createCollection(PositionTechnicien.class, CollectionOptions.timeSeries("date",
+                    options -> options.metaField("technicienId")
+                            .granularity(Granularity.SECONDS)
+                            .expireAfter(Duration.ofDays(retentionJours))));
+            log.info("Collection time-series positions_techniciens créée (rétention {} jours)", retentionJours);
+        }
+        collectionHistoriquePrete = true;
+    }
+}
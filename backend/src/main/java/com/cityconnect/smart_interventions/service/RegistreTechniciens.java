@@ -0,0 +1,222 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.dto.TechnicienDTO;
+import com.cityconnect.smart_interventions.event.PositionTechnicienEvent;
+import com.cityconnect.smart_interventions.event.UserEvent;
+import com.cityconnect.smart_interventions.model.User;
+import com.cityconnect.smart_interventions.utils.GeoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Registre en mémoire de tous les techniciens (disponibles ou non), sous forme de TechnicienDTO compacts :
+ * les écrans de dispatch ne relisent plus la collection users et ne reçoivent jamais de mot de passe.
+ *
+ * Tenu à jour par les UserEvent et les PositionTechnicienEvent, réconcilié périodiquement depuis MongoDB.
+ * Chaque changement de composition ou de profil (disponibilité comprise) incrémente la version. Les
+ * pings GPS, eux, arrivent plusieurs fois par seconde : ils ne font avancer l'ETag qu'au plus une fois
+ * par granularite-positions-ms, sinon la revalidation ne répondrait presque jamais 304. L'ETag est
+ * préfixé par l'instant de démarrage pour qu'une version d'avant un redémarrage ne soit jamais reprise
+ * pour la version courante.
+ * Les DTO rangés ne sont jamais modifiés : un changement remplace l'entrée.
+ *
+ * La réconciliation fusionne entrée par entrée : une entrée modifiée par un événement pendant la
+ * lecture en base garde sa valeur (plus récente que l'instantané), et les positions reçues mais pas
+ * encore écrites par PositionsTechniciens sont reportées sur les documents lus.
+ */
+@Slf4j
+@Component
+public class RegistreTechniciens {
+
+    private final MongoTemplate mongoTemplate;
+    private final PositionsTechniciens positions;
+    private final long granularitePositionsMs;
+
+    private final Map<String, TechnicienDTO> techniciens = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    // Numéro de la dernière modification par événement de chaque entrée (présente ou retirée)
+    private final Map<String, Long> modifications = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    // Instant du dernier ping appliqué ; l'ETag n'en retient que la tranche de granularitePositionsMs
+    private volatile long dernierePosition;
+    private final long demarrage = System.currentTimeMillis();
+
+    public RegistreTechniciens(MongoTemplate mongoTemplate,
+                               PositionsTechniciens positions,
+                               @Value("${techniciens.registre.granularite-positions-ms:30000}") long granularitePositionsMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.positions = positions;
+        this.granularitePositionsMs = Math.max(1, granularitePositionsMs);
+    }
+
+    @EventListener
+    public void onUser(UserEvent event) {
+        User apres = event.getApres();
+        if (apres != null && apres.getRole() == User.Role.TECHNICIEN) {
+            placer(dto(apres));
+        } else if (event.getAvant() != null) {
+            // Supprimé, ou n'est plus technicien
+            techniciens.compute(event.getAvant().getId(), (id, actuel) -> {
+                marquer(id);
+                if (actuel != null) version.incrementAndGet();
+                return null;
+            });
+        }
+    }
+
+    @EventListener
+    public void onPosition(PositionTechnicienEvent event) {
+        techniciens.computeIfPresent(event.getTechnicienId(), (id, actuel) -> {
+            marquer(id);
+            TechnicienDTO t = copie(actuel);
+            t.setLatitude(event.getLatitude());
+            t.setLongitude(event.getLongitude());
+            t.setPosition(event.getLatitude() + "," + event.getLongitude());
+            dernierePosition = System.currentTimeMillis();
+            return t;
+        });
+    }
+
+    /**
+     * Rechargement complet, champs utiles seulement, fusionné entrée par entrée : une entrée modifiée
+     * par un événement depuis le début de la lecture n'est ni remplacée ni retirée. La version ne change
+     * que si le contenu diffère.
+     */
+    @Scheduled(initialDelayString = "${techniciens.registre.delai-initial-ms:0}",
+               fixedDelayString = "${techniciens.registre.reconciliation.intervalle-ms:300000}")
+    public void reconcilier() {
+        try {
+            long debut = sequence.get();
+            Query query = Query.query(Criteria.where("role").is(User.Role.TECHNICIEN));
+            query.fields().include("nom", "prenom", "email", "numeroTelephone", "role", "disponibilite",
+                    "position", "latitude", "longitude", "datePosition", "competences");
+            Map<String, TechnicienDTO> charges = new HashMap<>();
+            try (Stream<User> stream = mongoTemplate.stream(query, User.class)) {
+                stream.forEach(u -> charges.put(u.getId(), dto(positions.appliquerEnAttente(u))));
+            }
+
+            boolean[] change = new boolean[1];
+            charges.forEach((id, charge) -> techniciens.compute(id, (k, actuel) -> {
+                if (modifieDepuis(k, debut) || charge.equals(actuel)) {
+                    return actuel;
+                }
+                change[0] = true;
+                return charge;
+            }));
+            for (String id : techniciens.keySet()) {
+                if (!charges.containsKey(id)) {
+                    techniciens.computeIfPresent(id, (k, actuel) -> {
+                        if (modifieDepuis(k, debut)) {
+                            return actuel;
+                        }
+                        change[0] = true;
+                        return null;
+                    });
+                }
+            }
+            if (change[0]) {
+                version.incrementAndGet();
+            }
+            // Les marques antérieures à la lecture ne servent plus (retrait conditionnel à la valeur)
+            modifications.values().removeIf(m -> m <= debut);
+            log.debug("Registre des techniciens rechargé : {} techniciens", charges.size());
+        } catch (Exception e) {
+            log.warn("Réconciliation du registre des techniciens impossible : {}", e.getMessage());
+        }
+    }
+
+    public String etag() {
+        return "\"" + demarrage + "-" + version.get() + "-" + dernierePosition / granularitePositionsMs + "\"";
+    }
+
+    /**
+     * Techniciens filtrés par disponibilité (null : tous) et, si une position est donnée, par distance :
+     * la distance est alors renseignée et la liste triée du plus proche au plus éloigné
+     * (les techniciens sans coordonnées en dernier, exclus dès qu'un rayon est fixé).
+     */
+    public List<TechnicienDTO> rechercher(Boolean disponible, Double latitude, Double longitude, Double rayonKm) {
+        boolean parPosition = latitude != null || longitude != null;
+        if (parPosition && !GeoUtils.valides(latitude, longitude)) {
+            throw new IllegalArgumentException("Coordonnées invalides : " + latitude + ", " + longitude);
+        }
+        if (rayonKm != null && (!parPosition || rayonKm <= 0)) {
+            throw new IllegalArgumentException("rayonKm demande latitude et longitude et doit être positif");
+        }
+
+        List<TechnicienDTO> resultat = new ArrayList<>();
+        for (TechnicienDTO t : techniciens.values()) {
+            if (disponible != null && disponible != Boolean.TRUE.equals(t.getDisponibilite())) {
+                continue;
+            }
+            if (!parPosition) {
+                resultat.add(t);
+                continue;
+            }
+            Double d = GeoUtils.valides(t.getLatitude(), t.getLongitude())
+                    ? GeoUtils.distanceKm(latitude, longitude, t.getLatitude(), t.getLongitude()) : null;
+            if (rayonKm != null && (d == null || d > rayonKm)) {
+                continue;
+            }
+            TechnicienDTO c = copie(t);
+            c.setDistance(d);
+            resultat.add(c);
+        }
+        if (parPosition) {
+            resultat.sort(Comparator.comparing(TechnicienDTO::getDistance, Comparator.nullsLast(Comparator.naturalOrder())));
+        } else {
+            resultat.sort(Comparator.comparing(TechnicienDTO::getNom, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(TechnicienDTO::getId));
+        }
+        return resultat;
+    }
+
+    public boolean contient(String id) {
+        return id != null && techniciens.containsKey(id);
+    }
+
+    public int taille() {
+        return techniciens.size();
+    }
+
+    private void placer(TechnicienDTO t) {
+        techniciens.compute(t.getId(), (id, avant) -> {
+            marquer(id);
+            if (!t.equals(avant)) version.incrementAndGet();
+            return t;
+        });
+    }
+
+    // Appelé sous le verrou de l'entrée, comme la fusion de reconcilier
+    private void marquer(String id) {
+        modifications.put(id, sequence.incrementAndGet());
+    }
+
+    private boolean modifieDepuis(String id, long debut) {
+        Long m = modifications.get(id);
+        return m != null && m > debut;
+    }
+
+    private static TechnicienDTO dto(User u) {
+        TechnicienDTO t = new TechnicienDTO(u);
+        t.setScore(null);
+        t.setCompetencesMatch(null);
+        return t;
+    }
+
+    private static TechnicienDTO copie(TechnicienDTO t) {
+        return new TechnicienDTO(t.getId(), t.getNom(), t.getPrenom(), t.getEmail(), t.getNumeroTelephone(),
+                t.getDisponibilite(), t.getPosition(), t.getLatitude(), t.getLongitude(), t.getCompetences(),
+                t.getScore(), t.getCompetencesMatch(), t.getDistance());
+    }
+}
@@ -1,6 +1,9 @@
 package com.cityconnect.smart_interventions.service;
 
+import com.cityconnect.smart_interventions.dto.PageCurseurDTO;
+import com.cityconnect.smart_interventions.model.MouvementStock;
 import com.cityconnect.smart_interventions.model.RessourceMaterielle;
+import com.cityconnect.smart_interventions.model.ReservationRessource;
 import java.util.List;
 
 public interface RessourceMaterielleService {
@@ -15,5 +18,21 @@ public interface RessourceMaterielleService {
 
     List<RessourceMaterielle> getAll();
 
-    void enregistrerUtilisation(String id, String interventionId, int quantite);
+    // Décrément atomique : 409 si le stock disponible est insuffisant
+    RessourceMaterielle enregistrerUtilisation(String id, String interventionId, int quantite);
+
+    RessourceMaterielle approvisionner(String id, int quantite);
+
+    // Met de côté une quantité pour une intervention (409 si le stock disponible est insuffisant)
+    ReservationRessource reserver(String id, String interventionId, int quantite);
+
+    // quantite null : toute la réservation est consommée ; sinon le reste est rendu au stock
+    ReservationRessource consommerReservation(String reservationId, Integer quantite);
+
+    ReservationRessource libererReservation(String reservationId);
+
+    List<ReservationRessource> getReservationsActives(String interventionId);
+
+    // Journal des mouvements, du plus récent au plus ancien (curseur null pour la première page)
+    PageCurseurDTO<MouvementStock> getMouvements(String id, String curseur, int taille);
 }
@@ -0,0 +1,203 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.model.CompteurNotifications;
+import com.cityconnect.smart_interventions.model.Notification;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Rétention des notifications : la collection notifications ne garde que ce qui est utile à la
+ * boîte de réception.
+ *
+ * - Lues : supprimées par MongoDB lui-même, via un index TTL sur dateLecture
+ *   (notifications.retention.lues-jours après leur lecture). Les non lues n'ont pas de dateLecture
+ *   et ne sont jamais concernées.
+ * - Non lues plus anciennes que notifications.archivage.age-jours : déplacées par lots vers une
+ *   collection d'archive mensuelle (notifications_archive_AAAA_MM) ou vers des fichiers NDJSON
+ *   compressés (notifications-AAAA-MM.ndjson.gz), selon notifications.archivage.mode.
+ *
+ * Le déplacement est rejouable : un lot est écrit dans l'archive avant d'être supprimé de la
+ * collection, un arrêt entre les deux le fait relire au passage suivant (remplacement par _id
+ * en collection, ligne en double possible en fichier).
+ */
+@Slf4j
+@Component
+public class RetentionNotifications {
+
+    static final String INDEX_TTL = "dateLecture_ttl";
+    private static final DateTimeFormatter MOIS = DateTimeFormatter.ofPattern("yyyy_MM").withZone(ZoneOffset.UTC);
+
+    public enum Mode { COLLECTION, FICHIER, AUCUN }
+
+    private final MongoTemplate mongoTemplate;
+    private final long luesJours;
+    private final long ageArchivageJours;
+    private final Mode mode;
+    private final Path dossier;
+    private final int tailleLot;
+
+    public RetentionNotifications(MongoTemplate mongoTemplate,
+                                  @Value("${notifications.retention.lues-jours:30}") long luesJours,
+                                  @Value("${notifications.archivage.age-jours:90}") long ageArchivageJours,
+                                  @Value("${notifications.archivage.mode:COLLECTION}") Mode mode,
+                                  @Value("${notifications.archivage.dossier:archives/notifications}") String dossier,
+                                  @Value("${notifications.archivage.taille-lot:1000}") int tailleLot) {
+        this.mongoTemplate = mongoTemplate;
+        this.luesJours = luesJours;
+        this.ageArchivageJours = ageArchivageJours;
+        this.mode = mode;
+        this.dossier = Paths.get(dossier);
+        this.tailleLot = tailleLot;
+    }
+
+    /**
+     * Crée l'index TTL, ou ajuste son délai par collMod si notifications.retention.lues-jours a changé.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void preparerIndexTtl() {
+        long secondes = Duration.ofDays(luesJours).toSeconds();
+        try {
+            boolean existe = mongoTemplate.indexOps(Notification.class).getIndexInfo().stream()
+                    .anyMatch(i -> INDEX_TTL.equals(i.getName()));
+            if (!existe) {
+                mongoTemplate.indexOps(Notification.class).createIndex(new Index()
+                        .on("dateLecture", Sort.Direction.ASC)
+                        .named(INDEX_TTL)
+                        .expire(secondes));
+                log.info("Index TTL des notifications lues créé ({} jours)", luesJours);
+            } else {
+                mongoTemplate.executeCommand(new Document("collMod", mongoTemplate.getCollectionName(Notification.class))
+                        .append("index", new Document("name", INDEX_TTL).append("expireAfterSeconds", secondes)));
+            }
+            // Notifications lues avant l'introduction de dateLecture : datées du jour, elles expireront dans lues-jours
+            long datees = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("statutLecture").is(true).and("dateLecture").exists(false)),
+                    new Update().currentDate("dateLecture"), Notification.class).getModifiedCount();
+            if (datees > 0) {
+                log.info("{} notifications lues sans date de lecture datées d'aujourd'hui", datees);
+            }
+        } catch (Exception e) {
+            log.warn("Index TTL des notifications non vérifié : {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${notifications.archivage.delai-initial-ms:600000}",
+               fixedDelayString = "${notifications.archivage.intervalle-ms:86400000}")
+    public void archiver() {
+        if (mode == Mode.AUCUN) {
+            return;
+        }
+        Date limite = new Date(System.currentTimeMillis() - Duration.ofDays(ageArchivageJours).toMillis());
+        long total = 0;
+        try {
+            List<Document> lot;
+            do {
+                Query query = Query.query(Criteria.where("statutLecture").is(false).and("dateEnvoi").lt(limite))
+                        .with(Sort.by(Sort.Direction.ASC, "dateEnvoi")).limit(tailleLot);
+                lot = mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Notification.class));
+                if (!lot.isEmpty()) {
+                    deplacer(lot, limite);
+                    total += lot.size();
+                }
+            } while (lot.size() == tailleLot);
+            if (total > 0) {
+                log.info("Archivage des notifications : {} non lues antérieures au {} déplacées ({})", total, limite, mode);
+            }
+        } catch (Exception e) {
+            log.warn("Archivage des notifications interrompu après {} documents : {}", total, e.getMessage());
+        }
+    }
+
+    private void deplacer(List<Document> lot, Date limite) {
+        Map<String, List<Document>> parMois = new TreeMap<>();
+        for (Document d : lot) {
+            Date date = d.getDate("dateEnvoi");
+            parMois.computeIfAbsent(MOIS.format(date.toInstant()), k -> new ArrayList<>()).add(d);
+        }
+        parMois.forEach(mode == Mode.FICHIER ? this::ecrireFichier : this::ecrireCollection);
+
+        // Une notification lue ou regroupée depuis la lecture du lot reste en place (sa copie d'archive est sans effet).
+        // Suppression par groupe de destinataires : chaque DeleteResult donne le nombre exact de non lues retirées
+        // pour ces destinataires, et c'est ce nombre (pas la taille du lot) qui sort de leurs compteurs
+        Map<List<String>, List<Object>> parDestinataires = new HashMap<>();
+        for (Document d : lot) {
+            parDestinataires.computeIfAbsent(Arrays.asList(d.getString("citoyenId"), d.getString("technicienId")),
+                    k -> new ArrayList<>()).add(d.get("_id"));
+        }
+        Map<String, Long> retirees = new HashMap<>();
+        parDestinataires.forEach((destinataires, ids) -> {
+            long nb = mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)
+                    .and("statutLecture").is(false).and("dateEnvoi").lt(limite)), Notification.class).getDeletedCount();
+            if (nb > 0) {
+                new HashSet<>(destinataires).stream().filter(Objects::nonNull)
+                        .forEach(id -> retirees.merge(id, nb, Long::sum));
+            }
+        });
+        decrementerCompteurs(retirees);
+    }
+
+    private void ecrireCollection(String mois, List<Document> docs) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "notifications_archive_" + mois);
+        for (Document d : docs) {
+            bulk.replaceOne(Query.query(Criteria.where("_id").is(d.get("_id"))), d, FindAndReplaceOptions.options().upsert());
+        }
+        bulk.execute();
+    }
+
+    // Un membre gzip par lot, ajouté à la fin du fichier du mois : le fichier reste lisible par zcat / GZIPInputStream
+    private void ecrireFichier(String mois, List<Document> docs) {
+        Path fichier = dossier.resolve("notifications-" + mois.replace('_', '-') + ".ndjson.gz");
+        try {
+            Files.createDirectories(dossier);
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(fichier,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                for (Document d : docs) {
+                    out.write(d.toJson().getBytes(StandardCharsets.UTF_8));
+                    out.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture de l'archive " + fichier + " impossible", e);
+        }
+    }
+
+    // Les notifications supprimées étaient non lues : elles sortent des compteurs de leurs destinataires
+    private void decrementerCompteurs(Map<String, Long> parDestinataire) {
+        if (parDestinataire.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CompteurNotifications.class);
+        parDestinataire.forEach((id, nb) -> bulk.updateOne(Query.query(Criteria.where("_id").is(id)),
+                new Update().inc("nonLues", -nb).set("derniereEcriture", new Date())));
+        bulk.execute();
+    }
+}
@@ -2,6 +2,7 @@ package com.cityconnect.smart_interventions.service;
 
 import java.util.List;
 
+import com.cityconnect.smart_interventions.dto.SignalementResume;
 import com.cityconnect.smart_interventions.model.Signalement;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -31,4 +32,13 @@ public interface SignalementService {
     void ajouterHistorique(String id, String action, String responsable);
 
     void uploadPhoto(String id, MultipartFile photo);
+
+    // Les plus proches d'un point, dans un rayon en km ($nearSphere) ; statut null : tous
+    List<SignalementResume> findProches(double latitude, double longitude, double rayonKm, Signalement.Statut statut, int limite);
+
+    // Ceux visibles dans une emprise de carte ($geoWithin) ; au plus limite + 1 pour signaler une troncature
+    List<SignalementResume> findDansEmprise(double sud, double ouest, double nord, double est, Signalement.Statut statut, int limite);
+
+    // Signalés autour d'un équipement, du plus proche au plus éloigné
+    List<SignalementResume> findProchesEquipement(String equipementId, double rayonKm, Signalement.Statut statut, int limite);
 }
\ No newline at end of file
@@ -0,0 +1,248 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.event.InterventionEvent;
+import com.cityconnect.smart_interventions.model.Intervention;
+import com.cityconnect.smart_interventions.model.ServiceMunicipal;
+import com.cityconnect.smart_interventions.model.Statistiques;
+import com.cityconnect.smart_interventions.model.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Statistiques générales maintenues en mémoire.
+ *
+ * Les compteurs sont chargés une fois au démarrage, mis à jour à chaque InterventionEvent
+ * (on retire la contribution de l'état "avant" puis on ajoute celle de l'état "après"),
+ * et recalculés périodiquement depuis MongoDB pour corriger un événement manqué.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "statistiques.mode", havingValue = "memoire", matchIfMissing = true)
+public class StatistiquesEngine {
+
+    private static final String INCONNU = "Inconnu";
+
+    private final MongoTemplate mongoTemplate;
+    private final ZoneService zoneService;
+
+    private volatile Compteurs compteurs = new Compteurs();
+
+    // Noms résolus à partir des IDs ; rechargés à chaque réconciliation
+    private final Map<String, String> nomsServices = new ConcurrentHashMap<>();
+    private final Map<String, String> nomsUtilisateurs = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onIntervention(InterventionEvent event) {
+        while (true) {
+            Compteurs c = compteurs;
+            synchronized (c) {
+                // Remplacés par une réconciliation entre la lecture et le verrou : appliqué aux nouveaux
+                if (c != compteurs) {
+                    continue;
+                }
+                if (event.getAvant() != null) c.appliquer(event.getAvant(), -1);
+                if (event.getApres() != null) c.appliquer(event.getApres(), 1);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Photo des statistiques : ne dépend que du nombre de services et d'utilisateurs,
+     * jamais du nombre d'interventions. Réutilisée tant qu'aucun compteur ni aucune zone n'a bougé.
+     * La photo est construite sur une copie, hors verrou : la résolution d'un nom absent du cache
+     * lit MongoDB et ne doit pas bloquer les InterventionEvent.
+     */
+    public Statistiques snapshot() {
+        Compteurs c = compteurs;
+        long versionZones = zoneService.version();
+        Compteurs copie;
+        synchronized (c) {
+            if (c.cache != null && c.versionCache == c.version && c.versionZonesCache == versionZones) {
+                return c.cache;
+            }
+            copie = c.copie();
+        }
+        Statistiques stats = construire(copie);
+        synchronized (c) {
+            // Un événement arrivé pendant la construction rend la photo périmée : elle n'est pas mise en cache
+            if (c.version == copie.version) {
+                c.cache = stats;
+                c.versionCache = copie.version;
+                c.versionZonesCache = versionZones;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Recalcul complet depuis MongoDB. Seuls les champs utiles sont projetés et les documents
+     * sont lus en flux, sans jamais matérialiser la collection.
+     * Le remplacement se fait sous le verrou des anciens compteurs : aucun événement n'y est appliqué
+     * après la bascule. Un événement concurrent à la lecture peut être perdu ou compté deux fois :
+     * la passe suivante le corrige.
+     */
+    @Scheduled(initialDelayString = "${statistiques.reconciliation.delai-initial-ms:0}",
+               fixedDelayString = "${statistiques.reconciliation.intervalle-ms:300000}")
+    public void reconcilier() {
+        try {
+            long debut = System.currentTimeMillis();
+            Compteurs frais = new Compteurs();
+
+            Query query = new Query();
+            query.fields().include("statut", "dateDebut", "dateFin", "serviceMunicipalId", "technicienId");
+            try (Stream<Intervention> stream = mongoTemplate.stream(query, Intervention.class)) {
+                stream.forEach(i -> frais.appliquer(i, 1));
+            }
+
+            chargerNoms();
+
+            Compteurs ancien = compteurs;
+            synchronized (ancien) {
+                if (ancien.total != frais.total || ancien.terminees != frais.terminees) {
+                    log.info("Réconciliation statistiques : total {} -> {}, terminées {} -> {}",
+                            ancien.total, frais.total, ancien.terminees, frais.terminees);
+                }
+                frais.version = ancien.version + 1;
+                compteurs = frais;
+            }
+            log.debug("Statistiques réconciliées en {} ms ({} interventions)",
+                    System.currentTimeMillis() - debut, frais.total);
+        } catch (Exception e) {
+            log.warn("Réconciliation des statistiques impossible : {}", e.getMessage());
+        }
+    }
+
+    private void chargerNoms() {
+        Query services = new Query();
+        services.fields().include("nom");
+        Map<String, String> s = new HashMap<>();
+        for (ServiceMunicipal sm : mongoTemplate.find(services, ServiceMunicipal.class)) {
+            s.put(sm.getId(), sm.getNom() != null ? sm.getNom() : INCONNU);
+        }
+
+        Query users = new Query();
+        users.fields().include("nom");
+        Map<String, String> u = new HashMap<>();
+        for (User user : mongoTemplate.find(users, User.class)) {
+            u.put(user.getId(), String.valueOf(user.getNom()));
+        }
+
+        nomsServices.keySet().retainAll(s.keySet());
+        nomsServices.putAll(s);
+        nomsUtilisateurs.keySet().retainAll(u.keySet());
+        nomsUtilisateurs.putAll(u);
+    }
+
+    private Statistiques construire(Compteurs c) {
+        Statistiques stats = new Statistiques();
+
+        double taux = c.total == 0 ? 0.0 : (double) c.terminees / c.total;
+        stats.setTauxResolution(taux);
+        stats.setTempsMoyenIntervention(c.nbDurees == 0 ? 0.0 : c.sommeDureesHeures / c.nbDurees);
+
+        Map<String, Integer> nbParService = new HashMap<>();
+        c.parService.forEach((serviceId, nb) -> {
+            if (nb > 0) nbParService.merge(nomService(serviceId), nb.intValue(), Integer::sum);
+        });
+        stats.setNbInterventionsParService(nbParService);
+
+        // Tous les utilisateurs connus apparaissent, même sans intervention terminée
+        Map<String, Double> perfTechniciens = new HashMap<>();
+        nomsUtilisateurs.forEach((id, nom) -> perfTechniciens.merge(nom, 0.0, Double::sum));
+        c.termineesParTechnicien.forEach((technicienId, nb) -> {
+            String nom = nomUtilisateur(technicienId);
+            if (nom != null && nb > 0) perfTechniciens.merge(nom, nb.doubleValue(), Double::sum);
+        });
+        stats.setPerformanceTechniciens(perfTechniciens);
+
+        zoneService.remplir(stats);
+        stats.setTauxSatisfactionCitoyens(taux);
+        return stats;
+    }
+
+    private String nomService(String serviceId) {
+        if (serviceId.isEmpty()) {
+            return INCONNU;
+        }
+        // Service créé depuis la dernière réconciliation : une seule lecture, puis mis en cache
+        return nomsServices.computeIfAbsent(serviceId, id -> {
+            ServiceMunicipal sm = mongoTemplate.findById(id, ServiceMunicipal.class);
+            return sm != null && sm.getNom() != null ? sm.getNom() : INCONNU;
+        });
+    }
+
+    private String nomUtilisateur(String userId) {
+        String nom = nomsUtilisateurs.get(userId);
+        if (nom != null) {
+            return nom;
+        }
+        User user = mongoTemplate.findById(userId, User.class);
+        if (user == null) {
+            return null;
+        }
+        nom = String.valueOf(user.getNom());
+        nomsUtilisateurs.put(userId, nom);
+        return nom;
+    }
+
+    /**
+     * Compteurs agrégés ; toute lecture ou écriture se fait sous le verrou de l'instance,
+     * sauf sur une copie privée.
+     */
+    private static class Compteurs {
+        long version;
+        long total;
+        long terminees;
+        double sommeDureesHeures;
+        long nbDurees;
+        // Clé "" pour les interventions sans service
+        final Map<String, Long> parService = new HashMap<>();
+        final Map<String, Long> termineesParTechnicien = new HashMap<>();
+        Statistiques cache;
+        long versionCache = -1;
+        long versionZonesCache = -1;
+
+        Compteurs copie() {
+            Compteurs c = new Compteurs();
+            c.version = version;
+            c.total = total;
+            c.terminees = terminees;
+            c.sommeDureesHeures = sommeDureesHeures;
+            c.nbDurees = nbDurees;
+            c.parService.putAll(parService);
+            c.termineesParTechnicien.putAll(termineesParTechnicien);
+            return c;
+        }
+
+        void appliquer(Intervention i, int signe) {
+            version++;
+            total += signe;
+
+            parService.merge(i.getServiceMunicipalId() != null ? i.getServiceMunicipalId() : "", (long) signe, Long::sum);
+
+            if (i.getDateDebut() != null && i.getDateFin() != null) {
+                sommeDureesHeures += signe * (i.getDateFin().getTime() - i.getDateDebut().getTime()) / (1000.0 * 60 * 60);
+                nbDurees += signe;
+            }
+
+            if (i.getStatut() == Intervention.Statut.TERMINEE) {
+                terminees += signe;
+                if (i.getTechnicienId() != null) {
+                    termineesParTechnicien.merge(i.getTechnicienId(), (long) signe, Long::sum);
+                }
+            }
+        }
+    }
+}
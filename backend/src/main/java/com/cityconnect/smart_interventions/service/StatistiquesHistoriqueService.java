@@ -0,0 +1,16 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.model.Statistiques;
+import com.cityconnect.smart_interventions.model.Statistiques.Granularite;
+
+import java.util.Date;
+import java.util.List;
+
+public interface StatistiquesHistoriqueService {
+
+    // Consolide les heures closes depuis le dernier snapshot, puis les jours et mois touchés
+    void consolider();
+
+    // Une entrée par période de [from, to), fusionnée à partir des buckets précalculés
+    List<Statistiques> getStatistiquesParPeriode(Date from, Date to, Granularite granularite);
+}
@@ -2,6 +2,8 @@ package com.cityconnect.smart_interventions.service;
 
 import java.util.List;
 
+import com.cityconnect.smart_interventions.dto.TechnicienDTO;
+import com.cityconnect.smart_interventions.model.PositionTechnicien;
 import com.cityconnect.smart_interventions.model.User;
 
 public interface UserService {
@@ -16,5 +18,16 @@ public interface UserService {
 
     List<User> getAll();
 
-    List<User> findTechniciensDisponibles();
+    // Servis depuis RegistreTechniciens, sans lecture MongoDB
+    List<TechnicienDTO> findTechniciensDisponibles();
+
+    List<TechnicienDTO> rechercherTechniciens(Boolean disponible, Double latitude, Double longitude, Double rayonKm);
+
+    // Version du registre des techniciens, pour les GET conditionnels
+    String versionTechniciens();
+
+    User changerDisponibilite(String id, boolean disponibilite);
+
+    // Position GPS d'un technicien : gardée en mémoire puis écrite en lot
+    PositionTechnicien enregistrerPosition(String id, Double latitude, Double longitude);
 }
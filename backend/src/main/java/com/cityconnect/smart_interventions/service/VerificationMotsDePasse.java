@@ -0,0 +1,116 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.exception.SurchargeException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hachage et vérification BCrypt sur un pool dédié, borné au nombre de cœurs.
+ *
+ * BCrypt occupe un cœur plusieurs dizaines de millisecondes : exécuté sur les threads Tomcat,
+ * un afflux de connexions (changement d'équipe) prend tout le CPU aux autres endpoints.
+ * Ici, au plus "threads" hachages tournent en même temps et au plus "capacite-file" attendent ;
+ * au-delà, ou après attente-max-ms, la requête est refusée (429) avec une estimation du délai d'attente.
+ *
+ * La connexion utilise verifierAsync : le thread Tomcat est rendu pendant l'attente et le hachage.
+ * verifier et encoder (inscription) restent bloquants : le thread appelant attend au pire
+ * attente-max-ms (5 s par défaut), et au plus "capacite-file" appelants attendent en même temps.
+ */
+@Slf4j
+@Component
+public class VerificationMotsDePasse {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor pool;
+    private final long attenteMaxMs;
+
+    // Durée moyenne d'un hachage (moyenne mobile), pour estimer Retry-After
+    private volatile double dureeMoyenneMs = 100;
+
+    public VerificationMotsDePasse(PasswordEncoder passwordEncoder,
+                                   @Value("${auth.bcrypt.threads:0}") int threads,
+                                   @Value("${auth.bcrypt.capacite-file:64}") int capaciteFile,
+                                   @Value("${auth.bcrypt.attente-max-ms:5000}") long attenteMaxMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.attenteMaxMs = attenteMaxMs;
+        int nb = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger n = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(nb, nb, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, capaciteFile)), r -> {
+                    Thread t = new Thread(r, "bcrypt-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public boolean verifier(String motDePasse, String hash) {
+        return executer(() -> passwordEncoder.matches(motDePasse, hash));
+    }
+
+    /**
+     * Sans bloquer l'appelant. Échoue avec SurchargeException si la file est pleine ou si le résultat
+     * n'est pas là après attente-max-ms (une vérification encore en file à ce moment n'est pas exécutée).
+     */
+    public CompletableFuture<Boolean> verifierAsync(String motDePasse, String hash) {
+        return executerAsync(() -> passwordEncoder.matches(motDePasse, hash));
+    }
+
+    public String encoder(String motDePasse) {
+        return executer(() -> passwordEncoder.encode(motDePasse));
+    }
+
+    private <T> T executer(Callable<T> tache) {
+        try {
+            return executerAsync(tache).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+        }
+    }
+
+    private <T> CompletableFuture<T> executerAsync(Callable<T> tache) {
+        CompletableFuture<T> resultat = new CompletableFuture<>();
+        try {
+            pool.execute(() -> {
+                if (resultat.isDone()) {
+                    return;   // Délai dépassé pendant l'attente en file : l'appelant a déjà reçu le 429
+                }
+                long debut = System.nanoTime();
+                try {
+                    resultat.complete(tache.call());
+                } catch (Exception e) {
+                    resultat.completeExceptionally(e);
+                } finally {
+                    dureeMoyenneMs = dureeMoyenneMs * 0.9 + (System.nanoTime() - debut) / 1e6 * 0.1;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Vérification de mot de passe refusée : {} en cours, {} en attente", pool.getActiveCount(), pool.getQueue().size());
+            resultat.completeExceptionally(surcharge());
+            return resultat;
+        }
+        CompletableFuture.delayedExecutor(attenteMaxMs, TimeUnit.MILLISECONDS)
+                .execute(() -> resultat.completeExceptionally(surcharge()));
+        return resultat;
+    }
+
+    private SurchargeException surcharge() {
+        return new SurchargeException("Trop de connexions simultanées, réessayez dans quelques secondes", retryAfter());
+    }
+
+    // Temps pour écouler la file actuelle, arrondi à la seconde supérieure
+    private long retryAfter() {
+        double ms = (pool.getQueue().size() / (double) pool.getMaximumPoolSize() + 1) * dureeMoyenneMs;
+        return Math.max(1, (long) Math.ceil(ms / 1000));
+    }
+
+    @PreDestroy
+    public void arreter() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,179 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.event.EquipementEvent;
+import com.cityconnect.smart_interventions.event.SignalementEvent;
+import com.cityconnect.smart_interventions.model.Equipement;
+import com.cityconnect.smart_interventions.model.Signalement;
+import com.cityconnect.smart_interventions.model.Statistiques;
+import com.cityconnect.smart_interventions.utils.GeoHash;
+import com.cityconnect.smart_interventions.utils.GeoUtils;
+import com.cityconnect.smart_interventions.utils.SpaceSaving;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Zones géographiques (cellules geohash) des signalements et équipements, et zones les plus
+ * problématiques. Chaque nouveau signalement et chaque équipement qui devient DEFECTUEUX compte
+ * un problème pour sa cellule ; les compteurs vivent dans un sketch Space-Saving de taille fixe,
+ * donc la mémoire ne dépend pas du nombre de cellules distinctes de la ville.
+ */
+@Slf4j
+@Component
+public class ZoneService {
+
+    private static final int TAILLE_LOT = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final int precision;
+    private final int nbTop;
+    private final SpaceSaving<String> sketch;
+    private final AtomicLong version = new AtomicLong();
+
+    public ZoneService(MongoTemplate mongoTemplate,
+                       @Value("${zones.precision:6}") int precision,
+                       @Value("${zones.capacite:1000}") int capacite,
+                       @Value("${zones.top:10}") int nbTop) {
+        this.mongoTemplate = mongoTemplate;
+        this.precision = precision;
+        this.nbTop = nbTop;
+        this.sketch = new SpaceSaving<>(capacite);
+    }
+
+    public String zone(double[] latLng) {
+        return latLng != null ? GeoHash.encode(latLng[0], latLng[1], precision) : null;
+    }
+
+    public String zoneSignalement(Signalement s) {
+        return zone(GeoUtils.parseCoordonnees(s.getCoordonnees()));
+    }
+
+    public String zoneEquipement(Equipement e) {
+        return zone(GeoUtils.depuisPoint(e.getLocalisation()));
+    }
+
+    @EventListener
+    public void onSignalement(SignalementEvent event) {
+        if (event.getAction() == SignalementEvent.Action.CREE && event.getApres().getZone() != null) {
+            compter(event.getApres().getZone());
+        }
+    }
+
+    @EventListener
+    public void onEquipement(EquipementEvent event) {
+        Equipement apres = event.getApres();
+        if (apres == null || apres.getZone() == null || apres.getEtat() != Equipement.EtatEquipement.DEFECTUEUX) {
+            return;
+        }
+        if (event.getAvant() == null || event.getAvant().getEtat() != Equipement.EtatEquipement.DEFECTUEUX) {
+            compter(apres.getZone());
+        }
+    }
+
+    /**
+     * Zones les plus problématiques, par nombre décroissant de problèmes.
+     */
+    public List<Map.Entry<String, Long>> topZones(int k) {
+        return sketch.top(k);
+    }
+
+    /**
+     * Change à chaque problème compté : permet aux appelants de garder un résultat en cache.
+     */
+    public long version() {
+        return version.get();
+    }
+
+    public void remplir(Statistiques stats) {
+        Map<String, Integer> parZone = new LinkedHashMap<>();
+        List<String> top = new ArrayList<>();
+        for (Map.Entry<String, Long> e : topZones(nbTop)) {
+            parZone.put(e.getKey(), e.getValue().intValue());
+            top.add(e.getKey());
+        }
+        stats.setNbInterventionsParZone(parZone);
+        stats.setTopZonesProblemes(top);
+    }
+
+    /**
+     * Chargement initial : parcourt une fois signalements et équipements (projection),
+     * compte les problèmes et enregistre la zone des documents qui n'en ont pas encore.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void charger() {
+        try {
+            Query signalements = new Query();
+            signalements.fields().include("coordonnees", "zone");
+            int nbSignalements = parcourir(signalements, Signalement.class,
+                    Signalement::getId, Signalement::getZone, this::zoneSignalement, s -> true);
+
+            Query equipements = new Query();
+            equipements.fields().include("localisation", "zone", "etat");
+            int nbEquipements = parcourir(equipements, Equipement.class,
+                    Equipement::getId, Equipement::getZone, this::zoneEquipement,
+                    e -> e.getEtat() == Equipement.EtatEquipement.DEFECTUEUX);
+
+            log.info("Zones chargées : {} signalements, {} équipements défectueux", nbSignalements, nbEquipements);
+        } catch (Exception e) {
+            log.warn("Chargement des zones impossible : {}", e.getMessage());
+        }
+    }
+
+    private <T> int parcourir(Query query, Class<T> type, Function<T, String> id,
+                              Function<T, String> zoneEnregistree, Function<T, String> calculerZone,
+                              Predicate<T> probleme) {
+        int nb = 0;
+        BulkOperations bulk = null;
+        int enAttente = 0;
+        try (Stream<T> stream = mongoTemplate.stream(query, type)) {
+            for (Iterator<T> it = stream.iterator(); it.hasNext(); ) {
+                T doc = it.next();
+                String zone = zoneEnregistree.apply(doc);
+                boolean aEnregistrer = zone == null;
+                if (aEnregistrer) {
+                    zone = calculerZone.apply(doc);
+                }
+                if (zone == null) {
+                    continue;
+                }
+                if (probleme.test(doc)) {
+                    compter(zone);
+                    nb++;
+                }
+                if (aEnregistrer) {
+                    if (bulk == null) bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+                    bulk.updateOne(Query.query(Criteria.where("_id").is(id.apply(doc))), Update.update("zone", zone));
+                    if (++enAttente == TAILLE_LOT) {
+                        bulk.execute();
+                        bulk = null;
+                        enAttente = 0;
+                    }
+                }
+            }
+        }
+        if (bulk != null) {
+            bulk.execute();
+        }
+        return nb;
+    }
+
+    private void compter(String zone) {
+        sketch.ajouter(zone);
+        version.incrementAndGet();
+    }
+}
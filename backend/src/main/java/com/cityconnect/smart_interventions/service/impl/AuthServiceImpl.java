@@ -1,15 +1,27 @@
 package com.cityconnect.smart_interventions.service.impl;
 
 import com.cityconnect.smart_interventions.dto.*;
+import com.cityconnect.smart_interventions.event.UserEvent;
+import com.cityconnect.smart_interventions.exception.IdentifiantsInvalidesException;
+import com.cityconnect.smart_interventions.exception.JetonInvalideException;
 import com.cityconnect.smart_interventions.model.User;
 import com.cityconnect.smart_interventions.repository.UserRepository;
 import com.cityconnect.smart_interventions.utils.JwtUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import com.cityconnect.smart_interventions.service.*;
 
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 public class AuthServiceImpl implements AuthService {
@@ -21,17 +33,79 @@ public class AuthServiceImpl implements AuthService {
     private JwtUtils jwtUtils;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private VerificationMotsDePasse verificationMotsDePasse;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor executor;
 
     @Override
-    public LoginResponse login(LoginRequest request) throws Exception {
+    public CompletableFuture<LoginResponse> login(LoginRequest request) {
         User user = userRepository.findByEmail(request.getEmail())
-            .orElseThrow(() -> new Exception("Utilisateur non trouvé"));
+            .orElseThrow(() -> new IdentifiantsInvalidesException("Utilisateur non trouvé"));
+
+        // BCrypt sur le pool dédié, sans bloquer le thread Tomcat : 429 si trop de vérifications sont déjà en cours.
+        // L'émission des jetons (findAndModify) passe sur l'executor applicatif pour ne pas occuper un thread BCrypt
+        return verificationMotsDePasse.verifierAsync(request.getMotDePasse(), user.getMotDePasse())
+            .thenApplyAsync(valide -> {
+                if (!valide) {
+                    throw new IdentifiantsInvalidesException("Mot de passe incorrect");
+                }
+                return reponse(user);
+            }, executor);
+    }
 
-        if (!passwordEncoder.matches(request.getMotDePasse(), user.getMotDePasse())) {
-            throw new Exception("Mot de passe incorrect");
+    /**
+     * Le rôle et l'existence de l'utilisateur sont relus en base : un compte supprimé ou
+     * dont le rôle a changé ne garde pas ses anciens droits au-delà du jeton d'accès en cours.
+     *
+     * Rotation : le jeton n'est accepté que si sa version égale User.versionRefresh, incrémentée
+     * dans la même écriture. Un jeton déjà utilisé (rejeu d'un jeton volé, ou de l'ancien jeton
+     * après un vol) révoque toute la session : la version avance encore et le jeton le plus récent
+     * ne passe plus non plus, l'utilisateur doit se reconnecter. Une seule session de
+     * rafraîchissement par utilisateur : une nouvelle connexion remplace la précédente.
+     */
+    @Override
+    public LoginResponse refresh(RefreshRequest request) {
+        JwtUtils.Refresh jeton = request.getRefreshToken() != null ? jwtUtils.verifierRefresh(request.getRefreshToken()) : null;
+        if (jeton == null) {
+            throw new JetonInvalideException("Jeton de rafraîchissement invalide ou expiré");
+        }
+        Criteria criteria = Criteria.where("_id").is(jeton.userId());
+        // Version 0 : jeton émis avant la rotation, pour un utilisateur qui n'a pas encore de versionRefresh
+        criteria = jeton.version() == 0
+                ? criteria.and("versionRefresh").in(0L, null)
+                : criteria.and("versionRefresh").is(jeton.version());
+        User user = mongoTemplate.findAndModify(Query.query(criteria), new Update().inc("versionRefresh", 1),
+                FindAndModifyOptions.options().returnNew(true), User.class);
+        if (user == null) {
+            revoquerRefresh(jeton.userId());
+            throw new JetonInvalideException("Jeton de rafraîchissement déjà utilisé ou révoqué");
         }
+        return reponse(user, user.getVersionRefresh());
+    }
+
+    private LoginResponse reponse(User user) {
+        return reponse(user, revoquerRefresh(user.getId()));
+    }
+
+    // Nouvelle version de session : tout jeton de rafraîchissement émis avant devient invalide
+    private long revoquerRefresh(String userId) {
+        Query query = Query.query(Criteria.where("_id").is(userId));
+        query.fields().include("versionRefresh");
+        User u = mongoTemplate.findAndModify(query, new Update().inc("versionRefresh", 1),
+                FindAndModifyOptions.options().returnNew(true), User.class);
+        return u != null && u.getVersionRefresh() != null ? u.getVersionRefresh() : 0;
+    }
 
+    // Jeton d'accès et nouveau jeton de rafraîchissement (rotation à chaque renouvellement)
+    private LoginResponse reponse(User user, long versionRefresh) {
         String token = jwtUtils.generateToken(user.getId(),  user.getEmail(), user.getRole().name());
 
         return new LoginResponse(
@@ -39,7 +113,8 @@ public class AuthServiceImpl implements AuthService {
             user.getRole().name(),
             user.getNom(),
             user.getPrenom(),
-            user.getId()
+            user.getId(),
+            jwtUtils.generateRefreshToken(user.getId(), versionRefresh)
         );
     }
 
@@ -81,7 +156,7 @@ public class AuthServiceImpl implements AuthService {
         }
 
         // Encoder le mot de passe
-        String encodedPassword = passwordEncoder.encode(request.getMotDePasse());
+        String encodedPassword = verificationMotsDePasse.encoder(request.getMotDePasse());
         System.out.println("✅ Mot de passe encodé");
 
         // Créer l'utilisateur
@@ -106,14 +181,9 @@ public class AuthServiceImpl implements AuthService {
             throw new Exception("Erreur lors de la création de l'utilisateur: " + e.getMessage());
         }
 
+        events.publishEvent(new UserEvent(UserEvent.Action.CREE, null, savedUser));
+
         // ⭐ CORRECTION : Retirer le code en double et générer le token
-        String token = jwtUtils.generateToken(savedUser.getId(), savedUser.getEmail(), savedUser.getRole().name());
-        return new LoginResponse(
-            token,
-            savedUser.getRole().name(),
-            savedUser.getNom(),
-            savedUser.getPrenom(),
-            savedUser.getId()
-        );
+        return reponse(savedUser);
     }
 }
\ No newline at end of file
@@ -1,15 +1,22 @@
 package com.cityconnect.smart_interventions.service.impl;
 
+import com.cityconnect.smart_interventions.dto.EquipementResume;
+import com.cityconnect.smart_interventions.event.EquipementEvent;
 import com.cityconnect.smart_interventions.model.Equipement;
 import com.cityconnect.smart_interventions.model.Equipement.EtatEquipement;
 import com.cityconnect.smart_interventions.repository.EquipementRepository;
 import com.cityconnect.smart_interventions.service.EquipementService;
+import com.cityconnect.smart_interventions.service.ZoneService;
 import lombok.RequiredArgsConstructor;
 
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import com.cityconnect.smart_interventions.utils.GeoUtils;
+
 import java.util.*;
 
 @Service
@@ -17,25 +24,43 @@ import java.util.*;
 public class EquipementServiceImpl implements EquipementService {
 	@Autowired
     private final EquipementRepository repository;
+    private final ZoneService zoneService;
+    private final ApplicationEventPublisher events;
+
+    // Bornes des recherches géographiques
+    @Value("${equipements.geo.rayon-max-km:50}")
+    private double rayonMaxKm;
+
+    @Value("${equipements.geo.limite-max:2000}")
+    private int limiteMax;
 
     @Override
     public Equipement create(Equipement equipement) {
-        return repository.save(equipement);
+        equipement.setZone(zoneService.zoneEquipement(equipement));
+        Equipement saved = repository.save(equipement);
+        events.publishEvent(new EquipementEvent(EquipementEvent.Action.CREE, null, saved));
+        return saved;
     }
 
     @Override
     public Equipement update(String id, Equipement equipement) {
         Equipement ex = repository.findById(id).orElseThrow();
+        Equipement avant = EquipementEvent.instantane(ex);
         ex.setType(equipement.getType());
         ex.setAdresse(equipement.getAdresse());
         ex.setEtat(equipement.getEtat());
         ex.setLocalisation(equipement.getLocalisation());
-        return repository.save(ex);
+        ex.setZone(zoneService.zoneEquipement(ex));
+        Equipement saved = repository.save(ex);
+        events.publishEvent(new EquipementEvent(EquipementEvent.Action.MIS_A_JOUR, avant, saved));
+        return saved;
     }
 
     @Override
     public void delete(String id) {
+        Optional<Equipement> ex = repository.findById(id);
         repository.deleteById(id);
+        ex.ifPresent(e -> events.publishEvent(new EquipementEvent(EquipementEvent.Action.SUPPRIME, e, null)));
     }
 
     @Override
@@ -53,6 +78,30 @@ public class EquipementServiceImpl implements EquipementService {
         return repository.findByEtat(etat);
     }
 
+    @Override
+    public List<EquipementResume> findProches(double latitude, double longitude, double rayonKm, EtatEquipement etat, int limite) {
+        GeoUtils.verifierCercle(latitude, longitude, rayonKm, rayonMaxKm);
+        GeoUtils.verifierLimite(limite, limiteMax);
+        List<EquipementResume> resultat = new ArrayList<>();
+        for (Equipement e : repository.findProches(latitude, longitude, rayonKm, etat, limite)) {
+            EquipementResume r = EquipementResume.fromEntity(e);
+            if (r.getLatitude() != null) {
+                r.setDistanceKm(GeoUtils.distanceKm(latitude, longitude, r.getLatitude(), r.getLongitude()));
+            }
+            resultat.add(r);
+        }
+        return resultat;
+    }
+
+    @Override
+    public List<EquipementResume> findDansEmprise(double sud, double ouest, double nord, double est, EtatEquipement etat, int limite) {
+        GeoUtils.verifierEmprise(sud, ouest, nord, est);
+        GeoUtils.verifierLimite(limite, limiteMax);
+        return repository.findDansEmprise(sud, ouest, nord, est, etat, limite + 1).stream()
+                .map(EquipementResume::fromEntity)
+                .toList();
+    }
+
     @Override
     public void addInterventionToEquipement(String equipementId, String interventionId, String titre, String technicien) {
         Equipement eq = repository.findById(equipementId).orElseThrow();
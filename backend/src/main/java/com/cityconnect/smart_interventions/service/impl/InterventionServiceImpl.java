@@ -1,48 +1,99 @@
 package com.cityconnect.smart_interventions.service.impl;
 
+import com.cityconnect.smart_interventions.dto.InterventionFiltre;
+import com.cityconnect.smart_interventions.dto.InterventionSummary;
+import com.cityconnect.smart_interventions.dto.OperationInterventionDTO;
+import com.cityconnect.smart_interventions.dto.PageCurseurDTO;
+import com.cityconnect.smart_interventions.dto.ResultatLotDTO;
+import com.cityconnect.smart_interventions.dto.TechnicienDTO;
+import com.cityconnect.smart_interventions.event.InterventionEvent;
+import com.cityconnect.smart_interventions.exception.ConflitException;
+import com.cityconnect.smart_interventions.model.Equipement;
 import com.cityconnect.smart_interventions.model.Intervention;
+import com.cityconnect.smart_interventions.model.User;
 import com.cityconnect.smart_interventions.repository.InterventionRepository;
+import com.cityconnect.smart_interventions.service.AffectationEngine;
 import com.cityconnect.smart_interventions.service.InterventionService;
+import com.cityconnect.smart_interventions.service.JournalInterventionService;
+import com.cityconnect.smart_interventions.service.JournalInterventionService.Entree;
+import com.cityconnect.smart_interventions.utils.GeoUtils;
+import com.mongodb.bulk.BulkWriteError;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class InterventionServiceImpl implements InterventionService {
+
+    // Tentatives de findAndModify avant de renvoyer un conflit
+    private static final int MAX_ESSAIS = 3;
     
     @Autowired
     private final InterventionRepository repository;
+    private final ApplicationEventPublisher events;
+    private final JournalInterventionService journal;
+    private final MongoTemplate mongoTemplate;
+    private final AffectationEngine affectationEngine;
 
     @Override
     public Intervention create(Intervention i) {
         i.setDateCreation(new Date());
-        return repository.save(i);
+        Intervention saved = repository.save(i);
+        events.publishEvent(new InterventionEvent(InterventionEvent.Action.CREEE, null, saved));
+        return saved;
     }
 
+    /**
+     * $set des seuls champs éditables : les compteurs, le statut et les commentaires / historique
+     * d'un document non migré ne sont jamais réécrits. Le statut ne change que par changerStatut,
+     * qui garde la transition et alimente l'historique.
+     */
     @Override
     public Intervention update(String id, Intervention u) {
-        Intervention ex = repository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Intervention non trouvée avec id: " + id));
-        
+        Query query = Query.query(Criteria.where("_id").is(id));
+        query.fields().exclude("commentaires", "historiqueStatut");
+        Update update = new Update()
+                .set("titre", u.getTitre())
+                .set("type", u.getType())
+                .set("description", u.getDescription())
+                .set("urgence", u.getUrgence());
+        // Document tel qu'avant le $set, lu dans la même opération
+        Intervention ex = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(false), Intervention.class);
+        if (ex == null) {
+            throw new RuntimeException("Intervention non trouvée avec id: " + id);
+        }
+        Intervention avant = InterventionEvent.instantane(ex);
+
         ex.setTitre(u.getTitre());
         ex.setType(u.getType());
         ex.setDescription(u.getDescription());
         ex.setUrgence(u.getUrgence());
-        ex.setStatut(u.getStatut());
-        
-        return repository.save(ex);
+        events.publishEvent(new InterventionEvent(InterventionEvent.Action.MISE_A_JOUR, avant, ex));
+        return ex;
     }
 
     @Override
     public void delete(String id) {
-        if (!repository.existsById(id)) {
-            throw new RuntimeException("Intervention non trouvée avec id: " + id);
-        }
+        Intervention ex = repository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Intervention non trouvée avec id: " + id));
         repository.deleteById(id);
+        journal.supprimer(id);
+        events.publishEvent(new InterventionEvent(InterventionEvent.Action.SUPPRIMEE, ex, null));
     }
 
     @Override
@@ -56,45 +107,67 @@ public class InterventionServiceImpl implements InterventionService {
         return repository.findAll();
     }
 
-
     @Override
-    public Intervention changerStatut(String id, String nouveauStatut, String auteurId) {
-        Intervention i = repository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Intervention non trouvée avec id: " + id));
+    public PageCurseurDTO<InterventionSummary> getPage(InterventionFiltre filtre, String curseur, int taille) {
+        Date apresDate = null;
+        String apresId = null;
+        if (curseur != null && !curseur.isBlank()) {
+            // Curseur = base64url("<dateCreation en ms>:<id>") de la dernière intervention de la page précédente
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(curseur), StandardCharsets.UTF_8).split(":", 2);
+                apresDate = new Date(Long.parseLong(parts[0]));
+                apresId = parts[1];
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Curseur invalide: " + curseur);
+            }
+        }
 
-        if (i.getHistoriqueStatut() == null) {
-            i.setHistoriqueStatut(new ArrayList<>());
+        List<InterventionSummary> page = repository.findPage(filtre, apresDate, apresId, taille, InterventionSummary.class);
+        String suivant = null;
+        if (page.size() == taille) {
+            InterventionSummary derniere = page.get(page.size() - 1);
+            if (derniere.getDateCreation() != null) {
+                String brut = derniere.getDateCreation().getTime() + ":" + derniere.getId();
+                suivant = Base64.getUrlEncoder().withoutPadding().encodeToString(brut.getBytes(StandardCharsets.UTF_8));
+            }
         }
+        return new PageCurseurDTO<>(page, suivant);
+    }
 
-        Intervention.HistoriqueStatut hist = new Intervention.HistoriqueStatut();
-        hist.setAncienStatut(i.getStatut().name());
-        hist.setNouveauStatut(nouveauStatut);
-        hist.setDateChangement(new Date());
-        hist.setAuteurId(auteurId);
+    @Override
+    public Stream<InterventionSummary> stream(InterventionFiltre filtre) {
+        return repository.streamAll(filtre, InterventionSummary.class);
+    }
 
-        i.getHistoriqueStatut().add(hist);
-        i.setStatut(Intervention.Statut.valueOf(nouveauStatut));
 
-        return repository.save(i);
+    @Override
+    public Intervention changerStatut(String id, String nouveauStatut, String auteurId) {
+        return changerStatut(id, nouveauStatut, auteurId, null);
     }
 
     @Override
-    public List<Intervention> getActiveInterventions() {
-        List<Intervention> all = repository.findAll();
-        return all.stream()
-            .filter(i -> i.getStatut() != Intervention.Statut.TERMINEE)
-            .collect(Collectors.toList());
+    public Intervention changerStatut(String id, String nouveauStatut, String auteurId, String statutAttendu) {
+        Intervention.Statut nouveau = Intervention.Statut.valueOf(nouveauStatut);
+        Intervention.Statut attendu = statutAttendu != null ? Intervention.Statut.valueOf(statutAttendu) : null;
+
+        return modifierAtomiquement(id, attendu, InterventionEvent.Action.STATUT_CHANGE,
+                courante -> modificationStatut(courante, nouveau, auteurId));
+    }
+
+    @Override
+    public List<InterventionSummary> getActiveInterventions() {
+        return repository.findByStatutNot(Intervention.Statut.TERMINEE, InterventionSummary.class);
     }
     @Override
-    public List<Intervention> getInterventionsByTechnicien(String technicienId) {
-        return repository.findByTechnicienId(technicienId);
+    public List<InterventionSummary> getInterventionsByTechnicien(String technicienId) {
+        return repository.findByTechnicienId(technicienId, InterventionSummary.class);
     }
     @Override
-    public List<Intervention> findByStatut(String statut) {
+    public List<InterventionSummary> findByStatut(String statut) {
         try {
             // Convertir le string en enum pour le repository
             Intervention.Statut statutEnum = Intervention.Statut.valueOf(statut.toUpperCase());
-            return repository.findByStatut(statutEnum);
+            return repository.findByStatut(statutEnum, InterventionSummary.class);
         } catch (IllegalArgumentException e) {
             // Retourner une liste vide si le statut n'est pas valide
             return Collections.emptyList();
@@ -105,50 +178,348 @@ public class InterventionServiceImpl implements InterventionService {
 
     @Override
     public Intervention assignTechnicien(String id, String technicienId, String technicienNom) {
-        Intervention i = repository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Intervention non trouvée avec id: " + id));
-        
-        i.setTechnicienId(technicienId);
-        
-        // Ajouter un commentaire pour l'historique
-        if (i.getCommentaires() == null) {
-            i.setCommentaires(new ArrayList<>());
-        }
-        
-        Intervention.Commentaire commentaire = new Intervention.Commentaire();
-        commentaire.setAuteurId("system");
-        commentaire.setTexte("Technicien " + technicienNom + " assigné à l'intervention");
-        commentaire.setDate(new Date());
-        i.getCommentaires().add(commentaire);
-        
-        return repository.save(i);
+        return modifierAtomiquement(id, null, InterventionEvent.Action.TECHNICIEN_ASSIGNE,
+                courante -> modificationAffectation(courante, technicienId, technicienNom));
     }
     
+    @Override
+    public List<TechnicienDTO> suggererTechniciens(String id, int k) {
+        Intervention intervention = repository.findEtat(id);
+        if (intervention == null) {
+            throw new RuntimeException("Intervention non trouvée avec id: " + id);
+        }
+        double[] position = positionIntervention(intervention);
+        return affectationEngine.candidats(position[0], position[1], intervention.getType(),
+                intervention.getUrgence() != null ? intervention.getUrgence().name() : null, k);
+    }
+
+    @Override
+    public Intervention affecterAutomatiquement(String id) {
+        List<TechnicienDTO> candidats = suggererTechniciens(id, 1);
+        if (candidats.isEmpty()) {
+            throw new ConflitException("Aucun technicien disponible pour l'intervention " + id);
+        }
+        TechnicienDTO t = candidats.get(0);
+        String nom = ((t.getPrenom() != null ? t.getPrenom() + " " : "")
+                + (t.getNom() != null ? t.getNom() : "")).trim();
+        return assignTechnicien(id, t.getId(), nom);
+    }
+
+    // Position de l'intervention : celle de son équipement (seule localisation connue)
+    private double[] positionIntervention(Intervention intervention) {
+        if (intervention.getEquipementId() == null) {
+            throw new IllegalArgumentException("L'intervention " + intervention.getId() + " n'a pas d'équipement localisé");
+        }
+        Query query = Query.query(Criteria.where("_id").is(intervention.getEquipementId()));
+        query.fields().include("localisation");
+        Equipement equipement = mongoTemplate.findOne(query, Equipement.class);
+        double[] position = equipement != null ? GeoUtils.depuisPoint(equipement.getLocalisation()) : null;
+        if (position == null) {
+            throw new IllegalArgumentException("L'intervention " + intervention.getId() + " n'a pas d'équipement localisé");
+        }
+        return position;
+    }
+
     // Méthode pour créer une intervention (alias de create)
     public Intervention createIntervention(Intervention intervention) {
         return create(intervention);
     }
     
     // Méthode pour compléter une intervention
+    @Override
     public Intervention completeIntervention(String id, String notes) {
-        Intervention i = repository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Intervention non trouvée avec id: " + id));
-        
-        i.setStatut(Intervention.Statut.TERMINEE);
-        i.setDateFin(new Date());
-        
-        if (notes != null && !notes.isEmpty()) {
-            if (i.getCommentaires() == null) {
-                i.setCommentaires(new ArrayList<>());
+        return modifierAtomiquement(id, null, InterventionEvent.Action.TERMINEE,
+                courante -> modificationFin(courante, notes));
+    }
+
+    /**
+     * Lot en trois allers-retours quel que soit le nombre de commandes : une lecture des états courants,
+     * une écriture groupée non ordonnée (chaque mise à jour conditionnée sur l'état lu, comme
+     * modifierAtomiquement, mais sans nouvel essai), puis une relecture pour le résultat de chaque commande.
+     * Commentaires et historiques sont ensuite ajoutés à leurs buckets en une écriture groupée.
+     */
+    @Override
+    public ResultatLotDTO executerLot(List<OperationInterventionDTO> operations) {
+        int n = operations.size();
+        ResultatLotDTO.Resultat[] resultats = new ResultatLotDTO.Resultat[n];
+
+        Set<String> ids = new HashSet<>();
+        Set<String> technicienIds = new HashSet<>();
+        for (OperationInterventionDTO op : operations) {
+            if (op == null || op.getType() == null || op.getType() == OperationInterventionDTO.Type.CREER) continue;
+            if (op.getInterventionId() != null) ids.add(op.getInterventionId());
+            if (op.getType() == OperationInterventionDTO.Type.AFFECTER && op.getTechnicienNom() == null
+                    && op.getTechnicienId() != null) {
+                technicienIds.add(op.getTechnicienId());
+            }
+        }
+        Map<String, Intervention> courantes = new HashMap<>();
+        if (!ids.isEmpty()) {
+            repository.findEtats(ids).forEach(i -> courantes.put(i.getId(), i));
+        }
+        Map<String, String> noms = nomsTechniciens(technicienIds);
+
+        String lot = UUID.randomUUID().toString();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Intervention.class);
+        List<Integer> indexCommandes = new ArrayList<>();   // index dans le bulk -> index de la commande
+        Intervention[] creees = new Intervention[n];
+        Modification[] modifications = new Modification[n];
+        Set<String> dejaVues = new HashSet<>();
+
+        for (int i = 0; i < n; i++) {
+            OperationInterventionDTO op = operations.get(i);
+            try {
+                if (op == null || op.getType() == null) {
+                    throw new IllegalArgumentException("Type d'opération manquant");
+                }
+                if (op.getType() == OperationInterventionDTO.Type.CREER) {
+                    if (op.getIntervention() == null) {
+                        throw new IllegalArgumentException("Intervention à créer manquante");
+                    }
+                    Intervention nouvelle = op.getIntervention().toEntity();
+                    nouvelle.setId(new ObjectId().toHexString());
+                    nouvelle.setDateCreation(new Date());
+                    bulk.insert(nouvelle);
+                    creees[i] = nouvelle;
+                } else {
+                    String id = op.getInterventionId();
+                    Intervention courante = id != null ? courantes.get(id) : null;
+                    if (courante == null) {
+                        throw new RuntimeException("Intervention non trouvée avec id: " + id);
+                    }
+                    // Deux commandes sur la même intervention se garderaient mutuellement en échec
+                    if (!dejaVues.add(id)) {
+                        throw new ConflitException("Une seule opération par intervention dans un lot: " + id);
+                    }
+                    Modification m = modificationLot(op, courante, noms);
+                    Update update = m.updateComplet().set("dernierLot", lot + ":" + i);
+                    bulk.updateOne(Query.query(garde(courante)), update);
+                    modifications[i] = m;
+                }
+                indexCommandes.add(i);
+            } catch (RuntimeException e) {
+                resultats[i] = new ResultatLotDTO.Resultat(i, op != null ? op.getInterventionId() : null, false, e.getMessage());
+            }
+        }
+
+        Map<Integer, String> erreursEcriture = new HashMap<>();
+        if (!indexCommandes.isEmpty()) {
+            try {
+                bulk.execute();
+            } catch (BulkOperationException e) {
+                for (BulkWriteError erreur : e.getErrors()) {
+                    erreursEcriture.put(indexCommandes.get(erreur.getIndex()), erreur.getMessage());
+                }
+            }
+        }
+
+        // Une mise à jour a réussi si le document porte le marqueur de sa commande
+        Map<String, Intervention> apres = new HashMap<>();
+        Set<String> modifiees = new HashSet<>();
+        for (int i : indexCommandes) {
+            if (modifications[i] != null) modifiees.add(operations.get(i).getInterventionId());
+        }
+        if (!modifiees.isEmpty()) {
+            repository.findEtats(modifiees).forEach(i -> apres.put(i.getId(), i));
+        }
+
+        List<Entree<Intervention.Commentaire>> commentaires = new ArrayList<>();
+        List<Entree<Intervention.HistoriqueStatut>> changements = new ArrayList<>();
+        List<InterventionEvent> evenements = new ArrayList<>();
+        for (int i : indexCommandes) {
+            OperationInterventionDTO op = operations.get(i);
+            if (erreursEcriture.containsKey(i)) {
+                resultats[i] = new ResultatLotDTO.Resultat(i, op.getInterventionId(), false, erreursEcriture.get(i));
+            } else if (creees[i] != null) {
+                resultats[i] = new ResultatLotDTO.Resultat(i, creees[i].getId(), true, null);
+                evenements.add(new InterventionEvent(InterventionEvent.Action.CREEE, null, creees[i]));
+            } else {
+                String id = op.getInterventionId();
+                Intervention saved = apres.get(id);
+                if (saved == null || !(lot + ":" + i).equals(saved.getDernierLot())) {
+                    resultats[i] = new ResultatLotDTO.Resultat(i, id, false,
+                            "Intervention modifiée simultanément, veuillez réessayer: " + id);
+                    continue;
+                }
+                // Rangs exacts : la garde garantit que les compteurs valaient ceux lus
+                Intervention courante = courantes.get(id);
+                Modification m = modifications[i];
+                if (m.commentaire() != null) {
+                    commentaires.add(new Entree<>(id, valeur(courante.getNbCommentaires()) + 1, m.commentaire()));
+                }
+                if (m.changement() != null) {
+                    changements.add(new Entree<>(id, valeur(courante.getNbChangementsStatut()) + 1, m.changement()));
+                }
+                resultats[i] = new ResultatLotDTO.Resultat(i, id, true, null);
+                evenements.add(new InterventionEvent(action(op.getType()), courante, saved));
+            }
+        }
+
+        journal.ajouterEnLot(commentaires, changements);
+        evenements.forEach(events::publishEvent);
+
+        int nbEchecs = 0;
+        for (ResultatLotDTO.Resultat r : resultats) {
+            if (!r.isSucces()) nbEchecs++;
+        }
+        return new ResultatLotDTO(Arrays.asList(resultats), nbEchecs);
+    }
+
+    private Modification modificationLot(OperationInterventionDTO op, Intervention courante, Map<String, String> noms) {
+        switch (op.getType()) {
+            case AFFECTER -> {
+                if (op.getTechnicienId() == null || op.getTechnicienId().isBlank()) {
+                    throw new IllegalArgumentException("technicienId est obligatoire");
+                }
+                String nom = op.getTechnicienNom() != null ? op.getTechnicienNom()
+                        : noms.getOrDefault(op.getTechnicienId(), op.getTechnicienId());
+                return modificationAffectation(courante, op.getTechnicienId(), nom);
+            }
+            case CHANGER_STATUT -> {
+                if (op.getNouveauStatut() == null) {
+                    throw new IllegalArgumentException("nouveauStatut est obligatoire");
+                }
+                Intervention.Statut nouveau = Intervention.Statut.valueOf(op.getNouveauStatut());
+                if (op.getStatutAttendu() != null && courante.getStatut() != Intervention.Statut.valueOf(op.getStatutAttendu())) {
+                    throw new ConflitException("Statut actuel " + courante.getStatut() + ", attendu " + op.getStatutAttendu());
+                }
+                return modificationStatut(courante, nouveau, op.getAuteurId());
+            }
+            case TERMINER -> {
+                return modificationFin(courante, op.getNotes());
             }
-            
-            Intervention.Commentaire commentaire = new Intervention.Commentaire();
+            default -> throw new IllegalArgumentException("Opération non supportée: " + op.getType());
+        }
+    }
+
+    private static InterventionEvent.Action action(OperationInterventionDTO.Type type) {
+        return switch (type) {
+            case AFFECTER -> InterventionEvent.Action.TECHNICIEN_ASSIGNE;
+            case CHANGER_STATUT -> InterventionEvent.Action.STATUT_CHANGE;
+            case TERMINER -> InterventionEvent.Action.TERMINEE;
+            case CREER -> InterventionEvent.Action.CREEE;
+        };
+    }
+
+    // Garde d'une mise à jour de lot : statut et compteurs inchangés depuis la lecture
+    private static Criteria garde(Intervention courante) {
+        return Criteria.where("_id").is(courante.getId())
+                .and("statut").is(courante.getStatut())
+                .and("nbCommentaires").is(courante.getNbCommentaires())
+                .and("nbChangementsStatut").is(courante.getNbChangementsStatut());
+    }
+
+    private static int valeur(Integer compteur) {
+        return compteur != null ? compteur : 0;
+    }
+
+    private Map<String, String> nomsTechniciens(Set<String> technicienIds) {
+        Map<String, String> noms = new HashMap<>();
+        if (technicienIds.isEmpty()) {
+            return noms;
+        }
+        Query query = Query.query(Criteria.where("_id").in(technicienIds));
+        query.fields().include("nom", "prenom");
+        for (User u : mongoTemplate.find(query, User.class)) {
+            noms.put(u.getId(), ((u.getPrenom() != null ? u.getPrenom() + " " : "")
+                    + (u.getNom() != null ? u.getNom() : "")).trim());
+        }
+        return noms;
+    }
+
+    private Modification modificationStatut(Intervention courante, Intervention.Statut nouveau, String auteurId) {
+        Intervention.HistoriqueStatut hist = new Intervention.HistoriqueStatut();
+        hist.setAncienStatut(courante.getStatut() != null ? courante.getStatut().name() : null);
+        hist.setNouveauStatut(nouveau.name());
+        hist.setDateChangement(new Date());
+        hist.setAuteurId(auteurId);
+
+        Update update = new Update().set("statut", nouveau);
+        if (nouveau == Intervention.Statut.EN_COURS && courante.getDateDebut() == null) {
+            update.set("dateDebut", new Date());
+        }
+        return new Modification(update, null, hist);
+    }
+
+    private Modification modificationAffectation(Intervention courante, String technicienId, String technicienNom) {
+        // Ajouter un commentaire pour l'historique
+        Intervention.Commentaire commentaire = new Intervention.Commentaire();
+        commentaire.setAuteurId("system");
+        commentaire.setTexte("Technicien " + technicienNom + " assigné à l'intervention");
+        commentaire.setDate(new Date());
+
+        Update update = new Update().set("technicienId", technicienId);
+        if (courante.getDateAffectation() == null) {
+            update.set("dateAffectation", new Date());
+        }
+        return new Modification(update, commentaire, null);
+    }
+
+    private Modification modificationFin(Intervention courante, String notes) {
+        if (courante.getStatut() == Intervention.Statut.TERMINEE) {
+            throw new ConflitException("Intervention déjà terminée: " + courante.getId());
+        }
+        Update update = new Update().set("statut", Intervention.Statut.TERMINEE).set("dateFin", new Date());
+
+        Intervention.Commentaire commentaire = null;
+        if (notes != null && !notes.isEmpty()) {
+            commentaire = new Intervention.Commentaire();
             commentaire.setAuteurId("system");
             commentaire.setTexte("Notes de fin: " + notes);
             commentaire.setDate(new Date());
-            i.getCommentaires().add(commentaire);
         }
-        
-        return repository.save(i);
+        return new Modification(update, commentaire, null);
+    }
+
+    /**
+     * Lecture des seuls champs scalaires puis findAndModify conditionné sur le statut lu :
+     * seuls les champs modifiés sont écrits ($set / $inc), sans réécrire le document.
+     * Si le statut a changé entre-temps, on recommence (statutAttendu null) ou on refuse (409).
+     * Le commentaire et le changement de statut éventuels sont ensuite ajoutés à leur bucket,
+     * au rang donné par le compteur incrémenté.
+     */
+    private Intervention modifierAtomiquement(String id, Intervention.Statut statutAttendu,
+                                              InterventionEvent.Action action,
+                                              Function<Intervention, Modification> modification) {
+        for (int essai = 0; essai < MAX_ESSAIS; essai++) {
+            Intervention courante = repository.findEtat(id);
+            if (courante == null) {
+                throw new RuntimeException("Intervention non trouvée avec id: " + id);
+            }
+            if (statutAttendu != null && courante.getStatut() != statutAttendu) {
+                throw new ConflitException("Statut actuel " + courante.getStatut() + ", attendu " + statutAttendu);
+            }
+
+            Modification m = modification.apply(courante);
+            Update update = m.updateComplet();
+
+            Intervention saved = repository.modifierSiStatut(id, courante.getStatut(), update);
+            if (saved != null) {
+                if (m.commentaire() != null) {
+                    journal.ajouterCommentaire(id, saved.getNbCommentaires(), m.commentaire());
+                }
+                if (m.changement() != null) {
+                    journal.ajouterChangementStatut(id, saved.getNbChangementsStatut(), m.changement());
+                }
+                events.publishEvent(new InterventionEvent(action, courante, saved));
+                return saved;
+            }
+        }
+        throw new ConflitException("Intervention modifiée simultanément, veuillez réessayer: " + id);
+    }
+
+    private record Modification(Update update, Intervention.Commentaire commentaire,
+                                Intervention.HistoriqueStatut changement) {
+
+        // Ajoute compteurs et dernières entrées pour le commentaire / changement de statut éventuels
+        Update updateComplet() {
+            if (commentaire != null) {
+                update.inc("nbCommentaires", 1).set("dernierCommentaire", commentaire);
+            }
+            if (changement != null) {
+                update.inc("nbChangementsStatut", 1).set("dernierChangementStatut", changement);
+            }
+            return update;
+        }
     }
-}
\ No newline at end of file
+}
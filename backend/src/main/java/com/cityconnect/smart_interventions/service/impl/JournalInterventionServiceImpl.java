@@ -0,0 +1,125 @@
+package com.cityconnect.smart_interventions.service.impl;
+
+import com.cityconnect.smart_interventions.dto.PageCurseurDTO;
+import com.cityconnect.smart_interventions.model.BucketCommentaires;
+import com.cityconnect.smart_interventions.model.BucketHistoriqueStatut;
+import com.cityconnect.smart_interventions.model.Intervention;
+import com.cityconnect.smart_interventions.service.JournalInterventionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+@Service
+@RequiredArgsConstructor
+public class JournalInterventionServiceImpl implements JournalInterventionService {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void ajouterCommentaire(String interventionId, int rang, Intervention.Commentaire commentaire) {
+        ajouter(interventionId, rang, commentaire, BucketCommentaires.class);
+    }
+
+    @Override
+    public void ajouterChangementStatut(String interventionId, int rang, Intervention.HistoriqueStatut changement) {
+        ajouter(interventionId, rang, changement, BucketHistoriqueStatut.class);
+    }
+
+    @Override
+    public void ajouterEnLot(List<Entree<Intervention.Commentaire>> commentaires,
+                             List<Entree<Intervention.HistoriqueStatut>> changements) {
+        ajouterEnLot(commentaires, BucketCommentaires.class);
+        ajouterEnLot(changements, BucketHistoriqueStatut.class);
+    }
+
+    @Override
+    public PageCurseurDTO<Intervention.Commentaire> getCommentaires(String interventionId, String curseur) {
+        return page(interventionId, curseur, BucketCommentaires.class, BucketCommentaires::getNumero, BucketCommentaires::getEntrees);
+    }
+
+    @Override
+    public PageCurseurDTO<Intervention.HistoriqueStatut> getHistoriqueStatut(String interventionId, String curseur) {
+        return page(interventionId, curseur, BucketHistoriqueStatut.class, BucketHistoriqueStatut::getNumero, BucketHistoriqueStatut::getEntrees);
+    }
+
+    @Override
+    public void supprimer(String interventionId) {
+        Query query = Query.query(Criteria.where("interventionId").is(interventionId));
+        mongoTemplate.remove(query, BucketCommentaires.class);
+        mongoTemplate.remove(query, BucketHistoriqueStatut.class);
+    }
+
+    public static String idBucket(String interventionId, int numero) {
+        return interventionId + ":" + numero;
+    }
+
+    /**
+     * Upsert du bucket qui contient le rang : un seul $push, le bucket ne dépasse jamais TAILLE entrées
+     * puisque chaque rang n'est attribué qu'une fois.
+     */
+    private void ajouter(String interventionId, int rang, Object entree, Class<?> type) {
+        int numero = numero(rang);
+        mongoTemplate.upsert(queryBucket(interventionId, numero), updateBucket(interventionId, numero, entree), type);
+    }
+
+    private void ajouterEnLot(List<? extends Entree<?>> entrees, Class<?> type) {
+        if (entrees.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+        for (Entree<?> e : entrees) {
+            int numero = numero(e.rang());
+            bulk.upsert(queryBucket(e.interventionId(), numero), updateBucket(e.interventionId(), numero, e.valeur()));
+        }
+        bulk.execute();
+    }
+
+    private static int numero(int rang) {
+        return (rang - 1) / BucketCommentaires.TAILLE;
+    }
+
+    private static Query queryBucket(String interventionId, int numero) {
+        return Query.query(Criteria.where("_id").is(idBucket(interventionId, numero)));
+    }
+
+    private static Update updateBucket(String interventionId, int numero, Object entree) {
+        return new Update()
+                .push("entrees", entree)
+                .inc("nombre", 1)
+                .setOnInsert("interventionId", interventionId)
+                .setOnInsert("numero", numero);
+    }
+
+    private <B, E> PageCurseurDTO<E> page(String interventionId, String curseur, Class<B> type,
+                                          Function<B, Integer> numero, Function<B, List<E>> entrees) {
+        Criteria criteria = Criteria.where("interventionId").is(interventionId);
+        if (curseur != null && !curseur.isBlank()) {
+            try {
+                criteria = criteria.and("numero").lt(Integer.parseInt(curseur));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Curseur invalide: " + curseur);
+            }
+        }
+        Query query = Query.query(criteria).with(Sort.by(Sort.Direction.DESC, "numero")).limit(1);
+        B bucket = mongoTemplate.findOne(query, type);
+        if (bucket == null) {
+            return new PageCurseurDTO<>(Collections.emptyList(), null);
+        }
+
+        // Plus récent d'abord
+        List<E> contenu = entrees.apply(bucket) != null ? new ArrayList<>(entrees.apply(bucket)) : new ArrayList<>();
+        Collections.reverse(contenu);
+        int n = numero.apply(bucket);
+        return new PageCurseurDTO<>(contenu, n > 0 ? String.valueOf(n) : null);
+    }
+}
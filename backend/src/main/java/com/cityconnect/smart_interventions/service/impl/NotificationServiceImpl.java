@@ -1,40 +1,248 @@
 package com.cityconnect.smart_interventions.service.impl;
 
+import com.cityconnect.smart_interventions.dto.PageCurseurDTO;
+import com.cityconnect.smart_interventions.event.NotificationEvent;
+import com.cityconnect.smart_interventions.model.CompteurNotifications;
 import com.cityconnect.smart_interventions.model.Notification;
 import com.cityconnect.smart_interventions.repository.NotificationRepository;
 import com.cityconnect.smart_interventions.service.NotificationService;
+import com.mongodb.client.result.UpdateResult;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+import org.bson.Document;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Envoi, lecture et compteurs des notifications.
+ *
+ * Coalescence : la première notification d'une clé (destinataires, intervention, ressource, type)
+ * est enregistrée et poussée tout de suite, puis une fenêtre s'ouvre. Les suivantes de la même clé
+ * pendant la fenêtre ne sont qu'additionnées en mémoire ; à sa fermeture, une seule mise à jour
+ * reporte leur nombre, le dernier message et derniereMiseAJour sur la notification d'origine
+ * (dateEnvoi, clé du curseur de getInbox, reste celle de l'insertion). Une rafale coûte donc
+ * deux écritures et deux envois, quelle que soit sa taille. Un appel absorbé ne rend la main
+ * qu'une fois la notification d'origine enregistrée (il en reçoit l'id) ou en échec (il reçoit l'erreur) ;
+ * une mise à jour de fermeture en échec est retentée au tick suivant.
+ *
+ * Digest : les types listés dans notifications.digest.types ne sont pas envoyés un par un mais
+ * regroupés par destinataire en une notification DIGEST périodique.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class NotificationServiceImpl implements NotificationService {
+
+    // Plus récentes d'abord ; même ordre que les index citoyen_dateEnvoi_id / technicien_dateEnvoi_id
+    private static final Sort ORDRE = Sort.by(Sort.Direction.DESC, "dateEnvoi", "_id");
+    static final String TYPE_DIGEST = "DIGEST";
+
     @Autowired
     private final NotificationRepository repository;
+    private final ApplicationEventPublisher events;
+    private final MongoTemplate mongoTemplate;
+
+    // Durée de la fenêtre de coalescence (0 : désactivée)
+    @Value("${notifications.coalescence.fenetre-ms:10000}")
+    private long fenetreMs;
+
+    // Types envoyés en digest plutôt qu'un par un
+    @Value("${notifications.digest.types:}")
+    private Set<String> typesDigest;
+
+    private final Map<String, Fenetre> fenetres = new ConcurrentHashMap<>();
+    private final Map<String, Digest> digests = new ConcurrentHashMap<>();
+    // Fenêtres fermées dont la mise à jour a échoué, retentées au prochain tick
+    private final Queue<Fenetre> aReappliquer = new ConcurrentLinkedQueue<>();
 
     @Override
     public Notification send(Notification n) {
-        n.setDateCreation(new Date());
-        n.setDateEnvoi(new Date());
+        if (n.getTypeNotification() != null && typesDigest.contains(n.getTypeNotification())) {
+            // Ajout et vidage (envoyerDigests) exclusifs : tous deux dans un compute sur la même entrée
+            digests.compute(cleDestinataires(n), (k, d) -> {
+                Digest digest = d != null ? d : new Digest(n.getCitoyenId(), n.getTechnicienId());
+                digest.ajouter(n);
+                return digest;
+            });
+            return n;
+        }
+        if (fenetreMs <= 0) {
+            return enregistrer(n);
+        }
+
+        long maintenant = System.currentTimeMillis();
+        Fenetre[] aFermer = new Fenetre[1];
+        Fenetre[] ouverte = new Fenetre[1];
+        String cle = cle(n);
+        Fenetre f = fenetres.compute(cle, (k, ex) -> {
+            // Une fenêtre dont la notification d'origine est encore en cours d'écriture absorbe tout
+            if (ex != null && (!ex.pret || ex.fin > maintenant)) {
+                ex.fusionner(n);
+                return ex;
+            }
+            aFermer[0] = ex;
+            ouverte[0] = new Fenetre(maintenant + fenetreMs);
+            return ouverte[0];
+        });
+        if (aFermer[0] != null) {
+            appliquer(aFermer[0]);
+        }
+        if (ouverte[0] == null) {
+            // Absorbée : attend l'enregistrement de la notification d'origine
+            return f.courante();
+        }
+        try {
+            Notification saved = enregistrer(n);
+            f.ouvrir(saved);
+            return saved;
+        } catch (RuntimeException e) {
+            // Retirée sous le verrou de l'entrée, comme fusionner : aucune absorption après ce point,
+            // et chaque appel déjà absorbé reçoit l'erreur au lieu d'un succès
+            fenetres.computeIfPresent(cle, (k, ex) -> ex == f ? null : ex);
+            f.echouer(e);
+            throw e;
+        }
+    }
+
+    private Notification enregistrer(Notification n) {
+        Date maintenant = new Date();
+        n.setDateCreation(maintenant);
+        n.setDateEnvoi(maintenant);
+        n.setDerniereMiseAJour(maintenant);
         n.setStatutLecture(false);
-        return repository.save(n);
+        if (n.getNombre() == null) {
+            n.setNombre(1);
+        }
+        Notification saved = repository.save(n);
+        destinataires(saved).forEach(id -> incrementer(id, 1));
+        events.publishEvent(new NotificationEvent(saved));
+        return saved;
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.coalescence.tick-ms:1000}")
+    public void fermerFenetres() {
+        for (int i = aReappliquer.size(); i > 0; i--) {
+            Fenetre f = aReappliquer.poll();
+            if (f == null) break;
+            appliquer(f);
+        }
+        long maintenant = System.currentTimeMillis();
+        fenetres.forEach((cle, f) -> {
+            if (f.pret && f.fin <= maintenant && fenetres.remove(cle, f)) {
+                appliquer(f);
+            }
+        });
+    }
+
+    @Scheduled(initialDelayString = "${notifications.digest.intervalle-ms:900000}",
+               fixedDelayString = "${notifications.digest.intervalle-ms:900000}")
+    public void envoyerDigests() {
+        for (String cle : new ArrayList<>(digests.keySet())) {
+            Digest[] vide = new Digest[1];
+            digests.computeIfPresent(cle, (k, d) -> {
+                vide[0] = d;
+                return null;
+            });
+            if (vide[0] == null) continue;
+            try {
+                enregistrer(vide[0].notification());
+            } catch (RuntimeException e) {
+                // Remis en attente (fusionné avec ce qui est arrivé depuis) pour le prochain envoi
+                digests.merge(cle, vide[0], Digest::fusionner);
+                log.warn("Envoi du digest de notifications reporté ({}) : {}", cle, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void viderFenetres() {
+        fenetres.forEach((cle, f) -> {
+            if (f.pret && fenetres.remove(cle, f)) {
+                appliquer(f);
+            }
+        });
+        envoyerDigests();
+    }
+
+    /**
+     * Reporte les notifications absorbées par la fenêtre sur la notification d'origine, en une écriture.
+     * Si elle avait été lue entre-temps, elle redevient non lue.
+     */
+    private void appliquer(Fenetre f) {
+        Notification fusion = f.fermer();
+        if (fusion == null) {
+            return;
+        }
+        try {
+            Query query = Query.query(Criteria.where("_id").is(fusion.getId()));
+            Update update = new Update()
+                    .inc("nombre", f.absorbees)
+                    .set("message", fusion.getMessage())
+                    .set("derniereMiseAJour", fusion.getDerniereMiseAJour())
+                    .set("statutLecture", false)
+                    .unset("dateLecture");
+            Notification avant = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(false), Notification.class);
+            if (avant == null) {
+                return;
+            }
+            if (avant.isStatutLecture()) {
+                destinataires(avant).forEach(id -> incrementer(id, 1));
+            }
+            avant.setNombre((avant.getNombre() != null ? avant.getNombre() : 1) + f.absorbees);
+            avant.setMessage(fusion.getMessage());
+            avant.setDerniereMiseAJour(fusion.getDerniereMiseAJour());
+            avant.setStatutLecture(false);
+            avant.setDateLecture(null);
+            events.publishEvent(new NotificationEvent(avant));
+        } catch (RuntimeException e) {
+            aReappliquer.add(f);
+            log.warn("Regroupement de {} notifications reporté pour {} : {}", f.absorbees, fusion.getId(), e.getMessage());
+        }
     }
 
     @Override
     public List<Notification> getNotificationsForUser(String userId) {
         // Correction : Appel avec un seul argument (le repository gère les deux champs via la requête @Query)
-        return repository.findByCitoyenIdOrTechnicienId(userId);
+        return repository.findByCitoyenIdOrTechnicienId(userId, ORDRE);
     }
 
+    /**
+     * Passage non lue -> lue en une écriture : le compteur n'est décrémenté qu'une fois,
+     * même si la notification est marquée lue deux fois en parallèle.
+     */
     @Override
     public void markAsRead(String notifId) {
-        Notification n = repository.findById(notifId).orElseThrow();
-        n.setStatutLecture(true);
-        repository.save(n);
+        Query query = Query.query(Criteria.where("_id").is(notifId).and("statutLecture").is(false));
+        query.fields().include("citoyenId", "technicienId");
+        Update update = Update.update("statutLecture", true).set("dateLecture", new Date());
+        Notification avant = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(false), Notification.class);
+        if (avant != null) {
+            destinataires(avant).forEach(id -> incrementer(id, -1));
+        } else if (!repository.existsById(notifId)) {
+            throw new RuntimeException("Notification non trouvée avec id: " + notifId);
+        }
     }
 
     // 🔹 Implémentation de la nouvelle méthode
@@ -42,4 +250,276 @@ public class NotificationServiceImpl implements NotificationService {
     public List<Notification> getAll() {
         return repository.findAll();
     }
-}
\ No newline at end of file
+
+    /**
+     * Une requête indexée par branche (citoyenId, technicienId), chacune limitée à la taille de page,
+     * fusionnées en mémoire : jamais plus de 2 x taille documents lus.
+     */
+    @Override
+    public PageCurseurDTO<Notification> getInbox(String userId, String curseur, int taille) {
+        Date apresDate = null;
+        String apresId = null;
+        if (curseur != null && !curseur.isBlank()) {
+            // Curseur = base64url("<dateEnvoi en ms>:<id>") de la dernière notification de la page précédente
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(curseur), StandardCharsets.UTF_8).split(":", 2);
+                apresDate = new Date(Long.parseLong(parts[0]));
+                apresId = parts[1];
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Curseur invalide: " + curseur);
+            }
+        }
+
+        Map<String, Notification> fusion = new LinkedHashMap<>();
+        for (String champ : List.of("citoyenId", "technicienId")) {
+            Criteria criteria = Criteria.where(champ).is(userId);
+            if (apresDate != null) {
+                criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(
+                        Criteria.where("dateEnvoi").lt(apresDate),
+                        Criteria.where("dateEnvoi").is(apresDate).and("_id").lt(apresId)));
+            }
+            Query query = Query.query(criteria).with(ORDRE).limit(taille);
+            mongoTemplate.find(query, Notification.class).forEach(n -> fusion.putIfAbsent(n.getId(), n));
+        }
+
+        List<Notification> page = new ArrayList<>(fusion.values());
+        page.sort(Comparator.comparing(Notification::getDateEnvoi, Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(Notification::getId, Comparator.reverseOrder()));
+        if (page.size() > taille) {
+            page = new ArrayList<>(page.subList(0, taille));
+        }
+
+        String suivant = null;
+        if (page.size() == taille) {
+            Notification derniere = page.get(page.size() - 1);
+            if (derniere.getDateEnvoi() != null) {
+                String brut = derniere.getDateEnvoi().getTime() + ":" + derniere.getId();
+                suivant = Base64.getUrlEncoder().withoutPadding().encodeToString(brut.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return new PageCurseurDTO<>(page, suivant);
+    }
+
+    @Override
+    public long getUnreadCount(String userId) {
+        CompteurNotifications c = mongoTemplate.findById(userId, CompteurNotifications.class);
+        return c != null && c.getNonLues() != null ? Math.max(0, c.getNonLues()) : 0;
+    }
+
+    /**
+     * Un seul updateMany. Le compteur de l'utilisateur baisse exactement du nombre de documents modifiés ;
+     * une notification partagée avec un autre destinataire est aussi lue pour lui, son compteur est
+     * corrigé par la réconciliation.
+     */
+    @Override
+    public long markAllAsRead(String userId) {
+        Query query = Query.query(new Criteria().andOperator(
+                new Criteria().orOperator(Criteria.where("citoyenId").is(userId), Criteria.where("technicienId").is(userId)),
+                Criteria.where("statutLecture").is(false)));
+        Update update = Update.update("statutLecture", true).set("dateLecture", new Date());
+        UpdateResult resultat = mongoTemplate.updateMulti(query, update, Notification.class);
+        long modifiees = resultat.getModifiedCount();
+        if (modifiees > 0) {
+            incrementer(userId, -modifiees);
+        }
+        return modifiees;
+    }
+
+    /**
+     * Recalcul des compteurs depuis les notifications non lues, pour corriger une dérive
+     * (écriture interrompue entre la notification et son compteur, notification partagée, données existantes).
+     * Un compteur incrémenté depuis le début du calcul est laissé tel quel : l'agrégat ne voit pas
+     * forcément la notification correspondante, il sera corrigé au passage suivant.
+     */
+    @Scheduled(initialDelayString = "${notifications.compteurs.delai-initial-ms:0}",
+               fixedDelayString = "${notifications.compteurs.reconciliation.intervalle-ms:3600000}")
+    public void reconcilierCompteurs() {
+        try {
+            Date debut = new Date();
+            Map<String, Long> nonLues = new HashMap<>();
+            for (String champ : List.of("citoyenId", "technicienId")) {
+                Aggregation aggregation = Aggregation.newAggregation(
+                        Aggregation.match(Criteria.where("statutLecture").is(false).and(champ).ne(null)),
+                        Aggregation.group(champ).count().as("nb"));
+                for (Document d : mongoTemplate.aggregate(aggregation, Notification.class, Document.class)) {
+                    nonLues.merge(d.getString("_id"), ((Number) d.get("nb")).longValue(), Long::sum);
+                }
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CompteurNotifications.class);
+            nonLues.forEach((id, nb) -> {
+                // Compteur absent : créé, sans toucher à un compteur existant
+                bulk.upsert(Query.query(Criteria.where("_id").is(id)),
+                        new Update().setOnInsert("nonLues", nb).setOnInsert("derniereEcriture", debut));
+                bulk.updateOne(Query.query(Criteria.where("_id").is(id)).addCriteria(nonModifieDepuis(debut)),
+                        Update.update("nonLues", nb));
+            });
+            bulk.updateMulti(Query.query(Criteria.where("_id").nin(nonLues.keySet()).and("nonLues").ne(0L))
+                            .addCriteria(nonModifieDepuis(debut)),
+                    Update.update("nonLues", 0L));
+            bulk.execute();
+            log.debug("Compteurs de notifications réconciliés ({} utilisateurs avec non lues)", nonLues.size());
+        } catch (Exception e) {
+            log.warn("Réconciliation des compteurs de notifications impossible : {}", e.getMessage());
+        }
+    }
+
+    private void incrementer(String userId, long delta) {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(userId)),
+                new Update().inc("nonLues", delta).set("derniereEcriture", new Date()), CompteurNotifications.class);
+    }
+
+    private static Criteria nonModifieDepuis(Date debut) {
+        return new Criteria().orOperator(Criteria.where("derniereEcriture").lt(debut),
+                Criteria.where("derniereEcriture").exists(false));
+    }
+
+    private static String cle(Notification n) {
+        return cleDestinataires(n) + "|" + n.getInterventionId() + "|" + n.getRessourceId() + "|" + n.getTypeNotification();
+    }
+
+    private static String cleDestinataires(Notification n) {
+        return n.getCitoyenId() + "|" + n.getTechnicienId();
+    }
+
+    /**
+     * Fenêtre de coalescence d'une clé. pret passe à vrai une fois la notification d'origine enregistrée ;
+     * enregistree se termine alors avec elle, ou en erreur si son écriture échoue.
+     */
+    private static final class Fenetre {
+        final long fin;
+        final CompletableFuture<Notification> enregistree = new CompletableFuture<>();
+        volatile boolean pret;
+        Notification origine;
+        int absorbees;
+        String dernierMessage;
+        Date derniereDate;
+
+        Fenetre(long fin) {
+            this.fin = fin;
+        }
+
+        void ouvrir(Notification origine) {
+            synchronized (this) {
+                this.origine = origine;
+                this.pret = true;
+            }
+            enregistree.complete(origine);
+        }
+
+        void echouer(RuntimeException e) {
+            enregistree.completeExceptionally(e);
+        }
+
+        synchronized void fusionner(Notification n) {
+            absorbees++;
+            dernierMessage = n.getMessage();
+            derniereDate = new Date();
+        }
+
+        // État vu par l'appelant dont la notification a été absorbée, une fois l'origine enregistrée
+        Notification courante() {
+            try {
+                enregistree.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException r ? r : e;
+            }
+            synchronized (this) {
+                return etat();
+            }
+        }
+
+        private Notification etat() {
+            Notification n = new Notification();
+            if (origine != null) {
+                n.setId(origine.getId());
+                n.setCitoyenId(origine.getCitoyenId());
+                n.setTechnicienId(origine.getTechnicienId());
+                n.setInterventionId(origine.getInterventionId());
+                n.setRessourceId(origine.getRessourceId());
+                n.setTypeNotification(origine.getTypeNotification());
+                n.setDateCreation(origine.getDateCreation());
+                n.setDateEnvoi(origine.getDateEnvoi());
+                n.setNombre((origine.getNombre() != null ? origine.getNombre() : 1) + absorbees);
+            }
+            n.setMessage(dernierMessage);
+            n.setDerniereMiseAJour(derniereDate);
+            return n;
+        }
+
+        // null si rien n'a été absorbé
+        synchronized Notification fermer() {
+            if (absorbees == 0 || origine == null) {
+                return null;
+            }
+            Notification n = new Notification();
+            n.setId(origine.getId());
+            n.setMessage(dernierMessage);
+            n.setDerniereMiseAJour(derniereDate);
+            return n;
+        }
+    }
+
+    /**
+     * Notifications en attente de digest pour un destinataire.
+     */
+    private static final class Digest {
+        private static final int NB_MESSAGES = 5;
+
+        final String citoyenId;
+        final String technicienId;
+        final Map<String, Integer> parType = new TreeMap<>();
+        final Deque<String> derniers = new ArrayDeque<>();
+        int total;
+
+        Digest(String citoyenId, String technicienId) {
+            this.citoyenId = citoyenId;
+            this.technicienId = technicienId;
+        }
+
+        synchronized void ajouter(Notification n) {
+            total++;
+            parType.merge(n.getTypeNotification(), 1, Integer::sum);
+            if (n.getMessage() != null) {
+                derniers.addFirst(n.getMessage());
+                if (derniers.size() > NB_MESSAGES) derniers.removeLast();
+            }
+        }
+
+        // Regroupe un digest dont l'envoi a échoué avec celui ouvert depuis (appelé sous le verrou de la map)
+        synchronized Digest fusionner(Digest autre) {
+            synchronized (autre) {
+                total += autre.total;
+                autre.parType.forEach((type, nb) -> parType.merge(type, nb, Integer::sum));
+                autre.derniers.descendingIterator().forEachRemaining(m -> {
+                    derniers.addFirst(m);
+                    if (derniers.size() > NB_MESSAGES) derniers.removeLast();
+                });
+            }
+            return this;
+        }
+
+        synchronized Notification notification() {
+            StringBuilder message = new StringBuilder(total + " notification" + (total > 1 ? "s" : "") + " : ");
+            StringJoiner types = new StringJoiner(", ");
+            parType.forEach((type, nb) -> types.add(type + " (" + nb + ")"));
+            message.append(types);
+            derniers.forEach(m -> message.append("\n- ").append(m));
+
+            Notification n = new Notification();
+            n.setCitoyenId(citoyenId);
+            n.setTechnicienId(technicienId);
+            n.setTypeNotification(TYPE_DIGEST);
+            n.setMessage(message.toString());
+            n.setNombre(total);
+            return n;
+        }
+    }
+
+    private static Set<String> destinataires(Notification n) {
+        Set<String> ids = new HashSet<>(2);
+        if (n.getCitoyenId() != null) ids.add(n.getCitoyenId());
+        if (n.getTechnicienId() != null) ids.add(n.getTechnicienId());
+        return ids;
+    }
+}
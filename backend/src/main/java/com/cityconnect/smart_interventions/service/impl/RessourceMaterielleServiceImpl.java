@@ -1,37 +1,114 @@
 package com.cityconnect.smart_interventions.service.impl;
 
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import java.util.*;
 
+import com.cityconnect.smart_interventions.dto.PageCurseurDTO;
+import com.cityconnect.smart_interventions.event.StockEvent;
+import com.cityconnect.smart_interventions.exception.ConflitException;
 import com.cityconnect.smart_interventions.repository.RessourceMaterielleRepository;
+import com.cityconnect.smart_interventions.model.MouvementStock;
 import com.cityconnect.smart_interventions.model.RessourceMaterielle;
+import com.cityconnect.smart_interventions.model.ReservationRessource;
 import com.cityconnect.smart_interventions.service.RessourceMaterielleService;
+
+/**
+ * Les mouvements de stock sont des $inc conditionnels exécutés par MongoDB (aucun verrou côté JVM) :
+ * la condition quantiteDisponible >= quantite et la décrémentation sont évaluées dans la même écriture,
+ * le stock ne peut donc pas devenir négatif. Chaque mouvement est ensuite ajouté au journal mouvements_stock.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class RessourceMaterielleServiceImpl implements RessourceMaterielleService {
+
+    // Utilisations gardées dans le document lui-même
+    private static final int NB_UTILISATIONS_RECENTES = 20;
+
 	@Autowired
 	private final RessourceMaterielleRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher events;
 
     @Override
     public RessourceMaterielle create(RessourceMaterielle r) {
-        return repository.save(r);
+        if (r.getQuantiteDisponible() == null) {
+            r.setQuantiteDisponible(0);
+        }
+        r.setQuantiteReservee(0);
+        r.setVersionStock(0L);
+        RessourceMaterielle saved = repository.save(r);
+        events.publishEvent(new StockEvent(StockEvent.Action.CREE, saved));
+        return saved;
     }
 
+    /**
+     * Mise à jour par $set des seuls champs modifiables : une utilisation concurrente n'est pas écrasée.
+     * Une nouvelle quantité est enregistrée comme un ajustement d'inventaire ; elle est absolue, donc
+     * acceptée seulement si le stock n'a pas bougé depuis la lecture du client (versionStock du corps),
+     * sinon 409 et le client relit la ressource.
+     */
     @Override
     public RessourceMaterielle update(String id, RessourceMaterielle r) {
-        RessourceMaterielle ex = repository.findById(id).orElseThrow();
-        ex.setNom(r.getNom());
-        ex.setQuantiteDisponible(r.getQuantiteDisponible());
-        ex.setUniteMesure(r.getUniteMesure());
-        ex.setSeuilAlerte(r.getSeuilAlerte());
-        return repository.save(ex);
+        Query query = parId(id);
+        Update update = new Update()
+                .set("nom", r.getNom())
+                .set("uniteMesure", r.getUniteMesure())
+                .set("seuilAlerte", r.getSeuilAlerte())
+                .inc("versionStock", 1);
+        if (r.getQuantiteDisponible() != null) {
+            if (r.getQuantiteDisponible() < 0) {
+                throw new IllegalArgumentException("La quantité disponible ne peut pas être négative");
+            }
+            if (r.getVersionStock() == null) {
+                throw new IllegalArgumentException("versionStock est requis pour modifier la quantité disponible");
+            }
+            // Version 0 : ressource créée avant l'ajout de versionStock
+            query.addCriteria(r.getVersionStock() == 0
+                    ? Criteria.where("versionStock").in(0L, null)
+                    : Criteria.where("versionStock").is(r.getVersionStock()));
+            update.set("quantiteDisponible", r.getQuantiteDisponible());
+        }
+        RessourceMaterielle avant = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(false), RessourceMaterielle.class);
+        if (avant == null) {
+            if (r.getQuantiteDisponible() == null || !mongoTemplate.exists(parId(id), RessourceMaterielle.class)) {
+                throw new RuntimeException("Ressource non trouvée avec id: " + id);
+            }
+            throw new ConflitException("Stock de la ressource " + id + " modifié depuis la version "
+                    + r.getVersionStock() + ", relire la ressource");
+        }
+        RessourceMaterielle apres = copie(avant);
+        apres.setNom(r.getNom());
+        apres.setUniteMesure(r.getUniteMesure());
+        apres.setSeuilAlerte(r.getSeuilAlerte());
+        apres.setVersionStock((avant.getVersionStock() != null ? avant.getVersionStock() : 0) + 1);
+        if (r.getQuantiteDisponible() != null) {
+            apres.setQuantiteDisponible(r.getQuantiteDisponible());
+            int variation = r.getQuantiteDisponible() - valeur(avant.getQuantiteDisponible());
+            if (variation != 0) {
+                journaliser(apres, MouvementStock.Type.AJUSTEMENT, variation, 0, null, null);
+            }
+        }
+        events.publishEvent(new StockEvent(StockEvent.Action.MIS_A_JOUR, apres));
+        return apres;
     }
 
     @Override
     public void delete(String id) {
         repository.deleteById(id);
+        events.publishEvent(new StockEvent(StockEvent.Action.SUPPRIME, RessourceMaterielle.builder().id(id).build()));
     }
 
     @Override
@@ -45,21 +122,210 @@ public class RessourceMaterielleServiceImpl implements RessourceMaterielleServic
     }
 
     @Override
-    public void enregistrerUtilisation(String id, String interventionId, int quantite) {
-        RessourceMaterielle r = repository.findById(id).orElseThrow();
+    public RessourceMaterielle enregistrerUtilisation(String id, String interventionId, int quantite) {
+        verifierQuantite(quantite);
+        Update update = new Update().inc("quantiteDisponible", -quantite);
+        ajouterUtilisationRecente(update, interventionId, quantite);
+        RessourceMaterielle r = modifierStock(id, Criteria.where("quantiteDisponible").gte(quantite), update);
+        journaliser(r, MouvementStock.Type.UTILISATION, -quantite, 0, interventionId, null);
+        return r;
+    }
+
+    @Override
+    public RessourceMaterielle approvisionner(String id, int quantite) {
+        verifierQuantite(quantite);
+        Update update = new Update()
+                .inc("quantiteDisponible", quantite)
+                .set("dateDernierApprovisionnement", new Date());
+        RessourceMaterielle r = modifierStock(id, null, update);
+        journaliser(r, MouvementStock.Type.APPROVISIONNEMENT, quantite, 0, null, null);
+        return r;
+    }
+
+    @Override
+    public ReservationRessource reserver(String id, String interventionId, int quantite) {
+        verifierQuantite(quantite);
+        RessourceMaterielle r = modifierStock(id, Criteria.where("quantiteDisponible").gte(quantite),
+                new Update().inc("quantiteDisponible", -quantite).inc("quantiteReservee", quantite));
+
+        ReservationRessource reservation = ReservationRessource.builder()
+                .ressourceId(id)
+                .interventionId(interventionId)
+                .quantite(quantite)
+                .statut(ReservationRessource.Statut.ACTIVE)
+                .dateCreation(new Date())
+                .build();
+        try {
+            reservation = mongoTemplate.insert(reservation);
+        } catch (RuntimeException e) {
+            // Sans réservation enregistrée, la quantité ne pourrait plus jamais être rendue
+            modifierStock(id, null, new Update().inc("quantiteDisponible", quantite).inc("quantiteReservee", -quantite));
+            throw e;
+        }
+        journaliser(r, MouvementStock.Type.RESERVATION, -quantite, quantite, interventionId, reservation.getId());
+        return reservation;
+    }
+
+    @Override
+    public ReservationRessource consommerReservation(String reservationId, Integer quantite) {
+        ReservationRessource active = mongoTemplate.findById(reservationId, ReservationRessource.class);
+        if (active == null) {
+            throw new RuntimeException("Réservation non trouvée avec id: " + reservationId);
+        }
+        int consommee = quantite != null ? quantite : active.getQuantite();
+        if (consommee < 0 || consommee > active.getQuantite()) {
+            throw new IllegalArgumentException("La quantité consommée doit être comprise entre 0 et " + active.getQuantite());
+        }
+        ReservationRessource reservation = cloturer(reservationId, ReservationRessource.Statut.CONSOMMEE,
+                new Update().set("quantiteConsommee", consommee));
+
+        int reste = reservation.getQuantite() - consommee;
+        Update update = new Update().inc("quantiteReservee", -reservation.getQuantite());
+        if (reste > 0) {
+            update.inc("quantiteDisponible", reste);
+        }
+        if (consommee > 0) {
+            ajouterUtilisationRecente(update, reservation.getInterventionId(), consommee);
+        }
+        RessourceMaterielle r = modifierStock(reservation.getRessourceId(), null, update);
+        if (consommee > 0) {
+            journaliser(r, MouvementStock.Type.CONSOMMATION, 0, -consommee, reservation.getInterventionId(), reservationId);
+        }
+        if (reste > 0) {
+            journaliser(r, MouvementStock.Type.LIBERATION, reste, -reste, reservation.getInterventionId(), reservationId);
+        }
+        return reservation;
+    }
+
+    @Override
+    public ReservationRessource libererReservation(String reservationId) {
+        ReservationRessource reservation = cloturer(reservationId, ReservationRessource.Statut.LIBEREE, new Update());
+        int q = reservation.getQuantite();
+        RessourceMaterielle r = modifierStock(reservation.getRessourceId(), null,
+                new Update().inc("quantiteDisponible", q).inc("quantiteReservee", -q));
+        journaliser(r, MouvementStock.Type.LIBERATION, q, -q, reservation.getInterventionId(), reservationId);
+        return reservation;
+    }
+
+    @Override
+    public List<ReservationRessource> getReservationsActives(String interventionId) {
+        Query query = Query.query(Criteria.where("interventionId").is(interventionId)
+                .and("statut").is(ReservationRessource.Statut.ACTIVE));
+        return mongoTemplate.find(query, ReservationRessource.class);
+    }
+
+    @Override
+    public PageCurseurDTO<MouvementStock> getMouvements(String id, String curseur, int taille) {
+        Criteria criteria = Criteria.where("ressourceId").is(id);
+        if (curseur != null) {
+            if (!ObjectId.isValid(curseur)) {
+                throw new IllegalArgumentException("Curseur invalide");
+            }
+            criteria.and("_id").lt(new ObjectId(curseur));
+        }
+        Query query = Query.query(criteria).with(Sort.by(Sort.Direction.DESC, "_id")).limit(taille + 1);
+        List<MouvementStock> mouvements = mongoTemplate.find(query, MouvementStock.class);
+        String suivant = null;
+        if (mouvements.size() > taille) {
+            mouvements = mouvements.subList(0, taille);
+            suivant = mouvements.get(taille - 1).getId();
+        }
+        return new PageCurseurDTO<>(mouvements, suivant);
+    }
+
+    /**
+     * Applique l'update en une écriture si la condition est vraie et renvoie le document après modification.
+     * Un refus est un 404 si la ressource n'existe pas, un 409 sinon (stock insuffisant).
+     */
+    private RessourceMaterielle modifierStock(String id, Criteria condition, Update update) {
+        Query query = parId(id);
+        if (condition != null) {
+            query.addCriteria(condition);
+        }
+        update.inc("versionStock", 1);
+        RessourceMaterielle r = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), RessourceMaterielle.class);
+        if (r == null) {
+            if (!mongoTemplate.exists(parId(id), RessourceMaterielle.class)) {
+                throw new RuntimeException("Ressource non trouvée avec id: " + id);
+            }
+            throw new ConflitException("Stock insuffisant pour la ressource " + id);
+        }
+        events.publishEvent(new StockEvent(StockEvent.Action.MOUVEMENT, r));
+        return r;
+    }
 
-        if (r.getUtilisationsRecent() == null) {
-            r.setUtilisationsRecent(new ArrayList<>());
+    // Passage ACTIVE -> statut en une écriture : une réservation n'est clôturée qu'une fois
+    private ReservationRessource cloturer(String reservationId, ReservationRessource.Statut statut, Update update) {
+        Query query = Query.query(Criteria.where("_id").is(reservationId)
+                .and("statut").is(ReservationRessource.Statut.ACTIVE));
+        update.set("statut", statut).set("dateCloture", new Date());
+        ReservationRessource reservation = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), ReservationRessource.class);
+        if (reservation == null) {
+            if (!mongoTemplate.exists(Query.query(Criteria.where("_id").is(reservationId)), ReservationRessource.class)) {
+                throw new RuntimeException("Réservation non trouvée avec id: " + reservationId);
+            }
+            throw new ConflitException("La réservation " + reservationId + " est déjà clôturée");
         }
+        return reservation;
+    }
 
-        RessourceMaterielle.UtilisationRecent utilisation = new RessourceMaterielle.UtilisationRecent();
-        utilisation.setInterventionId(interventionId);
-        utilisation.setQuantiteUtilisee(quantite);
-        utilisation.setDate(new Date());
+    // $push borné : la liste du document ne garde que les NB_UTILISATIONS_RECENTES dernières utilisations
+    private static void ajouterUtilisationRecente(Update update, String interventionId, int quantite) {
+        update.push("utilisationsRecent")
+                .slice(-NB_UTILISATIONS_RECENTES)
+                .each(new RessourceMaterielle.UtilisationRecent(interventionId, quantite, new Date()));
+    }
 
-        r.setQuantiteDisponible(r.getQuantiteDisponible() - quantite);
-        r.getUtilisationsRecent().add(utilisation); // ✅ fonctionne
-        repository.save(r);
+    /**
+     * Une entrée de journal par mouvement. L'écriture du stock a déjà réussi : un échec ici
+     * ne l'annule pas, il est seulement signalé.
+     */
+    private void journaliser(RessourceMaterielle r, MouvementStock.Type type, int variationDisponible,
+                             int variationReservee, String interventionId, String reservationId) {
+        MouvementStock mouvement = MouvementStock.builder()
+                .ressourceId(r.getId())
+                .type(type)
+                .variationDisponible(variationDisponible)
+                .variationReservee(variationReservee)
+                .stockApres(r.getQuantiteDisponible())
+                .interventionId(interventionId)
+                .reservationId(reservationId)
+                .date(new Date())
+                .build();
+        try {
+            mongoTemplate.insert(mouvement);
+        } catch (RuntimeException e) {
+            log.warn("Mouvement {} de la ressource {} non journalisé : {}", type, r.getId(), e.getMessage());
+        }
     }
 
+    private static void verifierQuantite(int quantite) {
+        if (quantite <= 0) {
+            throw new IllegalArgumentException("La quantité doit être positive");
+        }
+    }
+
+    private static int valeur(Integer i) {
+        return i != null ? i : 0;
+    }
+
+    private static Query parId(String id) {
+        return Query.query(Criteria.where("_id").is(id));
+    }
+
+    private static RessourceMaterielle copie(RessourceMaterielle r) {
+        return RessourceMaterielle.builder()
+                .id(r.getId())
+                .nom(r.getNom())
+                .quantiteDisponible(r.getQuantiteDisponible())
+                .quantiteReservee(r.getQuantiteReservee())
+                .uniteMesure(r.getUniteMesure())
+                .dateDernierApprovisionnement(r.getDateDernierApprovisionnement())
+                .utilisationsRecent(r.getUtilisationsRecent())
+                .seuilAlerte(r.getSeuilAlerte())
+                .versionStock(r.getVersionStock())
+                .build();
+    }
 }
@@ -1,12 +1,21 @@
 package com.cityconnect.smart_interventions.service.impl;
 
+import com.cityconnect.smart_interventions.dto.SignalementResume;
+import com.cityconnect.smart_interventions.event.SignalementEvent;
+import com.cityconnect.smart_interventions.model.Equipement;
 import com.cityconnect.smart_interventions.model.Signalement;
 import com.cityconnect.smart_interventions.model.Signalement.Statut;
 import com.cityconnect.smart_interventions.model.Signalement.Type;
+import com.cityconnect.smart_interventions.repository.EquipementRepository;
 import com.cityconnect.smart_interventions.repository.SignalementRepository;
 import com.cityconnect.smart_interventions.service.SignalementService;
 import com.cityconnect.smart_interventions.service.StorageService;
+import com.cityconnect.smart_interventions.service.ZoneService;
+import com.cityconnect.smart_interventions.utils.GeoUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -18,12 +27,26 @@ public class SignalementServiceImpl implements SignalementService {
 
     private final SignalementRepository repository;
     private final StorageService storage;
+    private final ZoneService zoneService;
+    private final ApplicationEventPublisher events;
+    private final EquipementRepository equipementRepository;
+
+    // Bornes des recherches géographiques
+    @Value("${signalements.geo.rayon-max-km:50}")
+    private double rayonMaxKm;
+
+    @Value("${signalements.geo.limite-max:2000}")
+    private int limiteMax;
 
     @Override
     public Signalement create(Signalement s) {
         clean(s);
+        s.setPosition(position(s));
+        s.setZone(zoneService.zoneSignalement(s));
         addHistoriqueInitial(s);
-        return repository.save(s);
+        Signalement saved = repository.save(s);
+        events.publishEvent(new SignalementEvent(SignalementEvent.Action.CREE, null, saved));
+        return saved;
     }
 
     @Override
@@ -62,17 +85,24 @@ public class SignalementServiceImpl implements SignalementService {
         Signalement existing = getById(id);
         updated.setId(id);
         updated.setDateCreation(existing.getDateCreation());
-        return repository.save(updated);
+        updated.setPosition(position(updated));
+        updated.setZone(zoneService.zoneSignalement(updated));
+        Signalement saved = repository.save(updated);
+        events.publishEvent(new SignalementEvent(SignalementEvent.Action.MIS_A_JOUR, existing, saved));
+        return saved;
     }
 
     @Override
     public Signalement updateStatut(String id, String statut) {
         Signalement s = getById(id);
+        Signalement avant = SignalementEvent.instantane(s);
         s.setStatut(Statut.valueOf(statut));
 
         ajouterHistorique(id, "Statut mis à jour : " + statut, "Système");
 
-        return repository.save(s);
+        Signalement saved = repository.save(s);
+        events.publishEvent(new SignalementEvent(SignalementEvent.Action.STATUT_CHANGE, avant, saved));
+        return saved;
     }
 
     @Override
@@ -105,6 +135,46 @@ public class SignalementServiceImpl implements SignalementService {
         repository.save(s);
     }
 
+    @Override
+    public List<SignalementResume> findProches(double latitude, double longitude, double rayonKm, Statut statut, int limite) {
+        GeoUtils.verifierCercle(latitude, longitude, rayonKm, rayonMaxKm);
+        GeoUtils.verifierLimite(limite, limiteMax);
+        List<SignalementResume> resultat = new ArrayList<>();
+        for (Signalement s : repository.findProches(latitude, longitude, rayonKm, statut, limite)) {
+            SignalementResume r = SignalementResume.fromEntity(s);
+            if (r.getLatitude() != null) {
+                r.setDistanceKm(GeoUtils.distanceKm(latitude, longitude, r.getLatitude(), r.getLongitude()));
+            }
+            resultat.add(r);
+        }
+        return resultat;
+    }
+
+    @Override
+    public List<SignalementResume> findDansEmprise(double sud, double ouest, double nord, double est, Statut statut, int limite) {
+        GeoUtils.verifierEmprise(sud, ouest, nord, est);
+        GeoUtils.verifierLimite(limite, limiteMax);
+        return repository.findDansEmprise(sud, ouest, nord, est, statut, limite + 1).stream()
+                .map(SignalementResume::fromEntity)
+                .toList();
+    }
+
+    @Override
+    public List<SignalementResume> findProchesEquipement(String equipementId, double rayonKm, Statut statut, int limite) {
+        Equipement e = equipementRepository.findById(equipementId)
+                .orElseThrow(() -> new RuntimeException("Équipement non trouvé avec id: " + equipementId));
+        double[] p = GeoUtils.depuisPoint(e.getLocalisation());
+        if (p == null) {
+            throw new IllegalArgumentException("L'équipement " + equipementId + " n'a pas de localisation");
+        }
+        return findProches(p[0], p[1], rayonKm, statut, limite);
+    }
+
+    // Null pour "Non spécifié" ou des coordonnées illisibles : le signalement reste hors de l'index 2dsphere
+    private static GeoJsonPoint position(Signalement s) {
+        return GeoUtils.versPoint(GeoUtils.parseCoordonnees(s.getCoordonnees()));
+    }
+
     private void clean(Signalement s) {
         if (s.getCoordonnees() == null) s.setCoordonnees("Non spécifié");
         if (s.getAdresse() == null) s.setAdresse(s.getLocalisation());
@@ -0,0 +1,98 @@
+package com.cityconnect.smart_interventions.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.stereotype.Service;
+
+import com.cityconnect.smart_interventions.model.*;
+import com.cityconnect.smart_interventions.service.StatistiquesService;
+import com.cityconnect.smart_interventions.service.ZoneService;
+
+import java.util.*;
+
+/**
+ * Statistiques calculées entièrement par MongoDB : seuls les résultats groupés
+ * (quelques documents) remontent dans la JVM, jamais les interventions elles-mêmes.
+ * Activée avec statistiques.mode=aggregation.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "statistiques.mode", havingValue = "aggregation")
+public class StatistiquesAggregationServiceImpl implements StatistiquesService {
+
+    private static final String INTERVENTIONS = "interventions";
+
+    private final MongoTemplate mongoTemplate;
+    private final ZoneService zoneService;
+
+    @Override
+    public Statistiques calculerStatistiquesGenerales() {
+
+        Statistiques stats = new Statistiques();
+
+        // Taux de résolution et temps moyen (en heures) en un seul $group
+        Document global = mongoTemplate.aggregate(Aggregation.newAggregation(
+                Aggregation.stage(new Document("$group", new Document("_id", null)
+                        .append("total", new Document("$sum", 1))
+                        .append("terminees", new Document("$sum", new Document("$cond",
+                                List.of(new Document("$eq", List.of("$statut", Intervention.Statut.TERMINEE.name())), 1, 0))))
+                        .append("tempsMoyen", new Document("$avg", new Document("$cond", Arrays.asList(
+                                new Document("$and", List.of(
+                                        new Document("$eq", List.of(new Document("$type", "$dateDebut"), "date")),
+                                        new Document("$eq", List.of(new Document("$type", "$dateFin"), "date")))),
+                                new Document("$divide", List.of(new Document("$subtract", List.of("$dateFin", "$dateDebut")), 1000.0 * 60 * 60)),
+                                null))))))
+        ), INTERVENTIONS, Document.class).getUniqueMappedResult();
+
+        long total = global != null ? ((Number) global.get("total")).longValue() : 0;
+        long terminee = global != null ? ((Number) global.get("terminees")).longValue() : 0;
+        Number tempsMoyen = global != null ? (Number) global.get("tempsMoyen") : null;
+
+        stats.setTauxResolution(total == 0 ? 0.0 : (double) terminee / total);
+        stats.setTempsMoyenIntervention(tempsMoyen != null ? tempsMoyen.doubleValue() : 0.0);
+
+        // Nombre d'interventions par service : $group puis $lookup sur services_municipaux (_id en String)
+        Map<String, Integer> nbParService = new HashMap<>();
+        mongoTemplate.aggregate(Aggregation.newAggregation(
+                Aggregation.stage(new Document("$group", new Document("_id", "$serviceMunicipalId")
+                        .append("nb", new Document("$sum", 1)))),
+                Aggregation.stage(new Document("$lookup", new Document("from", "services_municipaux")
+                        .append("localField", "_id")
+                        .append("foreignField", "_id")
+                        .append("as", "service"))),
+                Aggregation.stage(new Document("$project", new Document("nb", 1)
+                        .append("nom", new Document("$ifNull", List.of(new Document("$arrayElemAt", List.of("$service.nom", 0)), "Inconnu")))))
+        ), INTERVENTIONS, Document.class).forEach(d ->
+                nbParService.merge(d.getString("nom"), ((Number) d.get("nb")).intValue(), Integer::sum));
+        stats.setNbInterventionsParService(nbParService);
+
+        // Performance des techniciens : partie de users pour garder ceux sans intervention terminée (0),
+        // interventions terminées comptées par $lookup (technicienId est stocké en String, _id en ObjectId)
+        Map<String, Double> perfTechniciens = new HashMap<>();
+        mongoTemplate.aggregate(Aggregation.newAggregation(
+                Aggregation.stage(new Document("$match", new Document("role", User.Role.TECHNICIEN.name()))),
+                Aggregation.stage(new Document("$lookup", new Document("from", INTERVENTIONS)
+                        .append("let", new Document("technicienId", new Document("$toString", "$_id")))
+                        .append("pipeline", List.of(
+                                new Document("$match", new Document("statut", Intervention.Statut.TERMINEE.name())
+                                        .append("$expr", new Document("$eq", List.of("$technicienId", "$$technicienId")))),
+                                new Document("$count", "nb")))
+                        .append("as", "terminees"))),
+                Aggregation.stage(new Document("$project", new Document("nom", 1)
+                        .append("nb", new Document("$ifNull", List.of(new Document("$arrayElemAt", List.of("$terminees.nb", 0)), 0)))))
+        ), "users", Document.class).forEach(d ->
+                perfTechniciens.merge(String.valueOf(d.get("nom")), ((Number) d.get("nb")).doubleValue(), Double::sum));
+        stats.setPerformanceTechniciens(perfTechniciens);
+
+        // Zones : sketch en mémoire alimenté par les signalements
+        zoneService.remplir(stats);
+
+        // Taux de satisfaction
+        stats.setTauxSatisfactionCitoyens(total == 0 ? 0.0 : (double) terminee / total);
+
+        return stats;
+    }
+}
@@ -0,0 +1,272 @@
+package com.cityconnect.smart_interventions.service.impl;
+
+import com.cityconnect.smart_interventions.model.Intervention;
+import com.cityconnect.smart_interventions.model.ServiceMunicipal;
+import com.cityconnect.smart_interventions.model.Statistiques;
+import com.cityconnect.smart_interventions.model.Statistiques.Granularite;
+import com.cityconnect.smart_interventions.model.User;
+import com.cityconnect.smart_interventions.repository.StatistiquesRepository;
+import com.cityconnect.smart_interventions.service.StatistiquesHistoriqueService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Snapshots horaires, journaliers et mensuels des interventions, globaux, par service et par technicien.
+ *
+ * Les heures sont calculées depuis les interventions (requêtes indexées sur dateCreation / dateFin),
+ * les jours par fusion des heures et les mois par fusion des jours. Une courbe sur un an ne lit donc
+ * que les buckets mensuels, jamais la collection interventions.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StatistiquesHistoriqueServiceImpl implements StatistiquesHistoriqueService {
+
+    private static final String INTERVENTIONS = "interventions";
+    private static final String FORMAT_HEURE = "%Y-%m-%dT%H";
+
+    private final StatistiquesRepository repository;
+    private final MongoTemplate mongoTemplate;
+
+    // Profondeur du premier calcul quand la collection statistiques est vide
+    @Value("${statistiques.rollup.historique-jours:365}")
+    private int historiqueJours;
+
+    // Fuseau des buckets (par défaut celui du serveur)
+    @Value("${statistiques.rollup.fuseau-horaire:}")
+    private String fuseauHoraire;
+
+    @Override
+    @Scheduled(initialDelayString = "${statistiques.rollup.delai-initial-ms:60000}",
+               fixedDelayString = "${statistiques.rollup.intervalle-ms:900000}")
+    public void consolider() {
+        try {
+            ZoneId zone = zone();
+            // Seules les heures closes sont consolidées
+            ZonedDateTime fin = ZonedDateTime.now(zone).truncatedTo(ChronoUnit.HOURS);
+            ZonedDateTime debut = repository.findFirstByGranulariteOrderByDebutPeriodeDesc(Granularite.HEURE)
+                    .map(s -> s.getDebutPeriode().toInstant().atZone(zone).plusHours(1))
+                    .orElse(fin.minusDays(historiqueJours));
+            if (!debut.isBefore(fin)) {
+                return;
+            }
+
+            consoliderHeures(debut, fin, zone);
+
+            ZonedDateTime debutJours = debut.truncatedTo(ChronoUnit.DAYS);
+            ZonedDateTime finJours = fin.minusHours(1).truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            fusionner(Granularite.HEURE, Granularite.JOUR, debutJours, finJours, zone);
+
+            ZonedDateTime debutMois = debutJours.withDayOfMonth(1);
+            ZonedDateTime finMois = finJours.minusDays(1).withDayOfMonth(1).plusMonths(1);
+            fusionner(Granularite.JOUR, Granularite.MOIS, debutMois, finMois, zone);
+
+            log.info("Statistiques consolidées de {} à {}", debut, fin);
+        } catch (Exception e) {
+            log.warn("Consolidation des statistiques impossible : {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public List<Statistiques> getStatistiquesParPeriode(Date from, Date to, Granularite granularite) {
+        List<Statistiques> buckets = repository.findPeriodes(granularite, from, to);
+
+        Set<String> serviceIds = new HashSet<>();
+        Set<String> technicienIds = new HashSet<>();
+        for (Statistiques b : buckets) {
+            if (b.getServiceMunicipalId() != null) serviceIds.add(b.getServiceMunicipalId());
+            if (b.getTechnicienId() != null) technicienIds.add(b.getTechnicienId());
+        }
+        Map<String, String> nomsServices = noms(serviceIds, ServiceMunicipal.class);
+        Map<String, String> nomsTechniciens = noms(technicienIds, User.class);
+
+        Map<Date, Statistiques> parPeriode = new TreeMap<>();
+        for (Statistiques b : buckets) {
+            Statistiques p = parPeriode.computeIfAbsent(b.getDebutPeriode(), d -> {
+                Statistiques s = bucket(granularite, d, null, null);
+                s.setId(null);
+                s.setNbInterventionsParService(new HashMap<>());
+                s.setPerformanceTechniciens(new HashMap<>());
+                return s;
+            });
+            if (b.getServiceMunicipalId() != null) {
+                p.getNbInterventionsParService().merge(
+                        nomsServices.getOrDefault(b.getServiceMunicipalId(), "Inconnu"), b.getNbCreees(), Integer::sum);
+            } else if (b.getTechnicienId() != null) {
+                p.getPerformanceTechniciens().merge(
+                        nomsTechniciens.getOrDefault(b.getTechnicienId(), b.getTechnicienId()),
+                        b.getNbTerminees().doubleValue(), Double::sum);
+            } else {
+                cumuler(p, b);
+            }
+        }
+        return new ArrayList<>(parPeriode.values());
+    }
+
+    private void consoliderHeures(ZonedDateTime debut, ZonedDateTime fin, ZoneId zone) {
+        Map<String, Statistiques> buckets = new HashMap<>();
+
+        // Bucket global pour chaque heure, même vide : il sert de repère au passage suivant
+        for (ZonedDateTime h = debut; h.isBefore(fin); h = h.plusHours(1)) {
+            Statistiques s = bucket(Granularite.HEURE, Date.from(h.toInstant()), null, null);
+            buckets.put(s.getId(), s);
+        }
+
+        Date du = Date.from(debut.toInstant());
+        Date au = Date.from(fin.toInstant());
+        String tz = fuseau(zone);
+
+        // Interventions créées, par heure et par service
+        mongoTemplate.aggregate(Aggregation.newAggregation(
+                Aggregation.stage(new Document("$match", new Document("dateCreation", new Document("$gte", du).append("$lt", au)))),
+                Aggregation.stage(new Document("$group", new Document("_id", new Document("h", heure("$dateCreation", tz))
+                        .append("s", "$serviceMunicipalId"))
+                        .append("nb", new Document("$sum", 1))))
+        ), INTERVENTIONS, Document.class).forEach(d -> {
+            Document id = d.get("_id", Document.class);
+            Date h = Date.from(LocalDateTime.parse(id.getString("h") + ":00").atZone(zone).toInstant());
+            int nb = ((Number) d.get("nb")).intValue();
+            ajouter(buckets, h, null, null, nb, 0, 0.0, 0);
+            if (id.getString("s") != null) ajouter(buckets, h, id.getString("s"), null, nb, 0, 0.0, 0);
+        });
+
+        // Interventions terminées, par heure, service et technicien, avec leur durée en heures
+        mongoTemplate.aggregate(Aggregation.newAggregation(
+                Aggregation.stage(new Document("$match", new Document("dateFin", new Document("$gte", du).append("$lt", au))
+                        .append("statut", Intervention.Statut.TERMINEE.name()))),
+                Aggregation.stage(new Document("$project", new Document("h", heure("$dateFin", tz))
+                        .append("s", "$serviceMunicipalId")
+                        .append("t", "$technicienId")
+                        .append("duree", new Document("$cond", Arrays.asList(
+                                new Document("$eq", List.of(new Document("$type", "$dateDebut"), "date")),
+                                new Document("$divide", List.of(new Document("$subtract", List.of("$dateFin", "$dateDebut")), 1000.0 * 60 * 60)),
+                                null))))),
+                Aggregation.stage(new Document("$group", new Document("_id", new Document("h", "$h").append("s", "$s").append("t", "$t"))
+                        .append("nb", new Document("$sum", 1))
+                        .append("somme", new Document("$sum", "$duree"))
+                        .append("nbDurees", new Document("$sum", new Document("$cond",
+                                List.of(new Document("$eq", List.of(new Document("$type", "$duree"), "double")), 1, 0))))))
+        ), INTERVENTIONS, Document.class).forEach(d -> {
+            Document id = d.get("_id", Document.class);
+            Date h = Date.from(LocalDateTime.parse(id.getString("h") + ":00").atZone(zone).toInstant());
+            int nb = ((Number) d.get("nb")).intValue();
+            double somme = ((Number) d.get("somme")).doubleValue();
+            int nbDurees = ((Number) d.get("nbDurees")).intValue();
+            ajouter(buckets, h, null, null, 0, nb, somme, nbDurees);
+            if (id.getString("s") != null) ajouter(buckets, h, id.getString("s"), null, 0, nb, somme, nbDurees);
+            if (id.getString("t") != null) ajouter(buckets, h, null, id.getString("t"), 0, nb, somme, nbDurees);
+        });
+
+        remplacer(Granularite.HEURE, du, au, buckets.values());
+    }
+
+    /**
+     * Reconstruit les buckets "cible" de [debut, fin) en sommant les buckets "source" qu'ils contiennent.
+     */
+    private void fusionner(Granularite source, Granularite cible, ZonedDateTime debut, ZonedDateTime fin, ZoneId zone) {
+        Date du = Date.from(debut.toInstant());
+        Date au = Date.from(fin.toInstant());
+
+        Map<String, Statistiques> buckets = new HashMap<>();
+        for (Statistiques s : repository.findPeriodes(source, du, au)) {
+            ZonedDateTime d = s.getDebutPeriode().toInstant().atZone(zone).truncatedTo(ChronoUnit.DAYS);
+            if (cible == Granularite.MOIS) {
+                d = d.withDayOfMonth(1);
+            }
+            Statistiques b = bucket(cible, Date.from(d.toInstant()), s.getServiceMunicipalId(), s.getTechnicienId());
+            cumuler(buckets.computeIfAbsent(b.getId(), k -> b), s);
+        }
+        remplacer(cible, du, au, buckets.values());
+    }
+
+    private void remplacer(Granularite granularite, Date du, Date au, Collection<Statistiques> buckets) {
+        repository.deletePeriodes(granularite, du, au);
+        repository.saveAll(buckets);
+    }
+
+    private void ajouter(Map<String, Statistiques> buckets, Date h, String serviceId, String technicienId,
+                         int creees, int terminees, double sommeDurees, int nbDurees) {
+        Statistiques b = bucket(Granularite.HEURE, h, serviceId, technicienId);
+        Statistiques s = buckets.computeIfAbsent(b.getId(), k -> b);
+        s.setNbCreees(s.getNbCreees() + creees);
+        s.setNbTerminees(s.getNbTerminees() + terminees);
+        s.setSommeDureesHeures(s.getSommeDureesHeures() + sommeDurees);
+        s.setNbDurees(s.getNbDurees() + nbDurees);
+        finaliser(s);
+    }
+
+    private static void cumuler(Statistiques cible, Statistiques source) {
+        cible.setNbCreees(cible.getNbCreees() + source.getNbCreees());
+        cible.setNbTerminees(cible.getNbTerminees() + source.getNbTerminees());
+        cible.setSommeDureesHeures(cible.getSommeDureesHeures() + source.getSommeDureesHeures());
+        cible.setNbDurees(cible.getNbDurees() + source.getNbDurees());
+        finaliser(cible);
+    }
+
+    private static void finaliser(Statistiques s) {
+        s.setTauxResolution(s.getNbCreees() == 0 ? 0.0 : (double) s.getNbTerminees() / s.getNbCreees());
+        s.setTempsMoyenIntervention(s.getNbDurees() == 0 ? 0.0 : s.getSommeDureesHeures() / s.getNbDurees());
+    }
+
+    // Identifiant déterministe : un même bucket recalculé remplace le précédent
+    private static Statistiques bucket(Granularite granularite, Date debutPeriode, String serviceId, String technicienId) {
+        String dimension = serviceId != null ? "S:" + serviceId : technicienId != null ? "T:" + technicienId : "G";
+        return Statistiques.builder()
+                .id(granularite + ":" + debutPeriode.getTime() + ":" + dimension)
+                .granularite(granularite)
+                .debutPeriode(debutPeriode)
+                .serviceMunicipalId(serviceId)
+                .technicienId(technicienId)
+                .nbCreees(0)
+                .nbTerminees(0)
+                .sommeDureesHeures(0.0)
+                .nbDurees(0)
+                .tauxResolution(0.0)
+                .tempsMoyenIntervention(0.0)
+                .build();
+    }
+
+    private Map<String, String> noms(Set<String> ids, Class<?> type) {
+        Map<String, String> noms = new HashMap<>();
+        if (ids.isEmpty()) {
+            return noms;
+        }
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("nom");
+        for (Object o : mongoTemplate.find(query, type)) {
+            if (o instanceof ServiceMunicipal s) noms.put(s.getId(), s.getNom());
+            if (o instanceof User u) noms.put(u.getId(), u.getNom());
+        }
+        return noms;
+    }
+
+    private static Document heure(String champ, String tz) {
+        return new Document("$dateToString", new Document("format", FORMAT_HEURE)
+                .append("date", champ)
+                .append("timezone", tz));
+    }
+
+    private ZoneId zone() {
+        return fuseauHoraire == null || fuseauHoraire.isBlank() ? ZoneId.systemDefault() : ZoneId.of(fuseauHoraire);
+    }
+
+    // MongoDB attend un identifiant Olson ou un décalage "+hh:mm"
+    private static String fuseau(ZoneId zone) {
+        return zone instanceof ZoneOffset offset && offset.getTotalSeconds() == 0 ? "+00:00" : zone.getId();
+    }
+}
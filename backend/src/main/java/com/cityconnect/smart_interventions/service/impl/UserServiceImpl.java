@@ -1,11 +1,23 @@
 package com.cityconnect.smart_interventions.service.impl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import lombok.RequiredArgsConstructor;
 
 import java.util.Date;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
 
+import com.cityconnect.smart_interventions.dto.TechnicienDTO;
+import com.cityconnect.smart_interventions.event.UserEvent;
+import com.cityconnect.smart_interventions.exception.ResourceNotFoundException;
+import com.cityconnect.smart_interventions.model.PositionTechnicien;
 import com.cityconnect.smart_interventions.model.User;
 import com.cityconnect.smart_interventions.repository.*;
 import com.cityconnect.smart_interventions.service.*;
@@ -16,16 +28,50 @@ import com.cityconnect.smart_interventions.service.*;
 public class UserServiceImpl implements UserService {
 	@Autowired
     private final UserRepository repository;
+    private final ApplicationEventPublisher events;
+    private final PositionsTechniciens positions;
+    private final RegistreTechniciens registre;
+    private final MongoTemplate mongoTemplate;
 
     @Override
     public User create(User u) {
         u.setDateCreation(new Date());
-        return repository.save(u);
+        User saved = repository.save(u);
+        events.publishEvent(new UserEvent(UserEvent.Action.CREE, null, saved));
+        return saved;
     }
 
+    /**
+     * $set des seuls champs du profil : versionRefresh (rotation des refresh tokens) et la position
+     * reçue mais pas encore écrite ne sont jamais réécrits avec une valeur lue plus tôt.
+     */
     @Override
     public User update(String id, User u) {
-        User ex = repository.findById(id).orElseThrow();
+        Date maintenant = new Date();
+        Update update = new Update()
+                .set("nom", u.getNom())
+                .set("prenom", u.getPrenom())
+                .set("email", u.getEmail())
+                .set("numeroTelephone", u.getNumeroTelephone())
+                .set("position", u.getPosition())
+                .set("disponibilite", u.getDisponibilite())
+                .set("dateModification", maintenant);
+        // Coordonnées et compétences : seulement si fournies, pour ne pas effacer la dernière position connue
+        boolean coordonnees = u.getLatitude() != null && u.getLongitude() != null;
+        if (coordonnees) {
+            update.set("latitude", u.getLatitude()).set("longitude", u.getLongitude()).set("datePosition", maintenant);
+        }
+        if (u.getCompetences() != null) {
+            update.set("competences", u.getCompetences());
+        }
+
+        User ex = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(false), User.class);
+        if (ex == null) {
+            throw new NoSuchElementException("Utilisateur non trouvé avec id: " + id);
+        }
+        positions.appliquerEnAttente(ex);
+        User avant = UserEvent.instantane(ex);
 
         ex.setNom(u.getNom());
         ex.setPrenom(u.getPrenom());
@@ -33,29 +79,92 @@ public class UserServiceImpl implements UserService {
         ex.setNumeroTelephone(u.getNumeroTelephone());
         ex.setPosition(u.getPosition());
         ex.setDisponibilite(u.getDisponibilite());
+        if (coordonnees) {
+            ex.setLatitude(u.getLatitude());
+            ex.setLongitude(u.getLongitude());
+            ex.setDatePosition(maintenant);
+        }
+        if (u.getCompetences() != null) {
+            ex.setCompetences(u.getCompetences());
+        }
+        ex.setDateModification(maintenant);
 
-        ex.setDateModification(new Date());
-
-        return repository.save(ex);
+        events.publishEvent(new UserEvent(UserEvent.Action.MIS_A_JOUR, avant, ex));
+        return ex;
     }
 
     @Override
     public void delete(String id) {
+        Optional<User> ex = repository.findById(id);
         repository.deleteById(id);
+        positions.oublier(id);
+        ex.ifPresent(u -> events.publishEvent(new UserEvent(UserEvent.Action.SUPPRIME, u, null)));
     }
 
     @Override
     public User getById(String id) {
-        return repository.findById(id).orElseThrow();
+        return positions.appliquerEnAttente(repository.findById(id).orElseThrow());
     }
 
     @Override
     public List<User> getAll() {
-        return repository.findAll();
+        List<User> users = repository.findAll();
+        users.forEach(positions::appliquerEnAttente);
+        return users;
+    }
+
+    @Override
+    public List<TechnicienDTO> findTechniciensDisponibles() {
+        return registre.rechercher(true, null, null, null);
+    }
+
+    @Override
+    public List<TechnicienDTO> rechercherTechniciens(Boolean disponible, Double latitude, Double longitude, Double rayonKm) {
+        return registre.rechercher(disponible, latitude, longitude, rayonKm);
+    }
+
+    @Override
+    public String versionTechniciens() {
+        return registre.etag();
+    }
+
+    @Override
+    public User changerDisponibilite(String id, boolean disponibilite) {
+        Date maintenant = new Date();
+        Query query = Query.query(Criteria.where("_id").is(id)
+                .and("role").is(User.Role.TECHNICIEN)
+                .and("disponibilite").ne(disponibilite));
+        User ex = mongoTemplate.findAndModify(query,
+                new Update().set("disponibilite", disponibilite).set("dateModification", maintenant),
+                FindAndModifyOptions.options().returnNew(false), User.class);
+        if (ex == null) {
+            // Rien d'écrit : utilisateur absent, pas technicien, ou déjà dans cet état
+            User courant = positions.appliquerEnAttente(repository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé avec id: " + id)));
+            if (courant.getRole() != User.Role.TECHNICIEN) {
+                throw new IllegalArgumentException("L'utilisateur " + id + " n'est pas un technicien");
+            }
+            return courant;
+        }
+        positions.appliquerEnAttente(ex);
+        User avant = UserEvent.instantane(ex);
+        ex.setDisponibilite(disponibilite);
+        ex.setDateModification(maintenant);
+        events.publishEvent(new UserEvent(UserEvent.Action.MIS_A_JOUR, avant, ex));
+        return ex;
     }
 
     @Override
-    public List<User> findTechniciensDisponibles() {
-        return repository.findByRoleAndDisponibilite("TECHNICIEN", true);
+    public PositionTechnicien enregistrerPosition(String id, Double latitude, Double longitude) {
+        // Seuls les techniciens connus entrent dans la file, l'historique et les PositionTechnicienEvent ;
+        // la base ne tranche que pour un id absent du registre (pas encore chargé, ou pas un technicien)
+        if (!registre.contient(id)) {
+            User u = repository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé avec id: " + id));
+            if (u.getRole() != User.Role.TECHNICIEN) {
+                throw new IllegalArgumentException("L'utilisateur " + id + " n'est pas un technicien");
+            }
+        }
+        return positions.enregistrer(id, latitude, longitude);
     }
 }
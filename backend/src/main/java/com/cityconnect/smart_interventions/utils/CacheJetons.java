@@ -0,0 +1,86 @@
+package com.cityconnect.smart_interventions.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache LRU borné des jetons déjà vérifiés, avec expiration par entrée.
+ *
+ * La clé est l'empreinte SHA-256 du jeton : le cache ne garde jamais le jeton lui-même.
+ * Une entrée n'est rendue que tant que son expiration n'est pas atteinte ; au-delà de la capacité,
+ * l'entrée la moins récemment utilisée est évincée. Les accès sont synchronisés : la section
+ * critique se limite à une lecture de LinkedHashMap, très inférieure au coût d'une vérification.
+ */
+public class CacheJetons<V> {
+
+    private record Entree<V>(V valeur, long expireA) {
+    }
+
+    private final int capacite;
+    private final Map<String, Entree<V>> entrees;
+
+    public CacheJetons(int capacite) {
+        this.capacite = capacite;
+        this.entrees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entree<V>> eldest) {
+                return size() > CacheJetons.this.capacite;
+            }
+        };
+    }
+
+    /**
+     * Valeur associée au jeton, ou null si absente ou expirée à l'instant donné (ms).
+     */
+    public V get(String cle, long maintenant) {
+        if (capacite <= 0) {
+            return null;
+        }
+        synchronized (entrees) {
+            Entree<V> e = entrees.get(cle);
+            if (e == null) {
+                return null;
+            }
+            if (e.expireA() <= maintenant) {
+                entrees.remove(cle);
+                return null;
+            }
+            return e.valeur();
+        }
+    }
+
+    public void put(String cle, V valeur, long expireA) {
+        if (capacite <= 0) {
+            return;
+        }
+        synchronized (entrees) {
+            entrees.put(cle, new Entree<>(valeur, expireA));
+        }
+    }
+
+    public void invalider(String cle) {
+        synchronized (entrees) {
+            entrees.remove(cle);
+        }
+    }
+
+    public int taille() {
+        synchronized (entrees) {
+            return entrees.size();
+        }
+    }
+
+    public static String empreinte(String jeton) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(jeton.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 est garanti par toute JVM
+            throw new IllegalStateException(e);
+        }
+    }
+}
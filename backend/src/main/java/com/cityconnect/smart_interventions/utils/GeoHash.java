@@ -0,0 +1,74 @@
+package com.cityconnect.smart_interventions.utils;
+
+/**
+ * Encodage geohash (base32) : chaque caractère divise la cellule en 32,
+ * précision 6 ≈ 1,2 km x 0,6 km, précision 7 ≈ 150 m x 150 m.
+ */
+public final class GeoHash {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    private GeoHash() {
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        double[] lat = {-90.0, 90.0};
+        double[] lng = {-180.0, 180.0};
+        StringBuilder hash = new StringBuilder(precision);
+        boolean pair = true;
+        int bit = 0;
+        int ch = 0;
+
+        while (hash.length() < precision) {
+            double[] intervalle = pair ? lng : lat;
+            double valeur = pair ? longitude : latitude;
+            double milieu = (intervalle[0] + intervalle[1]) / 2;
+            if (valeur >= milieu) {
+                ch = (ch << 1) | 1;
+                intervalle[0] = milieu;
+            } else {
+                ch = ch << 1;
+                intervalle[1] = milieu;
+            }
+            pair = !pair;
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Boîte de la cellule : {latMin, lngMin, latMax, lngMax}.
+     */
+    public static double[] boundingBox(String hash) {
+        double[] lat = {-90.0, 90.0};
+        double[] lng = {-180.0, 180.0};
+        boolean pair = true;
+
+        for (int i = 0; i < hash.length(); i++) {
+            int cd = BASE32.indexOf(hash.charAt(i));
+            if (cd < 0) {
+                throw new IllegalArgumentException("Geohash invalide: " + hash);
+            }
+            for (int mask = 16; mask > 0; mask >>= 1) {
+                double[] intervalle = pair ? lng : lat;
+                double milieu = (intervalle[0] + intervalle[1]) / 2;
+                if ((cd & mask) != 0) {
+                    intervalle[0] = milieu;
+                } else {
+                    intervalle[1] = milieu;
+                }
+                pair = !pair;
+            }
+        }
+        return new double[]{lat[0], lng[0], lat[1], lng[1]};
+    }
+
+    public static double[] centre(String hash) {
+        double[] b = boundingBox(hash);
+        return new double[]{(b[0] + b[2]) / 2, (b[1] + b[3]) / 2};
+    }
+}
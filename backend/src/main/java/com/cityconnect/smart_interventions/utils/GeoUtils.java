@@ -0,0 +1,98 @@
+package com.cityconnect.smart_interventions.utils;
+
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+
+/**
+ * Conversions de coordonnées. Attention : GeoJsonPoint stocke (x = longitude, y = latitude).
+ */
+public final class GeoUtils {
+
+    public static final double RAYON_TERRE_KM = 6371.0;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * Lit "lat, lng" tel que saisi par le formulaire de signalement.
+     * Retourne null pour "Non spécifié" ou toute valeur illisible ou hors bornes.
+     */
+    public static double[] parseCoordonnees(String coordonnees) {
+        if (coordonnees == null) {
+            return null;
+        }
+        String[] parties = coordonnees.split(",");
+        if (parties.length != 2) {
+            return null;
+        }
+        try {
+            double lat = Double.parseDouble(parties[0].trim());
+            double lng = Double.parseDouble(parties[1].trim());
+            return valides(lat, lng) ? new double[]{lat, lng} : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static boolean valides(Double lat, Double lng) {
+        return lat != null && lng != null
+                && !lat.isNaN() && !lng.isNaN()
+                && lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180;
+    }
+
+    /**
+     * Distance orthodromique (formule de Haversine), en km.
+     */
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * RAYON_TERRE_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * Bornes d'une recherche autour d'un point ($nearSphere) : IllegalArgumentException, donc 400.
+     */
+    public static void verifierCercle(double lat, double lng, double rayonKm, double rayonMaxKm) {
+        if (!valides(lat, lng)) {
+            throw new IllegalArgumentException("Coordonnées invalides : " + lat + ", " + lng);
+        }
+        if (rayonKm <= 0 || rayonKm > rayonMaxKm) {
+            throw new IllegalArgumentException("rayonKm doit être compris entre 0 et " + rayonMaxKm);
+        }
+    }
+
+    /**
+     * Bornes d'une recherche dans une emprise ($geoWithin) : IllegalArgumentException, donc 400.
+     */
+    public static void verifierEmprise(double sud, double ouest, double nord, double est) {
+        if (!valides(sud, ouest) || !valides(nord, est) || sud >= nord || ouest >= est) {
+            throw new IllegalArgumentException("Emprise invalide : sud < nord et ouest < est attendus");
+        }
+    }
+
+    public static void verifierLimite(int limite, int limiteMax) {
+        if (limite < 1 || limite > limiteMax) {
+            throw new IllegalArgumentException("limite doit être comprise entre 1 et " + limiteMax);
+        }
+    }
+
+    /**
+     * Rectangle (sud, ouest) - (nord, est) fermé, sens anti-horaire, pour $geoWithin.
+     */
+    public static GeoJsonPolygon emprise(double sud, double ouest, double nord, double est) {
+        return new GeoJsonPolygon(
+                new Point(ouest, sud), new Point(est, sud), new Point(est, nord), new Point(ouest, nord), new Point(ouest, sud));
+    }
+
+    public static GeoJsonPoint versPoint(double[] latLng) {
+        return latLng != null ? new GeoJsonPoint(latLng[1], latLng[0]) : null;
+    }
+
+    public static double[] depuisPoint(GeoJsonPoint point) {
+        return point != null ? new double[]{point.getY(), point.getX()} : null;
+    }
+}
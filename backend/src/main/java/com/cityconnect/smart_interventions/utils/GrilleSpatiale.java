@@ -0,0 +1,106 @@
+package com.cityconnect.smart_interventions.utils;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Index spatial en grille régulière (cellules de pas x pas degrés) : placer / retirer en O(1),
+ * et parcours par anneaux concentriques autour d'un point pour les recherches de plus proches voisins.
+ * Non thread-safe : l'appelant synchronise.
+ */
+public class GrilleSpatiale<T> {
+
+    private static final double KM_PAR_DEGRE_LAT = 110.57;
+    private static final double KM_PAR_DEGRE_LNG_EQUATEUR = 111.32;
+
+    private final double pas;
+    private final Map<Long, Map<String, Point<T>>> cellules = new HashMap<>();
+    private final Map<String, Point<T>> parId = new HashMap<>();
+
+    public record Point<T>(String id, double lat, double lng, T valeur) {
+    }
+
+    public GrilleSpatiale(double pasDegres) {
+        if (pasDegres <= 0) {
+            throw new IllegalArgumentException("Le pas de la grille doit être positif");
+        }
+        this.pas = pasDegres;
+    }
+
+    public void placer(String id, double lat, double lng, T valeur) {
+        retirer(id);
+        Point<T> p = new Point<>(id, lat, lng, valeur);
+        parId.put(id, p);
+        cellules.computeIfAbsent(cle(ligne(lat), colonne(lng)), k -> new HashMap<>()).put(id, p);
+    }
+
+    public void retirer(String id) {
+        Point<T> p = parId.remove(id);
+        if (p == null) {
+            return;
+        }
+        long cle = cle(ligne(p.lat()), colonne(p.lng()));
+        Map<String, Point<T>> cellule = cellules.get(cle);
+        cellule.remove(id);
+        if (cellule.isEmpty()) {
+            cellules.remove(cle);
+        }
+    }
+
+    public Point<T> get(String id) {
+        return parId.get(id);
+    }
+
+    public void vider() {
+        cellules.clear();
+        parId.clear();
+    }
+
+    public int taille() {
+        return parId.size();
+    }
+
+    public Collection<Point<T>> tous() {
+        return parId.values();
+    }
+
+    /**
+     * Points des cellules à exactement r cellules (distance de Chebyshev) de la cellule de (lat, lng).
+     */
+    public void anneau(double lat, double lng, int r, Consumer<Point<T>> action) {
+        int l0 = ligne(lat);
+        int c0 = colonne(lng);
+        for (int dl = -r; dl <= r; dl++) {
+            boolean bord = Math.abs(dl) == r;
+            for (int dc = -r; dc <= r; dc += bord ? 1 : 2 * r) {
+                Map<String, Point<T>> cellule = cellules.get(cle(l0 + dl, c0 + dc));
+                if (cellule != null) {
+                    cellule.values().forEach(action);
+                }
+                if (r == 0) break;
+            }
+        }
+    }
+
+    /**
+     * Distance minimale (km) entre (lat, lng) et tout point situé hors des anneaux 0..r.
+     */
+    public double distanceMinHorsAnneaux(double lat, int r) {
+        double latMax = Math.min(90, Math.abs(lat) + (r + 1) * pas);
+        double kmLat = r * pas * KM_PAR_DEGRE_LAT;
+        double kmLng = r * pas * KM_PAR_DEGRE_LNG_EQUATEUR * Math.cos(Math.toRadians(latMax));
+        return Math.min(kmLat, kmLng);
+    }
+
+    private int ligne(double lat) {
+        return (int) Math.floor(lat / pas);
+    }
+
+    private int colonne(double lng) {
+        return (int) Math.floor(lng / pas);
+    }
+
+    private static long cle(int ligne, int colonne) {
+        return ((long) ligne << 32) | (colonne & 0xffffffffL);
+    }
+}
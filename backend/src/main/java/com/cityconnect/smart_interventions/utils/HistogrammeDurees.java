@@ -0,0 +1,102 @@
+package com.cityconnect.smart_interventions.utils;
+
+/**
+ * Histogramme log-linéaire de durées (en secondes), dans l'esprit de HdrHistogram :
+ * chaque puissance de 2 est découpée en 32 sous-intervalles égaux, soit une erreur relative
+ * inférieure à 3 % sur les percentiles, pour 1024 compteurs fixes (jusqu'à ~2000 ans).
+ *
+ * Enregistrement et retrait en O(1), percentile en O(nombre de compteurs).
+ * Non thread-safe : l'appelant synchronise.
+ */
+public class HistogrammeDurees {
+
+    private static final int BITS_SOUS_INTERVALLES = 5;
+    private static final int SOUS_INTERVALLES = 1 << BITS_SOUS_INTERVALLES;
+    private static final int TAILLE = 1024;
+    private static final long VALEUR_MAX = borneHaute(TAILLE - 1);
+
+    private final long[] compteurs = new long[TAILLE];
+    private long nombre;
+    private long max;
+
+    public void enregistrer(long secondes) {
+        long v = borner(secondes);
+        compteurs[indice(v)]++;
+        nombre++;
+        max = Math.max(max, v);
+    }
+
+    /**
+     * Retire une valeur enregistrée auparavant (intervention modifiée ou supprimée).
+     * Le max redevient la borne haute du plus grand intervalle non vide.
+     */
+    public void retirer(long secondes) {
+        long v = borner(secondes);
+        int i = indice(v);
+        if (compteurs[i] == 0) {
+            return;
+        }
+        compteurs[i]--;
+        nombre--;
+        if (nombre == 0) {
+            max = 0;
+        } else if (v >= max) {
+            int j = TAILLE - 1;
+            while (compteurs[j] == 0) j--;
+            max = Math.min(max, borneHaute(j));
+        }
+    }
+
+    /**
+     * Plus petite valeur v telle qu'au moins p % des durées sont <= v (à la précision près).
+     */
+    public long percentile(double p) {
+        if (nombre == 0) {
+            return 0;
+        }
+        long rang = Math.max(1, (long) Math.ceil(p / 100.0 * nombre));
+        long cumul = 0;
+        for (int i = 0; i < TAILLE; i++) {
+            cumul += compteurs[i];
+            if (cumul >= rang) {
+                return Math.min(borneHaute(i), max);
+            }
+        }
+        return max;
+    }
+
+    public long nombre() {
+        return nombre;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public boolean estVide() {
+        return nombre == 0;
+    }
+
+    private static long borner(long secondes) {
+        return Math.max(0, Math.min(secondes, VALEUR_MAX));
+    }
+
+    static int indice(long v) {
+        if (v < SOUS_INTERVALLES) {
+            return (int) v;
+        }
+        int exposant = 63 - Long.numberOfLeadingZeros(v);
+        int decalage = exposant - BITS_SOUS_INTERVALLES;
+        int sous = (int) (v >>> decalage) - SOUS_INTERVALLES;
+        return (decalage + 1) * SOUS_INTERVALLES + sous;
+    }
+
+    static long borneHaute(int indice) {
+        if (indice < SOUS_INTERVALLES) {
+            return indice;
+        }
+        int decalage = indice / SOUS_INTERVALLES - 1;
+        int sous = indice % SOUS_INTERVALLES;
+        return ((long) (SOUS_INTERVALLES + sous + 1) << decalage) - 1;
+    }
+}
@@ -4,21 +4,28 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 
+@Slf4j
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private TicketsFlux ticketsFlux;
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -28,60 +35,54 @@ public class JwtFilter extends OncePerRequestFilter {
 
         String path = request.getRequestURI();
         String method = request.getMethod();
-        
-        System.out.println("\n=== JWT FILTER ===");
-        System.out.println("Path: " + path);
-        System.out.println("Method: " + method);
-        
+
         // Ignorer OPTIONS (preflight CORS) et les routes d'authentification
         if (method.equals("OPTIONS") || path.startsWith("/api/auth/")) {
-            System.out.println("⏩ Skipping JWT check for: " + (method.equals("OPTIONS") ? "OPTIONS" : "auth endpoint"));
             filterChain.doFilter(request, response);
             return;
         }
 
-        String authHeader = request.getHeader("Authorization");
-        System.out.println("Authorization header: " + (authHeader != null ? "Present" : "Null"));
+        // EventSource (SSE) ne peut pas envoyer d'en-tête : ticket à usage unique en paramètre, jamais le JWT
+        if (path.endsWith("/stream") && request.getParameter("ticket") != null) {
+            JwtUtils.Jeton jeton = ticketsFlux.consommer(request.getParameter("ticket"));
+            if (jeton == null) {
+                log.debug("Ticket de flux invalide, expiré ou déjà utilisé : {} {}", method, path);
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                response.getWriter().write("{\"error\": \"Ticket invalide\"}");
+                return;
+            }
+            authentifier(jeton);
+            log.debug("Flux ouvert par ticket pour {} ({}) : {} {}", jeton.userId(), jeton.role(), method, path);
+            filterChain.doFilter(request, response);
+            return;
+        }
 
+        String authHeader = request.getHeader("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
-            System.out.println("Token found: " + token.substring(0, Math.min(20, token.length())) + "...");
 
-            try {
-                if (jwtUtils.isTokenValid(token)) {
-                    System.out.println("✅ Token VALID");
-                    
-                    // ⭐ CRUCIAL : Extraire l'email et mettre l'authentification dans SecurityContext
-                    String email = jwtUtils.extractUsername(token);
-                    System.out.println("✅ Email extracted: " + email);
-                    
-                    // Créer l'authentification Spring Security
-                    UsernamePasswordAuthenticationToken authentication = 
-                        new UsernamePasswordAuthenticationToken(email, null, Collections.emptyList());
-                    
-                    // ⭐ METTRE l'authentification dans le contexte (TRÈS IMPORTANT)
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                    System.out.println("✅ Authentication set in SecurityContext for: " + email);
-                    
-                } else {
-                    System.out.println("❌ Token INVALID");
-                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                    response.getWriter().write("{\"error\": \"Token invalide\"}");
-                    return;
-                }
-            } catch (Exception e) {
-                System.out.println("❌ Token ERROR: " + e.getMessage());
-                e.printStackTrace();
+            // Une seule vérification par requête, servie par le cache de JwtUtils pour un jeton déjà vu
+            JwtUtils.Jeton jeton = jwtUtils.verifier(token);
+            if (jeton == null) {
+                log.debug("Jeton invalide ou expiré : {} {}", method, path);
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                response.getWriter().write("{\"error\": \"Erreur token: " + e.getMessage() + "\"}");
+                response.getWriter().write("{\"error\": \"Token invalide\"}");
                 return;
             }
-        } else {
-            System.out.println("⚠️ No Authorization header found");
-            // Ne pas bloquer ici - laisser Spring Security décider
+            authentifier(jeton);
+            log.debug("Authentifié {} ({}) : {} {}", jeton.userId(), jeton.role(), method, path);
         }
+        // Sans en-tête : ne pas bloquer ici - laisser Spring Security décider
 
-        System.out.println("✅ Proceeding with filter chain...");
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    // Principal = userId (subject du token), rôle du token en ROLE_xxx
+    private static void authentifier(JwtUtils.Jeton jeton) {
+        UsernamePasswordAuthenticationToken authentication =
+            new UsernamePasswordAuthenticationToken(jeton.userId(), null,
+                    jeton.role() != null ? List.of(new SimpleGrantedAuthority("ROLE_" + jeton.role())) : Collections.emptyList());
+        authentication.setDetails(jeton);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+}
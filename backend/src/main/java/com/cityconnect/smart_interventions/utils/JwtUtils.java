@@ -1,8 +1,11 @@
 package com.cityconnect.smart_interventions.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.Date;
@@ -13,9 +16,38 @@ public class JwtUtils {
 
     private final String secret = "AZERTYUIOPQSDFGHJKLMWXCVBN1234567890";
     private final long expirationMs = 24 * 60 * 60 * 1000; // 24h
+    // Jeton de rafraîchissement : type "refresh", accepté uniquement par /api/auth/refresh ;
+    // "ver" doit égaler User.versionRefresh, incrémentée à chaque rotation (un jeton ne sert qu'une fois)
+    private static final String TYPE_REFRESH = "refresh";
+    private final long refreshExpirationMs;
+
+    // Clé et parser construits une fois : JwtParser est immuable et partageable entre threads
+    private final SecretKey signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+    private final JwtParser parser = Jwts.parser().verifyWith(signingKey).build();
+
+    // Jetons déjà vérifiés, par empreinte SHA-256
+    private final CacheJetons<Jeton> cache;
+
+    /**
+     * Contenu utile d'un jeton vérifié, passé tel quel au SecurityContext (details de l'authentification).
+     */
+    public record Jeton(String userId, String email, String role, Date expiration) {
+    }
+
+    /**
+     * Contenu d'un jeton de rafraîchissement vérifié.
+     */
+    public record Refresh(String userId, long version) {
+    }
+
+    public JwtUtils(@Value("${jwt.cache.capacite:10000}") int capaciteCache,
+                    @Value("${jwt.refresh.expiration-ms:2592000000}") long refreshExpirationMs) {
+        this.cache = new CacheJetons<>(capaciteCache);
+        this.refreshExpirationMs = refreshExpirationMs;
+    }
 
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
     }
 
     // ⭐ MODIFIEZ ICI : Utilisez userId comme subject au lieu de email
@@ -30,6 +62,60 @@ public class JwtUtils {
                 .compact();
     }
 
+    public String generateRefreshToken(String userId, long version) {
+        return Jwts.builder()
+                .subject(userId)
+                .claim("type", TYPE_REFRESH)
+                .claim("ver", version)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + refreshExpirationMs))
+                .signWith(getSigningKey())
+                .compact();
+    }
+
+    /**
+     * userId et version d'un jeton de rafraîchissement valide, null sinon (un jeton d'accès est refusé).
+     * Un jeton émis avant l'introduction de "ver" a la version 0.
+     */
+    public Refresh verifierRefresh(String token) {
+        try {
+            Claims claims = parseClaims(token);
+            if (!TYPE_REFRESH.equals(claims.get("type", String.class))) {
+                return null;
+            }
+            Object version = claims.get("ver");
+            return new Refresh(claims.getSubject(), version instanceof Number n ? n.longValue() : 0);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Vérifie le jeton une seule fois puis le sert depuis le cache jusqu'à son expiration.
+     * Retourne null si le jeton est invalide ou expiré.
+     */
+    public Jeton verifier(String token) {
+        String cle = CacheJetons.empreinte(token);
+        long maintenant = System.currentTimeMillis();
+        Jeton jeton = cache.get(cle, maintenant);
+        if (jeton != null) {
+            return jeton;
+        }
+        try {
+            Claims claims = parseClaims(token);
+            if (claims.getExpiration() == null || !claims.getExpiration().after(new Date(maintenant))
+                    || TYPE_REFRESH.equals(claims.get("type", String.class))) {
+                return null;
+            }
+            jeton = new Jeton(claims.getSubject(), claims.get("email", String.class),
+                    claims.get("role", String.class), claims.getExpiration());
+            cache.put(cle, jeton, claims.getExpiration().getTime());
+            return jeton;
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     // ⭐ AJOUTEZ cette méthode pour extraire l'email des claims
     public String extractEmail(String token) {
         return parseClaims(token).get("email", String.class);
@@ -41,11 +127,7 @@ public class JwtUtils {
     }
 
     public Claims parseClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     public String extractUsername(String token) {
@@ -53,11 +135,6 @@ public class JwtUtils {
     }
 
     public boolean isTokenValid(String token) {
-        try {
-            Claims claims = parseClaims(token);
-            return claims.getExpiration().after(new Date());
-        } catch (Exception e) {
-            return false;
-        }
+        return verifier(token) != null;
     }
-}
\ No newline at end of file
+}
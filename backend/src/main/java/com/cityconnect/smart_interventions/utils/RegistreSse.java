@@ -0,0 +1,220 @@
+package com.cityconnect.smart_interventions.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Connexions SSE ouvertes, regroupées par clé (ID utilisateur, ...).
+ *
+ * Chaque client a sa propre file bornée, vidée par un petit pool d'envoi : un client lent
+ * ne bloque ni le thread qui publie ni les autres clients. Si sa file déborde, le client est
+ * fermé ; EventSource se reconnecte et repart d'un nouvel état initial. Un client inactif
+ * ne coûte qu'un heartbeat périodique.
+ */
+@Slf4j
+public class RegistreSse<K> implements AutoCloseable {
+
+    private final Map<K, Set<Client>> clients = new ConcurrentHashMap<>();
+    private final AtomicInteger nombre = new AtomicInteger();
+    private final int capaciteFile;
+    private final long timeoutMs;
+    private final ExecutorService envoi;
+
+    public RegistreSse(String nom, int capaciteFile, long timeoutMs, int threadsEnvoi) {
+        this.capaciteFile = capaciteFile;
+        this.timeoutMs = timeoutMs;
+        AtomicInteger n = new AtomicInteger();
+        this.envoi = Executors.newFixedThreadPool(threadsEnvoi, r -> {
+            Thread t = new Thread(r, nom + "-sse-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Enregistre un nouveau client ; les événements initiaux sont envoyés avant tout autre.
+     */
+    public SseEmitter ouvrir(K cle, SseEmitter.SseEventBuilder... initiaux) {
+        List<Set<DataWithMediaType>> donnees = new ArrayList<>(initiaux.length);
+        for (SseEmitter.SseEventBuilder e : initiaux) {
+            donnees.add(e.build());
+        }
+        Client client = enregistrer(cle);
+        demarrer(client, donnees);
+        return client.emitter;
+    }
+
+    /**
+     * Variante où les événements initiaux sont calculés après l'enregistrement du client :
+     * rien de ce qui est publié pendant le calcul n'est perdu (mis en file, envoyé après les
+     * événements initiaux). Le client doit donc tolérer un doublon entre les deux.
+     */
+    public SseEmitter ouvrir(K cle, Supplier<List<SseEmitter.SseEventBuilder>> initiaux) {
+        Client client = enregistrer(cle);
+        List<Set<DataWithMediaType>> donnees = new ArrayList<>();
+        try {
+            for (SseEmitter.SseEventBuilder e : initiaux.get()) {
+                donnees.add(e.build());
+            }
+        } catch (RuntimeException e) {
+            fermer(client);
+            throw e;
+        }
+        demarrer(client, donnees);
+        return client.emitter;
+    }
+
+    private Client enregistrer(K cle) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Client client = new Client(cle, emitter, new ArrayBlockingQueue<>(capaciteFile));
+
+        emitter.onCompletion(() -> retirer(client));
+        emitter.onTimeout(() -> retirer(client));
+        emitter.onError(e -> retirer(client));
+
+        // Ajout dans compute, atomique avec le retrait du set vidé par retirer() : un client ajouté
+        // à un set déjà sorti de la map ne recevrait plus aucun événement
+        clients.compute(cle, (k, set) -> {
+            Set<Client> s = set != null ? set : ConcurrentHashMap.newKeySet();
+            s.add(client);
+            return s;
+        });
+        nombre.incrementAndGet();
+        return client;
+    }
+
+    private void demarrer(Client client, List<Set<DataWithMediaType>> initiaux) {
+        client.initiaux = initiaux;
+        client.pret = true;
+        planifier(client);
+    }
+
+    public boolean estConnecte(K cle) {
+        return clients.containsKey(cle);
+    }
+
+    public void publier(K cle, SseEmitter.SseEventBuilder evenement) {
+        Set<Client> set = clients.get(cle);
+        if (set == null) {
+            return;
+        }
+        // build() n'est pas réentrant : l'événement est sérialisé une fois pour tous les clients
+        Set<DataWithMediaType> donnees = evenement.build();
+        for (Client c : set) {
+            if (!c.file.offer(donnees)) {
+                log.debug("File SSE pleine pour {}, client fermé", cle);
+                fermer(c);
+                continue;
+            }
+            planifier(c);
+        }
+    }
+
+    /**
+     * Commentaire SSE envoyé à tous les clients : garde la connexion ouverte à travers
+     * les proxys et détecte les clients partis. Ignoré pour un client dont la file est pleine.
+     */
+    public void heartbeat() {
+        Set<DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        for (Set<Client> set : clients.values()) {
+            for (Client c : set) {
+                if (c.file.offer(ping)) {
+                    planifier(c);
+                }
+            }
+        }
+    }
+
+    public int nombreClients() {
+        return nombre.get();
+    }
+
+    @Override
+    public void close() {
+        clients.values().forEach(set -> set.forEach(this::fermer));
+        envoi.shutdownNow();
+    }
+
+    private void planifier(Client c) {
+        if (c.pret && !c.ferme.get() && c.enCours.compareAndSet(false, true)) {
+            try {
+                envoi.execute(() -> vider(c));
+            } catch (RejectedExecutionException e) {
+                c.enCours.set(false);
+            }
+        }
+    }
+
+    private void vider(Client c) {
+        try {
+            if (c.initiaux != null) {
+                for (Set<DataWithMediaType> i : c.initiaux) {
+                    c.emitter.send(i);
+                }
+                c.initiaux = null;
+            }
+            Set<DataWithMediaType> e;
+            while (!c.ferme.get() && (e = c.file.poll()) != null) {
+                c.emitter.send(e);
+            }
+        } catch (Exception ex) {
+            // Client parti : l'écriture échoue, on le retire
+            fermer(c);
+        } finally {
+            c.enCours.set(false);
+        }
+        if (!c.ferme.get() && !c.file.isEmpty()) {
+            planifier(c);
+        }
+    }
+
+    private void fermer(Client c) {
+        if (retirer(c)) {
+            try {
+                c.emitter.complete();
+            } catch (Exception ignore) {
+                // Déjà terminé
+            }
+        }
+    }
+
+    private boolean retirer(Client c) {
+        if (!c.ferme.compareAndSet(false, true)) {
+            return false;
+        }
+        c.file.clear();
+        clients.computeIfPresent(c.cle, (k, set) -> {
+            set.remove(c);
+            return set.isEmpty() ? null : set;
+        });
+        nombre.decrementAndGet();
+        return true;
+    }
+
+    private final class Client {
+        final K cle;
+        final SseEmitter emitter;
+        final BlockingQueue<Set<DataWithMediaType>> file;
+        final AtomicBoolean enCours = new AtomicBoolean();
+        final AtomicBoolean ferme = new AtomicBoolean();
+        // Envoyés avant la file ; le client n'est vidé qu'une fois pret
+        volatile List<Set<DataWithMediaType>> initiaux;
+        volatile boolean pret;
+
+        Client(K cle, SseEmitter emitter, BlockingQueue<Set<DataWithMediaType>> file) {
+            this.cle = cle;
+            this.emitter = emitter;
+            this.file = file;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.cityconnect.smart_interventions.utils;
+
+import java.util.*;
+
+/**
+ * Sketch "Space-Saving" (Metwally et al.) : suit au plus {@code capacite} clés quel que soit
+ * le nombre de clés distinctes vues. Quand il est plein, une nouvelle clé remplace la moins
+ * fréquente et hérite de son compteur (+1) ; l'erreur de chaque compteur est bornée par
+ * le compteur évincé, et toute clé de fréquence > total / capacite est garantie présente.
+ *
+ * Mise à jour en O(log capacite), lecture du top-k en O(k). Thread-safe.
+ */
+public class SpaceSaving<K extends Comparable<K>> {
+
+    private final int capacite;
+    private final Map<K, Compteur<K>> compteurs;
+    // Trié par compteur croissant : first() est la victime en cas d'éviction
+    private final TreeSet<Compteur<K>> ordre = new TreeSet<>();
+    private long total;
+
+    public SpaceSaving(int capacite) {
+        if (capacite <= 0) {
+            throw new IllegalArgumentException("La capacité doit être positive");
+        }
+        this.capacite = capacite;
+        this.compteurs = new HashMap<>(capacite * 2);
+    }
+
+    public synchronized void ajouter(K cle) {
+        ajouter(cle, 1);
+    }
+
+    public synchronized void ajouter(K cle, long increment) {
+        total += increment;
+        Compteur<K> c = compteurs.get(cle);
+        if (c != null) {
+            ordre.remove(c);
+            c = new Compteur<>(cle, c.valeur + increment, c.erreur);
+        } else if (compteurs.size() < capacite) {
+            c = new Compteur<>(cle, increment, 0);
+        } else {
+            Compteur<K> victime = ordre.pollFirst();
+            compteurs.remove(victime.cle);
+            c = new Compteur<>(cle, victime.valeur + increment, victime.valeur);
+        }
+        compteurs.put(cle, c);
+        ordre.add(c);
+    }
+
+    /**
+     * Les k clés les plus fréquentes, par compteur décroissant.
+     */
+    public synchronized List<Map.Entry<K, Long>> top(int k) {
+        List<Map.Entry<K, Long>> top = new ArrayList<>(Math.min(k, ordre.size()));
+        Iterator<Compteur<K>> it = ordre.descendingIterator();
+        while (it.hasNext() && top.size() < k) {
+            Compteur<K> c = it.next();
+            top.add(Map.entry(c.cle, c.valeur));
+        }
+        return top;
+    }
+
+    public synchronized long estimation(K cle) {
+        Compteur<K> c = compteurs.get(cle);
+        return c != null ? c.valeur : 0;
+    }
+
+    public synchronized long total() {
+        return total;
+    }
+
+    public synchronized void vider() {
+        compteurs.clear();
+        ordre.clear();
+        total = 0;
+    }
+
+    private record Compteur<K extends Comparable<K>>(K cle, long valeur, long erreur) implements Comparable<Compteur<K>> {
+        @Override
+        public int compareTo(Compteur<K> autre) {
+            int cmp = Long.compare(valeur, autre.valeur);
+            return cmp != 0 ? cmp : cle.compareTo(autre.cle);
+        }
+    }
+}
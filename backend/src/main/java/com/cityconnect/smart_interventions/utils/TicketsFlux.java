@@ -0,0 +1,50 @@
+package com.cityconnect.smart_interventions.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tickets d'ouverture des flux SSE.
+ *
+ * EventSource ne peut pas envoyer l'en-tête Authorization : au lieu du JWT, l'URL d'un flux porte
+ * un ticket aléatoire obtenu avec le JWT, valable duree-ms et consommé à la première utilisation.
+ * Une URL journalisée (logs DEBUG, proxy, access log) ne donne donc accès à rien.
+ */
+@Component
+public class TicketsFlux {
+
+    private record Ticket(JwtUtils.Jeton jeton, long expireA) {
+    }
+
+    private final SecureRandom aleatoire = new SecureRandom();
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final long dureeMs;
+
+    public TicketsFlux(@Value("${sse.ticket.duree-ms:30000}") long dureeMs) {
+        this.dureeMs = dureeMs;
+    }
+
+    public String emettre(JwtUtils.Jeton jeton) {
+        long maintenant = System.currentTimeMillis();
+        // Tickets jamais utilisés : retirés au passage, la table reste de la taille des ouvertures récentes
+        tickets.values().removeIf(t -> t.expireA() <= maintenant);
+        byte[] octets = new byte[32];
+        aleatoire.nextBytes(octets);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(octets);
+        tickets.put(ticket, new Ticket(jeton, maintenant + dureeMs));
+        return ticket;
+    }
+
+    /**
+     * Jeton associé au ticket, ou null si inconnu, déjà utilisé ou expiré. Le ticket est retiré dans tous les cas.
+     */
+    public JwtUtils.Jeton consommer(String ticket) {
+        Ticket t = tickets.remove(ticket);
+        return t != null && t.expireA() > System.currentTimeMillis() ? t.jeton() : null;
+    }
+}
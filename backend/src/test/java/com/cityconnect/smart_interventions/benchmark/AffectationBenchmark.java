@@ -0,0 +1,104 @@
+package com.cityconnect.smart_interventions.benchmark;
+
+import com.cityconnect.smart_interventions.dto.TechnicienDTO;
+import com.cityconnect.smart_interventions.model.User;
+import com.cityconnect.smart_interventions.service.AffectationEngine;
+import com.cityconnect.smart_interventions.utils.GeoUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suggestion des 5 meilleurs techniciens pour 10k techniciens disponibles répartis sur la ville :
+ * <ul>
+ *   <li>parcoursComplet : le calcul de l'écran d'affectation, score de chaque technicien puis tri</li>
+ *   <li>grille : AffectationEngine, anneaux de cellules autour de l'intervention et arrêt anticipé</li>
+ * </ul>
+ * Aucune base nécessaire.
+ *
+ * Lancement : mvn test-compile exec:exec -Dexec.args="-cp %classpath org.openjdk.jmh.Main AffectationBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AffectationBenchmark {
+
+    // Emprise approximative du Grand Tunis
+    private static final double LAT_MIN = 36.70, LAT_MAX = 36.95;
+    private static final double LNG_MIN = 10.00, LNG_MAX = 10.35;
+    private static final int K = 5;
+    private static final String[] COMPETENCES = {"ELECTRICITE", "PLOMBERIE", "MECANIQUE", "INFORMATIQUE", "CLIMATISATION"};
+
+    @Param({"10000"})
+    public int nbTechniciens;
+
+    @Param({"NORMAL", "URGENT"})
+    public String urgence;
+
+    private List<User> techniciens;
+    private AffectationEngine engine;
+    private double[][] positions;
+    private int suivante;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(7);
+        techniciens = new ArrayList<>(nbTechniciens);
+        for (int i = 0; i < nbTechniciens; i++) {
+            techniciens.add(User.builder()
+                    .id("tech-" + i)
+                    .role(User.Role.TECHNICIEN)
+                    .disponibilite(true)
+                    .latitude(LAT_MIN + random.nextDouble() * (LAT_MAX - LAT_MIN))
+                    .longitude(LNG_MIN + random.nextDouble() * (LNG_MAX - LNG_MIN))
+                    .competences(List.of(COMPETENCES[random.nextInt(COMPETENCES.length)]))
+                    .build());
+        }
+        engine = new AffectationEngine(null, 0.01);
+        engine.charger(techniciens);
+
+        positions = new double[1024][];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = new double[]{
+                    LAT_MIN + random.nextDouble() * (LAT_MAX - LAT_MIN),
+                    LNG_MIN + random.nextDouble() * (LNG_MAX - LNG_MIN)};
+        }
+    }
+
+    private double[] position() {
+        return positions[suivante++ & (positions.length - 1)];
+    }
+
+    @Benchmark
+    public List<TechnicienDTO> parcoursComplet() {
+        double[] p = position();
+        List<String> requises = AffectationEngine.competencesRequises("ELECTRIQUE");
+        boolean urgent = "URGENT".equals(urgence);
+        List<TechnicienDTO> scores = new ArrayList<>(techniciens.size());
+        for (User u : techniciens) {
+            double d = GeoUtils.distanceKm(p[0], p[1], u.getLatitude(), u.getLongitude());
+            TechnicienDTO dto = new TechnicienDTO(u);
+            dto.setScore((int) Math.round(AffectationEngine.score(u, d, requises, urgent)));
+            dto.setDistance(d);
+            scores.add(dto);
+        }
+        scores.sort(Comparator.comparing(TechnicienDTO::getScore).reversed());
+        return scores.subList(0, K);
+    }
+
+    @Benchmark
+    public List<TechnicienDTO> grille() {
+        double[] p = position();
+        return engine.candidats(p[0], p[1], "ELECTRIQUE", urgence, K);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(AffectationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
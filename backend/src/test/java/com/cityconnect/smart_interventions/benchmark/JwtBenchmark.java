@@ -0,0 +1,86 @@
+package com.cityconnect.smart_interventions.benchmark;
+
+import com.cityconnect.smart_interventions.utils.JwtUtils;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût d'authentification d'une requête dans JwtFilter, pour 1000 utilisateurs actifs :
+ * <ul>
+ *   <li>avant : isTokenValid puis extractUsername, comme l'ancien JwtFilter, chacun reconstruisant la clé
+ *       et le parser et vérifiant la signature (deux vérifications par requête)</li>
+ *   <li>parserPartage : une vérification par requête avec la clé et le parser construits une fois</li>
+ *   <li>cache : JwtUtils.verifier, jeton déjà vu servi par le cache LRU (empreinte SHA-256)</li>
+ * </ul>
+ * Aucune base nécessaire.
+ *
+ * Lancement : mvn test-compile exec:exec -Dexec.args="-cp %classpath org.openjdk.jmh.Main JwtBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "AZERTYUIOPQSDFGHJKLMWXCVBN1234567890";
+    private static final int NB_UTILISATEURS = 1024;
+
+    private JwtUtils avecCache;
+    private JwtUtils sansCache;
+    private String[] jetons;
+    private int suivant;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        avecCache = new JwtUtils(10000, 3600000);
+        sansCache = new JwtUtils(0, 3600000);
+        jetons = new String[NB_UTILISATEURS];
+        for (int i = 0; i < jetons.length; i++) {
+            jetons[i] = avecCache.generateToken("user-" + i, "user" + i + "@ville.tn", i % 10 == 0 ? "TECHNICIEN" : "CITOYEN");
+        }
+    }
+
+    private String jeton() {
+        return jetons[suivant++ & (jetons.length - 1)];
+    }
+
+    // Chemin de JwtFilter avant le cache : parseClaims complet à chaque appel
+    private static Claims ancienParse(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    @Benchmark
+    public void avant(Blackhole bh) {
+        String token = jeton();
+        bh.consume(ancienParse(token).getExpiration().after(new Date()));
+        bh.consume(ancienParse(token).getSubject());
+    }
+
+    @Benchmark
+    public JwtUtils.Jeton parserPartage() {
+        return sansCache.verifier(jeton());
+    }
+
+    @Benchmark
+    public JwtUtils.Jeton cache() {
+        return avecCache.verifier(jeton());
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(JwtBenchmark.class.getSimpleName()).build()).run();
+    }
+}
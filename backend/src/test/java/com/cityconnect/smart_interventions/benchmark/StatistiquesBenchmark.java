@@ -0,0 +1,196 @@
+package com.cityconnect.smart_interventions.benchmark;
+
+import com.cityconnect.smart_interventions.model.Intervention;
+import com.cityconnect.smart_interventions.model.ServiceMunicipal;
+import com.cityconnect.smart_interventions.model.Statistiques;
+import com.cityconnect.smart_interventions.model.User;
+import com.cityconnect.smart_interventions.service.StatistiquesEngine;
+import com.cityconnect.smart_interventions.service.ZoneService;
+import com.cityconnect.smart_interventions.service.impl.StatistiquesAggregationServiceImpl;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare les trois façons de calculer /api/statistiques/generales sur 10k, 100k et 1M interventions :
+ * <ul>
+ *   <li>findAll : l'ancien StatistiquesServiceImpl, toutes les interventions désérialisées dans la JVM,
+ *       un findById du service par intervention et une passe sur les interventions par utilisateur</li>
+ *   <li>memoire : lecture d'une requête avec le StatistiquesEngine, snapshot des compteurs déjà chargés</li>
+ *   <li>reconciliation : rechargement complet des compteurs (projection en flux), toutes les 5 minutes</li>
+ *   <li>aggregation : pipelines MongoDB de StatistiquesAggregationServiceImpl</li>
+ * </ul>
+ * Nécessite un MongoDB local (-jvmArgsAppend -Dbench.mongodb.uri=...). Chaque taille est générée
+ * une fois dans sa propre base bench_statistiques_N puis réutilisée.
+ *
+ * Lancement : mvn test-compile exec:exec -Dexec.args="-cp %classpath org.openjdk.jmh.Main StatistiquesBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class StatistiquesBenchmark {
+
+    private static final int NB_SERVICES = 20;
+    private static final int NB_TECHNICIENS = 200;
+
+    @Param({"10000", "100000", "1000000"})
+    public int nbInterventions;
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private StatistiquesEngine engine;
+    private StatistiquesAggregationServiceImpl aggregation;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        client = MongoClients.create(System.getProperty("bench.mongodb.uri", "mongodb://localhost:27017"));
+        String base = "bench_statistiques_" + nbInterventions;
+        mongoTemplate = new MongoTemplate(client, base);
+        if (mongoTemplate.getCollection("interventions").countDocuments() != nbInterventions) {
+            generer();
+        }
+        ZoneService zones = new ZoneService(mongoTemplate, 6, 1000, 10);
+        engine = new StatistiquesEngine(mongoTemplate, zones);
+        engine.reconcilier();
+        aggregation = new StatistiquesAggregationServiceImpl(mongoTemplate, zones);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public Statistiques findAll() {
+        List<Intervention> interventions = mongoTemplate.findAll(Intervention.class);
+        long total = interventions.size();
+        long terminee = interventions.stream()
+                .filter(i -> i.getStatut() == Intervention.Statut.TERMINEE)
+                .count();
+        Statistiques stats = new Statistiques();
+        stats.setTauxResolution(total == 0 ? 0.0 : (double) terminee / total);
+        stats.setTempsMoyenIntervention(interventions.stream()
+                .filter(i -> i.getDateDebut() != null && i.getDateFin() != null)
+                .mapToDouble(i -> (i.getDateFin().getTime() - i.getDateDebut().getTime()) / (1000.0 * 60 * 60))
+                .average()
+                .orElse(0.0));
+
+        Map<String, Integer> nbParService = new HashMap<>();
+        for (Intervention i : interventions) {
+            String nomService = "Inconnu";
+            if (i.getServiceMunicipalId() != null) {
+                ServiceMunicipal service = mongoTemplate.findById(i.getServiceMunicipalId(), ServiceMunicipal.class);
+                if (service != null) {
+                    nomService = service.getNom();
+                }
+            }
+            nbParService.put(nomService, nbParService.getOrDefault(nomService, 0) + 1);
+        }
+        stats.setNbInterventionsParService(nbParService);
+
+        Map<String, Double> perfTechniciens = new HashMap<>();
+        for (User t : mongoTemplate.findAll(User.class)) {
+            long count = interventions.stream()
+                    .filter(i -> i.getTechnicienId() != null
+                            && i.getTechnicienId().equals(t.getId())
+                            && i.getStatut() == Intervention.Statut.TERMINEE)
+                    .count();
+            perfTechniciens.put(t.getNom(), (double) count);
+        }
+        stats.setPerformanceTechniciens(perfTechniciens);
+        stats.setTopZonesProblemes(new ArrayList<>());
+        stats.setTauxSatisfactionCitoyens(total == 0 ? 0.0 : (double) terminee / total);
+        return stats;
+    }
+
+    @Benchmark
+    public Statistiques memoire() {
+        return engine.snapshot();
+    }
+
+    @Benchmark
+    public void reconciliation() {
+        engine.reconcilier();
+    }
+
+    @Benchmark
+    public Statistiques aggregation() {
+        return aggregation.calculerStatistiquesGenerales();
+    }
+
+    private void generer() {
+        mongoTemplate.getDb().drop();
+        Random random = new Random(42);
+
+        List<Document> services = new ArrayList<>();
+        for (int s = 0; s < NB_SERVICES; s++) {
+            services.add(new Document("_id", "service-" + s).append("nom", "Service " + s));
+        }
+        mongoTemplate.getCollection("services_municipaux").insertMany(services);
+
+        List<String> techniciens = new ArrayList<>();
+        List<Document> users = new ArrayList<>();
+        for (int t = 0; t < NB_TECHNICIENS; t++) {
+            ObjectId id = new ObjectId();
+            techniciens.add(id.toHexString());
+            users.add(new Document("_id", id).append("nom", "Technicien " + t).append("role", "TECHNICIEN"));
+        }
+        mongoTemplate.getCollection("users").insertMany(users);
+
+        MongoCollection<Document> interventions = mongoTemplate.getCollection("interventions");
+        Intervention.Statut[] statuts = Intervention.Statut.values();
+        List<Document> lot = new ArrayList<>(1000);
+        long maintenant = System.currentTimeMillis();
+        for (int i = 0; i < nbInterventions; i++) {
+            Intervention.Statut statut = statuts[random.nextInt(statuts.length)];
+            Date creation = new Date(maintenant - random.nextInt(365) * 86_400_000L);
+            Document d = new Document("titre", "Intervention " + i)
+                    .append("type", "MAINTENANCE")
+                    .append("description", "Description de l'intervention " + i)
+                    .append("urgence", random.nextBoolean() ? "NORMAL" : "URGENT")
+                    .append("statut", statut.name())
+                    .append("dateCreation", creation)
+                    .append("serviceMunicipalId", "service-" + random.nextInt(NB_SERVICES))
+                    .append("technicienId", techniciens.get(random.nextInt(NB_TECHNICIENS)));
+            if (statut == Intervention.Statut.TERMINEE) {
+                d.append("dateDebut", creation)
+                 .append("dateFin", new Date(creation.getTime() + random.nextInt(48) * 3_600_000L));
+            }
+            // Historique réaliste : c'est lui qui pèse dans la désérialisation côté JVM
+            List<Document> commentaires = new ArrayList<>();
+            List<Document> historique = new ArrayList<>();
+            for (int c = 0; c < 5; c++) {
+                commentaires.add(new Document("auteurId", "system").append("texte", "Commentaire " + c).append("date", creation));
+                historique.add(new Document("ancienStatut", "EN_ATTENTE").append("nouveauStatut", "EN_COURS")
+                        .append("dateChangement", creation).append("auteurId", "system"));
+            }
+            d.append("commentaires", commentaires).append("historiqueStatut", historique);
+            lot.add(d);
+            if (lot.size() == 1000) {
+                interventions.insertMany(lot);
+                lot.clear();
+            }
+        }
+        if (!lot.isEmpty()) {
+            interventions.insertMany(lot);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(StatistiquesBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,68 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.dto.TechnicienDTO;
+import com.cityconnect.smart_interventions.model.User;
+import com.cityconnect.smart_interventions.utils.GeoUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AffectationEngineTest {
+
+    @Test
+    void memesScoresQueLeParcoursComplet() {
+        Random random = new Random(42);
+        List<User> techniciens = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            User u = User.builder()
+                    .id("t" + i)
+                    .role(User.Role.TECHNICIEN)
+                    .disponibilite(true)
+                    .competences(random.nextBoolean() ? List.of("Electricite") : List.of("Plomberie"))
+                    .build();
+            if (i % 50 != 0) {
+                u.setLatitude(36.70 + random.nextDouble() * 0.2);
+                u.setLongitude(10.05 + random.nextDouble() * 0.3);
+            }
+            techniciens.add(u);
+        }
+        AffectationEngine engine = new AffectationEngine(null, 0.01);
+        engine.charger(techniciens);
+
+        for (String urgence : List.of("NORMAL", "URGENT")) {
+            for (int essai = 0; essai < 20; essai++) {
+                double lat = 36.60 + random.nextDouble() * 0.4;
+                double lng = 9.95 + random.nextDouble() * 0.5;
+                List<TechnicienDTO> top = engine.candidats(lat, lng, "ELECTRIQUE", urgence, 10);
+
+                List<String> requises = AffectationEngine.competencesRequises("ELECTRIQUE");
+                List<Integer> attendus = techniciens.stream()
+                        .map(u -> {
+                            double d = u.getLatitude() != null
+                                    ? GeoUtils.distanceKm(lat, lng, u.getLatitude(), u.getLongitude())
+                                    : Double.POSITIVE_INFINITY;
+                            return (int) Math.round(AffectationEngine.score(u, d, requises, "URGENT".equals(urgence)));
+                        })
+                        .sorted(Comparator.reverseOrder())
+                        .limit(10)
+                        .toList();
+                assertEquals(attendus, top.stream().map(TechnicienDTO::getScore).toList());
+            }
+        }
+    }
+
+    @Test
+    void ignorerLesTechniciensIndisponibles() {
+        AffectationEngine engine = new AffectationEngine(null, 0.01);
+        engine.charger(List.of(
+                User.builder().id("a").role(User.Role.TECHNICIEN).disponibilite(false).latitude(36.8).longitude(10.18).build(),
+                User.builder().id("b").role(User.Role.CITOYEN).disponibilite(true).latitude(36.8).longitude(10.18).build(),
+                User.builder().id("c").role(User.Role.TECHNICIEN).disponibilite(true).latitude(36.9).longitude(10.3).build()));
+
+        List<TechnicienDTO> top = engine.candidats(36.8, 10.18, "PLOMBERIE", "NORMAL", 5);
+        assertEquals(List.of("c"), top.stream().map(TechnicienDTO::getId).toList());
+        assertNotNull(top.get(0).getDistance());
+    }
+}
@@ -0,0 +1,81 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.dto.PageCurseurDTO;
+import com.cityconnect.smart_interventions.event.StockEvent;
+import com.cityconnect.smart_interventions.model.Notification;
+import com.cityconnect.smart_interventions.model.RessourceMaterielle;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertesStockTest {
+
+    private final List<Notification> envoyees = new ArrayList<>();
+    private final AlertesStock alertes = new AlertesStock(null, new NotificationService() {
+        @Override
+        public Notification send(Notification n) {
+            envoyees.add(n);
+            return n;
+        }
+
+        @Override
+        public List<Notification> getNotificationsForUser(String userId) {
+            return List.of();
+        }
+
+        @Override
+        public void markAsRead(String notifId) {
+        }
+
+        @Override
+        public List<Notification> getAll() {
+            return envoyees;
+        }
+
+        @Override
+        public PageCurseurDTO<Notification> getInbox(String userId, String curseur, int taille) {
+            return new PageCurseurDTO<>(List.of(), null);
+        }
+
+        @Override
+        public long getUnreadCount(String userId) {
+            return 0;
+        }
+
+        @Override
+        public long markAllAsRead(String userId) {
+            return 0;
+        }
+    });
+
+    private void mouvement(int quantite, long version) {
+        alertes.onStock(new StockEvent(StockEvent.Action.MOUVEMENT, RessourceMaterielle.builder()
+                .id("r1").nom("Câble").quantiteDisponible(quantite).seuilAlerte(10).versionStock(version).build()));
+    }
+
+    @Test
+    void uneSeuleNotificationParFranchissement() {
+        mouvement(15, 1);
+        mouvement(10, 2);
+        mouvement(4, 3);
+        mouvement(2, 4);
+        assertEquals(1, envoyees.size());
+        assertEquals(1, alertes.alertes().size());
+
+        mouvement(30, 5);
+        assertTrue(alertes.alertes().isEmpty());
+        mouvement(8, 6);
+        assertEquals(2, envoyees.size());
+    }
+
+    @Test
+    void ignorerUnEvenementPlusAncien() {
+        mouvement(50, 2);
+        mouvement(5, 1);
+        assertTrue(envoyees.isEmpty());
+        assertTrue(alertes.alertes().isEmpty());
+    }
+}
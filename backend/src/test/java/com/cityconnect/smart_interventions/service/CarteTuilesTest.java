@@ -0,0 +1,88 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.service.CarteTuiles.Couche;
+import com.cityconnect.smart_interventions.service.CarteTuiles.PointCarte;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarteTuilesTest {
+
+    private static final Set<Couche> TOUTES = EnumSet.allOf(Couche.class);
+
+    // Tuile contenant (lat, lng) au zoom z
+    private static int[] tuile(double lat, double lng, int z) {
+        int n = 1 << z;
+        int x = (int) Math.floor((lng + 180) / 360 * n);
+        double r = Math.toRadians(lat);
+        int y = (int) Math.floor((1 - Math.log(Math.tan(r) + 1 / Math.cos(r)) / Math.PI) / 2 * n);
+        return new int[]{x, y};
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int total(Map<String, Object> geoJson) {
+        int total = 0;
+        for (Map<String, Object> f : (List<Map<String, Object>>) geoJson.get("features")) {
+            Map<String, Object> p = (Map<String, Object>) f.get("properties");
+            total += p.containsKey("total") ? (Integer) p.get("total") : 1;
+        }
+        return total;
+    }
+
+    @Test
+    void regrouperSansPerdreDePoints() {
+        Random random = new Random(3);
+        List<PointCarte> points = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            points.add(PointCarte.de(Couche.values()[i % 3], "p" + i,
+                    36.75 + random.nextDouble() * 0.1, 10.10 + random.nextDouble() * 0.15, "T", "S"));
+        }
+        CarteTuiles carte = new CarteTuiles(null, 16);
+        carte.charger(points);
+
+        Map<String, Object> monde = carte.tuile(0, 0, 0, TOUTES).geoJson();
+        assertEquals(3000, total(monde));
+        assertEquals(1, ((List<?>) monde.get("features")).size());
+
+        int[] t = tuile(36.80, 10.17, 12);
+        Map<String, Object> ville = carte.tuile(12, t[0], t[1], TOUTES).geoJson();
+        double[] e = CarteTuiles.emprise(12, t[0], t[1]);
+        long dansTuile = points.stream()
+                .filter(p -> p.lat() > e[0] && p.lat() <= e[2] && p.lng() >= e[1] && p.lng() < e[3])
+                .count();
+        assertEquals(dansTuile, total(ville));
+        assertTrue(((List<?>) ville.get("features")).size() < dansTuile / 4);
+
+        assertEquals(1000, total(carte.tuile(0, 0, 0, EnumSet.of(Couche.EQUIPEMENT)).geoJson()));
+    }
+
+    @Test
+    void etagChangeSeulementPourLesTuilesTouchees() {
+        CarteTuiles carte = new CarteTuiles(null, 16);
+        carte.charger(List.of(
+                PointCarte.de(Couche.SIGNALEMENT, "tunis", 36.80, 10.18, "POTHOLE", "RECU"),
+                PointCarte.de(Couche.SIGNALEMENT, "sfax", 34.74, 10.76, "POTHOLE", "RECU")));
+        int[] tunis = tuile(36.80, 10.18, 14);
+        int[] sfax = tuile(34.74, 10.76, 14);
+        String etagTunis = carte.etag(14, tunis[0], tunis[1], TOUTES);
+        String etagSfax = carte.etag(14, sfax[0], sfax[1], TOUTES);
+
+        carte.placer(PointCarte.de(Couche.SIGNALEMENT, "tunis", 36.80, 10.18, "POTHOLE", "RESOLU"));
+
+        assertNotEquals(etagTunis, carte.etag(14, tunis[0], tunis[1], TOUTES));
+        assertEquals(etagSfax, carte.etag(14, sfax[0], sfax[1], TOUTES));
+        assertEquals(etagSfax, carte.tuile(14, sfax[0], sfax[1], TOUTES).etag());
+    }
+
+    @Test
+    void refuserUneTuileHorsGrille() {
+        assertThrows(IllegalArgumentException.class, () -> CarteTuiles.emprise(2, 4, 0));
+        double[] e = CarteTuiles.emprise(1, 1, 0);
+        assertEquals(0, e[0], 1e-9);
+        assertEquals(0, e[1], 1e-9);
+        assertEquals(85.0511, e[2], 1e-4);
+        assertEquals(180, e[3], 1e-9);
+    }
+}
@@ -0,0 +1,88 @@
+package com.cityconnect.smart_interventions.service;
+
+import com.cityconnect.smart_interventions.event.PositionTechnicienEvent;
+import com.cityconnect.smart_interventions.event.UserEvent;
+import com.cityconnect.smart_interventions.exception.ResourceNotFoundException;
+import com.cityconnect.smart_interventions.model.User;
+import com.cityconnect.smart_interventions.repository.UserRepository;
+import com.cityconnect.smart_interventions.service.impl.UserServiceImpl;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PositionsTechniciensTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulk = mock(BulkOperations.class);
+    private final List<Object> publies = new ArrayList<>();
+    private final ApplicationEventPublisher events = publies::add;
+    private final PositionsTechniciens positions = new PositionsTechniciens(mongoTemplate, events, 1000, false, 0, 30);
+
+    PositionsTechniciensTest() {
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(User.class))).thenReturn(bulk);
+    }
+
+    @Test
+    void flushEcritLaDernierePositionParTechnicien() {
+        positions.enregistrer("t1", 36.80, 10.18);
+        positions.enregistrer("t1", 36.81, 10.19);
+        positions.enregistrer("t2", 36.70, 10.10);
+        positions.enregistrer("t1", 36.82, 10.20);
+        assertEquals(2, positions.nombreEnAttente());
+        assertEquals(4, publies.size());
+
+        positions.flush();
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(2)).updateOne(any(Query.class), updates.capture());
+        verify(bulk, times(1)).execute();
+        Set<Object> latitudes = new HashSet<>();
+        updates.getAllValues().forEach(u -> latitudes.add(u.getUpdateObject().get("$set", Document.class).get("latitude")));
+        assertEquals(Set.of(36.82, 36.70), latitudes);
+        assertEquals(0, positions.nombreEnAttente());
+    }
+
+    @Test
+    void flushEnEchecRemetEnAttente() {
+        positions.enregistrer("t1", 36.80, 10.18);
+        when(bulk.execute()).thenThrow(new IllegalStateException("MongoDB indisponible"));
+        positions.flush();
+        assertEquals(1, positions.nombreEnAttente());
+    }
+
+    @Test
+    void positionRefuseeHorsTechniciens() {
+        UserRepository repository = mock(UserRepository.class);
+        RegistreTechniciens registre = new RegistreTechniciens(mongoTemplate, positions, 30000);
+        UserService service = new UserServiceImpl(repository, events, positions, registre, mongoTemplate);
+
+        User citoyen = User.builder().id("c1").role(User.Role.CITOYEN).build();
+        when(repository.findById("c1")).thenReturn(Optional.of(citoyen));
+        when(repository.findById("inconnu")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> service.enregistrerPosition("inconnu", 36.8, 10.1));
+        assertThrows(IllegalArgumentException.class, () -> service.enregistrerPosition("c1", 36.8, 10.1));
+        assertEquals(0, positions.nombreEnAttente());
+        assertTrue(publies.isEmpty());
+
+        // Technicien du registre : accepté sans lecture en base
+        registre.onUser(new UserEvent(UserEvent.Action.CREE, null,
+                User.builder().id("t1").nom("Ben Ali").role(User.Role.TECHNICIEN).disponibilite(true).build()));
+        service.enregistrerPosition("t1", 36.8, 10.1);
+        verify(repository, never()).findById("t1");
+        assertEquals(1, positions.nombreEnAttente());
+        assertInstanceOf(PositionTechnicienEvent.class, publies.get(0));
+    }
+}
@@ -0,0 +1,177 @@
+package com.cityconnect.smart_interventions.service.impl;
+
+import com.cityconnect.smart_interventions.event.NotificationEvent;
+import com.cityconnect.smart_interventions.model.CompteurNotifications;
+import com.cityconnect.smart_interventions.model.Notification;
+import com.cityconnect.smart_interventions.repository.NotificationRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class NotificationServiceImplTest {
+
+    private final NotificationRepository repository = mock(NotificationRepository.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final List<Notification> publiees = Collections.synchronizedList(new ArrayList<>());
+    private final ApplicationEventPublisher events = e -> publiees.add(((NotificationEvent) e).getNotification());
+    private final List<Notification> enregistrees = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger ids = new AtomicInteger();
+
+    private NotificationServiceImpl service(long fenetreMs, Set<String> typesDigest, long latenceSaveMs) {
+        when(repository.save(any(Notification.class))).thenAnswer(inv -> {
+            if (latenceSaveMs > 0) Thread.sleep(latenceSaveMs);
+            Notification n = inv.getArgument(0);
+            n.setId("n" + ids.incrementAndGet());
+            enregistrees.add(n);
+            return n;
+        });
+        NotificationServiceImpl service = new NotificationServiceImpl(repository, events, mongoTemplate);
+        ReflectionTestUtils.setField(service, "fenetreMs", fenetreMs);
+        ReflectionTestUtils.setField(service, "typesDigest", typesDigest);
+        return service;
+    }
+
+    private static Notification notif(String type, String message) {
+        Notification n = new Notification();
+        n.setCitoyenId("c1");
+        n.setInterventionId("i1");
+        n.setTypeNotification(type);
+        n.setMessage(message);
+        return n;
+    }
+
+    @Test
+    void digestsConcurrentsAvecEnvoisSansPerte() throws Exception {
+        NotificationServiceImpl service = service(0, Set.of("INFO"), 0);
+        int threads = 8, parThread = 2000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Future<?>> envois = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            envois.add(pool.submit(() -> {
+                depart.await();
+                for (int i = 0; i < parThread; i++) service.send(notif("INFO", "m" + i));
+                return null;
+            }));
+        }
+        Future<?> vidage = pool.submit(() -> {
+            depart.await();
+            while (envois.stream().anyMatch(f -> !f.isDone())) service.envoyerDigests();
+            return null;
+        });
+        depart.countDown();
+        for (Future<?> f : envois) f.get(30, TimeUnit.SECONDS);
+        vidage.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+        service.envoyerDigests();
+
+        int total = enregistrees.stream().mapToInt(Notification::getNombre).sum();
+        assertEquals(threads * parThread, total);
+        assertTrue(enregistrees.stream().allMatch(n -> NotificationServiceImpl.TYPE_DIGEST.equals(n.getTypeNotification())));
+    }
+
+    @Test
+    void coalescenceNombreEtDateEnvoiInchangee() throws Exception {
+        NotificationServiceImpl service = service(60_000, Set.of(), 100);
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(Notification.class)))
+                .thenAnswer(inv -> {
+                    Notification avant = new Notification();
+                    avant.setId(enregistrees.get(0).getId());
+                    avant.setCitoyenId("c1");
+                    avant.setNombre(1);
+                    avant.setDateEnvoi(enregistrees.get(0).getDateEnvoi());
+                    return avant;
+                });
+
+        // Les appels absorbés pendant l'écriture de l'origine attendent son id
+        int nb = 10;
+        ExecutorService pool = Executors.newFixedThreadPool(nb);
+        List<Future<Notification>> retours = new ArrayList<>();
+        for (int i = 0; i < nb; i++) {
+            String message = "m" + i;
+            retours.add(pool.submit(() -> service.send(notif("ALERTE", message))));
+        }
+        for (Future<Notification> f : retours) {
+            assertEquals("n1", f.get(10, TimeUnit.SECONDS).getId());
+        }
+        pool.shutdown();
+        assertEquals(1, enregistrees.size());
+        Date dateEnvoi = enregistrees.get(0).getDateEnvoi();
+
+        service.viderFenetres();
+
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(),
+                any(FindAndModifyOptions.class), eq(Notification.class));
+        Document modifs = update.getValue().getUpdateObject();
+        assertEquals(nb - 1, ((Number) modifs.get("$inc", Document.class).get("nombre")).intValue());
+        assertFalse(modifs.get("$set", Document.class).containsKey("dateEnvoi"));
+        assertTrue(modifs.get("$set", Document.class).containsKey("derniereMiseAJour"));
+
+        Notification fusion = publiees.get(publiees.size() - 1);
+        assertEquals(nb, fusion.getNombre());
+        assertEquals(dateEnvoi, fusion.getDateEnvoi());
+    }
+
+    @Test
+    void echecDeLOrigineRenduAuxAppelsAbsorbes() throws Exception {
+        NotificationServiceImpl service = service(60_000, Set.of(), 0);
+        when(repository.save(any(Notification.class))).thenAnswer(inv -> {
+            Thread.sleep(100);
+            throw new IllegalStateException("MongoDB indisponible");
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(5);
+        List<Future<Notification>> retours = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            retours.add(pool.submit(() -> service.send(notif("ALERTE", "m"))));
+        }
+        for (Future<Notification> f : retours) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    void reconciliationNeReecritPasUnCompteurModifiePendantLeCalcul() {
+        NotificationServiceImpl service = service(0, Set.of(), 0);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(CompteurNotifications.class))).thenReturn(bulk);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Notification.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(new Document("_id", "c1").append("nb", 3)), new Document()))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        service.reconcilierCompteurs();
+
+        // Création seulement si absent, écrasement seulement sans écriture depuis le début du calcul
+        ArgumentCaptor<Update> upsert = ArgumentCaptor.forClass(Update.class);
+        verify(bulk).upsert(any(Query.class), upsert.capture());
+        assertFalse(upsert.getValue().getUpdateObject().containsKey("$set"));
+        ArgumentCaptor<Query> conditions = ArgumentCaptor.forClass(Query.class);
+        verify(bulk).updateOne(conditions.capture(), any(Update.class));
+        verify(bulk).updateMulti(conditions.capture(), any(Update.class));
+        conditions.getAllValues().forEach(q -> assertTrue(q.getQueryObject().toJson().contains("derniereEcriture")));
+        verify(bulk).execute();
+    }
+}
@@ -0,0 +1,198 @@
+package com.cityconnect.smart_interventions.service.impl;
+
+import com.cityconnect.smart_interventions.exception.ConflitException;
+import com.cityconnect.smart_interventions.model.MouvementStock;
+import com.cityconnect.smart_interventions.model.ReservationRessource;
+import com.cityconnect.smart_interventions.model.RessourceMaterielle;
+import com.cityconnect.smart_interventions.repository.RessourceMaterielleRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * L'atomicité des mouvements est celle d'un findAndModify MongoDB : ces tests vérifient seulement
+ * les conditions et les opérateurs ($inc / $set) que le service envoie, et sa réaction au résultat.
+ */
+class RessourceMaterielleServiceImplTest {
+
+    private MongoTemplate mongoTemplate;
+    private RessourceMaterielleServiceImpl service;
+
+    @BeforeEach
+    void preparer() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.insert(any(Object.class))).thenAnswer(inv -> inv.getArgument(0));
+        service = new RessourceMaterielleServiceImpl(mock(RessourceMaterielleRepository.class), mongoTemplate, e -> { });
+    }
+
+    @Test
+    void reservationConditionneeSurLeStockDisponible() {
+        stockApres(ressource(97, 3));
+
+        ReservationRessource r = service.reserver("r1", "i1", 3);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), options.capture(), eq(RessourceMaterielle.class));
+        // Condition et décrémentation dans la même écriture
+        assertEquals(new Document("_id", "r1").append("quantiteDisponible", new Document("$gte", 3)),
+                query.getValue().getQueryObject());
+        assertEquals(new Document("quantiteDisponible", -3).append("quantiteReservee", 3).append("versionStock", 1),
+                update.getValue().getUpdateObject().get("$inc"));
+        assertTrue(options.getValue().isReturnNew());
+
+        assertEquals(ReservationRessource.Statut.ACTIVE, r.getStatut());
+        assertEquals(3, r.getQuantite());
+        assertEquals(List.of(MouvementStock.Type.RESERVATION), mouvements());
+    }
+
+    @Test
+    void refusSelonLExistenceDeLaRessource() {
+        stockApres(null);
+        when(mongoTemplate.exists(any(Query.class), eq(RessourceMaterielle.class))).thenReturn(true);
+        assertThrows(ConflitException.class, () -> service.reserver("r1", "i1", 101));
+        assertThrows(ConflitException.class, () -> service.enregistrerUtilisation("r1", "i1", 101));
+
+        when(mongoTemplate.exists(any(Query.class), eq(RessourceMaterielle.class))).thenReturn(false);
+        RuntimeException e = assertThrows(RuntimeException.class, () -> service.reserver("inconnue", "i1", 1));
+        assertFalse(e instanceof ConflitException);
+
+        verify(mongoTemplate, never()).insert(any(Object.class));
+        assertThrows(IllegalArgumentException.class, () -> service.reserver("r1", "i1", 0));
+    }
+
+    @Test
+    void echecDInsertionDeLaReservationRendLeStock() {
+        stockApres(ressource(97, 3));
+        when(mongoTemplate.insert(any(ReservationRessource.class))).thenThrow(new IllegalStateException("panne"));
+
+        assertThrows(IllegalStateException.class, () -> service.reserver("r1", "i1", 3));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate, times(2)).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(RessourceMaterielle.class));
+        // Compensation sans condition : la quantité décrémentée revient toujours
+        assertEquals(new Document("_id", "r1"), query.getAllValues().get(1).getQueryObject());
+        assertEquals(new Document("quantiteDisponible", 3).append("quantiteReservee", -3).append("versionStock", 1),
+                update.getAllValues().get(1).getUpdateObject().get("$inc"));
+    }
+
+    @Test
+    void liberationConditionneeSurUneReservationActive() {
+        reservationApres(reservation(30));
+        stockApres(ressource(100, 0));
+
+        service.libererReservation("res1");
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(ReservationRessource.class));
+        assertEquals(new Document("_id", "res1").append("statut", ReservationRessource.Statut.ACTIVE),
+                query.getValue().getQueryObject());
+        assertEquals(ReservationRessource.Statut.LIBEREE,
+                update.getValue().getUpdateObject().get("$set", Document.class).get("statut"));
+
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(RessourceMaterielle.class));
+        assertEquals(new Document("_id", "r1"), query.getValue().getQueryObject());
+        assertEquals(new Document("quantiteDisponible", 30).append("quantiteReservee", -30).append("versionStock", 1),
+                update.getValue().getUpdateObject().get("$inc"));
+        assertEquals(List.of(MouvementStock.Type.LIBERATION), mouvements());
+    }
+
+    @Test
+    void reservationDejaClotureeNiLibereeNiConsommee() {
+        reservationApres(null);
+        when(mongoTemplate.findById("res1", ReservationRessource.class)).thenReturn(reservation(30));
+        when(mongoTemplate.exists(any(Query.class), eq(ReservationRessource.class))).thenReturn(true);
+
+        assertThrows(ConflitException.class, () -> service.libererReservation("res1"));
+        assertThrows(ConflitException.class, () -> service.consommerReservation("res1", null));
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(RessourceMaterielle.class));
+    }
+
+    @Test
+    void consommationPartielleRendLeReste() {
+        when(mongoTemplate.findById("res1", ReservationRessource.class)).thenReturn(reservation(30));
+        reservationApres(reservation(30));
+        stockApres(ressource(88, 0));
+
+        service.consommerReservation("res1", 12);
+
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class), eq(ReservationRessource.class));
+        assertEquals(12, update.getValue().getUpdateObject().get("$set", Document.class).get("quantiteConsommee"));
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class), eq(RessourceMaterielle.class));
+        Document stock = update.getValue().getUpdateObject();
+        assertEquals(new Document("quantiteReservee", -30).append("quantiteDisponible", 18).append("versionStock", 1),
+                stock.get("$inc"));
+        assertTrue(stock.get("$push", Document.class).containsKey("utilisationsRecent"));
+        assertEquals(List.of(MouvementStock.Type.CONSOMMATION, MouvementStock.Type.LIBERATION), mouvements());
+
+        assertThrows(IllegalArgumentException.class, () -> service.consommerReservation("res1", 31));
+    }
+
+    @Test
+    void ajustementDeQuantiteConditionneSurLaVersionLue() {
+        when(mongoTemplate.exists(any(Query.class), eq(RessourceMaterielle.class))).thenReturn(true);
+        RessourceMaterielle corps = RessourceMaterielle.builder().nom("Câble").quantiteDisponible(80).versionStock(7L).build();
+
+        // Stock modifié depuis la lecture : findAndModify ne trouve rien, 409
+        assertThrows(ConflitException.class, () -> service.update("r1", corps));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(RessourceMaterielle.class));
+        assertEquals(7L, query.getValue().getQueryObject().get("versionStock"));
+        assertEquals(80, update.getValue().getUpdateObject().get("$set", Document.class).get("quantiteDisponible"));
+
+        // Quantité sans version : refusée ; sans quantité : pas de condition sur la version
+        corps.setVersionStock(null);
+        assertThrows(IllegalArgumentException.class, () -> service.update("r1", corps));
+        corps.setQuantiteDisponible(null);
+        assertThrows(RuntimeException.class, () -> service.update("r1", corps));
+        verify(mongoTemplate, times(2)).findAndModify(query.capture(), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(RessourceMaterielle.class));
+        assertFalse(query.getValue().getQueryObject().containsKey("versionStock"));
+    }
+
+    private void stockApres(RessourceMaterielle r) {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(RessourceMaterielle.class))).thenReturn(r);
+    }
+
+    private void reservationApres(ReservationRessource r) {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(ReservationRessource.class))).thenReturn(r);
+    }
+
+    private List<MouvementStock.Type> mouvements() {
+        ArgumentCaptor<Object> inseres = ArgumentCaptor.forClass(Object.class);
+        verify(mongoTemplate, atLeast(0)).insert(inseres.capture());
+        return inseres.getAllValues().stream()
+                .filter(MouvementStock.class::isInstance)
+                .map(o -> ((MouvementStock) o).getType())
+                .toList();
+    }
+
+    private static RessourceMaterielle ressource(int disponible, int reservee) {
+        return RessourceMaterielle.builder().id("r1").nom("Câble")
+                .quantiteDisponible(disponible).quantiteReservee(reservee).versionStock(1L).build();
+    }
+
+    private static ReservationRessource reservation(int quantite) {
+        return ReservationRessource.builder().id("res1").ressourceId("r1").interventionId("i1")
+                .quantite(quantite).statut(ReservationRessource.Statut.ACTIVE).build();
+    }
+}
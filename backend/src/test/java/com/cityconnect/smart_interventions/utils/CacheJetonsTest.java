@@ -0,0 +1,50 @@
+package com.cityconnect.smart_interventions.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheJetonsTest {
+
+    @Test
+    void evincerLeMoinsRecemmentUtilise() {
+        CacheJetons<String> cache = new CacheJetons<>(2);
+        cache.put("a", "A", 1000);
+        cache.put("b", "B", 1000);
+        assertEquals("A", cache.get("a", 0));
+        cache.put("c", "C", 1000);
+        assertNull(cache.get("b", 0));
+        assertEquals("A", cache.get("a", 0));
+        assertEquals("C", cache.get("c", 0));
+        assertEquals(2, cache.taille());
+    }
+
+    @Test
+    void nePlusServirUneEntreeExpiree() {
+        CacheJetons<String> cache = new CacheJetons<>(10);
+        cache.put("a", "A", 1000);
+        assertEquals("A", cache.get("a", 999));
+        assertNull(cache.get("a", 1000));
+        assertEquals(0, cache.taille());
+    }
+
+    @Test
+    void verifierUneSeuleFoisPuisServirDuCache() {
+        JwtUtils jwtUtils = new JwtUtils(100, 3600000);
+        String token = jwtUtils.generateToken("u1", "u1@ville.tn", "ADMIN");
+        JwtUtils.Jeton jeton = jwtUtils.verifier(token);
+        assertEquals("u1", jeton.userId());
+        assertEquals("ADMIN", jeton.role());
+        assertSame(jeton, jwtUtils.verifier(token));
+        assertNull(jwtUtils.verifier(token + "x"));
+    }
+
+    @Test
+    void separerJetonDAccesEtJetonDeRafraichissement() {
+        JwtUtils jwtUtils = new JwtUtils(100, 3600000);
+        String refresh = jwtUtils.generateRefreshToken("u1", 7);
+        assertNull(jwtUtils.verifier(refresh));
+        assertEquals(new JwtUtils.Refresh("u1", 7), jwtUtils.verifierRefresh(refresh));
+        assertNull(jwtUtils.verifierRefresh(jwtUtils.generateToken("u1", "u1@ville.tn", "ADMIN")));
+    }
+}
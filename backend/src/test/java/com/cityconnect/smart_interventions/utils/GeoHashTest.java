@@ -0,0 +1,17 @@
+package com.cityconnect.smart_interventions.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoHashTest {
+
+    @Test
+    void geohashConnu() {
+        // Exemple de référence de geohash.org
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+        double[] box = GeoHash.boundingBox("u4pruy");
+        assertTrue(box[0] <= 57.64911 && 57.64911 <= box[2]);
+        assertTrue(box[1] <= 10.40744 && 10.40744 <= box[3]);
+    }
+}
@@ -0,0 +1,41 @@
+package com.cityconnect.smart_interventions.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoUtilsTest {
+
+    @Test
+    void coordonneesVersPointGeoJson() {
+        // "lat, lng" saisi par le formulaire ; GeoJSON attend (longitude, latitude)
+        GeoJsonPoint p = GeoUtils.versPoint(GeoUtils.parseCoordonnees("36.8065, 10.1815"));
+        assertEquals(10.1815, p.getX(), 1e-9);
+        assertEquals(36.8065, p.getY(), 1e-9);
+        assertArrayEquals(new double[]{36.8065, 10.1815}, GeoUtils.depuisPoint(p), 1e-9);
+    }
+
+    @Test
+    void coordonneesIllisibles() {
+        assertNull(GeoUtils.versPoint(GeoUtils.parseCoordonnees("Non spécifié")));
+        assertNull(GeoUtils.versPoint(GeoUtils.parseCoordonnees("95, 10")));
+        assertNull(GeoUtils.versPoint(GeoUtils.parseCoordonnees(null)));
+    }
+
+    @Test
+    void bornesDesRecherches() {
+        assertDoesNotThrow(() -> GeoUtils.verifierCercle(36.8, 10.18, 50, 50));
+        assertThrows(IllegalArgumentException.class, () -> GeoUtils.verifierCercle(91, 10.18, 2, 50));
+        assertThrows(IllegalArgumentException.class, () -> GeoUtils.verifierCercle(36.8, 10.18, 0, 50));
+        assertThrows(IllegalArgumentException.class, () -> GeoUtils.verifierCercle(36.8, 10.18, 51, 50));
+
+        assertDoesNotThrow(() -> GeoUtils.verifierEmprise(36.7, 10.1, 36.9, 10.3));
+        assertThrows(IllegalArgumentException.class, () -> GeoUtils.verifierEmprise(36.9, 10.1, 36.7, 10.3));
+        assertThrows(IllegalArgumentException.class, () -> GeoUtils.verifierEmprise(36.7, 10.3, 36.9, 10.1));
+
+        assertDoesNotThrow(() -> GeoUtils.verifierLimite(2000, 2000));
+        assertThrows(IllegalArgumentException.class, () -> GeoUtils.verifierLimite(0, 2000));
+        assertThrows(IllegalArgumentException.class, () -> GeoUtils.verifierLimite(2001, 2000));
+    }
+}
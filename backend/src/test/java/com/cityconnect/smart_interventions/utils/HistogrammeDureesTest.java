@@ -0,0 +1,31 @@
+package com.cityconnect.smart_interventions.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogrammeDureesTest {
+
+    @Test
+    void percentilesAvecErreurRelativeBornee() {
+        HistogrammeDurees h = new HistogrammeDurees();
+        for (long v = 1; v <= 10000; v++) {
+            h.enregistrer(v);
+        }
+        assertEquals(10000, h.nombre());
+        assertEquals(5000, h.percentile(50), 5000 * 0.04);
+        assertEquals(9900, h.percentile(99), 9900 * 0.04);
+        assertEquals(10000, h.percentile(100));
+    }
+
+    @Test
+    void retirerRecalculeLeMax() {
+        HistogrammeDurees h = new HistogrammeDurees();
+        h.enregistrer(60);
+        h.enregistrer(86400);
+        h.retirer(86400);
+        assertEquals(1, h.nombre());
+        assertTrue(h.max() < 86400);
+        assertEquals(60, h.percentile(99), 60 * 0.04);
+    }
+}
@@ -0,0 +1,24 @@
+package com.cityconnect.smart_interventions.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingTest {
+
+    @Test
+    void garderLesClesFrequentesMalgreLesEvictions() {
+        SpaceSaving<String> sketch = new SpaceSaving<>(3);
+        for (int i = 0; i < 100; i++) {
+            sketch.ajouter("chaude");
+            sketch.ajouter("bruit" + i);
+        }
+        List<Map.Entry<String, Long>> top = sketch.top(1);
+        assertEquals("chaude", top.get(0).getKey());
+        assertTrue(top.get(0).getValue() >= 100);
+        assertEquals(200, sketch.total());
+    }
+}
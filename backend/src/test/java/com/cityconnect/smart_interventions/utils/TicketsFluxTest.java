@@ -0,0 +1,28 @@
+package com.cityconnect.smart_interventions.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketsFluxTest {
+
+    private final JwtUtils.Jeton jeton = new JwtUtils.Jeton("t1", "t1@ville.tn", "TECHNICIEN", new Date());
+
+    @Test
+    void ticketUtilisableUneSeuleFois() {
+        TicketsFlux tickets = new TicketsFlux(30000);
+        String ticket = tickets.emettre(jeton);
+        assertNotEquals(ticket, tickets.emettre(jeton));
+        assertEquals(jeton, tickets.consommer(ticket));
+        assertNull(tickets.consommer(ticket));
+        assertNull(tickets.consommer("inconnu"));
+    }
+
+    @Test
+    void ticketExpireRefuse() {
+        TicketsFlux tickets = new TicketsFlux(0);
+        assertNull(tickets.consommer(tickets.emettre(jeton)));
+    }
+}
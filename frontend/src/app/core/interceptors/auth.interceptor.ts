@@ -1,25 +1,52 @@
 import { inject } from '@angular/core';
-import { HttpInterceptorFn, HttpRequest, HttpHandlerFn } from '@angular/common/http';
+import { HttpInterceptorFn, HttpRequest, HttpHandlerFn, HttpErrorResponse } from '@angular/common/http';
+import { Observable, throwError } from 'rxjs';
+import { catchError, finalize, shareReplay, switchMap } from 'rxjs/operators';
 import { AuthService } from '../services/auth.service';
 
+// Un seul renouvellement en cours, partagé par toutes les requêtes refusées en même temps
+let refreshEnCours: Observable<string> | null = null;
+
+const avecToken = (req: HttpRequest<any>, token: string) =>
+  req.clone({
+    setHeaders: {
+      Authorization: `Bearer ${token}`
+    }
+  });
+
 export const authInterceptor: HttpInterceptorFn = (req: HttpRequest<any>, next: HttpHandlerFn) => {
   const auth = inject(AuthService);
   const token = auth.getToken();
 
   // NE PAS ajouter le token aux requêtes d'authentification
   const isAuthRequest = req.url.includes('/api/auth/');
-  
+
   if (token && !isAuthRequest) {
     console.log('Interceptor: Adding token to request', req.url);
-    const cloned = req.clone({
-      setHeaders: {
-        Authorization: `Bearer ${token}`
-      }
-    });
-    return next(cloned);
+    return next(avecToken(req, token)).pipe(
+      catchError(error => {
+        // Jeton d'accès expiré : renouvellement via le jeton de rafraîchissement puis nouvel essai
+        if (!(error instanceof HttpErrorResponse) || error.status !== 401 || !localStorage.getItem('refreshToken')) {
+          return throwError(() => error);
+        }
+        if (!refreshEnCours) {
+          refreshEnCours = auth.refresh().pipe(
+            finalize(() => refreshEnCours = null),
+            shareReplay(1)
+          );
+        }
+        return refreshEnCours.pipe(
+          catchError(refreshError => {
+            auth.logout();
+            return throwError(() => refreshError);
+          }),
+          switchMap(nouveau => next(avecToken(req, nouveau)))
+        );
+      })
+    );
   } else {
     console.log('Interceptor: No token or auth request', req.url);
   }
-  
+
   return next(req);
-};
\ No newline at end of file
+};
@@ -10,6 +10,18 @@ export interface InterventionResume {
   technicien: string;
 }
 
+// Vue allégée renvoyée par les recherches géographiques (/proches, /carte)
+export interface EquipementResume {
+  id: string;
+  type: string;
+  adresse: string;
+  etat: 'FONCTIONNEL' | 'DEFECTUEUX';
+  latitude?: number;
+  longitude?: number;
+  zone?: string;
+  distanceKm?: number;
+}
+
 export interface Equipement {
   id?: string;
   type: string;
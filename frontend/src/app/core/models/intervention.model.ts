@@ -15,7 +15,8 @@ export interface Intervention {
   id?: string;
   titre: string;
   type: string;
-  description: string;
+  // Absente des listes (InterventionSummary) : détail sur GET /api/interventions/{id}
+  description?: string;
   urgence: 'NORMAL' | 'URGENT';
   statut: 'EN_ATTENTE' | 'EN_COURS' | 'TERMINEE';
   dateCreation: Date;
@@ -23,8 +24,11 @@ export interface Intervention {
   technicienId: string;
  citoyenId?: string; 
   serviceMunicipalId: string;
-  commentaires?: Commentaire[];
-  historiqueStatut?: HistoriqueStatut[];
+  // Listes complètes : GET /api/interventions/{id}/commentaires et /{id}/historique
+  nbCommentaires?: number;
+  dernierCommentaire?: Commentaire;
+  nbChangementsStatut?: number;
+  dernierChangementStatut?: HistoriqueStatut;
   dateDebut?: Date;
   dateFin?: Date;
   dureeReelle?: number;
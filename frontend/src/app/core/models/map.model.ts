@@ -1,45 +1,24 @@
-export interface MapLocation {
-  lat: number;
-  lng: number;
-  address?: string;
-  city?: string;
+// Tuile GeoJSON servie par /api/carte/tuiles/{z}/{x}/{y} : points isolés ou groupes (groupe = true)
+export type CoucheCarte = 'SIGNALEMENT' | 'EQUIPEMENT' | 'TECHNICIEN';
+
+export interface TuileFeature {
+  type: 'Feature';
+  geometry: { type: 'Point'; coordinates: [number, number] };
+  properties: {
+    groupe?: boolean;
+    cellule?: string;
+    total?: number;
+    parCouche?: { [couche in CoucheCarte]?: number };
+    couche?: CoucheCarte;
+    id?: string;
+    type?: string;
+    statut?: string;
+  };
 }
 
-export type IncidentType = 'POTHOLE' | 'LIGHTING' | 'GARBAGE' | 'TREE' | 'WATER' | 'OTHER';
-export type IncidentStatus = 'PENDING' | 'IN_PROGRESS' | 'RESOLVED' | 'URGENT';
-export type TechnicianStatus = 'AVAILABLE' | 'BUSY' | 'OFFLINE';
-export type EquipmentStatus = 'OPERATIONAL' | 'MAINTENANCE' | 'OUT_OF_SERVICE';
-
-export interface Incident {
-  id: string;
-  type: IncidentType;
-  status: IncidentStatus;
-  location: MapLocation;
-  description: string;
-  reportedAt: Date;
-  updatedAt: Date;
-  reporterName?: string;
-  priority: number;
-  assignedTo?: string;
-  images?: string[];
-}
-
-export interface Technician {
-  id: string;
-  name: string;
-  location: MapLocation;
-  status: TechnicianStatus;
-  currentIntervention?: string;
-  vehicle?: string;
-  lastUpdate: Date;
-}
-
-export interface Equipment {
-  id: string;
-  type: string;
-  location: MapLocation;
-  status: EquipmentStatus;
-  lastMaintenance: Date;
+export interface TuileCarte {
+  type: 'FeatureCollection';
+  features: TuileFeature[];
 }
 
 export interface WeatherData {
@@ -67,11 +46,3 @@ export interface MapLayers {
   weather: boolean;
   traffic: boolean;
 }
-
-// Types pour les statistiques
-export interface MapStats {
-  pendingIncidents: number;
-  activeTechnicians: number;
-  urgentIncidents: number;
-  resolvedToday: number;
-}
\ No newline at end of file
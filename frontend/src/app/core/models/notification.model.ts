@@ -9,5 +9,7 @@ export interface AppNotification {
   citoyenId?: string;
   technicienId?: string;
   interventionId?: string;
+  nombre?: number;
+  derniereMiseAJour?: Date;   // Dernier regroupement (dateEnvoi reste celle du premier envoi)
   dateCreation: Date;
 }
\ No newline at end of file
@@ -28,4 +28,19 @@ export interface Signalement {
   
   contactNom: string;  
   contactEmail: string;  
-  contactTelephone?: string; }
\ No newline at end of file
+  contactTelephone?: string; }
+
+// Vue allégée renvoyée par les recherches géographiques (/proches, /carte)
+export interface SignalementResume {
+  id: string;
+  titre: string;
+  type: string;
+  urgence: string;
+  statut: StatutSignalement;
+  adresse: string;
+  latitude?: number;
+  longitude?: number;
+  zone?: string;
+  dateCreation?: Date;
+  distanceKm?: number;
+}
@@ -1,7 +1,7 @@
 import { inject, Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { BehaviorSubject, throwError ,Observable} from 'rxjs';
-import { tap, catchError } from 'rxjs/operators';
+import { tap, catchError, map } from 'rxjs/operators';
 import { User, Role } from '../models/user.model';
 import { Router } from '@angular/router';
 
@@ -29,12 +29,14 @@ export class AuthService {
       id:string;
       prenom: string;
       email?: string;
+      refreshToken?: string;
     }>(`${this.authUrl}/login`, { email, motDePasse }).pipe(
       tap(res => {
         console.log('✅ Réponse login reçue:', res);
         
         // Stockage avec EMAIL
         localStorage.setItem('token', res.token);
+        this.stockerRefreshToken(res.refreshToken);
         const currentUser = {
           nom: res.nom,
           id: res.id,
@@ -70,6 +72,7 @@ export class AuthService {
       nom: string; 
       prenom: string;
       email?: string;
+      refreshToken?: string;
     }>(`${this.authUrl}/register`, payload).pipe(
       tap(res => {
           console.log('✅ Réponse register reçue:', res);
@@ -82,6 +85,7 @@ export class AuthService {
         
         // Stocker le token ET l'utilisateur
         localStorage.setItem('token', res.token);
+        this.stockerRefreshToken(res.refreshToken);
         const currentUser = {
           nom: res.nom,
           prenom: res.prenom,
@@ -111,6 +115,7 @@ export class AuthService {
   logout() {
     console.log('🚪 Déconnexion');
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     localStorage.removeItem('currentUser');
     this._user$.next(null);
   }
@@ -119,6 +124,27 @@ export class AuthService {
     return localStorage.getItem('token');
   }
 
+  // Renouvelle le jeton d'accès sans ressaisie du mot de passe (pas de BCrypt côté serveur)
+  refresh(): Observable<string> {
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (!refreshToken) {
+      return throwError(() => new Error('Aucun jeton de rafraîchissement'));
+    }
+    return this.http.post<{ token: string; refreshToken?: string }>(`${this.authUrl}/refresh`, { refreshToken }).pipe(
+      tap(res => {
+        localStorage.setItem('token', res.token);
+        this.stockerRefreshToken(res.refreshToken);
+      }),
+      map(res => res.token)
+    );
+  }
+
+  private stockerRefreshToken(refreshToken?: string) {
+    if (refreshToken) {
+      localStorage.setItem('refreshToken', refreshToken);
+    }
+  }
+
   getCurrentUser(): User | null {
     return this._user$.value;
   }
@@ -1,7 +1,8 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { Equipement } from '../models/equipement.model';
+import { map } from 'rxjs/operators';
+import { Equipement, EquipementResume } from '../models/equipement.model';
 
 @Injectable({
   providedIn: 'root'
@@ -42,6 +43,39 @@ export class EquipementService {
     return this.http.get<Equipement[]>(`${this.apiUrl}/etat/${etat}`);
   }
 
+  // 🔹 Équipements les plus proches d'un point (rayon en km)
+  getEquipementsProches(latitude: number, longitude: number, rayonKm = 5, limite = 20, etat?: string): Observable<EquipementResume[]> {
+    let params = new HttpParams()
+      .set('latitude', latitude)
+      .set('longitude', longitude)
+      .set('rayonKm', rayonKm)
+      .set('limite', limite);
+    if (etat) {
+      params = params.set('etat', etat);
+    }
+    return this.http.get<EquipementResume[]>(`${this.apiUrl}/proches`, { params });
+  }
+
+  // 🔹 Équipements visibles dans l'emprise de la carte ; tronque = zoomer pour tout voir
+  getEquipementsCarte(sud: number, ouest: number, nord: number, est: number, etat?: string, limite = 500):
+      Observable<{ equipements: EquipementResume[]; tronque: boolean }> {
+    let params = new HttpParams()
+      .set('sud', sud)
+      .set('ouest', ouest)
+      .set('nord', nord)
+      .set('est', est)
+      .set('limite', limite);
+    if (etat) {
+      params = params.set('etat', etat);
+    }
+    return this.http.get<EquipementResume[]>(`${this.apiUrl}/carte`, { params, observe: 'response' }).pipe(
+      map(res => ({
+        equipements: res.body ?? [],
+        tronque: res.headers.get('X-Resultats-Tronques') === 'true'
+      }))
+    );
+  }
+
   // 🔹 Ajouter une intervention à l'historique de l'équipement
   addInterventionToEquipement(equipementId: string, interventionId: string, titre: string, technicien: string): Observable<void> {
     return this.http.post<void>(`${this.apiUrl}/${equipementId}/add-intervention`, {
@@ -0,0 +1,54 @@
+import { Injectable } from '@angular/core';
+import { HttpClient } from '@angular/common/http';
+
+// Délai avant de rouvrir un flux coupé
+const DELAI_RECONNEXION_MS = 3000;
+
+@Injectable({
+  providedIn: 'root'
+})
+export class FluxService {
+  private apiUrl = 'http://localhost:8085/api/flux';
+
+  constructor(private http: HttpClient) {}
+
+  // 🔹 Ouvre un flux SSE. EventSource ne peut pas envoyer l'en-tête Authorization : chaque connexion
+  // utilise un ticket à usage unique obtenu avec le JWT (jamais le JWT dans l'URL). Le ticket ne sert
+  // qu'une fois : à la coupure, la source est fermée et rouverte avec un nouveau ticket, au lieu de la
+  // reconnexion automatique d'EventSource. Renvoie la fonction de fermeture.
+  ouvrir(url: (ticket: string) => string, brancher: (source: EventSource) => void): () => void {
+    let source: EventSource | null = null;
+    let minuterie: ReturnType<typeof setTimeout> | undefined;
+    let ferme = false;
+
+    const planifier = () => {
+      if (!ferme) {
+        minuterie = setTimeout(connecter, DELAI_RECONNEXION_MS);
+      }
+    };
+    const connecter = () => {
+      this.http.post<{ ticket: string }>(`${this.apiUrl}/ticket`, null).subscribe({
+        next: ({ ticket }) => {
+          if (ferme) {
+            return;
+          }
+          source = new EventSource(url(ticket));
+          brancher(source);
+          source.onerror = () => {
+            source?.close();
+            source = null;
+            planifier();
+          };
+        },
+        error: () => planifier()
+      });
+    };
+
+    connecter();
+    return () => {
+      ferme = true;
+      clearTimeout(minuterie);
+      source?.close();
+    };
+  }
+}
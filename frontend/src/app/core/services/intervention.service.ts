@@ -3,6 +3,7 @@ import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable } from 'rxjs';
 import { Intervention } from '../models/intervention.model';
+import { FluxService } from './flux.service';
 
 @Injectable({
   providedIn: 'root'
@@ -10,7 +11,7 @@ import { Intervention } from '../models/intervention.model';
 export class InterventionService {
   private apiUrl = 'http://localhost:8085/api/interventions';
 
-  constructor(private http: HttpClient) {}
+  constructor(private http: HttpClient, private flux: FluxService) {}
 
   // 🔹 Récupérer toutes les interventions (CORRIGÉ)
   getAllInterventions(): Observable<Intervention[]> {
@@ -63,4 +64,29 @@ getInterventionsByTechnicien(technicienId: string): Observable<Intervention[]> {
 getMyInterventions(): Observable<Intervention[]> {
     return this.http.get<Intervention[]>(`${this.apiUrl}/technicien/me`);
   }
+
+  // 🔹 Flux SSE des interventions du technicien connecté : liste complète à chaque changement
+  // (ouvert par ticket, voir FluxService ; chaque reconnexion renvoie un "snapshot")
+  streamMyInterventions(): Observable<Intervention[]> {
+    return new Observable<Intervention[]>(subscriber => {
+      const interventions = new Map<string, Intervention>();
+
+      return this.flux.ouvrir(ticket => `${this.apiUrl}/technicien/me/stream?ticket=${encodeURIComponent(ticket)}`, source => {
+        source.addEventListener('snapshot', (e: MessageEvent) => {
+          interventions.clear();
+          (JSON.parse(e.data) as Intervention[]).forEach(i => interventions.set(i.id!, i));
+          subscriber.next([...interventions.values()]);
+        });
+        source.addEventListener('intervention', (e: MessageEvent) => {
+          const i = JSON.parse(e.data) as Intervention;
+          interventions.set(i.id!, i);
+          subscriber.next([...interventions.values()]);
+        });
+        source.addEventListener('retrait', (e: MessageEvent) => {
+          interventions.delete(JSON.parse(e.data).id);
+          subscriber.next([...interventions.values()]);
+        });
+      });
+    });
+  }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ import { Injectable } from '@angular/core';
 import { HttpClient, HttpHeaders } from '@angular/common/http';
 import { Observable } from 'rxjs';
 import { AppNotification } from '../models/notification.model';
+import { FluxService } from './flux.service';
 
 @Injectable({
   providedIn: 'root'
@@ -9,7 +10,7 @@ import { AppNotification } from '../models/notification.model';
 export class NotificationService {
   private apiUrl = 'http://localhost:8085/api/notifications';
 
-  constructor(private http: HttpClient) {}
+  constructor(private http: HttpClient, private flux: FluxService) {}
 
   private getHeaders(): HttpHeaders {
     const token = localStorage.getItem('token');
@@ -27,6 +28,15 @@ export class NotificationService {
     );
   }
 
+  // Page de la boîte de réception, plus récentes d'abord (curseur renvoyé par la page précédente)
+  getInbox(userId: string, curseur?: string, taille = 50): Observable<{ contenu: AppNotification[]; curseurSuivant?: string }> {
+    let url = `${this.apiUrl}/user/${userId}/page?taille=${taille}`;
+    if (curseur) {
+      url += `&curseur=${encodeURIComponent(curseur)}`;
+    }
+    return this.http.get<{ contenu: AppNotification[]; curseurSuivant?: string }>(url, { headers: this.getHeaders() });
+  }
+
   // Récupérer les notifications pour un utilisateur spécifique
   getNotificationsForUser(userId: string): Observable<AppNotification[]> {
     return this.http.get<AppNotification[]>(
@@ -61,16 +71,42 @@ export class NotificationService {
     );
   }
 
-  // Marquer toutes les notifications comme lues (optionnel)
-  markAllAsRead(userId: string): Observable<void> {
-    return this.http.put<void>(
-      `${this.apiUrl}/user/${userId}/mark-all-read`,
+  // Marquer toutes les notifications comme lues
+  markAllAsRead(userId: string): Observable<{ modifiees: number }> {
+    return this.http.put<{ modifiees: number }>(
+      `${this.apiUrl}/user/${userId}/read-all`,
       null,
       { headers: this.getHeaders() }
     );
   }
 
-  // Obtenir le nombre de notifications non lues (optionnel)
+  // 🔹 Flux SSE des nouvelles notifications (toutes pour un admin), ouvert par ticket (voir FluxService).
+  // Chaque reconnexion reprend après la dernière notification reçue (lastEventId) ; 'resync' signale
+  // trop de notifications manquées : recharger la liste
+  streamNotifications(lastEventId?: string): Observable<AppNotification | 'resync'> {
+    return new Observable<AppNotification | 'resync'>(subscriber => {
+      let dernierId = lastEventId;
+      const url = (ticket: string) => {
+        let u = `${this.apiUrl}/stream?ticket=${encodeURIComponent(ticket)}`;
+        if (dernierId) {
+          u += `&lastEventId=${encodeURIComponent(dernierId)}`;
+        }
+        return u;
+      };
+
+      return this.flux.ouvrir(url, source => {
+        source.addEventListener('notification', (e: MessageEvent) => {
+          if (e.lastEventId) {
+            dernierId = e.lastEventId;
+          }
+          subscriber.next(JSON.parse(e.data) as AppNotification);
+        });
+        source.addEventListener('resync', () => subscriber.next('resync'));
+      });
+    });
+  }
+
+  // Obtenir le nombre de notifications non lues (compteur serveur, sans charger la boîte)
   getUnreadCount(userId: string): Observable<number> {
     return this.http.get<number>(
       `${this.apiUrl}/user/${userId}/unread-count`,
@@ -1,7 +1,8 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { Signalement } from '../models/signalement.model';
+import { map } from 'rxjs/operators';
+import { Signalement, SignalementResume } from '../models/signalement.model';
 
 @Injectable({
   providedIn: 'root'
@@ -86,4 +87,54 @@ export class SignalementService {
   getSignalementsByType(type: string): Observable<Signalement[]> {
     return this.http.get<Signalement[]>(`${this.apiUrl}/type/${type}`);
   }
+
+  /**
+   * 🔹 Signalements les plus proches d'un point
+   */
+  getSignalementsProches(latitude: number, longitude: number, rayonKm = 2, limite = 50, statut?: string): Observable<SignalementResume[]> {
+    let params = new HttpParams()
+      .set('latitude', latitude)
+      .set('longitude', longitude)
+      .set('rayonKm', rayonKm)
+      .set('limite', limite);
+    if (statut) {
+      params = params.set('statut', statut);
+    }
+    return this.http.get<SignalementResume[]>(`${this.apiUrl}/proches`, { params });
+  }
+
+  /**
+   * 🔹 Signalements visibles dans l'emprise de la carte ; tronque = zoomer pour tout voir
+   */
+  getSignalementsCarte(sud: number, ouest: number, nord: number, est: number, statut?: string, limite = 500):
+      Observable<{ signalements: SignalementResume[]; tronque: boolean }> {
+    let params = new HttpParams()
+      .set('sud', sud)
+      .set('ouest', ouest)
+      .set('nord', nord)
+      .set('est', est)
+      .set('limite', limite);
+    if (statut) {
+      params = params.set('statut', statut);
+    }
+    return this.http.get<SignalementResume[]>(`${this.apiUrl}/carte`, { params, observe: 'response' }).pipe(
+      map(res => ({
+        signalements: res.body ?? [],
+        tronque: res.headers.get('X-Resultats-Tronques') === 'true'
+      }))
+    );
+  }
+
+  /**
+   * 🔹 Signalements autour d'un équipement
+   */
+  getSignalementsProchesEquipement(equipementId: string, rayonKm = 0.5, limite = 50, statut?: string): Observable<SignalementResume[]> {
+    let params = new HttpParams()
+      .set('rayonKm', rayonKm)
+      .set('limite', limite);
+    if (statut) {
+      params = params.set('statut', statut);
+    }
+    return this.http.get<SignalementResume[]>(`${this.apiUrl}/equipement/${equipementId}/proches`, { params });
+  }
 }
\ No newline at end of file
@@ -5,6 +5,14 @@ import { map, catchError } from 'rxjs/operators';
 import { User } from '../models/user.model';
 
 // Interface pour le scoring des techniciens
+// Position acceptée par le serveur (écrite en base quelques secondes plus tard)
+export interface PositionTechnicien {
+  technicienId: string;
+  latitude: number;
+  longitude: number;
+  date: string;
+}
+
 export interface TechnicienScore extends User {
   score: number;
   distance?: number;
@@ -34,6 +42,13 @@ export class TechnicienService {
     return this.http.get<User[]>(`${this.apiUrl}/techniciens/disponibles`);
   }
 
+  /**
+   * 🔹 Changer la disponibilité d'un technicien
+   */
+  changerDisponibilite(id: string, disponibilite: boolean): Observable<User> {
+    return this.http.patch<User>(`${this.apiUrl}/${id}/disponibilite`, { disponibilite });
+  }
+
   /**
    * 🔹 Récupérer un technicien par ID
    */
@@ -77,8 +92,8 @@ export class TechnicienService {
   /**
    * 🔹 Mettre à jour la position GPS d'un technicien
    */
-  updatePosition(id: string, latitude: number, longitude: number): Observable<User> {
-    return this.http.patch<User>(`${this.apiUrl}/${id}/position`, {
+  updatePosition(id: string, latitude: number, longitude: number): Observable<PositionTechnicien> {
+    return this.http.patch<PositionTechnicien>(`${this.apiUrl}/${id}/position`, {
       latitude,
       longitude,
       position: `${latitude},${longitude}`
@@ -20,6 +20,7 @@ export class NotificationListComponent implements OnInit, OnDestroy {
   notifications: AppNotification[] = [];
   signalements: Signalement[] = [];
   unreadCount: number = 0;
+  curseurNotifications?: string;
   
   // Filtres
   filterNotificationType: string = '';
@@ -35,8 +36,9 @@ export class NotificationListComponent implements OnInit, OnDestroy {
   signalementsRecuCount: number = 0;
   signalementsEnTraitementCount: number = 0;
   
-  // Auto-refresh
+  // Auto-refresh des signalements ; les notifications arrivent par le flux SSE
   private refreshSubscription?: Subscription;
+  private streamSubscription?: Subscription;
   
   constructor(
     private notificationService: NotificationService,
@@ -46,9 +48,18 @@ export class NotificationListComponent implements OnInit, OnDestroy {
   ngOnInit(): void {
     this.loadData();
     
-    // Auto-refresh toutes les 30 secondes
+    // Nouvelles notifications poussées par le serveur (plus de rechargement périodique)
+    this.streamSubscription = this.notificationService.streamNotifications().subscribe(evenement => {
+      if (evenement === 'resync') {
+        this.loadNotifications();
+      } else {
+        this.ajouterNotification(evenement);
+      }
+    });
+
+    // Auto-refresh des signalements toutes les 30 secondes
     this.refreshSubscription = interval(30000).subscribe(() => {
-      this.loadData();
+      this.loadSignalements();
     });
   }
   
@@ -56,6 +67,26 @@ export class NotificationListComponent implements OnInit, OnDestroy {
     if (this.refreshSubscription) {
       this.refreshSubscription.unsubscribe();
     }
+    if (this.streamSubscription) {
+      this.streamSubscription.unsubscribe();
+    }
+  }
+
+  // Une notification peut arriver plusieurs fois (rejeu après reconnexion, regroupement côté serveur) :
+  // la version reçue remplace l'ancienne et remonte en tête. Le flux admin reçoit aussi les notifications
+  // des autres utilisateurs : seules celles dont l'admin est destinataire comptent comme non lues
+  private ajouterNotification(notification: AppNotification): void {
+    const index = this.notifications.findIndex(n => n.id === notification.id);
+    const dejaNonLue = index >= 0 && !this.notifications[index].statutLecture;
+    if (index >= 0) {
+      this.notifications.splice(index, 1);
+    }
+    this.notifications.unshift(notification);
+    const userId = localStorage.getItem('userId');
+    const destinataire = !!userId && (notification.citoyenId === userId || notification.technicienId === userId);
+    if (destinataire && !notification.statutLecture && !dejaNonLue) {
+      this.unreadCount++;
+    }
   }
   
   loadData(): void {
@@ -66,14 +97,17 @@ export class NotificationListComponent implements OnInit, OnDestroy {
   loadNotifications(): void {
     const userId = localStorage.getItem('userId');
     if (userId) {
-      this.notificationService.getNotificationsForUser(userId).subscribe({
-        next: (data) => {
-          this.notifications = data;
-          this.unreadCount = data.filter(n => !n.statutLecture).length;
-          this.sortNotifications();
+      this.notificationService.getInbox(userId).subscribe({
+        next: (page) => {
+          this.notifications = page.contenu;
+          this.curseurNotifications = page.curseurSuivant;
         },
         error: (err) => console.error('Erreur chargement notifications', err)
       });
+      this.notificationService.getUnreadCount(userId).subscribe({
+        next: (nb) => this.unreadCount = nb,
+        error: (err) => console.error('Erreur compteur notifications', err)
+      });
     } else {
       this.notificationService.getAllNotifications().subscribe({
         next: (data) => {
@@ -86,6 +120,22 @@ export class NotificationListComponent implements OnInit, OnDestroy {
     }
   }
   
+  // Page suivante de la boîte de réception
+  loadMoreNotifications(): void {
+    const userId = localStorage.getItem('userId');
+    if (!userId || !this.curseurNotifications) {
+      return;
+    }
+    this.notificationService.getInbox(userId, this.curseurNotifications).subscribe({
+      next: (page) => {
+        const connues = new Set(this.notifications.map(n => n.id));
+        this.notifications.push(...page.contenu.filter(n => !connues.has(n.id)));
+        this.curseurNotifications = page.curseurSuivant;
+      },
+      error: (err) => console.error('Erreur chargement notifications', err)
+    });
+  }
+  
   loadSignalements(): void {
     this.signalementService.getAllSignalements().subscribe({
       next: (data) => {
@@ -209,6 +259,10 @@ export class NotificationListComponent implements OnInit, OnDestroy {
   goToPageNotif(page: number): void {
     if (page >= 1 && page <= this.totalPagesNotif()) {
       this.currentPageNotif = page;
+      // Dernière page chargée : on précharge la suivante côté serveur
+      if (page === this.totalPagesNotif()) {
+        this.loadMoreNotifications();
+      }
     }
   }
   
@@ -1,11 +1,12 @@
 import { Component, OnInit, OnDestroy, AfterViewInit, ElementRef, ViewChild, inject } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import * as L from 'leaflet';
-import { Subscription } from 'rxjs';
+import { Subscription, forkJoin, of } from 'rxjs';
+import { catchError } from 'rxjs/operators';
 import { Router, RouterModule } from '@angular/router';
 
 import { MapDataService } from '../../../core/services/map-data.service';
-import { Incident, Technician, Equipment, MapLayers } from '../../../core/models/map.model';
+import { MapLayers, CoucheCarte, TuileCarte, TuileFeature } from '../../../core/models/map.model';
 
 // Configuration des icônes par défaut de Leaflet
 delete (L.Icon.Default.prototype as any)._getIconUrl;
@@ -32,15 +33,12 @@ export class LeafletMapComponent implements OnInit, AfterViewInit, OnDestroy {
   private mapDataService = inject(MapDataService);
   private router = inject(Router);
   
-  // Couches de la carte
-  private incidentLayer: L.LayerGroup = L.layerGroup();
-  private technicianLayer: L.LayerGroup = L.layerGroup();
-  private equipmentLayer: L.LayerGroup = L.layerGroup();
+  // Tuiles regroupées côté serveur pour la vue courante : seule couche de données de la carte
+  private tuilesLayer: L.LayerGroup = L.layerGroup();
+  private tuilesSubscription: Subscription | null = null;
+  private static readonly MAX_TUILES = 16;
   
   // Données
-  incidents: Incident[] = [];
-  technicians: Technician[] = [];
-  equipmentList: Equipment[] = [];
   userLocation: { lat: number; lng: number } | null = null;
   
   // États
@@ -52,12 +50,11 @@ export class LeafletMapComponent implements OnInit, AfterViewInit, OnDestroy {
     traffic: false
   };
   
-  // Statistiques
-  stats = {
-    pendingIncidents: 0,
-    activeTechnicians: 0,
-    urgentIncidents: 0,
-    resolvedToday: 0
+  // Nombre de points par couche dans les tuiles affichées (groupes compris)
+  stats: { [couche in CoucheCarte]: number } = {
+    SIGNALEMENT: 0,
+    EQUIPEMENT: 0,
+    TECHNICIEN: 0
   };
   
   loading = true;
@@ -75,13 +72,10 @@ export class LeafletMapComponent implements OnInit, AfterViewInit, OnDestroy {
   copySuccess = false;
   copyError = false;
   
-  // Abonnements
-  private subscriptions: Subscription[] = [];
   private autoRefreshInterval: any;
   
   ngOnInit() {
     this.getUserLocation();
-    this.loadMapData();
     this.setupAutoRefresh();
   }
   
@@ -92,7 +86,7 @@ export class LeafletMapComponent implements OnInit, AfterViewInit, OnDestroy {
   }
   
   ngOnDestroy() {
-    this.subscriptions.forEach(sub => sub.unsubscribe());
+    this.tuilesSubscription?.unsubscribe();
     if (this.autoRefreshInterval) {
       clearInterval(this.autoRefreshInterval);
     }
@@ -108,7 +102,7 @@ export class LeafletMapComponent implements OnInit, AfterViewInit, OnDestroy {
     if (layer === 'weather') return;
     
     this.activeLayers[layer] = !this.activeLayers[layer];
-    this.updateMapLayers();
+    this.chargerTuiles();
   }
   
   toggleSidebar() {
@@ -127,15 +121,6 @@ export class LeafletMapComponent implements OnInit, AfterViewInit, OnDestroy {
     }
   }
   
-  zoomToIncidents() {
-    if (this.incidents.length > 0 && this.map) {
-      const bounds = L.latLngBounds(
-        this.incidents.map(i => [i.location.lat, i.location.lng] as L.LatLngTuple)
-      );
-      this.map.fitBounds(bounds, { padding: [50, 50] });
-    }
-  }
-  
   // Méthode pour activer la sélection de position
   enableLocationSelection(): void {
     this.isSelectingLocation = true;
@@ -214,114 +199,17 @@ export class LeafletMapComponent implements OnInit, AfterViewInit, OnDestroy {
     }
   }
   
-  // Getters pour les statistiques
-  getPendingIncidents(): number {
-    return this.stats.pendingIncidents;
-  }
-  
-  getActiveTechnicians(): number {
-    return this.stats.activeTechnicians;
+  // Getters pour les statistiques de la vue
+  getSignalementsVisibles(): number {
+    return this.stats.SIGNALEMENT;
   }
   
-  getUrgentIncidents(): number {
-    return this.stats.urgentIncidents;
+  getEquipementsVisibles(): number {
+    return this.stats.EQUIPEMENT;
   }
   
-  getResolvedToday(): number {
-    return this.stats.resolvedToday;
-  }
-  
-  getIncidentTypeIcon(type: string): string {
-    const icons: { [key: string]: string } = {
-      'POTHOLE': 'road',
-      'LIGHTING': 'lightbulb',
-      'GARBAGE': 'trash',
-      'TREE': 'tree',
-      'WATER': 'tint',
-      'OTHER': 'exclamation-circle'
-    };
-    return icons[type] || 'exclamation-circle';
-  }
-  
-  getStatusLabel(status: string): string {
-    const labels: { [key: string]: string } = {
-      'PENDING': 'En attente',
-      'IN_PROGRESS': 'En cours',
-      'RESOLVED': 'Résolu',
-      'URGENT': 'Urgent'
-    };
-    return labels[status] || status;
-  }
-  
-  getIncidentTypeLabel(type: string): string {
-    const labels: { [key: string]: string } = {
-      'POTHOLE': 'Nid-de-poule',
-      'LIGHTING': 'Éclairage défectueux',
-      'GARBAGE': 'Déchets non collectés',
-      'TREE': 'Arbre dangereux',
-      'WATER': 'Fuite d\'eau',
-      'OTHER': 'Autre problème'
-    };
-    return labels[type] || 'Problème';
-  }
-  
-  formatDate(date: Date): string {
-    return new Date(date).toLocaleDateString('fr-FR', {
-      day: '2-digit',
-      month: '2-digit',
-      hour: '2-digit',
-      minute: '2-digit'
-    });
-  }
-  
-  loadMapData() {
-    this.loading = true;
-    this.error = null;
-    
-    console.log('Loading map data...');
-    
-    const incidentsSub = this.mapDataService.getIncidents().subscribe({
-      next: (incidents) => {
-        console.log('Incidents loaded:', incidents.length);
-        this.incidents = incidents;
-        this.updateIncidentLayer();
-        this.updateStats();
-      },
-      error: (error) => {
-        console.error('Erreur incidents:', error);
-        
-        if (error.status === 403 || error.status === 401) {
-          console.warn('API inaccessible, using demo data');
-          this.useDemoData();
-        } else {
-          this.handleError('Erreur lors du chargement des incidents');
-        }
-      }
-    });
-    
-    const techsSub = this.mapDataService.getTechnicians().subscribe({
-      next: (technicians) => {
-        this.technicians = technicians;
-        this.updateTechnicianLayer();
-      },
-      error: (error) => {
-        console.error('Erreur techniciens:', error);
-      }
-    });
-    
-    const equipSub = this.mapDataService.getEquipment().subscribe({
-      next: (equipment) => {
-        this.equipmentList = equipment;
-        this.updateEquipmentLayer();
-        this.loading = false;
-      },
-      error: (error) => {
-        console.error('Erreur équipements:', error);
-        this.loading = false;
-      }
-    });
-    
-    this.subscriptions.push(incidentsSub, techsSub, equipSub);
+  getTechniciensVisibles(): number {
+    return this.stats.TECHNICIEN;
   }
   
   // ========== MÉTHODES PRIVÉES ==========
@@ -343,7 +231,6 @@ export class LeafletMapComponent implements OnInit, AfterViewInit, OnDestroy {
       }).addTo(this.map);
       
       L.control.scale().addTo(this.map);
-      this.addLayerControl();
       
       if (this.userLocation) {
         this.map.setView([this.userLocation.lat, this.userLocation.lng], 15);
@@ -351,7 +238,11 @@ export class LeafletMapComponent implements OnInit, AfterViewInit, OnDestroy {
       }
       
       this.mapInitialized = true;
-      this.updateMapLayers();
+
+      // Seules les tuiles de la vue sont chargées, à chaque déplacement ou zoom
+      this.tuilesLayer.addTo(this.map);
+      this.map.on('moveend', () => this.chargerTuiles());
+      this.chargerTuiles();
       
     } catch (error) {
       console.error('Erreur d\'initialisation de la carte:', error);
@@ -431,41 +322,6 @@ export class LeafletMapComponent implements OnInit, AfterViewInit, OnDestroy {
       });
   }
   
-  private createIcon(color: string, iconName: string, markerColor: string = 'white'): L.DivIcon {
-    return L.divIcon({
-      html: `
-        <div style="
-          background-color: ${color};
-          width: 40px;
-          height: 40px;
-          border-radius: 50%;
-          display: flex;
-          align-items: center;
-          justify-content: center;
-          color: ${markerColor};
-          font-size: 18px;
-          border: 3px solid white;
-          box-shadow: 0 2px 10px rgba(0,0,0,0.3);
-          position: relative;
-        ">
-          <i class="fas fa-${iconName}"></i>
-          <div style="
-            position: absolute;
-            bottom: -5px;
-            width: 100%;
-            height: 5px;
-            background-color: ${color};
-            border-radius: 0 0 50% 50%;
-          "></div>
-        </div>
-      `,
-      className: 'custom-marker',
-      iconSize: [40, 40] as L.PointTuple,
-      iconAnchor: [20, 40] as L.PointTuple,
-      popupAnchor: [0, -40] as L.PointTuple
-    });
-  }
-  
   private getUserLocation() {
     if (navigator.geolocation) {
       console.log('Requesting user location...');
@@ -548,374 +404,136 @@ export class LeafletMapComponent implements OnInit, AfterViewInit, OnDestroy {
       .openPopup();
   }
   
-  private updateIncidentLayer() {
-    this.incidentLayer.clearLayers();
-    
-    if (!this.activeLayers.incidents || !this.map) return;
-    
-    this.incidents.forEach(incident => {
-      const icon = this.getIncidentIcon(incident);
-      const marker = L.marker([incident.location.lat, incident.location.lng], { icon })
-        .addTo(this.incidentLayer);
-      
-      this.bindIncidentPopup(marker, incident);
-    });
-  }
-  
-  private getIncidentIcon(incident: Incident): L.Icon | L.DivIcon {
-    const iconConfigs = {
-      'PENDING': { color: '#FFC107', icon: 'exclamation-triangle' },
-      'IN_PROGRESS': { color: '#2196F3', icon: 'tools' },
-      'RESOLVED': { color: '#4CAF50', icon: 'check-circle' },
-      'URGENT': { color: '#F44336', icon: 'exclamation' }
-    };
-    
-    const config = iconConfigs[incident.status] || iconConfigs.PENDING;
-    return this.createIcon(config.color, config.icon);
-  }
-  
-  private bindIncidentPopup(marker: L.Marker, incident: Incident) {
-    const popupContent = `
-      <div style="min-width: 250px;">
-        <div style="display: flex; justify-content: space-between; align-items: center; margin-bottom: 10px;">
-          <h4 style="margin: 0; color: #333;">
-            <i class="fas fa-${this.getIncidentTypeIcon(incident.type)}"></i>
-            ${this.getIncidentTypeLabel(incident.type)}
-          </h4>
-          <span style="padding: 4px 8px; border-radius: 4px; font-size: 12px; font-weight: bold; 
-                background-color: ${this.getStatusColor(incident.status)}; color: white;">
-            ${this.getStatusLabel(incident.status)}
-          </span>
-        </div>
-        
-        <p style="margin: 5px 0; color: #666;">
-          <i class="fas fa-map-marker-alt"></i> 
-          ${incident.location.address || 'Localisation non spécifiée'}
-        </p>
-        
-        <p style="margin: 5px 0;">${incident.description}</p>
-        
-        <div style="display: flex; justify-content: space-between; margin-top: 10px; font-size: 12px; color: #888;">
-          <span><i class="far fa-clock"></i> ${this.formatDate(incident.reportedAt)}</span>
-          <span><i class="fas fa-bolt"></i> Priorité: ${incident.priority}</span>
-        </div>
-        
-        ${incident.assignedTo ? `
-          <div style="margin-top: 10px; padding: 8px; background: #f5f5f5; border-radius: 5px;">
-            <i class="fas fa-user-hard-hat"></i> Assigné à: ${incident.assignedTo}
-          </div>
-        ` : ''}
-      </div>
-    `;
-    
-    marker.bindPopup(popupContent);
-  }
-  
-  private updateTechnicianLayer() {
-    this.technicianLayer.clearLayers();
-    
-    if (!this.activeLayers.technicians || !this.map) return;
-    
-    this.technicians.forEach(tech => {
-      const icon = this.getTechnicianIcon(tech);
-      const marker = L.marker([tech.location.lat, tech.location.lng], { icon })
-        .addTo(this.technicianLayer);
-      
-      this.bindTechnicianPopup(marker, tech);
-    });
-  }
-  
-  private getTechnicianIcon(tech: Technician): L.DivIcon {
-    const iconConfigs = {
-      'AVAILABLE': { color: '#4CAF50', icon: 'user' },
-      'BUSY': { color: '#FF9800', icon: 'user-cog' },
-      'OFFLINE': { color: '#9E9E9E', icon: 'user-slash' }
-    };
-    
-    const config = iconConfigs[tech.status] || iconConfigs.AVAILABLE;
-    return this.createIcon(config.color, config.icon, 'white');
-  }
-  
-  private bindTechnicianPopup(marker: L.Marker, tech: Technician) {
-    const popupContent = `
-      <div style="min-width: 200px;">
-        <h4 style="margin: 0 0 10px 0; color: #333;">
-          <i class="fas fa-user-hard-hat"></i> ${tech.name}
-        </h4>
-        
-        <div style="margin-bottom: 8px;">
-          <span style="padding: 3px 8px; border-radius: 12px; font-size: 11px; 
-                background-color: ${this.getTechnicianStatusColor(tech.status)}; color: white;">
-            ${this.getTechnicianStatusLabel(tech.status)}
-          </span>
-        </div>
-        
-        ${tech.currentIntervention ? `
-          <p style="margin: 5px 0; font-size: 13px;">
-            <i class="fas fa-tools"></i> ${tech.currentIntervention}
-          </p>
-        ` : ''}
-        
-        ${tech.vehicle ? `
-          <p style="margin: 5px 0; font-size: 13px;">
-            <i class="fas fa-truck"></i> ${tech.vehicle}
-          </p>
-        ` : ''}
-        
-        <p style="margin: 5px 0; font-size: 12px; color: #666;">
-          <i class="far fa-clock"></i> Dernière mise à jour: ${this.formatDate(tech.lastUpdate)}
-        </p>
-      </div>
-    `;
-    
-    marker.bindPopup(popupContent);
-  }
-  
-  private updateEquipmentLayer() {
-    this.equipmentLayer.clearLayers();
-    
-    if (!this.activeLayers.equipment || !this.map) return;
-    
-    this.equipmentList.forEach(equip => {
-      const icon = this.getEquipmentIcon(equip);
-      const marker = L.marker([equip.location.lat, equip.location.lng], { icon })
-        .addTo(this.equipmentLayer);
-      
-      this.bindEquipmentPopup(marker, equip);
-    });
-  }
-  
-  private getEquipmentIcon(equip: Equipment): L.DivIcon {
-    const iconConfigs = {
-      'OPERATIONAL': { color: '#2196F3', icon: 'cog' },
-      'MAINTENANCE': { color: '#FF9800', icon: 'wrench' },
-      'OUT_OF_SERVICE': { color: '#F44336', icon: 'ban' }
-    };
-    
-    const config = iconConfigs[equip.status] || iconConfigs.OPERATIONAL;
-    return this.createIcon(config.color, config.icon, 'white');
-  }
-  
-  private bindEquipmentPopup(marker: L.Marker, equip: Equipment) {
-    const popupContent = `
-      <div style="min-width: 200px;">
-        <h4 style="margin: 0 0 10px 0; color: #333;">
-          <i class="fas fa-${equip.type.includes('camion') ? 'truck' : 'cog'}"></i> ${equip.type}
-        </h4>
-        
-        <div style="margin-bottom: 8px;">
-          <span style="padding: 3px 8px; border-radius: 12px; font-size: 11px; 
-                background-color: ${this.getEquipmentStatusColor(equip.status)}; color: white;">
-            ${this.getEquipmentStatusLabel(equip.status)}
-          </span>
-        </div>
-        
-        <p style="margin: 5px 0; font-size: 12px; color: #666;">
-          <i class="fas fa-wrench"></i> Dernière maintenance: ${this.formatDate(equip.lastMaintenance)}
-        </p>
-      </div>
-    `;
-    
-    marker.bindPopup(popupContent);
-  }
-  
-  private addLayerControl() {
-    const overlayMaps: { [name: string]: L.Layer } = {
-      '🚨 Incidents': this.incidentLayer,
-      '👷 Techniciens': this.technicianLayer,
-      '⚙️ Équipements': this.equipmentLayer
-    };
-    
-    L.control.layers({}, overlayMaps, {
-      collapsed: true,
-      position: 'topright'
-    }).addTo(this.map);
-  }
-  
-  private updateMapLayers() {
-    if (!this.map) return;
-    
-    if (this.activeLayers.incidents) {
-      this.incidentLayer.addTo(this.map);
-    } else {
-      this.map.removeLayer(this.incidentLayer);
-    }
-    
-    if (this.activeLayers.technicians) {
-      this.technicianLayer.addTo(this.map);
-    } else {
-      this.map.removeLayer(this.technicianLayer);
-    }
-    
-    if (this.activeLayers.equipment) {
-      this.equipmentLayer.addTo(this.map);
-    } else {
-      this.map.removeLayer(this.equipmentLayer);
-    }
-  }
-  
-  private updateStats() {
-    const today = new Date();
-    today.setHours(0, 0, 0, 0);
-    
-    this.stats = {
-      pendingIncidents: this.incidents.filter(i => i.status === 'PENDING').length,
-      activeTechnicians: this.technicians.filter(t => t.status === 'BUSY').length,
-      urgentIncidents: this.incidents.filter(i => i.status === 'URGENT').length,
-      resolvedToday: this.incidents.filter(i => 
-        i.status === 'RESOLVED' && 
-        new Date(i.updatedAt) >= today
-      ).length
-    };
-  }
-  
+  // Rafraîchit les tuiles visibles : une tuile inchangée coûte un 304
   private setupAutoRefresh() {
     this.autoRefreshInterval = setInterval(() => {
-      this.loadMapData();
+      this.chargerTuiles();
     }, 60000);
   }
-  
-  private useDemoData() {
-    this.incidents = [
-      {
-        id: '1',
-        type: 'POTHOLE',
-        description: 'Nid-de-poule important sur la chaussée',
-        location: { 
-          lat: 36.8065 + (Math.random() * 0.01 - 0.005), 
-          lng: 10.1815 + (Math.random() * 0.01 - 0.005),
-          address: 'Rue Habib Bourguiba, Tunis'
-        },
-        status: 'PENDING',
-        priority: 3,
-        reportedAt: new Date(),
-        updatedAt: new Date(),
-        assignedTo: undefined
-      },
-      {
-        id: '2',
-        type: 'LIGHTING',
-        description: 'Lampadaire défectueux',
-        location: { 
-          lat: 36.8065 + (Math.random() * 0.01 - 0.005), 
-          lng: 10.1815 + (Math.random() * 0.01 - 0.005),
-          address: 'Avenue de la Liberté, Tunis'
-        },
-        status: 'IN_PROGRESS',
-        priority: 2,
-        reportedAt: new Date(Date.now() - 86400000),
-        updatedAt: new Date(),
-        assignedTo: 'Tech 01'
-      },
-      {
-        id: '3',
-        type: 'GARBAGE',
-        description: 'Déchets non collectés depuis 3 jours',
-        location: { 
-          lat: 36.8065 + (Math.random() * 0.01 - 0.005), 
-          lng: 10.1815 + (Math.random() * 0.01 - 0.005),
-          address: 'Rue du Maroc, Tunis'
-        },
-        status: 'URGENT',
-        priority: 3,
-        reportedAt: new Date(Date.now() - 172800000),
-        updatedAt: new Date(),
-        assignedTo: undefined
-      }
-    ];
-    
-    this.technicians = [
-      {
-        id: 't1',
-        name: 'Mohamed Ali',
-        location: { 
-          lat: 36.8065 + (Math.random() * 0.01 - 0.005), 
-          lng: 10.1815 + (Math.random() * 0.01 - 0.005)
-        },
-        status: 'BUSY',
-        currentIntervention: 'Réparation éclairage',
-        vehicle: 'Camion 01',
-        lastUpdate: new Date()
-      },
-      {
-        id: 't2',
-        name: 'Fatima Ben',
-        location: { 
-          lat: 36.8065 + (Math.random() * 0.01 - 0.005), 
-          lng: 10.1815 + (Math.random() * 0.01 - 0.005)
-        },
-        status: 'AVAILABLE',
-        currentIntervention: undefined,
-        vehicle: 'Véhicule 02',
-        lastUpdate: new Date()
-      }
-    ];
-    
-    this.updateIncidentLayer();
-    this.updateTechnicianLayer();
-    this.updateStats();
-    this.loading = false;
-    
-    console.log('Demo data loaded:', this.incidents.length, 'incidents');
+
+  private couchesActives(): CoucheCarte[] {
+    const couches: CoucheCarte[] = [];
+    if (this.activeLayers.incidents) couches.push('SIGNALEMENT');
+    if (this.activeLayers.equipment) couches.push('EQUIPEMENT');
+    if (this.activeLayers.technicians) couches.push('TECHNICIEN');
+    return couches;
   }
-  
-  private getStatusColor(status: string): string {
-    const colors: { [key: string]: string } = {
-      'PENDING': '#FFC107',
-      'IN_PROGRESS': '#2196F3',
-      'RESOLVED': '#4CAF50',
-      'URGENT': '#F44336'
+
+  // Charge les tuiles de la vue courante (aussi utilisé par le bouton Réessayer)
+  chargerTuiles() {
+    if (!this.map) return;
+    const couches = this.couchesActives();
+    if (couches.length === 0) {
+      this.tuilesLayer.clearLayers();
+      this.stats = { SIGNALEMENT: 0, EQUIPEMENT: 0, TECHNICIEN: 0 };
+      this.loading = false;
+      return;
+    }
+
+    const z = Math.round(this.map.getZoom());
+    const n = 1 << z;
+    const bounds = this.map.getBounds();
+    const tuileX = (lng: number) => Math.min(n - 1, Math.max(0, Math.floor((lng + 180) / 360 * n)));
+    const tuileY = (lat: number) => {
+      const r = Math.max(-85.0511, Math.min(85.0511, lat)) * Math.PI / 180;
+      return Math.min(n - 1, Math.max(0, Math.floor((1 - Math.log(Math.tan(r) + 1 / Math.cos(r)) / Math.PI) / 2 * n)));
     };
-    return colors[status] || '#6c757d';
+    const xMin = tuileX(bounds.getWest()), xMax = tuileX(bounds.getEast());
+    const yMin = tuileY(bounds.getNorth()), yMax = tuileY(bounds.getSouth());
+
+    // Une tuile en échec est affichée vide ; null la distingue d'une tuile réellement vide
+    const requetes = [];
+    for (let x = xMin; x <= xMax; x++) {
+      for (let y = yMin; y <= yMax; y++) {
+        if (requetes.length < LeafletMapComponent.MAX_TUILES) {
+          requetes.push(this.mapDataService.getTuile(z, x, y, couches).pipe(
+            catchError(() => of<TuileCarte | null>(null))
+          ));
+        }
+      }
+    }
+
+    this.tuilesSubscription?.unsubscribe();
+    this.tuilesSubscription = forkJoin(requetes).subscribe(tuiles => {
+      this.tuilesLayer.clearLayers();
+      const stats = { SIGNALEMENT: 0, EQUIPEMENT: 0, TECHNICIEN: 0 };
+      tuiles.forEach(tuile => tuile?.features.forEach(f => {
+        this.afficherFeature(f);
+        this.compter(f, stats);
+      }));
+      this.stats = stats;
+      this.loading = false;
+      this.error = tuiles.every(t => t === null) ? 'Erreur lors du chargement de la carte' : null;
+    });
   }
-  
-  private getTechnicianStatusLabel(status: string): string {
-    const labels: { [key: string]: string } = {
-      'AVAILABLE': 'Disponible',
-      'BUSY': 'Occupé',
-      'OFFLINE': 'Hors ligne'
-    };
-    return labels[status] || status;
+
+  private compter(f: TuileFeature, stats: { [couche in CoucheCarte]: number }) {
+    const p = f.properties;
+    if (p.groupe) {
+      Object.entries(p.parCouche ?? {}).forEach(([couche, nb]) => stats[couche as CoucheCarte] += nb ?? 0);
+    } else if (p.couche) {
+      stats[p.couche]++;
+    }
   }
-  
-  private getTechnicianStatusColor(status: string): string {
-    const colors: { [key: string]: string } = {
-      'AVAILABLE': '#4CAF50',
-      'BUSY': '#FF9800',
-      'OFFLINE': '#9E9E9E'
-    };
-    return colors[status] || '#6c757d';
+
+  private afficherFeature(f: TuileFeature) {
+    const [lng, lat] = f.geometry.coordinates;
+    const p = f.properties;
+    if (p.groupe) {
+      const total = p.total ?? 0;
+      const taille = total < 10 ? 30 : total < 100 ? 38 : 46;
+      const detail = Object.entries(p.parCouche ?? {})
+        .map(([couche, nb]) => `${this.libelleCouche(couche as CoucheCarte)} : ${nb}`)
+        .join('<br>');
+      L.marker([lat, lng], {
+        icon: L.divIcon({
+          className: 'tuile-groupe',
+          html: `<div style="width:${taille}px;height:${taille}px;line-height:${taille}px;border-radius:50%;
+                  background:rgba(13,110,253,.8);color:white;text-align:center;font-weight:600;">${total}</div>`,
+          iconSize: [taille, taille]
+        })
+      })
+        .bindTooltip(detail)
+        .on('click', () => this.map.setView([lat, lng], Math.min(this.map.getZoom() + 2, 18)))
+        .addTo(this.tuilesLayer);
+    } else {
+      L.circleMarker([lat, lng], {
+        radius: 6,
+        color: 'white',
+        weight: 1,
+        fillColor: this.couleurCouche(p.couche),
+        fillOpacity: 0.9
+      })
+        .bindTooltip(`${this.libelleCouche(p.couche)} ${p.type ?? ''} ${p.statut ?? ''}`)
+        .addTo(this.tuilesLayer);
+    }
   }
-  
-  private getEquipmentStatusLabel(status: string): string {
-    const labels: { [key: string]: string } = {
-      'OPERATIONAL': 'Opérationnel',
-      'MAINTENANCE': 'Maintenance',
-      'OUT_OF_SERVICE': 'Hors service'
-    };
-    return labels[status] || status;
+
+  private libelleCouche(couche?: CoucheCarte): string {
+    switch (couche) {
+      case 'SIGNALEMENT': return '🚨 Signalements';
+      case 'EQUIPEMENT': return '⚙️ Équipements';
+      case 'TECHNICIEN': return '👷 Techniciens';
+      default: return '';
+    }
   }
-  
-  private getEquipmentStatusColor(status: string): string {
-    const colors: { [key: string]: string } = {
-      'OPERATIONAL': '#2196F3',
-      'MAINTENANCE': '#FF9800',
-      'OUT_OF_SERVICE': '#F44336'
-    };
-    return colors[status] || '#6c757d';
+
+  private couleurCouche(couche?: CoucheCarte): string {
+    switch (couche) {
+      case 'SIGNALEMENT': return '#dc3545';
+      case 'EQUIPEMENT': return '#6c757d';
+      case 'TECHNICIEN': return '#198754';
+      default: return '#0d6efd';
+    }
   }
   
-  private handleError(message: string) {
-    this.error = message;
-    console.error(message);
-  }
   // ⭐ AJOUTER cette méthode dans leaflet-map.component.ts
 testButtons() {
   console.log('=== ÉTAT DE LA CARTE ===');
   console.log('Map initialized:', this.mapInitialized);
   console.log('Map object:', !!this.map);
   console.log('User location:', this.userLocation);
-  console.log('Incidents count:', this.incidents.length);
+  console.log('Stats vue:', this.stats);
   console.log('Sidebar visible:', this.sidebarVisible);
   console.log('Loading:', this.loading);
   
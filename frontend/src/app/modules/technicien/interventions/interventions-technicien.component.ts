@@ -195,11 +195,6 @@ export class InterventionsTechnicienComponent implements OnInit {
     }
   }
 
-  truncateText(text: string, limit: number): string {
-    if (!text) return '';
-    return text.length <= limit ? text : text.substring(0, limit) + '...';
-  }
-
   formatDate(date: Date | undefined): string {
     if (!date) return 'Non défini';
     return new Date(date).toLocaleDateString('fr-FR', {